@@ -0,0 +1,60 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.RenderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.graphics.Renderer;
+import com.gameengine.math.Vector2;
+import com.gameengine.scene.Scene;
+
+import java.util.Random;
+
+/**
+ * 基准测试共用的场景构建，使用固定种子保证每次运行的数据一致
+ */
+final class BenchmarkScenes {
+    static final long SEED = 42L;
+    static final float WORLD_WIDTH = 800.0f;
+    static final float WORLD_HEIGHT = 600.0f;
+    static final float DELTA_TIME = 1.0f / 60.0f;
+
+    private BenchmarkScenes() {
+    }
+
+    /**
+     * 创建带有变换和物理组件的对象，renderer不为null时同时添加渲染组件
+     */
+    static GameObject createEntity(Random random, Renderer renderer) {
+        GameObject obj = new GameObject("Entity");
+        obj.addComponent(new TransformComponent(new Vector2(
+                random.nextFloat() * WORLD_WIDTH,
+                random.nextFloat() * WORLD_HEIGHT)));
+        PhysicsComponent physics = obj.addComponent(new PhysicsComponent(1.0f));
+        physics.setVelocity(random.nextFloat() * 200 - 100, random.nextFloat() * 200 - 100);
+        physics.setFriction(1.0f);
+        if (renderer != null) {
+            RenderComponent render = obj.addComponent(new RenderComponent(
+                    RenderComponent.RenderType.RECTANGLE,
+                    new Vector2(8, 8),
+                    new RenderComponent.Color(1.0f, 0.5f, 0.0f, 1.0f)));
+            render.setRenderer(renderer);
+        }
+        return obj;
+    }
+
+    /**
+     * 创建包含count个对象的场景，对象已经加入场景
+     */
+    static Scene createScene(int count, Scene.StorageMode mode, Renderer renderer) {
+        Random random = new Random(SEED);
+        Scene scene = new Scene("Benchmark", mode);
+        for (int i = 0; i < count; i++) {
+            scene.addGameObject(createEntity(random, renderer));
+        }
+        scene.initialize();
+        // 零时长更新一次，把待添加的对象移入场景
+        scene.update(0);
+        return scene;
+    }
+}
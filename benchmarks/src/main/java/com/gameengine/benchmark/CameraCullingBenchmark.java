@@ -0,0 +1,86 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.CameraComponent;
+import com.gameengine.components.RenderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.graphics.NullRenderer;
+import com.gameengine.graphics.OffscreenRenderer;
+import com.gameengine.graphics.Renderer;
+import com.gameengine.math.Vector2;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 世界是屏幕的10x10倍，相机视野只覆盖其中约百分之一。
+ * culling为false时不设置相机，所有对象都提交绘制命令
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class CameraCullingBenchmark {
+    private static final float WORLD_SCALE = 10.0f;
+
+    public enum Backend {
+        NULL,
+        OFFSCREEN
+    }
+
+    @Param({"10000", "100000"})
+    public int entityCount;
+
+    @Param({"NULL", "OFFSCREEN"})
+    public Backend backend;
+
+    @Param({"false", "true"})
+    public boolean culling;
+
+    private Renderer renderer;
+    private Scene scene;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int width = (int) BenchmarkScenes.WORLD_WIDTH;
+        int height = (int) BenchmarkScenes.WORLD_HEIGHT;
+        renderer = backend == Backend.NULL
+                ? new NullRenderer(width, height)
+                : new OffscreenRenderer(width, height);
+        Random random = new Random(BenchmarkScenes.SEED);
+        scene = new Scene("Culling");
+        for (int i = 0; i < entityCount; i++) {
+            GameObject obj = new GameObject("Entity");
+            obj.addComponent(new TransformComponent(new Vector2(
+                    random.nextFloat() * width * WORLD_SCALE,
+                    random.nextFloat() * height * WORLD_SCALE)));
+            RenderComponent render = obj.addComponent(new RenderComponent(
+                    RenderComponent.RenderType.RECTANGLE,
+                    new Vector2(8, 8),
+                    new RenderComponent.Color(1.0f, 0.5f, 0.0f, 1.0f)));
+            render.setRenderer(renderer);
+            scene.addGameObject(obj);
+        }
+        if (culling) {
+            GameObject cameraObject = new GameObject("Camera");
+            CameraComponent camera = cameraObject.addComponent(new CameraComponent(width, height));
+            camera.setRenderer(renderer);
+            camera.setPosition(width * WORLD_SCALE / 2, height * WORLD_SCALE / 2);
+            scene.addGameObject(cameraObject);
+            scene.setCamera(camera);
+        }
+        scene.initialize();
+        scene.update(0);
+    }
+
+    @Benchmark
+    public void renderScene() {
+        renderer.beginFrame();
+        scene.render();
+        renderer.endFrame();
+    }
+}
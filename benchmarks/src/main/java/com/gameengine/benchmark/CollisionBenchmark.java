@@ -0,0 +1,103 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.collision.CollisionListener;
+import com.gameengine.collision.CollisionSystem;
+import com.gameengine.components.ColliderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.math.Vector2;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 火球与蜈蚣的碰撞检测，十分之一的对象作为火球。
+ * bruteForce是原GameExample.checkCollisions的两两距离检测，spatialHash使用CollisionSystem。
+ * 世界大小随对象数量缩放，保持每个格子中的平均对象数不变
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class CollisionBenchmark {
+    private static final float HIT_DISTANCE = 25.0f;
+    private static final int LAYER_FIREBALL = 1;
+    private static final int LAYER_CENTIPEDE = 2;
+
+    @Param({"1000", "10000", "100000"})
+    public int entityCount;
+
+    private GameObject[] fireballs;
+    private GameObject[] centipedes;
+    private CollisionSystem collisionSystem;
+    private int enterCount;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(BenchmarkScenes.SEED);
+        float scale = (float) Math.sqrt(entityCount / 1000.0);
+        float worldWidth = BenchmarkScenes.WORLD_WIDTH * scale;
+        float worldHeight = BenchmarkScenes.WORLD_HEIGHT * scale;
+        Scene scene = new Scene("Collision");
+        fireballs = new GameObject[entityCount / 10];
+        centipedes = new GameObject[entityCount - fireballs.length];
+        for (int i = 0; i < fireballs.length; i++) {
+            fireballs[i] = createCollider(random, worldWidth, worldHeight, LAYER_FIREBALL, LAYER_CENTIPEDE);
+            scene.addGameObject(fireballs[i]);
+        }
+        for (int i = 0; i < centipedes.length; i++) {
+            centipedes[i] = createCollider(random, worldWidth, worldHeight, LAYER_CENTIPEDE, LAYER_FIREBALL);
+            scene.addGameObject(centipedes[i]);
+        }
+        scene.update(0);
+        collisionSystem = new CollisionSystem(scene, HIT_DISTANCE * 2);
+        collisionSystem.addListener(new CollisionListener() {
+            @Override
+            public void onCollisionEnter(ColliderComponent a, ColliderComponent b) {
+                enterCount++;
+            }
+        });
+    }
+
+    private static GameObject createCollider(Random random, float worldWidth, float worldHeight,
+                                             int layer, int mask) {
+        GameObject obj = new GameObject("Collider");
+        obj.addComponent(new TransformComponent(new Vector2(
+                random.nextFloat() * worldWidth,
+                random.nextFloat() * worldHeight)));
+        ColliderComponent collider = obj.addComponent(new ColliderComponent(HIT_DISTANCE / 2));
+        collider.setLayer(layer);
+        collider.setMask(mask);
+        return obj;
+    }
+
+    @Benchmark
+    public int bruteForce() {
+        int hits = 0;
+        for (GameObject fb : fireballs) {
+            TransformComponent fbTrans = fb.getComponent(TransformComponent.class);
+            float fbX = fbTrans.getX();
+            float fbY = fbTrans.getY();
+            for (GameObject cp : centipedes) {
+                TransformComponent cpTrans = cp.getComponent(TransformComponent.class);
+                float dx = fbX - cpTrans.getX();
+                float dy = fbY - cpTrans.getY();
+                if (dx * dx + dy * dy < HIT_DISTANCE * HIT_DISTANCE) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int spatialHash() {
+        collisionSystem.update();
+        return collisionSystem.getContactCount() + enterCount;
+    }
+}
@@ -0,0 +1,54 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameObject.getComponent/hasComponent的查找开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ComponentLookupBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int entityCount;
+
+    private GameObject[] objects;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(BenchmarkScenes.SEED);
+        objects = new GameObject[entityCount];
+        for (int i = 0; i < entityCount; i++) {
+            objects[i] = BenchmarkScenes.createEntity(random, null);
+        }
+    }
+
+    @Benchmark
+    public float getComponent() {
+        float sum = 0;
+        for (GameObject obj : objects) {
+            sum += obj.getComponent(TransformComponent.class).getX();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int hasComponent() {
+        int count = 0;
+        for (GameObject obj : objects) {
+            if (obj.hasComponent(PhysicsComponent.class)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,59 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.scene.Query;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 清场：一帧内销毁一半对象（隔一个销毁一个）后更新场景，包含从实体表、查询和原型存储中移除的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class DespawnBenchmark {
+    @Param({"10000", "100000"})
+    public int entityCount;
+
+    @Param({"OBJECT", "ARCHETYPE"})
+    public Scene.StorageMode storageMode;
+
+    private Scene scene;
+    private GameObject[] objects;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        scene = new Scene("DespawnBenchmark", storageMode);
+        scene.initialize();
+        // 建立索引，销毁时同样要从查询中移除
+        Query transforms = scene.query(TransformComponent.class);
+        objects = new GameObject[entityCount];
+        for (int i = 0; i < entityCount; i++) {
+            GameObject obj = new GameObject();
+            obj.addComponent(new TransformComponent());
+            obj.addComponent(new PhysicsComponent(1.0f));
+            scene.addGameObject(obj);
+            objects[i] = obj;
+        }
+        scene.update(0);
+        if (transforms.size() != entityCount) {
+            throw new IllegalStateException();
+        }
+    }
+
+    @Benchmark
+    public int despawnHalf() {
+        for (int i = 0; i < objects.length; i += 2) {
+            objects[i].destroy();
+        }
+        scene.update(BenchmarkScenes.DELTA_TIME);
+        return scene.query(TransformComponent.class).size();
+    }
+}
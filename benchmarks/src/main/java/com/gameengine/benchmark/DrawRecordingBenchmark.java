@@ -0,0 +1,51 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.graphics.NullRenderer;
+import com.gameengine.graphics.OffscreenRenderer;
+import com.gameengine.graphics.Renderer;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scene.render提交绘制命令的开销，NULL只统计提交，OFFSCREEN包含光栅化
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class DrawRecordingBenchmark {
+    public enum Backend {
+        NULL,
+        OFFSCREEN
+    }
+
+    @Param({"1000", "10000", "100000"})
+    public int entityCount;
+
+    @Param({"NULL", "OFFSCREEN"})
+    public Backend backend;
+
+    private Renderer renderer;
+    private Scene scene;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int width = (int) BenchmarkScenes.WORLD_WIDTH;
+        int height = (int) BenchmarkScenes.WORLD_HEIGHT;
+        renderer = backend == Backend.NULL
+                ? new NullRenderer(width, height)
+                : new OffscreenRenderer(width, height);
+        scene = BenchmarkScenes.createScene(entityCount, Scene.StorageMode.OBJECT, renderer);
+    }
+
+    @Benchmark
+    public void renderScene() {
+        renderer.beginFrame();
+        scene.render();
+        renderer.endFrame();
+    }
+}
@@ -0,0 +1,68 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.input.InputManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.event.KeyEvent;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每步写入eventsPerTick个输入事件（按键按下、松开和鼠标移动交替），
+ * 然后调用update并查询常用按键，模拟一帧的输入处理
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class InputBenchmark {
+    private static final int[] KEYS = {
+            KeyEvent.VK_W, KeyEvent.VK_A, KeyEvent.VK_S, KeyEvent.VK_D,
+            KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT,
+            KeyEvent.VK_SPACE, KeyEvent.VK_SHIFT, KeyEvent.VK_ESCAPE, KeyEvent.VK_ENTER
+    };
+
+    @Param({"16", "256"})
+    public int eventsPerTick;
+
+    private InputManager input;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        input = InputManager.getInstance();
+        input.update();
+        cursor = 0;
+    }
+
+    @Benchmark
+    public int tick() {
+        for (int i = 0; i < eventsPerTick; i++) {
+            int n = cursor++;
+            int key = KEYS[n % KEYS.length];
+            switch (n % 3) {
+                case 0:
+                    input.onKeyPressed(key);
+                    break;
+                case 1:
+                    input.onKeyReleased(key);
+                    break;
+                default:
+                    input.onMouseMoved(n & 511, (n >>> 9) & 511);
+                    break;
+            }
+        }
+        input.update();
+        int count = 0;
+        for (int key : KEYS) {
+            if (input.isKeyPressed(key)) {
+                count++;
+            }
+            if (input.isKeyJustPressed(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,102 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.core.GameEngine;
+import com.gameengine.graphics.NullRenderer;
+import com.gameengine.input.InputEventHandler;
+import com.gameengine.input.InputManager;
+import com.gameengine.input.InputRecorder;
+import com.gameengine.input.InputReplay;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用固定种子生成一段ticks步的输入录制，每步有几个按键和鼠标事件。
+ * replaySession按录制回放整段会话，包括场景更新和空渲染；
+ * decodeSession只解码日志，衡量回放本身的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class InputReplayBenchmark {
+    @Param({"600"})
+    public int ticks;
+
+    @Param({"1000"})
+    public int entityCount;
+
+    private InputReplay replay;
+    private GameEngine engine;
+    private int logSize;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputRecorder recorder = new InputRecorder(out, BenchmarkScenes.SEED, true, 60.0f);
+        InputManager input = InputManager.getInstance();
+        input.reset();
+        input.setRecorder(recorder);
+        Random random = new Random(BenchmarkScenes.SEED);
+        int mouseX = 400;
+        int mouseY = 300;
+        for (int t = 0; t < ticks; t++) {
+            int events = random.nextInt(6);
+            for (int i = 0; i < events; i++) {
+                int key = 65 + random.nextInt(26);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        input.onKeyPressed(key);
+                        break;
+                    case 1:
+                        input.onKeyReleased(key);
+                        break;
+                    default:
+                        mouseX = Math.floorMod(mouseX + random.nextInt(21) - 10, (int) BenchmarkScenes.WORLD_WIDTH);
+                        mouseY = Math.floorMod(mouseY + random.nextInt(21) - 10, (int) BenchmarkScenes.WORLD_HEIGHT);
+                        input.onMouseMoved(mouseX, mouseY);
+                        break;
+                }
+            }
+            input.update();
+            recorder.endTick(BenchmarkScenes.DELTA_TIME);
+        }
+        input.setRecorder(null);
+        recorder.close();
+        byte[] log = out.toByteArray();
+        logSize = log.length;
+        replay = new InputReplay(log);
+
+        Scene scene = BenchmarkScenes.createScene(entityCount, Scene.StorageMode.OBJECT, null);
+        engine = new GameEngine(new NullRenderer((int) BenchmarkScenes.WORLD_WIDTH,
+                (int) BenchmarkScenes.WORLD_HEIGHT, "InputReplayBenchmark"));
+        engine.setScene(scene);
+    }
+
+    @Benchmark
+    public long replaySession() {
+        replay.rewind();
+        return engine.runReplay(replay);
+    }
+
+    @Benchmark
+    public void decodeSession(Blackhole blackhole) {
+        replay.rewind();
+        InputEventHandler handler = blackhole::consume;
+        while (replay.hasNextTick()) {
+            blackhole.consume(replay.nextTick(handler));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.println("\n输入日志: " + ticks + "步, " + logSize + "字节");
+    }
+}
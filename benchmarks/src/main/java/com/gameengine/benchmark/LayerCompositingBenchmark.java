@@ -0,0 +1,84 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.graphics.OffscreenRenderer;
+import com.gameengine.graphics.RenderLayer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大部分画面静止的一帧：全屏背景加上tileCount个不动的图块，只有少量精灵在一角移动，
+ * 右上角的得分每帧变化。layered为false时所有命令都在默认层，每帧重绘整个图像；
+ * 为true时背景和图块放在缓存层，只重绘精灵和得分覆盖的图块
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class LayerCompositingBenchmark {
+    private static final int SPRITE_COUNT = 20;
+
+    @Param({"2000"})
+    public int tileCount;
+
+    @Param({"false", "true"})
+    public boolean layered;
+
+    private OffscreenRenderer renderer;
+    private RenderLayer background;
+    private RenderLayer hud;
+    private float[] tileX;
+    private float[] tileY;
+    private float[] spriteX;
+    private float[] spriteY;
+    private long frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(BenchmarkScenes.SEED);
+        tileX = new float[tileCount];
+        tileY = new float[tileCount];
+        for (int i = 0; i < tileCount; i++) {
+            tileX[i] = random.nextFloat() * BenchmarkScenes.WORLD_WIDTH;
+            tileY[i] = random.nextFloat() * BenchmarkScenes.WORLD_HEIGHT;
+        }
+        spriteX = new float[SPRITE_COUNT];
+        spriteY = new float[SPRITE_COUNT];
+        for (int i = 0; i < SPRITE_COUNT; i++) {
+            spriteX[i] = random.nextFloat() * 150;
+            spriteY[i] = random.nextFloat() * 150;
+        }
+        renderer = new OffscreenRenderer((int) BenchmarkScenes.WORLD_WIDTH, (int) BenchmarkScenes.WORLD_HEIGHT);
+        background = new RenderLayer("background", -100, true);
+        hud = new RenderLayer("hud", 100, false);
+        frame = 0;
+    }
+
+    @Benchmark
+    public long renderFrame() {
+        frame++;
+        renderer.beginFrame();
+        if (!layered || renderer.beginLayer(background)) {
+            renderer.drawRect(0, 0, BenchmarkScenes.WORLD_WIDTH, BenchmarkScenes.WORLD_HEIGHT, 0.1f, 0.1f, 0.2f, 1.0f);
+            for (int i = 0; i < tileCount; i++) {
+                renderer.drawRect(tileX[i], tileY[i], 12, 12, 0.3f, 0.25f, 0.2f, 1.0f);
+            }
+        }
+        if (layered) {
+            renderer.beginLayer(RenderLayer.DEFAULT);
+        }
+        float offset = frame % 50;
+        for (int i = 0; i < SPRITE_COUNT; i++) {
+            renderer.drawCircle(spriteX[i] + offset, spriteY[i], 6, 16, 1.0f, 0.5f, 0.0f, 1.0f);
+        }
+        if (layered) {
+            renderer.beginLayer(hud);
+        }
+        renderer.drawText("得分: ", frame, 650, 20, 1.0f, 1.0f, 1.0f, 1.0f);
+        renderer.endFrame();
+        return renderer.getFrameCount();
+    }
+}
@@ -0,0 +1,70 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.scene.ChunkConsumer;
+import com.gameengine.scene.CommandBuffer;
+import com.gameengine.scene.Query;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单线程遍历与Scene.forEachParallel的对比，每个对象执行一次朝目标点的转向计算
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ParallelQueryBenchmark {
+    private static final float TARGET_X = BenchmarkScenes.WORLD_WIDTH * 0.5f;
+    private static final float TARGET_Y = BenchmarkScenes.WORLD_HEIGHT * 0.5f;
+    private static final float MAX_SPEED = 100.0f;
+
+    @Param({"10000", "100000"})
+    public int entityCount;
+
+    @Param({"256", "1024", "4096"})
+    public int chunkSize;
+
+    private Scene scene;
+    private Query query;
+    private final ChunkConsumer steering = ParallelQueryBenchmark::steer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scene = BenchmarkScenes.createScene(entityCount, Scene.StorageMode.OBJECT, null);
+        scene.setParallelChunkSize(chunkSize);
+        query = scene.query(TransformComponent.class, PhysicsComponent.class);
+    }
+
+    @Benchmark
+    public void sequential() {
+        steer(query, 0, query.size(), null);
+    }
+
+    @Benchmark
+    public void parallel() {
+        scene.forEachParallel(query, steering);
+    }
+
+    private static void steer(Query query, int start, int end, CommandBuffer commands) {
+        for (int i = start; i < end; i++) {
+            TransformComponent transform = (TransformComponent) query.getComponent(i);
+            PhysicsComponent physics = query.get(i).getComponent(PhysicsComponent.class);
+            float dx = TARGET_X - transform.getX();
+            float dy = TARGET_Y - transform.getY();
+            float distance = (float) Math.sqrt(dx * dx + dy * dy);
+            if (distance < 1.0f) {
+                continue;
+            }
+            // 到达行为：距离越近期望速度越小
+            float speed = Math.min(MAX_SPEED, distance);
+            float angle = (float) Math.atan2(dy, dx);
+            physics.setAcceleration((float) Math.cos(angle) * speed, (float) Math.sin(angle) * speed);
+        }
+    }
+}
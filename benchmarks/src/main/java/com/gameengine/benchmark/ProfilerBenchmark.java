@@ -0,0 +1,48 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.profiler.Profiler;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 开启和关闭性能分析时一帧的开销：Scene.update加上帧的开始和结束，
+ * 开启时每个对象的每个组件多两次计时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ProfilerBenchmark {
+    @Param({"10000"})
+    public int entityCount;
+
+    @Param({"OBJECT", "ARCHETYPE"})
+    public Scene.StorageMode storageMode;
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private Scene scene;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scene = BenchmarkScenes.createScene(entityCount, storageMode, null);
+        Profiler.setEnabled(enabled);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Profiler.setEnabled(false);
+    }
+
+    @Benchmark
+    public void frame() {
+        Profiler.beginFrame();
+        scene.update(BenchmarkScenes.DELTA_TIME);
+        Profiler.endFrame();
+    }
+}
@@ -0,0 +1,68 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.scene.Query;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scene的组件查询方法
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int entityCount;
+
+    private Scene scene;
+    private Query query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scene = BenchmarkScenes.createScene(entityCount, Scene.StorageMode.OBJECT, null);
+        query = scene.query(TransformComponent.class, PhysicsComponent.class);
+    }
+
+    @Benchmark
+    public float findGameObjectsByComponent() {
+        List<GameObject> objects = scene.findGameObjectsByComponent(TransformComponent.class);
+        float sum = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            sum += objects.get(i).getComponent(TransformComponent.class).getX();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float getComponents() {
+        List<TransformComponent> transforms = scene.getComponents(TransformComponent.class);
+        float sum = 0;
+        for (int i = 0; i < transforms.size(); i++) {
+            sum += transforms.get(i).getX();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float liveQuery() {
+        float sum = 0;
+        for (int i = 0; i < query.size(); i++) {
+            sum += ((TransformComponent) query.getComponent(i)).getY();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int getGameObjects() {
+        return scene.getGameObjects().size();
+    }
+}
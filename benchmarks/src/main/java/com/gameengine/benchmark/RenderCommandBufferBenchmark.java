@@ -0,0 +1,108 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.graphics.ColorCache;
+import com.gameengine.graphics.RenderCommandBuffer;
+import com.gameengine.graphics.TextCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 绘制命令缓冲的记录与回放。record只统计记录，稳定状态下不分配内存；
+ * perDrawObjects是原SwingRenderer每次绘制创建Drawable和Color对象的做法；
+ * replay把已记录的一帧光栅化到BufferedImage
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class RenderCommandBufferBenchmark {
+    @Param({"1000", "50000"})
+    public int shapeCount;
+
+    private float[] xs;
+    private float[] ys;
+    private float[][] rgb;
+    private RenderCommandBuffer buffer;
+    private ColorCache colorCache;
+    private TextCache textCache;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private RectDrawable[] drawables;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(BenchmarkScenes.SEED);
+        xs = new float[shapeCount];
+        ys = new float[shapeCount];
+        rgb = new float[shapeCount][];
+        for (int i = 0; i < shapeCount; i++) {
+            xs[i] = random.nextFloat() * BenchmarkScenes.WORLD_WIDTH;
+            ys[i] = random.nextFloat() * BenchmarkScenes.WORLD_HEIGHT;
+            // 与示例游戏相近，只有少量不同的颜色
+            int palette = random.nextInt(8);
+            rgb[i] = new float[]{palette / 8.0f, 1.0f - palette / 8.0f, 0.5f};
+        }
+        buffer = new RenderCommandBuffer();
+        colorCache = new ColorCache();
+        textCache = new TextCache();
+        image = new BufferedImage((int) BenchmarkScenes.WORLD_WIDTH, (int) BenchmarkScenes.WORLD_HEIGHT,
+                BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+        drawables = new RectDrawable[shapeCount];
+        record();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public int record() {
+        buffer.clear();
+        for (int i = 0; i < shapeCount; i++) {
+            float[] c = rgb[i];
+            if ((i & 1) == 0) {
+                buffer.addRect(xs[i], ys[i], 8, 8, RenderCommandBuffer.packColor(c[0], c[1], c[2], 1.0f));
+            } else {
+                buffer.addCircle(xs[i], ys[i], 4, RenderCommandBuffer.packColor(c[0], c[1], c[2], 1.0f));
+            }
+        }
+        return buffer.size();
+    }
+
+    @Benchmark
+    public Object perDrawObjects() {
+        for (int i = 0; i < shapeCount; i++) {
+            float[] c = rgb[i];
+            drawables[i] = new RectDrawable(xs[i], ys[i], 8, 8, new Color(c[0], c[1], c[2], 1.0f));
+        }
+        return drawables;
+    }
+
+    @Benchmark
+    public int replay() {
+        buffer.replay(graphics, colorCache, textCache);
+        return buffer.size();
+    }
+
+    private static final class RectDrawable {
+        final float x, y, width, height;
+        final Color color;
+
+        RectDrawable(float x, float y, float width, float height, Color color) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.color = color;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.graphics.NullRenderer;
+import com.gameengine.scene.Scene;
+import com.gameengine.scene.SceneSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构建含entityCount个对象的场景：buildInCode在代码中逐个创建，
+ * loadSnapshot从场景快照加载，两者都包含加入场景的第一次更新；saveSnapshot保存整个场景
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SceneSnapshotBenchmark {
+    @Param({"100000"})
+    public int entityCount;
+
+    @Param({"ARCHETYPE"})
+    public Scene.StorageMode storageMode;
+
+    private NullRenderer renderer;
+    private Scene scene;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        renderer = new NullRenderer((int) BenchmarkScenes.WORLD_WIDTH, (int) BenchmarkScenes.WORLD_HEIGHT,
+                "SceneSnapshotBenchmark");
+        scene = BenchmarkScenes.createScene(entityCount, storageMode, renderer);
+        file = Files.createTempFile("scene", ".snapshot");
+        SceneSnapshot.save(scene, file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Scene buildInCode() {
+        return BenchmarkScenes.createScene(entityCount, storageMode, renderer);
+    }
+
+    @Benchmark
+    public Scene loadSnapshot() throws IOException {
+        Scene loaded = new Scene("Loaded", storageMode);
+        SceneSnapshot.load(file, loaded, renderer);
+        loaded.initialize();
+        loaded.update(0);
+        return loaded;
+    }
+
+    @Benchmark
+    public int saveSnapshot() throws IOException {
+        return SceneSnapshot.save(scene, file);
+    }
+}
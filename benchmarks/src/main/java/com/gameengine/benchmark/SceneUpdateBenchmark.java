@@ -0,0 +1,35 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scene.update的开销，包含PhysicsComponent的积分
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class SceneUpdateBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int entityCount;
+
+    @Param({"OBJECT", "ARCHETYPE"})
+    public Scene.StorageMode storageMode;
+
+    private Scene scene;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scene = BenchmarkScenes.createScene(entityCount, storageMode, null);
+    }
+
+    @Benchmark
+    public void update() {
+        scene.update(BenchmarkScenes.DELTA_TIME);
+    }
+}
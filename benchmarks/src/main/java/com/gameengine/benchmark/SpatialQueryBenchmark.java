@@ -0,0 +1,97 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.scene.Query;
+import com.gameengine.scene.RaycastHit;
+import com.gameengine.scene.Scene;
+import com.gameengine.scene.SpatialIndex;
+import com.gameengine.scene.SpatialVisitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 空间索引查询与线性扫描的对比，rebuild测量完整重建的开销，
+ * moveTenth测量十分之一的对象移动后增量更新索引的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class SpatialQueryBenchmark {
+    private static final float QUERY_X = BenchmarkScenes.WORLD_WIDTH * 0.5f;
+    private static final float QUERY_Y = BenchmarkScenes.WORLD_HEIGHT * 0.5f;
+    private static final float QUERY_RADIUS = 20.0f;
+
+    @Param({"1000", "10000", "100000"})
+    public int entityCount;
+
+    private Scene scene;
+    private Query transforms;
+    private SpatialIndex index;
+    private final GameObject[] nearestBuffer = new GameObject[8];
+    private final RaycastHit hit = new RaycastHit();
+    private int visited;
+    private float step = 1.0f;
+    private final SpatialVisitor counter = gameObject -> {
+        visited++;
+        return true;
+    };
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scene = BenchmarkScenes.createScene(entityCount, Scene.StorageMode.OBJECT, null);
+        transforms = scene.query(TransformComponent.class);
+        index = scene.getSpatialIndex();
+        index.rebuild();
+    }
+
+    @Benchmark
+    public void rebuild() {
+        index.rebuild();
+    }
+
+    @Benchmark
+    public int moveTenth() {
+        step = -step;
+        for (int i = 0; i < transforms.size(); i += 10) {
+            ((TransformComponent) transforms.getComponent(i)).translate(step, step);
+        }
+        return index.size();
+    }
+
+    @Benchmark
+    public int queryRadius() {
+        visited = 0;
+        index.queryRadius(QUERY_X, QUERY_Y, QUERY_RADIUS, counter);
+        return visited;
+    }
+
+    @Benchmark
+    public int queryRadiusLinearScan() {
+        int count = 0;
+        for (int i = 0; i < transforms.size(); i++) {
+            TransformComponent transform = (TransformComponent) transforms.getComponent(i);
+            float dx = transform.getX() - QUERY_X;
+            float dy = transform.getY() - QUERY_Y;
+            if (dx * dx + dy * dy <= QUERY_RADIUS * QUERY_RADIUS) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int nearest8() {
+        return index.nearest(QUERY_X, QUERY_Y, nearestBuffer.length, nearestBuffer);
+    }
+
+    @Benchmark
+    public boolean raycast() {
+        return index.raycast(0, 0, BenchmarkScenes.WORLD_WIDTH, BenchmarkScenes.WORLD_HEIGHT,
+                Float.MAX_VALUE, hit);
+    }
+}
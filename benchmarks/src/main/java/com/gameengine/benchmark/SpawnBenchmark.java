@@ -0,0 +1,81 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.ColliderComponent;
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.RenderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.math.Vector2;
+import com.gameengine.scene.Prefab;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每帧生成spawnPerFrame个子弹，存活若干帧后销毁，场景中保持约liveCount个子弹。
+ * pooled为true时通过Scene.spawn从对象池复用，为false时每次用预制体创建新对象
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class SpawnBenchmark {
+    @Param({"50"})
+    public int spawnPerFrame;
+
+    @Param({"1000"})
+    public int liveCount;
+
+    @Param({"OBJECT", "ARCHETYPE"})
+    public Scene.StorageMode storageMode;
+
+    @Param({"false", "true"})
+    public boolean pooled;
+
+    private Scene scene;
+    private Prefab<GameObject> prefab;
+    private ArrayDeque<GameObject> live;
+    private long frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scene = new Scene("SpawnBenchmark", storageMode);
+        scene.initialize();
+        prefab = new Prefab<>("bullet", GameObject::new)
+                .with(TransformComponent::new)
+                .with(() -> new RenderComponent(RenderComponent.RenderType.RECTANGLE,
+                        new Vector2(8, 12), new RenderComponent.Color(1.0f, 0.0f, 0.0f, 1.0f)))
+                .with(() -> new PhysicsComponent(0.1f), physics -> physics.setFriction(1.0f))
+                .with(() -> new ColliderComponent(6.0f));
+        live = new ArrayDeque<>(liveCount + spawnPerFrame);
+        frame = 0;
+    }
+
+    @Benchmark
+    public int spawnAndDestroy() {
+        frame++;
+        for (int i = 0; i < spawnPerFrame; i++) {
+            GameObject bullet;
+            if (pooled) {
+                bullet = scene.spawn(prefab);
+            } else {
+                bullet = prefab.instantiate();
+                scene.addGameObject(bullet);
+            }
+            TransformComponent transform = bullet.getComponent(TransformComponent.class);
+            transform.setPosition(i * 16, frame % BenchmarkScenes.WORLD_HEIGHT);
+            transform.storePreviousPosition();
+            bullet.getComponent(PhysicsComponent.class).setVelocity(0, -300);
+            live.add(bullet);
+        }
+        while (live.size() > liveCount) {
+            live.poll().destroy();
+        }
+        scene.update(BenchmarkScenes.DELTA_TIME);
+        return live.size();
+    }
+}
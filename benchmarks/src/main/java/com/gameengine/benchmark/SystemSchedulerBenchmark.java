@@ -0,0 +1,71 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameSystem;
+import com.gameengine.scene.CommandBuffer;
+import com.gameengine.scene.Query;
+import com.gameengine.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 系统调度器按依赖图并行执行与按注册顺序串行执行的对比。
+ * 每个系统只读取变换组件并累加自己的结果，系统之间互不冲突
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class SystemSchedulerBenchmark {
+    @Param({"2", "8"})
+    public int systemCount;
+
+    @Param({"true", "false"})
+    public boolean parallel;
+
+    private Scene scene;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        scene = BenchmarkScenes.createScene(10000, Scene.StorageMode.OBJECT, null);
+        scene.getSystemScheduler().setParallel(parallel);
+        Query query = scene.query(TransformComponent.class, PhysicsComponent.class);
+        for (int i = 0; i < systemCount; i++) {
+            scene.addSystem(new SumSystem("Sum" + i, query));
+        }
+    }
+
+    @Benchmark
+    public long update() {
+        scene.getSystemScheduler().update(BenchmarkScenes.DELTA_TIME);
+        return scene.getSystemScheduler().getLastUpdateNanos();
+    }
+
+    /**
+     * 只读系统，对每个对象做少量计算
+     */
+    private static final class SumSystem extends GameSystem {
+        private final Query query;
+        private double sum;
+
+        SumSystem(String name, Query query) {
+            super(name);
+            this.query = query;
+            reads(TransformComponent.class);
+        }
+
+        @Override
+        public void update(Scene scene, float deltaTime, CommandBuffer commands) {
+            double total = 0;
+            for (int i = 0; i < query.size(); i++) {
+                TransformComponent transform = (TransformComponent) query.getComponent(i);
+                total += Math.sqrt(transform.getX() * transform.getX() + transform.getY() * transform.getY());
+            }
+            sum += total;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.graphics.ColorCache;
+import com.gameengine.graphics.RenderCommandBuffer;
+import com.gameengine.graphics.TextCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一帧HUD文字的绘制开销，每个标签由固定文字和每帧变化的数值组成。
+ * drawString是原来每次创建字体和颜色、拼接字符串再绘制的做法，
+ * textCache复用字体和颜色，缓存不变文字的排版，数值不经过字符串直接绘制
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class TextRenderingBenchmark {
+    @Param({"40"})
+    public int labelCount;
+
+    private String[] labels;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private TextCache textCache;
+    private ColorCache colorCache;
+    private int argb;
+    private long frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        labels = new String[labelCount];
+        for (int i = 0; i < labelCount; i++) {
+            labels[i] = "当前得分" + i + ": ";
+        }
+        image = new BufferedImage((int) BenchmarkScenes.WORLD_WIDTH, (int) BenchmarkScenes.WORLD_HEIGHT,
+                BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        textCache = new TextCache();
+        colorCache = new ColorCache();
+        argb = RenderCommandBuffer.packColor(1.0f, 1.0f, 1.0f, 1.0f);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public void drawString() {
+        frame++;
+        for (int i = 0; i < labelCount; i++) {
+            graphics.setColor(new Color(1.0f, 1.0f, 1.0f, 1.0f));
+            graphics.setFont(new Font("黑体", Font.BOLD, 18));
+            graphics.drawString(labels[i] + (frame + i), 10, 20 + (i % 25) * 22);
+        }
+    }
+
+    @Benchmark
+    public void textCache() {
+        frame++;
+        for (int i = 0; i < labelCount; i++) {
+            int y = 20 + (i % 25) * 22;
+            graphics.setColor(colorCache.get(argb));
+            int width = textCache.drawText(graphics, labels[i], 10, y);
+            textCache.drawNumber(graphics, frame + i, 10 + width, y);
+        }
+        textCache.endFrame();
+    }
+}
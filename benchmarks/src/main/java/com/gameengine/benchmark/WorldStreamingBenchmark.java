@@ -0,0 +1,97 @@
+package com.gameengine.benchmark;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.graphics.NullRenderer;
+import com.gameengine.scene.Scene;
+import com.gameengine.scene.WorldStreamer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 焦点在世界中绕圈移动时每次场景更新的耗时。世界的对象密度固定，大小随worldObjects增加；
+ * streamed为true时由WorldStreamer只保留焦点附近的区块，否则全部对象一直在场景中
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class WorldStreamingBenchmark {
+    private static final float CHUNK_SIZE = 512.0f;
+    // 每个区块平均的对象数
+    private static final int OBJECTS_PER_CHUNK = 128;
+    private static final float FOCUS_SPEED = 300.0f;
+
+    @Param({"50000", "200000"})
+    public int worldObjects;
+
+    @Param({"true", "false"})
+    public boolean streamed;
+
+    private Scene scene;
+    private WorldStreamer streamer;
+    private float worldSize;
+    private float angle;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        NullRenderer renderer = new NullRenderer((int) BenchmarkScenes.WORLD_WIDTH,
+                (int) BenchmarkScenes.WORLD_HEIGHT, "WorldStreamingBenchmark");
+        worldSize = CHUNK_SIZE * (float) Math.sqrt((double) worldObjects / OBJECTS_PER_CHUNK);
+        scene = new Scene("World");
+        if (streamed) {
+            streamer = new WorldStreamer(scene, renderer, CHUNK_SIZE, 2, 3);
+            scene.addSystem(streamer);
+        }
+        Random random = new Random(BenchmarkScenes.SEED);
+        for (int i = 0; i < worldObjects; i++) {
+            GameObject obj = BenchmarkScenes.createEntity(random, renderer);
+            obj.getComponent(TransformComponent.class)
+                    .setPosition(random.nextFloat() * worldSize, random.nextFloat() * worldSize);
+            // 对象静止，密度在测量期间保持不变
+            obj.getComponent(PhysicsComponent.class).setVelocity(0.0f, 0.0f);
+            if (streamed) {
+                streamer.addToWorld(obj);
+            } else {
+                scene.addGameObject(obj);
+            }
+        }
+        scene.initialize();
+        angle = 0.0f;
+        moveFocus();
+        scene.update(0);
+        // 等焦点附近的区块加载完
+        while (streamed && (streamer.getLoadingChunkCount() > 0 || streamer.getPendingActivationCount() > 0)) {
+            Thread.sleep(1);
+            scene.update(0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (streamer != null) {
+            streamer.shutdown();
+        }
+    }
+
+    private void moveFocus() {
+        float radius = worldSize * 0.3f;
+        angle += FOCUS_SPEED * BenchmarkScenes.DELTA_TIME / radius;
+        if (streamer != null) {
+            streamer.setFocus(worldSize * 0.5f + radius * (float) Math.cos(angle),
+                    worldSize * 0.5f + radius * (float) Math.sin(angle));
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        moveFocus();
+        scene.update(BenchmarkScenes.DELTA_TIME);
+        return scene.getGameObjectCount();
+    }
+}
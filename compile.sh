@@ -10,16 +10,73 @@ mkdir -p build/classes
 javac -d build/classes \
     -cp . \
     src/main/java/com/gameengine/math/Vector2.java \
+    src/main/java/com/gameengine/input/InputEventHandler.java \
+    src/main/java/com/gameengine/input/InputEventQueue.java \
+    src/main/java/com/gameengine/input/InputLog.java \
+    src/main/java/com/gameengine/input/InputRecorder.java \
+    src/main/java/com/gameengine/input/InputReplay.java \
     src/main/java/com/gameengine/input/InputManager.java \
+    src/main/java/com/gameengine/profiler/FrameTimeHistogram.java \
+    src/main/java/com/gameengine/profiler/ThreadBuffer.java \
+    src/main/java/com/gameengine/profiler/ChromeTraceWriter.java \
+    src/main/java/com/gameengine/profiler/Profiler.java \
+    src/main/java/com/gameengine/profiler/FrameEvent.java \
+    src/main/java/com/gameengine/profiler/SceneUpdateEvent.java \
+    src/main/java/com/gameengine/profiler/EntityBurstEvent.java \
+    src/main/java/com/gameengine/profiler/CollisionPassEvent.java \
+    src/main/java/com/gameengine/profiler/RenderEvent.java \
+    src/main/java/com/gameengine/profiler/PresentEvent.java \
+    src/main/java/com/gameengine/profiler/PaintEvent.java \
+    src/main/java/com/gameengine/profiler/EngineEvents.java \
+    src/main/java/com/gameengine/profiler/GcPauseMonitor.java \
+    src/main/java/com/gameengine/profiler/FrameTelemetry.java \
     src/main/java/com/gameengine/core/Component.java \
+    src/main/java/com/gameengine/core/ComponentMask.java \
+    src/main/java/com/gameengine/core/ComponentType.java \
     src/main/java/com/gameengine/core/GameObject.java \
     src/main/java/com/gameengine/components/TransformComponent.java \
     src/main/java/com/gameengine/components/PhysicsComponent.java \
     src/main/java/com/gameengine/components/RenderComponent.java \
+    src/main/java/com/gameengine/components/ColliderComponent.java \
+    src/main/java/com/gameengine/components/CameraComponent.java \
     src/main/java/com/gameengine/graphics/Renderer.java \
+    src/main/java/com/gameengine/graphics/SwingRenderer.java \
+    src/main/java/com/gameengine/graphics/NullRenderer.java \
+    src/main/java/com/gameengine/graphics/OffscreenRenderer.java \
+    src/main/java/com/gameengine/graphics/RenderCommandBuffer.java \
+    src/main/java/com/gameengine/graphics/ColorCache.java \
+    src/main/java/com/gameengine/graphics/DirtyRegion.java \
+    src/main/java/com/gameengine/graphics/RenderLayer.java \
+    src/main/java/com/gameengine/graphics/RenderFrame.java \
+    src/main/java/com/gameengine/graphics/LayerCache.java \
+    src/main/java/com/gameengine/graphics/Fonts.java \
+    src/main/java/com/gameengine/graphics/TextCache.java \
+    src/main/java/com/gameengine/graphics/AwtInputBridge.java \
+    src/main/java/com/gameengine/graphics/ActiveRenderer.java \
+    src/main/java/com/gameengine/graphics/DebugOverlay.java \
+    src/main/java/com/gameengine/collision/CollisionListener.java \
+    src/main/java/com/gameengine/collision/LongHashSet.java \
+    src/main/java/com/gameengine/collision/SpatialHashGrid.java \
+    src/main/java/com/gameengine/collision/CollisionSystem.java \
     src/main/java/com/gameengine/core/GameEngine.java \
     src/main/java/com/gameengine/core/GameLogic.java \
+    src/main/java/com/gameengine/core/GameSystem.java \
+    src/main/java/com/gameengine/core/SystemScheduler.java \
+    src/main/java/com/gameengine/scene/Archetype.java \
+    src/main/java/com/gameengine/scene/ArchetypeStorage.java \
+    src/main/java/com/gameengine/scene/EntityRegistry.java \
+    src/main/java/com/gameengine/scene/Query.java \
+    src/main/java/com/gameengine/scene/SpatialIndex.java \
+    src/main/java/com/gameengine/scene/SpatialVisitor.java \
+    src/main/java/com/gameengine/scene/WorldStreamer.java \
+    src/main/java/com/gameengine/scene/RaycastHit.java \
+    src/main/java/com/gameengine/scene/ChunkConsumer.java \
+    src/main/java/com/gameengine/scene/ChunkRunner.java \
+    src/main/java/com/gameengine/scene/CommandBuffer.java \
+    src/main/java/com/gameengine/scene/Prefab.java \
+    src/main/java/com/gameengine/scene/GameObjectPool.java \
     src/main/java/com/gameengine/scene/Scene.java \
+    src/main/java/com/gameengine/scene/SceneSnapshot.java \
     src/main/java/com/gameengine/example/GameExample.java
 
 if [ $? -eq 0 ]; then
@@ -0,0 +1,27 @@
+package com.gameengine.collision;
+
+import com.gameengine.components.ColliderComponent;
+
+/**
+ * 碰撞事件监听器。每对碰撞体每次检测只收到一个事件，
+ * a的碰撞编号总是小于b，需要区分双方时按层或所属对象判断
+ */
+public interface CollisionListener {
+    /**
+     * 两个碰撞体开始接触
+     */
+    default void onCollisionEnter(ColliderComponent a, ColliderComponent b) {
+    }
+
+    /**
+     * 两个碰撞体保持接触
+     */
+    default void onCollisionStay(ColliderComponent a, ColliderComponent b) {
+    }
+
+    /**
+     * 两个碰撞体分离，或其中一个被销毁、禁用
+     */
+    default void onCollisionExit(ColliderComponent a, ColliderComponent b) {
+    }
+}
@@ -0,0 +1,336 @@
+package com.gameengine.collision;
+
+import com.gameengine.components.ColliderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.ComponentType;
+import com.gameengine.core.GameSystem;
+import com.gameengine.profiler.CollisionPassEvent;
+import com.gameengine.scene.CommandBuffer;
+import com.gameengine.scene.Query;
+import com.gameengine.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 碰撞系统。每次更新用空间哈希网格重建宽阶段，
+ * 按层和掩码过滤后做窄阶段检测，并派发去重后的进入、保持、离开事件。
+ * 监听器可能直接销毁对象，所以作为独占系统执行
+ */
+public class CollisionSystem extends GameSystem {
+    public static final float DEFAULT_CELL_SIZE = 64.0f;
+    private static final int TRANSFORM_ID = ComponentType.idOf(TransformComponent.class);
+
+    private final Query colliders;
+    private final SpatialHashGrid grid;
+    private final List<CollisionListener> listeners;
+
+    // 本次更新的碰撞体，按查询结果下标保存
+    private ColliderComponent[] frameColliders;
+    private int[] frameLayers;
+    private int[] frameMasks;
+    private int[] frameIds;
+    private float[] minX;
+    private float[] minY;
+    private float[] maxX;
+    private float[] maxY;
+    private float[] centerX;
+    private float[] centerY;
+
+    // 按碰撞编号保存的碰撞体
+    private ColliderComponent[] collidersById;
+    private long[] lastSeenTick;
+    private int[] freeIds;
+    private int freeCount;
+    private int nextId;
+    private long tick;
+
+    // 上一次和本次接触的碰撞对
+    private LongHashSet previousPairs;
+    private LongHashSet currentPairs;
+    private final CollisionPassEvent passEvent = new CollisionPassEvent();
+
+    public CollisionSystem(Scene scene) {
+        this(scene, DEFAULT_CELL_SIZE);
+    }
+
+    public CollisionSystem(Scene scene, float cellSize) {
+        super("CollisionSystem");
+        reads(ColliderComponent.class, TransformComponent.class);
+        exclusive();
+        this.colliders = scene.query(ColliderComponent.class, TransformComponent.class);
+        this.grid = new SpatialHashGrid(cellSize);
+        this.listeners = new ArrayList<>();
+        this.frameColliders = new ColliderComponent[64];
+        this.frameLayers = new int[64];
+        this.frameMasks = new int[64];
+        this.frameIds = new int[64];
+        this.minX = new float[64];
+        this.minY = new float[64];
+        this.maxX = new float[64];
+        this.maxY = new float[64];
+        this.centerX = new float[64];
+        this.centerY = new float[64];
+        this.collidersById = new ColliderComponent[64];
+        this.lastSeenTick = new long[64];
+        this.freeIds = new int[64];
+        this.previousPairs = new LongHashSet();
+        this.currentPairs = new LongHashSet();
+    }
+
+    /**
+     * 添加碰撞事件监听器
+     */
+    public void addListener(CollisionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 移除碰撞事件监听器
+     */
+    public void removeListener(CollisionListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void update(Scene scene, float deltaTime, CommandBuffer commands) {
+        update();
+    }
+
+    /**
+     * 执行一次碰撞检测并派发事件，通常在Scene.update之后调用
+     */
+    public void update() {
+        CollisionPassEvent event = passEvent;
+        event.begin();
+        int colliderCount = colliders.size();
+        tick++;
+        collectColliders();
+        findPairs();
+        dispatchEvents();
+        releaseStaleIds();
+        event.end();
+        if (event.shouldCommit()) {
+            event.colliders = colliderCount;
+            event.cells = grid.getCellCount();
+            event.contacts = currentPairs.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * 计算包围盒并登记到网格
+     */
+    private void collectColliders() {
+        int count = colliders.size();
+        ensureFrameCapacity(count);
+        grid.clear();
+        for (int i = 0; i < count; i++) {
+            ColliderComponent collider = (ColliderComponent) colliders.getComponent(i);
+            if (!collider.isEnabled()) {
+                frameColliders[i] = null;
+                continue;
+            }
+            TransformComponent transform = (TransformComponent) colliders.get(i).getComponent(TRANSFORM_ID);
+            float cx = transform.getX() + collider.getOffsetX();
+            float cy = transform.getY() + collider.getOffsetY();
+            float halfWidth = collider.getWidth() * 0.5f;
+            float halfHeight = collider.getHeight() * 0.5f;
+            frameColliders[i] = collider;
+            frameLayers[i] = collider.getLayer();
+            frameMasks[i] = collider.getMask();
+            centerX[i] = cx;
+            centerY[i] = cy;
+            minX[i] = cx - halfWidth;
+            minY[i] = cy - halfHeight;
+            maxX[i] = cx + halfWidth;
+            maxY[i] = cy + halfHeight;
+
+            int id = collider.getCollisionId();
+            if (id < 0 || id >= nextId || collidersById[id] != collider) {
+                id = allocateId(collider);
+            }
+            lastSeenTick[id] = tick;
+            frameIds[i] = id;
+            grid.insert(i, minX[i], minY[i], maxX[i], maxY[i]);
+        }
+    }
+
+    /**
+     * 遍历每个格子内的元素对，只在包围盒交集左上角所在的格子处理，避免重复
+     */
+    private void findPairs() {
+        LongHashSet swap = previousPairs;
+        previousPairs = currentPairs;
+        currentPairs = swap;
+        currentPairs.clear();
+
+        int cellCount = grid.getCellCount();
+        for (int cell = 0; cell < cellCount; cell++) {
+            int cellX = grid.getCellX(cell);
+            int cellY = grid.getCellY(cell);
+            for (int ea = grid.firstEntry(cell); ea >= 0; ea = grid.nextEntry(ea)) {
+                int a = grid.entryValue(ea);
+                int layerA = frameLayers[a];
+                int maskA = frameMasks[a];
+                for (int eb = grid.nextEntry(ea); eb >= 0; eb = grid.nextEntry(eb)) {
+                    int b = grid.entryValue(eb);
+                    // 与ColliderComponent.canCollideWith相同的判断，使用缓存的层和掩码
+                    if ((layerA & frameMasks[b]) == 0 || (frameLayers[b] & maskA) == 0) {
+                        continue;
+                    }
+                    if (minX[a] > maxX[b] || minX[b] > maxX[a] || minY[a] > maxY[b] || minY[b] > maxY[a]) {
+                        continue;
+                    }
+                    if (grid.cellCoord(Math.max(minX[a], minX[b])) != cellX
+                            || grid.cellCoord(Math.max(minY[a], minY[b])) != cellY) {
+                        continue;
+                    }
+                    if (overlaps(a, b)) {
+                        currentPairs.add(pairKey(frameIds[a], frameIds[b]));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 窄阶段检测
+     */
+    private boolean overlaps(int a, int b) {
+        ColliderComponent colliderA = frameColliders[a];
+        ColliderComponent colliderB = frameColliders[b];
+        boolean circleA = colliderA.getShape() == ColliderComponent.Shape.CIRCLE;
+        boolean circleB = colliderB.getShape() == ColliderComponent.Shape.CIRCLE;
+        if (circleA && circleB) {
+            float dx = centerX[a] - centerX[b];
+            float dy = centerY[a] - centerY[b];
+            float r = colliderA.getRadius() + colliderB.getRadius();
+            return dx * dx + dy * dy < r * r;
+        }
+        if (!circleA && !circleB) {
+            // 包围盒已经相交
+            return true;
+        }
+        int circle = circleA ? a : b;
+        int box = circleA ? b : a;
+        float radius = frameColliders[circle].getRadius();
+        float nearestX = Math.max(minX[box], Math.min(centerX[circle], maxX[box]));
+        float nearestY = Math.max(minY[box], Math.min(centerY[circle], maxY[box]));
+        float dx = centerX[circle] - nearestX;
+        float dy = centerY[circle] - nearestY;
+        return dx * dx + dy * dy < radius * radius;
+    }
+
+    private void dispatchEvents() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < currentPairs.size(); i++) {
+            long key = currentPairs.get(i);
+            ColliderComponent a = collidersById[(int) (key >>> 32)];
+            ColliderComponent b = collidersById[(int) key];
+            boolean stay = previousPairs.contains(key);
+            for (int l = 0; l < listeners.size(); l++) {
+                if (stay) {
+                    listeners.get(l).onCollisionStay(a, b);
+                } else {
+                    listeners.get(l).onCollisionEnter(a, b);
+                }
+            }
+        }
+        for (int i = 0; i < previousPairs.size(); i++) {
+            long key = previousPairs.get(i);
+            if (currentPairs.contains(key)) {
+                continue;
+            }
+            ColliderComponent a = collidersById[(int) (key >>> 32)];
+            ColliderComponent b = collidersById[(int) key];
+            for (int l = 0; l < listeners.size(); l++) {
+                listeners.get(l).onCollisionExit(a, b);
+            }
+        }
+    }
+
+    /**
+     * 回收本次没有出现的碰撞体编号，离开事件已经在此之前派发
+     */
+    private void releaseStaleIds() {
+        for (int id = 0; id < nextId; id++) {
+            ColliderComponent collider = collidersById[id];
+            if (collider != null && lastSeenTick[id] != tick) {
+                if (collider.getCollisionId() == id) {
+                    collider.setCollisionId(-1);
+                }
+                collidersById[id] = null;
+                if (freeCount == freeIds.length) {
+                    freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+                }
+                freeIds[freeCount++] = id;
+            }
+        }
+    }
+
+    private int allocateId(ColliderComponent collider) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = nextId++;
+            if (id == collidersById.length) {
+                collidersById = Arrays.copyOf(collidersById, id * 2);
+                lastSeenTick = Arrays.copyOf(lastSeenTick, id * 2);
+            }
+        }
+        collidersById[id] = collider;
+        collider.setCollisionId(id);
+        return id;
+    }
+
+    private void ensureFrameCapacity(int count) {
+        if (count <= frameColliders.length) {
+            return;
+        }
+        int capacity = Math.max(count, frameColliders.length * 2);
+        frameColliders = Arrays.copyOf(frameColliders, capacity);
+        frameLayers = Arrays.copyOf(frameLayers, capacity);
+        frameMasks = Arrays.copyOf(frameMasks, capacity);
+        frameIds = Arrays.copyOf(frameIds, capacity);
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+    }
+
+    private static long pairKey(int idA, int idB) {
+        int low = Math.min(idA, idB);
+        int high = Math.max(idA, idB);
+        return ((long) low << 32) | high;
+    }
+
+    /**
+     * 检查两个碰撞体当前是否接触
+     */
+    public boolean isTouching(ColliderComponent a, ColliderComponent b) {
+        int idA = a.getCollisionId();
+        int idB = b.getCollisionId();
+        return idA >= 0 && idB >= 0 && currentPairs.contains(pairKey(idA, idB));
+    }
+
+    /**
+     * 本次检测到的接触对数量
+     */
+    public int getContactCount() {
+        return currentPairs.size();
+    }
+
+    /**
+     * 获取网格
+     */
+    public SpatialHashGrid getGrid() {
+        return grid;
+    }
+}
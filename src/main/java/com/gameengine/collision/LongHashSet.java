@@ -0,0 +1,92 @@
+package com.gameengine.collision;
+
+import java.util.Arrays;
+
+/**
+ * 基本类型long的开放寻址哈希集合，同时按插入顺序保存元素，清空后可重复使用
+ */
+final class LongHashSet {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] table;
+    private int mask;
+    private long[] elements;
+    private int size;
+
+    LongHashSet() {
+        this.table = new long[64];
+        Arrays.fill(table, EMPTY);
+        this.mask = table.length - 1;
+        this.elements = new long[32];
+        this.size = 0;
+    }
+
+    /**
+     * 添加元素，已存在时返回false
+     */
+    boolean add(long value) {
+        if ((size + 1) * 2 > table.length) {
+            grow();
+        }
+        int slot = slotOf(value);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = value;
+        return true;
+    }
+
+    boolean contains(long value) {
+        int slot = slotOf(value);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(table, EMPTY);
+            size = 0;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 按插入顺序获取元素
+     */
+    long get(int index) {
+        return elements[index];
+    }
+
+    private int slotOf(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void grow() {
+        table = new long[table.length * 2];
+        Arrays.fill(table, EMPTY);
+        mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = slotOf(elements[i]);
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = elements[i];
+        }
+    }
+}
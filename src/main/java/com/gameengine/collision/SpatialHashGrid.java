@@ -0,0 +1,190 @@
+package com.gameengine.collision;
+
+import java.util.Arrays;
+
+/**
+ * 均匀空间哈希网格。每个元素按包围盒登记到覆盖的所有格子中，
+ * 格子通过开放寻址表查找，清空只需递增版本号，重建不产生分配
+ */
+public final class SpatialHashGrid {
+    private final float cellSize;
+    private final float inverseCellSize;
+
+    // 格子哈希表
+    private long[] cellKeys;
+    private int[] cellStamps;
+    private int[] cellHeads;
+    private int[] cellXs;
+    private int[] cellYs;
+    private int tableMask;
+    private int stamp;
+
+    // 已占用的格子，按登记顺序
+    private int[] usedSlots;
+    private int usedCount;
+
+    // 格子内元素链表
+    private int[] entryValues;
+    private int[] entryNext;
+    private int entryCount;
+
+    public SpatialHashGrid(float cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("格子大小必须大于0: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0f / cellSize;
+        allocateTable(256);
+        this.usedSlots = new int[64];
+        this.entryValues = new int[256];
+        this.entryNext = new int[256];
+        this.stamp = 1;
+    }
+
+    private void allocateTable(int capacity) {
+        cellKeys = new long[capacity];
+        cellStamps = new int[capacity];
+        cellHeads = new int[capacity];
+        cellXs = new int[capacity];
+        cellYs = new int[capacity];
+        tableMask = capacity - 1;
+    }
+
+    /**
+     * 清空网格
+     */
+    public void clear() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(cellStamps, 0);
+            stamp = 1;
+        }
+        usedCount = 0;
+        entryCount = 0;
+    }
+
+    /**
+     * 坐标对应的格子下标
+     */
+    public int cellCoord(float value) {
+        return (int) Math.floor(value * inverseCellSize);
+    }
+
+    /**
+     * 把元素登记到包围盒覆盖的所有格子
+     */
+    public void insert(int value, float minX, float minY, float maxX, float maxY) {
+        int x0 = cellCoord(minX);
+        int y0 = cellCoord(minY);
+        int x1 = cellCoord(maxX);
+        int y1 = cellCoord(maxY);
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                int slot = findOrCreateCell(cx, cy);
+                if (entryCount == entryValues.length) {
+                    entryValues = Arrays.copyOf(entryValues, entryCount * 2);
+                    entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+                }
+                entryValues[entryCount] = value;
+                entryNext[entryCount] = cellHeads[slot];
+                cellHeads[slot] = entryCount;
+                entryCount++;
+            }
+        }
+    }
+
+    private int findOrCreateCell(int cx, int cy) {
+        if ((usedCount + 1) * 2 > cellKeys.length) {
+            rehash();
+        }
+        long key = keyOf(cx, cy);
+        int slot = slotOf(key);
+        while (cellStamps[slot] == stamp) {
+            if (cellKeys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        cellStamps[slot] = stamp;
+        cellKeys[slot] = key;
+        cellHeads[slot] = -1;
+        cellXs[slot] = cx;
+        cellYs[slot] = cy;
+        if (usedCount == usedSlots.length) {
+            usedSlots = Arrays.copyOf(usedSlots, usedCount * 2);
+        }
+        usedSlots[usedCount++] = slot;
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = cellKeys;
+        int[] oldHeads = cellHeads;
+        int[] oldXs = cellXs;
+        int[] oldYs = cellYs;
+        int[] oldUsed = Arrays.copyOf(usedSlots, usedCount);
+        allocateTable(oldKeys.length * 2);
+        for (int i = 0; i < oldUsed.length; i++) {
+            int oldSlot = oldUsed[i];
+            int slot = slotOf(oldKeys[oldSlot]);
+            while (cellStamps[slot] == stamp) {
+                slot = (slot + 1) & tableMask;
+            }
+            cellStamps[slot] = stamp;
+            cellKeys[slot] = oldKeys[oldSlot];
+            cellHeads[slot] = oldHeads[oldSlot];
+            cellXs[slot] = oldXs[oldSlot];
+            cellYs[slot] = oldYs[oldSlot];
+            usedSlots[i] = slot;
+        }
+    }
+
+    private static long keyOf(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private int slotOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & tableMask;
+    }
+
+    /**
+     * 已占用的格子数量
+     */
+    public int getCellCount() {
+        return usedCount;
+    }
+
+    /**
+     * 第cell个已占用格子的第一个元素条目，没有时为-1
+     */
+    public int firstEntry(int cell) {
+        return cellHeads[usedSlots[cell]];
+    }
+
+    /**
+     * 同一格子中的下一个元素条目，没有时为-1
+     */
+    public int nextEntry(int entry) {
+        return entryNext[entry];
+    }
+
+    /**
+     * 条目对应的元素
+     */
+    public int entryValue(int entry) {
+        return entryValues[entry];
+    }
+
+    public int getCellX(int cell) {
+        return cellXs[usedSlots[cell]];
+    }
+
+    public int getCellY(int cell) {
+        return cellYs[usedSlots[cell]];
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+}
@@ -0,0 +1,224 @@
+package com.gameengine.components;
+
+import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
+import com.gameengine.graphics.Renderer;
+import com.gameengine.math.Vector2;
+
+/**
+ * 相机组件，决定世界坐标中的哪一块区域显示在视口中。
+ * 相机所在对象有TransformComponent时，视野中心跟随该对象的位置，否则使用setPosition设置的位置。
+ * 通过Scene.setCamera启用后，场景渲染前设置渲染器的视图变换，并剔除包围盒完全在视野外的对象
+ */
+public class CameraComponent extends Component<CameraComponent> {
+    private static final int TRANSFORM_ID = ComponentType.idOf(TransformComponent.class);
+    /**
+     * 默认剔除边距，世界单位
+     */
+    public static final float DEFAULT_CULL_MARGIN = 32.0f;
+
+    private Renderer renderer;
+    // 视野中心的世界坐标
+    private final Vector2 position;
+    private float zoom;
+    // 视口在屏幕上的位置和大小，单位像素
+    private float viewportX;
+    private float viewportY;
+    private float viewportWidth;
+    private float viewportHeight;
+    private float cullMargin;
+    // 当前帧的视野范围，世界坐标，包含剔除边距
+    private float viewMinX;
+    private float viewMinY;
+    private float viewMaxX;
+    private float viewMaxY;
+    private final Vector2 centerBuffer = new Vector2();
+
+    public CameraComponent(float viewportWidth, float viewportHeight) {
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+        // 默认世界坐标与屏幕坐标一致
+        this.position = new Vector2(viewportWidth / 2, viewportHeight / 2);
+        this.zoom = 1.0f;
+        this.cullMargin = DEFAULT_CULL_MARGIN;
+        updateViewBounds(position.x, position.y);
+    }
+
+    @Override
+    public void initialize() {
+    }
+
+    @Override
+    public void update(float deltaTime) {
+    }
+
+    @Override
+    public void render() {
+        // 相机本身不绘制
+    }
+
+    /**
+     * 开始按相机绘制：计算本帧的视野范围并设置渲染器的视图变换，由Scene.render调用
+     */
+    public void beginView() {
+        Vector2 center = getViewCenter(centerBuffer);
+        updateViewBounds(center.x, center.y);
+        if (renderer != null) {
+            renderer.setViewTransform(zoom,
+                    viewportX + viewportWidth / 2 - center.x * zoom,
+                    viewportY + viewportHeight / 2 - center.y * zoom);
+        }
+    }
+
+    /**
+     * 结束按相机绘制，之后提交的命令使用屏幕坐标
+     */
+    public void endView() {
+        if (renderer != null) {
+            renderer.resetViewTransform();
+        }
+    }
+
+    private void updateViewBounds(float centerX, float centerY) {
+        float halfWidth = viewportWidth / 2 / zoom;
+        float halfHeight = viewportHeight / 2 / zoom;
+        viewMinX = centerX - halfWidth - cullMargin;
+        viewMinY = centerY - halfHeight - cullMargin;
+        viewMaxX = centerX + halfWidth + cullMargin;
+        viewMaxY = centerY + halfHeight + cullMargin;
+    }
+
+    /**
+     * 检查世界坐标中的包围盒是否与本帧视野相交
+     */
+    public boolean isVisible(float minX, float minY, float maxX, float maxY) {
+        return maxX >= viewMinX && maxY >= viewMinY && minX <= viewMaxX && minY <= viewMaxY;
+    }
+
+    /**
+     * 视野中心的世界坐标写入out并返回，跟随对象时使用插值后的位置
+     */
+    public Vector2 getViewCenter(Vector2 out) {
+        TransformComponent transform = owner != null ? (TransformComponent) owner.getComponent(TRANSFORM_ID) : null;
+        if (transform == null) {
+            return out.set(position);
+        }
+        float alpha = renderer != null ? renderer.getInterpolationAlpha() : 1.0f;
+        return transform.getInterpolatedPosition(alpha, out);
+    }
+
+    /**
+     * 世界坐标转换为屏幕坐标，写入out并返回
+     */
+    public Vector2 worldToScreen(float x, float y, Vector2 out) {
+        Vector2 center = getViewCenter(centerBuffer);
+        out.x = viewportX + viewportWidth / 2 + (x - center.x) * zoom;
+        out.y = viewportY + viewportHeight / 2 + (y - center.y) * zoom;
+        return out;
+    }
+
+    /**
+     * 屏幕坐标转换为世界坐标，写入out并返回，用于鼠标拾取
+     */
+    public Vector2 screenToWorld(float x, float y, Vector2 out) {
+        Vector2 center = getViewCenter(centerBuffer);
+        out.x = center.x + (x - viewportX - viewportWidth / 2) / zoom;
+        out.y = center.y + (y - viewportY - viewportHeight / 2) / zoom;
+        return out;
+    }
+
+    /**
+     * 设置渲染器
+     */
+    public void setRenderer(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * 设置视野中心的世界坐标，相机跟随所在对象时无效
+     */
+    public void setPosition(float x, float y) {
+        position.x = x;
+        position.y = y;
+    }
+
+    /**
+     * 设置缩放，大于1时放大
+     */
+    public void setZoom(float zoom) {
+        if (!(zoom > 0)) {
+            throw new IllegalArgumentException("缩放必须大于0: " + zoom);
+        }
+        this.zoom = zoom;
+    }
+
+    /**
+     * 设置视口在屏幕上的位置和大小
+     */
+    public void setViewport(float x, float y, float width, float height) {
+        this.viewportX = x;
+        this.viewportY = y;
+        this.viewportWidth = width;
+        this.viewportHeight = height;
+    }
+
+    /**
+     * 设置剔除边距。没有RenderComponent的对象按位置点剔除，
+     * 边距应不小于这类对象自行绘制的范围
+     */
+    public void setCullMargin(float cullMargin) {
+        this.cullMargin = Math.max(0, cullMargin);
+    }
+
+    // Getters
+    public Vector2 getPosition(Vector2 out) {
+        return out.set(position);
+    }
+
+    public float getZoom() {
+        return zoom;
+    }
+
+    public float getViewportX() {
+        return viewportX;
+    }
+
+    public float getViewportY() {
+        return viewportY;
+    }
+
+    public float getViewportWidth() {
+        return viewportWidth;
+    }
+
+    public float getViewportHeight() {
+        return viewportHeight;
+    }
+
+    public float getCullMargin() {
+        return cullMargin;
+    }
+
+    /**
+     * 本帧视野范围的世界坐标，已经向外扩展剔除余量，在beginView之后有效
+     */
+    public float getViewMinX() {
+        return viewMinX;
+    }
+
+    public float getViewMinY() {
+        return viewMinY;
+    }
+
+    public float getViewMaxX() {
+        return viewMaxX;
+    }
+
+    public float getViewMaxY() {
+        return viewMaxY;
+    }
+
+    public Renderer getRenderer() {
+        return renderer;
+    }
+}
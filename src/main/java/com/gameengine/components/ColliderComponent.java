@@ -0,0 +1,161 @@
+package com.gameengine.components;
+
+import com.gameengine.core.Component;
+
+/**
+ * 碰撞体组件，形状相对TransformComponent的位置偏移，
+ * 通过层和掩码决定与哪些碰撞体发生碰撞
+ */
+public class ColliderComponent extends Component<ColliderComponent> {
+    public static final int ALL_LAYERS = -1;
+
+    private Shape shape;
+    private float radius;
+    private float width;
+    private float height;
+    private float offsetX;
+    private float offsetY;
+    private int layer;
+    private int mask;
+    // 由碰撞系统分配的编号，未登记时为-1
+    private int collisionId;
+
+    public enum Shape {
+        CIRCLE,
+        BOX
+    }
+
+    /**
+     * 创建圆形碰撞体
+     */
+    public ColliderComponent(float radius) {
+        this.shape = Shape.CIRCLE;
+        this.radius = radius;
+        this.width = radius * 2;
+        this.height = radius * 2;
+        this.layer = 1;
+        this.mask = ALL_LAYERS;
+        this.collisionId = -1;
+    }
+
+    /**
+     * 创建矩形碰撞体
+     */
+    public ColliderComponent(float width, float height) {
+        this.shape = Shape.BOX;
+        this.width = width;
+        this.height = height;
+        this.radius = Math.max(width, height) / 2;
+        this.layer = 1;
+        this.mask = ALL_LAYERS;
+        this.collisionId = -1;
+    }
+
+    @Override
+    public void initialize() {
+        // 初始化碰撞体组件
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        // 碰撞检测由CollisionSystem统一处理
+    }
+
+    @Override
+    public void render() {
+        // 碰撞体不直接渲染
+    }
+
+    /**
+     * 检查两个碰撞体的层和掩码是否允许碰撞
+     */
+    public boolean canCollideWith(ColliderComponent other) {
+        return (layer & other.mask) != 0 && (other.layer & mask) != 0;
+    }
+
+    /**
+     * 设置所在层，通常只设置一位
+     */
+    public void setLayer(int layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * 设置可以碰撞的层
+     */
+    public void setMask(int mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * 设置形状中心相对位置的偏移
+     */
+    public void setOffset(float offsetX, float offsetY) {
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+
+    /**
+     * 设置圆形半径
+     */
+    public void setRadius(float radius) {
+        this.shape = Shape.CIRCLE;
+        this.radius = radius;
+        this.width = radius * 2;
+        this.height = radius * 2;
+    }
+
+    /**
+     * 设置矩形大小
+     */
+    public void setSize(float width, float height) {
+        this.shape = Shape.BOX;
+        this.width = width;
+        this.height = height;
+        this.radius = Math.max(width, height) / 2;
+    }
+
+    /**
+     * 设置碰撞系统分配的编号，由CollisionSystem维护
+     */
+    public void setCollisionId(int collisionId) {
+        this.collisionId = collisionId;
+    }
+
+    // Getters
+    public Shape getShape() {
+        return shape;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    public float getOffsetX() {
+        return offsetX;
+    }
+
+    public float getOffsetY() {
+        return offsetY;
+    }
+
+    public int getLayer() {
+        return layer;
+    }
+
+    public int getMask() {
+        return mask;
+    }
+
+    public int getCollisionId() {
+        return collisionId;
+    }
+}
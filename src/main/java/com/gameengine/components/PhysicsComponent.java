@@ -3,6 +3,7 @@ package com.gameengine.components;
 import com.gameengine.core.Component;
 import com.gameengine.core.GameObject;
 import com.gameengine.math.Vector2;
+import com.gameengine.scene.Archetype;
 
 /**
  * 物理组件，处理物理运动
@@ -37,27 +38,28 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
     @Override
     public void update(float deltaTime) {
         if (!enabled) return;
+        // 数据保存在原型块中时由场景按列统一积分
+        if (storage() != null) return;
         
         TransformComponent transform = owner.getComponent(TransformComponent.class);
         if (transform == null) return;
         
         // 应用重力
         if (useGravity) {
-            acceleration = acceleration.add(gravity);
+            acceleration.addLocal(gravity);
         }
         
         // 更新速度
-        velocity = velocity.add(acceleration.multiply(deltaTime));
+        velocity.addScaledLocal(acceleration, deltaTime);
         
         // 应用摩擦力
-        velocity = velocity.multiply(friction);
+        velocity.scaleLocal(friction);
         
         // 更新位置
-        Vector2 deltaPosition = velocity.multiply(deltaTime);
-        transform.translate(deltaPosition);
+        transform.translate(velocity.x * deltaTime, velocity.y * deltaTime);
         
         // 重置加速度
-        acceleration = new Vector2();
+        acceleration.set(0, 0);
     }
     
     @Override
@@ -65,12 +67,51 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
         // 物理组件不直接渲染
     }
     
+    /**
+     * 速度和加速度归零，质量、摩擦力和重力设置保留
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        velocity.set(0, 0);
+        acceleration.set(0, 0);
+    }
+    
+    /**
+     * 获取所在的原型块，物理数据保存在原型块的列中时不为null
+     */
+    private Archetype storage() {
+        if (owner == null) return null;
+        Archetype archetype = owner.getArchetype();
+        return archetype != null && archetype.hasPhysics() ? archetype : null;
+    }
+    
+    /**
+     * 同步原型块中生效的重力列
+     */
+    private void syncGravity() {
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            archetype.getGravityX()[row] = useGravity ? gravity.x : 0;
+            archetype.getGravityY()[row] = useGravity ? gravity.y : 0;
+        }
+    }
+    
     /**
      * 应用力
      */
     public void applyForce(Vector2 force) {
-        if (mass > 0) {
-            acceleration = acceleration.add(force.multiply(1.0f / mass));
+        float m = getMass();
+        if (m > 0) {
+            Archetype archetype = storage();
+            if (archetype != null) {
+                int row = owner.getArchetypeRow();
+                archetype.getAccelerationX()[row] += force.x / m;
+                archetype.getAccelerationY()[row] += force.y / m;
+                return;
+            }
+            acceleration.addScaledLocal(force, 1.0f / m);
         }
     }
     
@@ -78,8 +119,16 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      * 应用冲量
      */
     public void applyImpulse(Vector2 impulse) {
-        if (mass > 0) {
-            velocity = velocity.add(impulse.multiply(1.0f / mass));
+        float m = getMass();
+        if (m > 0) {
+            Archetype archetype = storage();
+            if (archetype != null) {
+                int row = owner.getArchetypeRow();
+                archetype.getVelocityX()[row] += impulse.x / m;
+                archetype.getVelocityY()[row] += impulse.y / m;
+                return;
+            }
+            velocity.addScaledLocal(impulse, 1.0f / m);
         }
     }
     
@@ -87,28 +136,57 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      * 设置速度
      */
     public void setVelocity(Vector2 velocity) {
-        this.velocity = new Vector2(velocity);
+        setVelocity(velocity.x, velocity.y);
     }
     
     /**
      * 设置速度
      */
     public void setVelocity(float x, float y) {
-        this.velocity = new Vector2(x, y);
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            archetype.getVelocityX()[row] = x;
+            archetype.getVelocityY()[row] = y;
+            return;
+        }
+        this.velocity.set(x, y);
     }
     
     /**
      * 添加速度
      */
     public void addVelocity(Vector2 delta) {
-        this.velocity = velocity.add(delta);
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            archetype.getVelocityX()[row] += delta.x;
+            archetype.getVelocityY()[row] += delta.y;
+            return;
+        }
+        this.velocity.addLocal(delta);
+    }
+    
+    /**
+     * 设置加速度
+     */
+    public void setAcceleration(float x, float y) {
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            archetype.getAccelerationX()[row] = x;
+            archetype.getAccelerationY()[row] = y;
+            return;
+        }
+        this.acceleration.set(x, y);
     }
     
     /**
      * 设置重力
      */
     public void setGravity(Vector2 gravity) {
-        this.gravity = new Vector2(gravity);
+        this.gravity.set(gravity);
+        syncGravity();
     }
     
     /**
@@ -116,6 +194,7 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      */
     public void setUseGravity(boolean useGravity) {
         this.useGravity = useGravity;
+        syncGravity();
     }
     
     /**
@@ -123,6 +202,10 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      */
     public void setFriction(float friction) {
         this.friction = Math.max(0, Math.min(1, friction));
+        Archetype archetype = storage();
+        if (archetype != null) {
+            archetype.getFriction()[owner.getArchetypeRow()] = this.friction;
+        }
     }
     
     /**
@@ -130,15 +213,62 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
      */
     public void setMass(float mass) {
         this.mass = Math.max(0.1f, mass);
+        Archetype archetype = storage();
+        if (archetype != null) {
+            archetype.getMass()[owner.getArchetypeRow()] = this.mass;
+        }
+    }
+    
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        Archetype archetype = storage();
+        if (archetype != null) {
+            archetype.getPhysicsEnabled()[owner.getArchetypeRow()] = enabled;
+        }
     }
     
     // Getters
     public Vector2 getVelocity() {
-        return new Vector2(velocity);
+        return getVelocity(new Vector2());
+    }
+    
+    /**
+     * 把速度写入out并返回，不产生分配
+     */
+    public Vector2 getVelocity(Vector2 out) {
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            return out.set(archetype.getVelocityX()[row], archetype.getVelocityY()[row]);
+        }
+        return out.set(velocity);
+    }
+    
+    public float getVelocityX() {
+        Archetype archetype = storage();
+        return archetype != null ? archetype.getVelocityX()[owner.getArchetypeRow()] : velocity.x;
+    }
+    
+    public float getVelocityY() {
+        Archetype archetype = storage();
+        return archetype != null ? archetype.getVelocityY()[owner.getArchetypeRow()] : velocity.y;
     }
     
     public Vector2 getAcceleration() {
-        return new Vector2(acceleration);
+        return getAcceleration(new Vector2());
+    }
+    
+    /**
+     * 把加速度写入out并返回，不产生分配
+     */
+    public Vector2 getAcceleration(Vector2 out) {
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            return out.set(archetype.getAccelerationX()[row], archetype.getAccelerationY()[row]);
+        }
+        return out.set(acceleration);
     }
     
     public float getMass() {
@@ -156,4 +286,11 @@ public class PhysicsComponent extends Component<PhysicsComponent> {
     public Vector2 getGravity() {
         return new Vector2(gravity);
     }
+    
+    /**
+     * 把重力写入out并返回，不产生分配
+     */
+    public Vector2 getGravity(Vector2 out) {
+        return out.set(gravity);
+    }
 }
@@ -14,6 +14,8 @@ public class RenderComponent extends Component<RenderComponent> {
     private Vector2 size;
     private Color color;
     private boolean visible;
+    // 渲染时复用的位置缓存
+    private final Vector2 renderPosition = new Vector2();
     
     public enum RenderType {
         RECTANGLE,
@@ -75,7 +77,7 @@ public class RenderComponent extends Component<RenderComponent> {
             return;
         }
         
-        Vector2 position = transform.getPosition();
+        Vector2 position = transform.getInterpolatedPosition(renderer.getInterpolationAlpha(), renderPosition);
         
         switch (renderType) {
             case RECTANGLE:
@@ -94,6 +96,15 @@ public class RenderComponent extends Component<RenderComponent> {
         }
     }
     
+    /**
+     * 恢复可见，形状、大小和颜色保留
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        visible = true;
+    }
+    
     /**
      * 设置渲染器
      */
@@ -119,7 +130,10 @@ public class RenderComponent extends Component<RenderComponent> {
      * 设置大小
      */
     public void setSize(Vector2 size) {
-        this.size = new Vector2(size);
+        this.size.set(size);
+        if (owner != null) {
+            owner.onBoundsChanged();
+        }
     }
     
     /**
@@ -138,6 +152,13 @@ public class RenderComponent extends Component<RenderComponent> {
         return new Vector2(size);
     }
     
+    /**
+     * 把大小写入out并返回，不产生分配
+     */
+    public Vector2 getSize(Vector2 out) {
+        return out.set(size);
+    }
+    
     public Color getColor() {
         return color;
     }
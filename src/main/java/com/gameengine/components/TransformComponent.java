@@ -3,17 +3,21 @@ package com.gameengine.components;
 import com.gameengine.core.Component;
 import com.gameengine.core.GameObject;
 import com.gameengine.math.Vector2;
+import com.gameengine.scene.Archetype;
 
 /**
  * 变换组件，管理位置、旋转、缩放
  */
 public class TransformComponent extends Component<TransformComponent> {
     private Vector2 position;
+    // 上一个固定步开始时的位置，用于渲染插值
+    private Vector2 previousPosition;
     private Vector2 scale;
     private float rotation;
     
     public TransformComponent() {
         this.position = new Vector2();
+        this.previousPosition = new Vector2();
         this.scale = new Vector2(1, 1);
         this.rotation = 0;
     }
@@ -21,10 +25,12 @@ public class TransformComponent extends Component<TransformComponent> {
     public TransformComponent(Vector2 position) {
         this();
         this.position = new Vector2(position);
+        this.previousPosition = new Vector2(position);
     }
     
     public TransformComponent(Vector2 position, Vector2 scale, float rotation) {
         this.position = new Vector2(position);
+        this.previousPosition = new Vector2(position);
         this.scale = new Vector2(scale);
         this.rotation = rotation;
     }
@@ -44,18 +50,71 @@ public class TransformComponent extends Component<TransformComponent> {
         // 变换组件不直接渲染
     }
     
+    /**
+     * 位置和旋转归零，缩放保留
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        position.set(0, 0);
+        previousPosition.set(0, 0);
+        rotation = 0;
+        if (owner != null) {
+            owner.onBoundsChanged();
+        }
+    }
+    
+    /**
+     * 获取所在的原型块，位置保存在原型块的列中时不为null
+     */
+    private Archetype storage() {
+        if (owner == null) return null;
+        Archetype archetype = owner.getArchetype();
+        return archetype != null && archetype.hasTransform() ? archetype : null;
+    }
+    
+    /**
+     * 位置变化后把新位置通知所属对象，场景据此更新空间索引
+     */
+    private void moved(float x, float y) {
+        if (owner != null) {
+            owner.onMoved(x, y);
+        }
+    }
+    
     /**
      * 移动到指定位置
      */
     public void moveTo(Vector2 newPosition) {
-        this.position = new Vector2(newPosition);
+        setPosition(newPosition);
     }
     
     /**
      * 移动相对距离
      */
     public void translate(Vector2 delta) {
-        this.position = position.add(delta);
+        translate(delta.x, delta.y);
+    }
+    
+    /**
+     * 移动相对距离
+     */
+    public void translate(float dx, float dy) {
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            float[] positionX = archetype.getPositionX();
+            float[] positionY = archetype.getPositionY();
+            positionX[row] += dx;
+            positionY[row] += dy;
+            moved(positionX[row], positionY[row]);
+        } else {
+            position.addLocal(dx, dy);
+            moved(position.x, position.y);
+        }
     }
     
     /**
@@ -76,29 +135,128 @@ public class TransformComponent extends Component<TransformComponent> {
      * 缩放
      */
     public void scale(Vector2 scaleFactor) {
-        this.scale = new Vector2(this.scale.x * scaleFactor.x, this.scale.y * scaleFactor.y);
+        this.scale.set(this.scale.x * scaleFactor.x, this.scale.y * scaleFactor.y);
     }
     
     /**
      * 设置缩放
      */
     public void setScale(Vector2 newScale) {
-        this.scale = new Vector2(newScale);
+        this.scale.set(newScale);
     }
     
     // Getters and Setters
     public Vector2 getPosition() {
-        return new Vector2(position);
+        return getPosition(new Vector2());
+    }
+    
+    /**
+     * 把位置写入out并返回，不产生分配
+     */
+    public Vector2 getPosition(Vector2 out) {
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            return out.set(archetype.getPositionX()[row], archetype.getPositionY()[row]);
+        }
+        return out.set(position);
+    }
+    
+    public float getX() {
+        Archetype archetype = storage();
+        return archetype != null ? archetype.getPositionX()[owner.getArchetypeRow()] : position.x;
+    }
+    
+    public float getY() {
+        Archetype archetype = storage();
+        return archetype != null ? archetype.getPositionY()[owner.getArchetypeRow()] : position.y;
     }
     
     public void setPosition(Vector2 position) {
-        this.position = new Vector2(position);
+        setPosition(position.x, position.y);
+    }
+    
+    public void setPosition(float x, float y) {
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            float[] positionX = archetype.getPositionX();
+            float[] positionY = archetype.getPositionY();
+            if (positionX[row] == x && positionY[row] == y) {
+                return;
+            }
+            positionX[row] = x;
+            positionY[row] = y;
+        } else {
+            if (position.x == x && position.y == y) {
+                return;
+            }
+            this.position.set(x, y);
+        }
+        moved(x, y);
+    }
+    
+    /**
+     * 记录当前位置作为上一状态，在每个固定步开始前调用
+     */
+    public void storePreviousPosition() {
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            archetype.getPreviousPositionX()[row] = archetype.getPositionX()[row];
+            archetype.getPreviousPositionY()[row] = archetype.getPositionY()[row];
+            return;
+        }
+        previousPosition.set(position);
+    }
+    
+    /**
+     * 把上一状态的位置写入out并返回
+     */
+    public Vector2 getPreviousPosition(Vector2 out) {
+        Archetype archetype = storage();
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            return out.set(archetype.getPreviousPositionX()[row], archetype.getPreviousPositionY()[row]);
+        }
+        return out.set(previousPosition);
+    }
+    
+    /**
+     * 在上一状态和当前状态之间插值，alpha为1时即当前位置
+     */
+    public Vector2 getInterpolatedPosition(float alpha, Vector2 out) {
+        Archetype archetype = storage();
+        float prevX, prevY, curX, curY;
+        if (archetype != null) {
+            int row = owner.getArchetypeRow();
+            prevX = archetype.getPreviousPositionX()[row];
+            prevY = archetype.getPreviousPositionY()[row];
+            curX = archetype.getPositionX()[row];
+            curY = archetype.getPositionY()[row];
+        } else {
+            prevX = previousPosition.x;
+            prevY = previousPosition.y;
+            curX = position.x;
+            curY = position.y;
+        }
+        if (alpha >= 1.0f) {
+            return out.set(curX, curY);
+        }
+        return out.set(prevX + (curX - prevX) * alpha, prevY + (curY - prevY) * alpha);
     }
     
     public Vector2 getScale() {
         return new Vector2(scale);
     }
     
+    /**
+     * 把缩放写入out并返回，不产生分配
+     */
+    public Vector2 getScale(Vector2 out) {
+        return out.set(scale);
+    }
+    
     public float getRotation() {
         return rotation;
     }
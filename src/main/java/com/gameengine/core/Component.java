@@ -30,6 +30,14 @@ public abstract class Component<T extends Component<T>> {
      */
     public abstract void render();
     
+    /**
+     * 清除运行时状态，所在对象被对象池回收时调用。
+     * 大小、质量、碰撞层等配置保留，需要每次生成时设置的由预制体的配置函数设置
+     */
+    public void reset() {
+        this.enabled = true;
+    }
+    
     /**
      * 销毁组件
      */
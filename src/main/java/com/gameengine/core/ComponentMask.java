@@ -0,0 +1,138 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+
+/**
+ * 组件掩码，按组件类型ID记录组件集合，用于签名比较和多组件匹配
+ */
+public final class ComponentMask {
+    private long[] words;
+
+    public ComponentMask() {
+        this.words = new long[1];
+    }
+
+    public ComponentMask(ComponentMask other) {
+        this.words = other.words.clone();
+    }
+
+    /**
+     * 设置指定ID
+     */
+    public void set(int id) {
+        int word = id >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << id;
+    }
+
+    /**
+     * 清除指定ID
+     */
+    public void clear(int id) {
+        int word = id >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << id);
+        }
+    }
+
+    /**
+     * 清除所有ID
+     */
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * 检查是否包含指定ID
+     */
+    public boolean get(int id) {
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * 检查是否包含另一个掩码的所有ID
+     */
+    public boolean containsAll(ComponentMask other) {
+        long[] otherWords = other.words;
+        for (int i = 0; i < otherWords.length; i++) {
+            long word = i < words.length ? words[i] : 0L;
+            if ((word & otherWords[i]) != otherWords[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 检查是否与另一个掩码有交集
+     */
+    public boolean intersects(ComponentMask other) {
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 检查是否为空
+     */
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        long[] a = words;
+        long[] b = ((ComponentMask) obj).words;
+        int length = Math.max(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            long wordA = i < a.length ? a[i] : 0L;
+            long wordB = i < b.length ? b[i] : 0L;
+            if (wordA != wordB) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // 忽略末尾的零字，与equals保持一致
+        int end = words.length;
+        while (end > 0 && words[end - 1] == 0) {
+            end--;
+        }
+        long h = 1234;
+        for (int i = end; --i >= 0; ) {
+            h ^= words[i] * (i + 1);
+        }
+        return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ComponentMask{");
+        boolean first = true;
+        for (int i = 0; i < words.length * 64; i++) {
+            if (get(i)) {
+                if (!first) sb.append(", ");
+                sb.append(i);
+                first = false;
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,120 @@
+package com.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 组件类型注册表，为每个组件类分配连续的整数ID。
+ * 组件类的ID集合包含自身及其父类（不含Component），以保持按父类查找组件的语义
+ */
+public final class ComponentType {
+    private static final List<ComponentType> registered = new ArrayList<>();
+
+    private static final ClassValue<ComponentType> TYPES = new ClassValue<ComponentType>() {
+        @Override
+        protected ComponentType computeValue(Class<?> type) {
+            return register(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final int id;
+    private final int[] hierarchyIds;
+    private final ComponentMask mask;
+
+    private ComponentType(Class<?> type, int id, int[] hierarchyIds) {
+        this.type = type;
+        this.id = id;
+        this.hierarchyIds = hierarchyIds;
+        this.mask = new ComponentMask();
+        this.mask.set(id);
+    }
+
+    private static ComponentType register(Class<?> type) {
+        if (!Component.class.isAssignableFrom(type) || type == Component.class) {
+            throw new IllegalArgumentException("不是组件类型: " + type.getName());
+        }
+        // 父类先注册，保证父类ID更小
+        Class<?> superType = type.getSuperclass();
+        int[] superIds = superType != Component.class ? TYPES.get(superType).hierarchyIds : new int[0];
+        synchronized (registered) {
+            int id = registered.size();
+            int[] hierarchyIds = new int[superIds.length + 1];
+            hierarchyIds[0] = id;
+            System.arraycopy(superIds, 0, hierarchyIds, 1, superIds.length);
+            ComponentType componentType = new ComponentType(type, id, hierarchyIds);
+            registered.add(componentType);
+            return componentType;
+        }
+    }
+
+    /**
+     * 获取组件类对应的类型信息，首次调用时注册
+     */
+    public static ComponentType of(Class<?> type) {
+        return TYPES.get(type);
+    }
+
+    /**
+     * 获取组件类的ID
+     */
+    public static int idOf(Class<?> type) {
+        return TYPES.get(type).id;
+    }
+
+    /**
+     * 按ID获取已注册的组件类型
+     */
+    public static ComponentType byId(int id) {
+        synchronized (registered) {
+            return registered.get(id);
+        }
+    }
+
+    /**
+     * 已注册的组件类型数量
+     */
+    public static int count() {
+        synchronized (registered) {
+            return registered.size();
+        }
+    }
+
+    /**
+     * 构建包含指定组件类型的掩码
+     */
+    public static ComponentMask maskOf(Class<?>... types) {
+        ComponentMask mask = new ComponentMask();
+        for (Class<?> type : types) {
+            mask.set(idOf(type));
+        }
+        return mask;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * 自身及所有父类组件的ID，第一个为自身ID
+     */
+    int[] getHierarchyIds() {
+        return hierarchyIds;
+    }
+
+    /**
+     * 只包含该类型的掩码，不要修改
+     */
+    public ComponentMask getMask() {
+        return mask;
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + "#" + id;
+    }
+}
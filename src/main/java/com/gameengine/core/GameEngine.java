@@ -1,14 +1,38 @@
 package com.gameengine.core;
 
+import com.gameengine.graphics.DebugOverlay;
+import com.gameengine.graphics.NullRenderer;
 import com.gameengine.graphics.Renderer;
+import com.gameengine.graphics.SwingRenderer;
 import com.gameengine.input.InputManager;
+import com.gameengine.input.InputRecorder;
+import com.gameengine.input.InputReplay;
+import com.gameengine.profiler.EngineEvents;
+import com.gameengine.profiler.FrameEvent;
+import com.gameengine.profiler.FrameTelemetry;
+import com.gameengine.profiler.PresentEvent;
+import com.gameengine.profiler.Profiler;
+import com.gameengine.profiler.RenderEvent;
 import com.gameengine.scene.Scene;
 import javax.swing.Timer;
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * 游戏引擎
  */
 public class GameEngine {
+    private static final int INPUT_SCOPE = Profiler.scope("Input");
+    private static final int SCENE_UPDATE_SCOPE = Profiler.scope("Scene.update");
+    private static final int SCENE_RENDER_SCOPE = Profiler.scope("Scene.render");
+    private static final int PRESENT_SCOPE = Profiler.scope("Renderer.endFrame");
+    
+    static {
+        // 注册后JFR记录中总能看到引擎事件的元数据，持续记录时无需额外配置
+        EngineEvents.register();
+    }
+
     private Renderer renderer;
     private InputManager inputManager;
     private Scene currentScene;
@@ -18,22 +42,63 @@ public class GameEngine {
     private long lastTime;
     private String title;
     private Timer gameTimer;
+    // 固定步长模拟
+    private boolean fixedTimestep;
+    private float fixedDeltaTime;
+    private int maxCatchUpSteps;
+    private float accumulator;
+    private float interpolationAlpha;
+    private long simulationTicks;
+    // 场景的随机种子，录制和回放时保持一致
+    private long seed;
+    private InputRecorder recorder;
+    private long frameCount;
+    private long frameStartTicks;
+    // JFR事件对象每帧复用，begin和end重新设置时间；每次新建时大方法中的事件对象
+    // 常常无法被逃逸分析消除，每帧都会分配
+    private final FrameEvent frameEvent;
+    private final RenderEvent renderEvent;
+    private final PresentEvent presentEvent;
+    // 每帧的帧率、分配量和垃圾回收统计，以及显示它们的调试层
+    private final FrameTelemetry telemetry;
+    private final DebugOverlay debugOverlay;
+    private boolean debugOverlayVisible;
     
     public GameEngine(int width, int height, String title) {
-        this.title = title;
-        this.renderer = new Renderer(width, height, title);
+        // 没有显示设备时退回到空渲染器
+        this(GraphicsEnvironment.isHeadless()
+                ? new NullRenderer(width, height, title)
+                : new SwingRenderer(width, height, title));
+    }
+    
+    public GameEngine(Renderer renderer) {
+        this.title = renderer.getTitle();
+        this.renderer = renderer;
         this.inputManager = InputManager.getInstance();
         this.running = false;
         this.targetFPS = 60.0f;
         this.deltaTime = 0.0f;
         this.lastTime = System.nanoTime();
+        this.fixedTimestep = false;
+        this.fixedDeltaTime = 1.0f / 60.0f;
+        this.maxCatchUpSteps = 5;
+        this.accumulator = 0.0f;
+        this.interpolationAlpha = 1.0f;
+        this.simulationTicks = 0;
+        this.seed = System.nanoTime();
+        this.frameEvent = new FrameEvent();
+        this.renderEvent = new RenderEvent();
+        this.presentEvent = new PresentEvent();
+        this.telemetry = new FrameTelemetry();
+        this.debugOverlay = new DebugOverlay();
+        this.debugOverlayVisible = false;
     }
     
     /**
      * 初始化游戏引擎
      */
     public boolean initialize() {
-        return true; // Swing渲染器不需要特殊初始化
+        return true; // 渲染器在构造时已完成初始化
     }
     
     /**
@@ -46,6 +111,8 @@ public class GameEngine {
         }
         
         running = true;
+        lastTime = System.nanoTime();
+        accumulator = 0.0f;
         
         // 初始化当前场景
         if (currentScene != null) {
@@ -55,45 +122,267 @@ public class GameEngine {
         // 创建游戏循环定时器
         gameTimer = new Timer((int) (1000 / targetFPS), e -> {
             if (running) {
+                beginFrame();
                 update();
                 render();
+                endFrame();
             }
         });
         
         gameTimer.start();
     }
     
+    /**
+     * 在调用线程上运行游戏循环，不依赖Swing定时器，直到stop()或窗口关闭。
+     * limitFrameRate为false时不等待，尽可能快地运行
+     */
+    public void runBlocking(boolean limitFrameRate) {
+        if (!initialize()) {
+            System.err.println("游戏引擎初始化失败");
+            return;
+        }
+        
+        running = true;
+        lastTime = System.nanoTime();
+        accumulator = 0.0f;
+        if (currentScene != null) {
+            currentScene.initialize();
+        }
+        
+        while (running) {
+            long frameStart = System.nanoTime();
+            beginFrame();
+            update();
+            if (!running) break;
+            render();
+            endFrame();
+            if (limitFrameRate) {
+                long frameNanos = (long) (1_000_000_000L / targetFPS);
+                long sleepNanos = frameNanos - (System.nanoTime() - frameStart);
+                if (sleepNanos > 0) {
+                    try {
+                        Thread.sleep(sleepNanos / 1_000_000L, (int) (sleepNanos % 1_000_000L));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        running = false;
+                    }
+                }
+            }
+        }
+        cleanup();
+    }
+    
+    /**
+     * 在调用线程上以虚拟时钟运行指定帧数，每帧时长固定，
+     * 与真实时间无关，用于无显示环境下的模拟和测量。返回实际运行的帧数
+     */
+    public long runHeadless(long frames) {
+        if (!initialize()) {
+            System.err.println("游戏引擎初始化失败");
+            return 0;
+        }
+        
+        running = true;
+        accumulator = 0.0f;
+        if (currentScene != null) {
+            currentScene.initialize();
+        }
+        
+        float frameTime = fixedTimestep ? fixedDeltaTime : 1.0f / targetFPS;
+        long frame = 0;
+        while (running && frame < frames) {
+            beginFrame();
+            advance(frameTime);
+            if (!running) break;
+            render();
+            endFrame();
+            frame++;
+        }
+        running = false;
+        return frame;
+    }
+    
+    /**
+     * 在调用线程上按录制的输入回放，不等待，尽可能快地运行，直到日志结束、stop()或窗口关闭。
+     * 回放前换用日志中的随机种子和步长设置并清空输入状态，每一步使用录制时的事件和时长，
+     * 场景的更新结果与录制时相同，可以作为可重复的性能测试和回归测试。
+     * 使用空渲染器时不显示。返回回放的模拟步数
+     */
+    public long runReplay(InputReplay replay) {
+        if (!initialize()) {
+            System.err.println("游戏引擎初始化失败");
+            return 0;
+        }
+        
+        seed = replay.getSeed();
+        setFixedTimestep(replay.isFixedTimestep());
+        setTickRate(replay.getTickRate());
+        inputManager.reset();
+        running = true;
+        if (currentScene != null) {
+            currentScene.initialize();
+        }
+        
+        long ticks = 0;
+        while (running && replay.hasNextTick()) {
+            beginFrame();
+            advanceReplay(replay);
+            ticks++;
+            if (!running) break;
+            render();
+            endFrame();
+        }
+        running = false;
+        return ticks;
+    }
+    
+    /**
+     * 开始一帧的运行时统计、性能分析和JFR事件
+     */
+    private void beginFrame() {
+        telemetry.beginFrame();
+        Profiler.beginFrame();
+        frameEvent.begin();
+        frameStartTicks = simulationTicks;
+    }
+    
+    private void endFrame() {
+        FrameEvent event = frameEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.frame = frameCount;
+            event.simulationSteps = (int) (simulationTicks - frameStartTicks);
+            event.entityCount = currentScene != null ? currentScene.getGameObjectCount() : 0;
+            event.drawCommands = renderer.getCommandCount();
+            event.deltaTime = deltaTime;
+            event.commit();
+        }
+        frameCount++;
+        Profiler.endFrame();
+        telemetry.endFrame();
+    }
+    
     /**
      * 更新游戏逻辑
      */
     private void update() {
         // 计算时间间隔
         long currentTime = System.nanoTime();
-        deltaTime = (currentTime - lastTime) / 1_000_000_000.0f; // 转换为秒
+        float frameTime = (currentTime - lastTime) / 1_000_000_000.0f; // 转换为秒
         lastTime = currentTime;
+        advance(frameTime);
+    }
+    
+    /**
+     * 按给定的帧时长推进一帧
+     */
+    private void advance(float frameTime) {
+        deltaTime = frameTime;
         
-        // 更新输入
-        inputManager.update();
-        
-        // 更新场景
+        // 更新场景，每个模拟步开始时取出输入事件，按下事件恰好被一个步看到
         if (currentScene != null) {
-            currentScene.update(deltaTime);
+            if (fixedTimestep) {
+                stepFixed(deltaTime);
+            } else {
+                updateInput(deltaTime);
+                updateScene(deltaTime);
+                simulationTicks++;
+            }
+        } else {
+            updateInput(deltaTime);
         }
+        renderer.setInterpolationAlpha(fixedTimestep ? interpolationAlpha : 1.0f);
         
         // 处理事件
         renderer.pollEvents();
         
         // 检查退出条件
         if (inputManager.isKeyPressed(27)) { // ESC键
-            running = false;
-            gameTimer.stop();
+            stop();
             renderer.cleanup();
         }
         
         // 检查窗口是否关闭
         if (renderer.shouldClose()) {
-            running = false;
-            gameTimer.stop();
+            stop();
+        }
+    }
+    
+    /**
+     * 按固定步长推进模拟，剩余时间留在累加器中用于插值
+     */
+    private void stepFixed(float frameTime) {
+        accumulator += frameTime;
+        int steps = 0;
+        while (accumulator >= fixedDeltaTime && steps < maxCatchUpSteps) {
+            // 没有执行模拟步的帧不取事件，留给下一步
+            updateInput(fixedDeltaTime);
+            currentScene.storePreviousTransforms();
+            updateScene(fixedDeltaTime);
+            accumulator -= fixedDeltaTime;
+            simulationTicks++;
+            steps++;
+        }
+        // 达到追赶上限后丢弃积压的整步，避免死亡螺旋
+        if (accumulator >= fixedDeltaTime) {
+            accumulator %= fixedDeltaTime;
+        }
+        interpolationAlpha = accumulator / fixedDeltaTime;
+    }
+    
+    /**
+     * 开始一个模拟步的输入，录制时记下这一步的事件和时长
+     */
+    private void updateInput(float stepTime) {
+        Profiler.begin(INPUT_SCOPE);
+        inputManager.update();
+        toggleDebugOverlay();
+        if (recorder != null) {
+            recorder.endTick(stepTime);
+        }
+        Profiler.end();
+    }
+    
+    private void updateScene(float stepTime) {
+        Profiler.begin(SCENE_UPDATE_SCOPE);
+        currentScene.update(stepTime);
+        Profiler.end();
+    }
+    
+    /**
+     * 每个模拟步取出输入后检查F3，按下事件只在取出它的那一步可见，每次按键恰好切换一次
+     */
+    private void toggleDebugOverlay() {
+        if (inputManager.isKeyJustPressed(114)) { // F3键
+            debugOverlayVisible = !debugOverlayVisible;
+        }
+    }
+    
+    /**
+     * 按日志推进一个模拟步，每步渲染一帧，不插值
+     */
+    private void advanceReplay(InputReplay replay) {
+        Profiler.begin(INPUT_SCOPE);
+        deltaTime = inputManager.update(replay);
+        toggleDebugOverlay();
+        Profiler.end();
+        if (currentScene != null) {
+            if (fixedTimestep) {
+                currentScene.storePreviousTransforms();
+            }
+            updateScene(deltaTime);
+            simulationTicks++;
+        }
+        interpolationAlpha = 1.0f;
+        renderer.setInterpolationAlpha(1.0f);
+        renderer.pollEvents();
+        
+        // 录制时按下的ESC同样结束回放
+        if (inputManager.isKeyPressed(27)) {
+            stop();
+        }
+        if (renderer.shouldClose()) {
+            stop();
         }
     }
     
@@ -104,11 +393,37 @@ public class GameEngine {
         renderer.beginFrame();
         
         // 渲染场景
+        RenderEvent render = renderEvent;
         if (currentScene != null) {
+            Profiler.begin(SCENE_RENDER_SCOPE);
+            render.begin();
             currentScene.render();
+            render.end();
+            Profiler.end();
+        }
+        if (debugOverlayVisible) {
+            debugOverlay.render(renderer, telemetry);
         }
         
+        Profiler.begin(PRESENT_SCOPE);
+        PresentEvent present = presentEvent;
+        present.begin();
         renderer.endFrame();
+        present.end();
+        Profiler.end();
+        
+        // 命令数在endFrame之后才确定
+        if (currentScene != null && render.shouldCommit()) {
+            render.entityCount = currentScene.getGameObjectCount();
+            render.culled = currentScene.getCulledCount();
+            render.drawCommands = renderer.getCommandCount();
+            render.commit();
+        }
+        if (present.shouldCommit()) {
+            present.renderer = renderer.getClass().getSimpleName();
+            present.drawCommands = renderer.getCommandCount();
+            present.commit();
+        }
     }
     
     /**
@@ -116,6 +431,7 @@ public class GameEngine {
      */
     public void setScene(Scene scene) {
         this.currentScene = scene;
+        this.accumulator = 0.0f;
         if (scene != null && running) {
             scene.initialize();
         }
@@ -142,12 +458,77 @@ public class GameEngine {
      * 清理资源
      */
     private void cleanup() {
+        try {
+            stopRecording();
+        } catch (IOException e) {
+            System.err.println("保存输入录制失败: " + e.getMessage());
+        }
         if (currentScene != null) {
             currentScene.clear();
         }
         renderer.cleanup();
     }
     
+    /**
+     * 开始把每个模拟步的输入录制到file，后台线程写入文件。
+     * 应在设置好步长之后、run之前调用，日志同时记下随机种子和步长设置。
+     * runBlocking结束时自动保存，其他情况调用stopRecording，进程退出时也会写完已录制的部分
+     */
+    public void startRecording(Path file) throws IOException {
+        stopRecording();
+        recorder = new InputRecorder(file, seed, fixedTimestep, getTickRate());
+        inputManager.reset();
+        inputManager.setRecorder(recorder);
+    }
+    
+    /**
+     * 停止录制并等待日志写完，没有在录制时不做任何事
+     */
+    public void stopRecording() throws IOException {
+        if (recorder == null) {
+            return;
+        }
+        InputRecorder finished = recorder;
+        recorder = null;
+        inputManager.setRecorder(null);
+        finished.close();
+    }
+    
+    /**
+     * 是否正在录制输入
+     */
+    public boolean isRecording() {
+        return recorder != null;
+    }
+    
+    /**
+     * 显示或隐藏调试层，运行时也可以按F3切换
+     */
+    public void setDebugOverlayVisible(boolean visible) {
+        this.debugOverlayVisible = visible;
+    }
+    
+    /**
+     * 调试层是否显示
+     */
+    public boolean isDebugOverlayVisible() {
+        return debugOverlayVisible;
+    }
+    
+    /**
+     * 获取每帧的运行时统计，只在游戏线程读取
+     */
+    public FrameTelemetry getTelemetry() {
+        return telemetry;
+    }
+    
+    /**
+     * 获取调试层
+     */
+    public DebugOverlay getDebugOverlay() {
+        return debugOverlay;
+    }
+    
     /**
      * 获取渲染器
      */
@@ -186,6 +567,88 @@ public class GameEngine {
         return targetFPS;
     }
     
+    /**
+     * 启用/禁用固定步长模拟
+     */
+    public void setFixedTimestep(boolean fixedTimestep) {
+        this.fixedTimestep = fixedTimestep;
+        this.accumulator = 0.0f;
+        this.interpolationAlpha = 1.0f;
+    }
+    
+    /**
+     * 是否使用固定步长模拟
+     */
+    public boolean isFixedTimestep() {
+        return fixedTimestep;
+    }
+    
+    /**
+     * 设置固定步长模拟的频率（每秒步数）
+     */
+    public void setTickRate(float ticksPerSecond) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("模拟频率必须大于0: " + ticksPerSecond);
+        }
+        this.fixedDeltaTime = 1.0f / ticksPerSecond;
+    }
+    
+    /**
+     * 获取固定步长模拟的频率
+     */
+    public float getTickRate() {
+        return 1.0f / fixedDeltaTime;
+    }
+    
+    /**
+     * 获取固定步长
+     */
+    public float getFixedDeltaTime() {
+        return fixedDeltaTime;
+    }
+    
+    /**
+     * 设置每帧最多追赶的模拟步数
+     */
+    public void setMaxCatchUpSteps(int maxCatchUpSteps) {
+        this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps);
+    }
+    
+    /**
+     * 获取每帧最多追赶的模拟步数
+     */
+    public int getMaxCatchUpSteps() {
+        return maxCatchUpSteps;
+    }
+    
+    /**
+     * 获取渲染插值系数
+     */
+    public float getInterpolationAlpha() {
+        return fixedTimestep ? interpolationAlpha : 1.0f;
+    }
+    
+    /**
+     * 获取已执行的模拟步数
+     */
+    public long getSimulationTicks() {
+        return simulationTicks;
+    }
+    
+    /**
+     * 设置随机种子，场景应在初始化时用它创建随机数生成器，录制的会话才能重现
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    /**
+     * 获取随机种子
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
     /**
      * 检查引擎是否正在运行
      */
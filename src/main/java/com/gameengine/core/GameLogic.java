@@ -5,8 +5,12 @@ import com.gameengine.components.PhysicsComponent;
 import com.gameengine.core.GameObject;
 import com.gameengine.input.InputManager;
 import com.gameengine.math.Vector2;
+import com.gameengine.scene.ChunkConsumer;
+import com.gameengine.scene.CommandBuffer;
+import com.gameengine.scene.Query;
 import com.gameengine.scene.Scene;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,10 +19,19 @@ import java.util.List;
 public class GameLogic {
     private Scene scene;
     private InputManager inputManager;
+    // 逐帧复用的临时向量
+    private final Vector2 movement = new Vector2();
+    private final Vector2 position = new Vector2();
+    // 空间查询结果缓冲
+    private final List<GameObject> nearby = new ArrayList<>();
+    // 物理对象查询和并行处理的边界反弹
+    private final Query physicsObjects;
+    private final ChunkConsumer boundaryBounce = this::bounceChunk;
     
     public GameLogic(Scene scene) {
         this.scene = scene;
         this.inputManager = InputManager.getInstance();
+        this.physicsObjects = scene.query(TransformComponent.class, PhysicsComponent.class);
     }
     
     /**
@@ -34,7 +47,7 @@ public class GameLogic {
         
         if (transform == null || physics == null) return;
         
-        Vector2 movement = new Vector2();
+        movement.set(0, 0);
         
         if (inputManager.isKeyPressed(87) || inputManager.isKeyPressed(38)) { // W或上箭头
             movement.y -= 1;
@@ -50,12 +63,12 @@ public class GameLogic {
         }
         
         if (movement.magnitude() > 0) {
-            movement = movement.normalize().multiply(200);
+            movement.normalizeLocal().scaleLocal(200);
             physics.setVelocity(movement);
         }
         
         // 边界检查
-        Vector2 pos = transform.getPosition();
+        Vector2 pos = transform.getPosition(position);
         if (pos.x < 0) pos.x = 0;
         if (pos.y < 0) pos.y = 0;
         if (pos.x > 800 - 20) pos.x = 800 - 20;
@@ -64,33 +77,35 @@ public class GameLogic {
     }
     
     /**
-     * 更新物理系统
+     * 更新物理系统，对象分块在多个线程上并行处理
      */
     public void updatePhysics() {
-        List<PhysicsComponent> physicsComponents = scene.getComponents(PhysicsComponent.class);
-        for (PhysicsComponent physics : physicsComponents) {
-            // 边界反弹
-            TransformComponent transform = physics.getOwner().getComponent(TransformComponent.class);
-            if (transform != null) {
-                Vector2 pos = transform.getPosition();
-                Vector2 velocity = physics.getVelocity();
-                
-                if (pos.x <= 0 || pos.x >= 800 - 15) {
-                    velocity.x = -velocity.x;
-                    physics.setVelocity(velocity);
-                }
-                if (pos.y <= 0 || pos.y >= 600 - 15) {
-                    velocity.y = -velocity.y;
-                    physics.setVelocity(velocity);
-                }
-                
-                // 确保在边界内
-                if (pos.x < 0) pos.x = 0;
-                if (pos.y < 0) pos.y = 0;
-                if (pos.x > 800 - 15) pos.x = 800 - 15;
-                if (pos.y > 600 - 15) pos.y = 600 - 15;
-                transform.setPosition(pos);
+        scene.forEachParallel(physicsObjects, boundaryBounce);
+    }
+    
+    /**
+     * 边界反弹，只修改块内对象自身的组件
+     */
+    private void bounceChunk(Query query, int start, int end, CommandBuffer commands) {
+        // 直接读写坐标分量，块内不分配临时向量
+        for (int i = start; i < end; i++) {
+            GameObject obj = query.get(i);
+            TransformComponent transform = (TransformComponent) query.getComponent(i);
+            PhysicsComponent physics = obj.getComponent(PhysicsComponent.class);
+            float x = transform.getX();
+            float y = transform.getY();
+            boolean bounceX = x <= 0 || x >= 800 - 15;
+            boolean bounceY = y <= 0 || y >= 600 - 15;
+            if (bounceX || bounceY) {
+                float vx = physics.getVelocityX();
+                float vy = physics.getVelocityY();
+                physics.setVelocity(bounceX ? -vx : vx, bounceY ? -vy : vy);
             }
+            
+            // 确保在边界内
+            x = Math.max(0, Math.min(x, 800 - 15));
+            y = Math.max(0, Math.min(y, 600 - 15));
+            transform.setPosition(x, y);
         }
     }
     
@@ -106,19 +121,24 @@ public class GameLogic {
         TransformComponent playerTransform = player.getComponent(TransformComponent.class);
         if (playerTransform == null) return;
         
-        // 直接查找所有游戏对象，然后过滤出敌人
-        for (GameObject obj : scene.getGameObjects()) {
+        // 通过空间索引只检查玩家附近的对象，再过滤出敌人
+        float playerX = playerTransform.getX();
+        float playerY = playerTransform.getY();
+        nearby.clear();
+        scene.getSpatialIndex().queryRadius(playerX, playerY, 25, nearby);
+        for (int i = 0; i < nearby.size(); i++) {
+            GameObject obj = nearby.get(i);
             if (obj.getName().equals("Enemy")) {
                 TransformComponent enemyTransform = obj.getComponent(TransformComponent.class);
-                if (enemyTransform != null) {
-                    float distance = playerTransform.getPosition().distance(enemyTransform.getPosition());
-                    if (distance < 25) {
-                        // 碰撞！重置玩家位置
-                        playerTransform.setPosition(new Vector2(400, 300));
-                        break;
-                    }
+                float dx = playerX - enemyTransform.getX();
+                float dy = playerY - enemyTransform.getY();
+                if (dx * dx + dy * dy < 25 * 25) {
+                    // 碰撞！重置玩家位置
+                    playerTransform.setPosition(400, 300);
+                    break;
                 }
             }
         }
+        nearby.clear();
     }
 }
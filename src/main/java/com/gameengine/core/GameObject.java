@@ -1,6 +1,10 @@
 package com.gameengine.core;
 
 import com.gameengine.math.Vector2;
+import com.gameengine.profiler.Profiler;
+import com.gameengine.scene.Archetype;
+import com.gameengine.scene.GameObjectPool;
+import com.gameengine.scene.Scene;
 import java.util.*;
 
 /**
@@ -10,11 +14,26 @@ public class GameObject {
     protected boolean active;
     protected String name;
     protected final List<Component<?>> components;
+    // 按组件类型ID索引的槽位和组件签名
+    private Component<?>[] componentSlots;
+    private final ComponentMask signature;
+    private Scene scene;
+    private Archetype archetype;
+    private int archetypeRow;
+    // 场景分配的句柄，不在场景中时为0
+    private long handle;
+    // 所属的对象池，不为null时销毁后保留组件，离开场景时放回池中
+    private GameObjectPool<?> pool;
     
     public GameObject() {
         this.active = true;
         this.name = "GameObject";
         this.components = new ArrayList<>();
+        this.componentSlots = new Component<?>[Math.max(8, ComponentType.count())];
+        this.signature = new ComponentMask();
+        this.scene = null;
+        this.archetype = null;
+        this.archetypeRow = -1;
     }
     
     public GameObject(String name) {
@@ -44,15 +63,34 @@ public class GameObject {
     }
     
     /**
-     * 销毁游戏对象
+     * 销毁游戏对象。对象池中的对象保留组件，离开场景后由对象池回收
      */
     public void destroy() {
         this.active = false;
+        // 通知场景更新索引，并把列存储中的数据写回组件
+        if (scene != null) {
+            scene.onGameObjectDestroyed(this);
+        }
+        if (pool != null) {
+            return;
+        }
         // 销毁所有组件
         for (Component<?> component : components) {
             component.destroy();
         }
         components.clear();
+        Arrays.fill(componentSlots, null);
+        signature.clear();
+    }
+    
+    /**
+     * 对象被对象池回收时调用，重置所有组件的运行时状态。
+     * 子类有自己的状态时重写此方法并调用super.reset()
+     */
+    public void reset() {
+        for (int i = 0; i < components.size(); i++) {
+            components.get(i).reset();
+        }
     }
     
     /**
@@ -61,57 +99,240 @@ public class GameObject {
     public <T extends Component<T>> T addComponent(T component) {
         component.setOwner(this);
         components.add(component);
+        int[] ids = ComponentType.of(component.getClass()).getHierarchyIds();
+        for (int id : ids) {
+            if (id >= componentSlots.length) {
+                componentSlots = Arrays.copyOf(componentSlots, Math.max(id + 1, componentSlots.length * 2));
+            }
+            // 同类型已有组件时保留先添加的
+            if (componentSlots[id] == null) {
+                componentSlots[id] = component;
+                signature.set(id);
+            }
+        }
         component.initialize();
+        // 组件集合变化后通知场景更新索引
+        if (scene != null) {
+            scene.onComponentsChanged(this);
+        }
         return component;
     }
     
     /**
-     * 获取组件
+     * 移除组件
      */
-    @SuppressWarnings("unchecked")
-    public <T extends Component<T>> T getComponent(Class<T> componentType) {
+    public <T extends Component<T>> T removeComponent(Class<T> componentType) {
+        T component = getComponent(componentType);
+        if (component == null) {
+            return null;
+        }
+        // 先让场景写回列存储中的数据，再移除组件
+        if (scene != null) {
+            scene.onComponentRemoving(this);
+        }
+        components.remove(component);
+        int[] ids = ComponentType.of(component.getClass()).getHierarchyIds();
+        for (int id : ids) {
+            if (componentSlots[id] == component) {
+                componentSlots[id] = findComponentById(id);
+                if (componentSlots[id] == null) {
+                    signature.clear(id);
+                }
+            }
+        }
+        if (scene != null) {
+            scene.onComponentsChanged(this);
+        }
+        component.destroy();
+        component.setOwner(null);
+        return component;
+    }
+    
+    /**
+     * 在组件列表中查找指定类型ID的第一个组件
+     */
+    private Component<?> findComponentById(int id) {
         for (Component<?> component : components) {
-            if (componentType.isInstance(component)) {
-                return (T) component;
+            int[] ids = ComponentType.of(component.getClass()).getHierarchyIds();
+            for (int candidate : ids) {
+                if (candidate == id) {
+                    return component;
+                }
             }
         }
         return null;
     }
     
+    /**
+     * 获取组件
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component<T>> T getComponent(Class<T> componentType) {
+        return (T) getComponent(ComponentType.idOf(componentType));
+    }
+    
+    /**
+     * 按组件类型ID获取组件
+     */
+    public Component<?> getComponent(int componentTypeId) {
+        return componentTypeId < componentSlots.length ? componentSlots[componentTypeId] : null;
+    }
+    
     /**
      * 检查是否有指定类型的组件
      */
     public <T extends Component<T>> boolean hasComponent(Class<T> componentType) {
-        for (Component<?> component : components) {
-            if (componentType.isInstance(component)) {
-                return true;
-            }
-        }
-        return false;
+        return signature.get(ComponentType.idOf(componentType));
+    }
+    
+    /**
+     * 检查是否具有掩码中的所有组件
+     */
+    public boolean hasComponents(ComponentMask mask) {
+        return signature.containsAll(mask);
+    }
+    
+    /**
+     * 获取组件签名，不要修改
+     */
+    public ComponentMask getSignature() {
+        return signature;
     }
     
     /**
      * 更新所有组件
      */
     public void updateComponents(float deltaTime) {
-        for (Component<?> component : components) {
+        if (Profiler.isEnabled() && Profiler.sampleComponentUpdate()) {
+            updateComponentsProfiled(deltaTime);
+            return;
+        }
+        for (int i = 0; i < components.size(); i++) {
+            Component<?> component = components.get(i);
             if (component.isEnabled()) {
                 component.update(deltaTime);
             }
         }
     }
     
+    /**
+     * 更新所有组件，并按组件类型累计耗时，由抽样到的对象调用
+     */
+    private void updateComponentsProfiled(float deltaTime) {
+        long start = System.nanoTime();
+        for (int i = 0; i < components.size(); i++) {
+            Component<?> component = components.get(i);
+            if (component.isEnabled()) {
+                component.update(deltaTime);
+                long now = System.nanoTime();
+                Profiler.addComponentTime(ComponentType.of(component.getClass()).getId(), now - start);
+                start = now;
+            }
+        }
+    }
+    
     /**
      * 渲染所有组件
      */
     public void renderComponents() {
-        for (Component<?> component : components) {
+        for (int i = 0; i < components.size(); i++) {
+            Component<?> component = components.get(i);
             if (component.isEnabled()) {
                 component.render();
             }
         }
     }
     
+    /**
+     * 变换组件移动到(x, y)后调用，大小不变，通知场景更新空间索引
+     */
+    public void onMoved(float x, float y) {
+        if (scene != null) {
+            scene.onGameObjectMoved(this, x, y);
+        }
+    }
+    
+    /**
+     * 包围盒大小变化或位置无法直接给出时由组件调用，通知场景更新空间索引
+     */
+    public void onBoundsChanged() {
+        if (scene != null) {
+            scene.onGameObjectMoved(this);
+        }
+    }
+    
+    /**
+     * 获取所在场景，未加入场景时为null
+     */
+    public Scene getScene() {
+        return scene;
+    }
+    
+    /**
+     * 设置所在场景，由场景维护
+     */
+    public void setScene(Scene scene) {
+        this.scene = scene;
+    }
+    
+    /**
+     * 获取场景分配的句柄，不在场景中时为EntityRegistry.NULL_HANDLE。
+     * 对象离开场景后句柄失效，通过Scene.getGameObject解析
+     */
+    public long getHandle() {
+        return handle;
+    }
+    
+    /**
+     * 设置句柄，由场景的实体表维护
+     */
+    public void setHandle(long handle) {
+        this.handle = handle;
+    }
+    
+    /**
+     * 获取所属的对象池，不是由对象池创建时为null
+     */
+    public GameObjectPool<?> getPool() {
+        return pool;
+    }
+    
+    /**
+     * 设置所属的对象池，由对象池维护
+     */
+    public void setPool(GameObjectPool<?> pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * 获取所在的原型块，未使用原型存储时为null
+     */
+    public Archetype getArchetype() {
+        return archetype;
+    }
+    
+    /**
+     * 获取在原型块中的行号
+     */
+    public int getArchetypeRow() {
+        return archetypeRow;
+    }
+    
+    /**
+     * 绑定到原型块的指定行，由原型存储维护
+     */
+    public void setArchetype(Archetype archetype, int row) {
+        this.archetype = archetype;
+        this.archetypeRow = archetype != null ? row : -1;
+    }
+    
+    /**
+     * 获取所有组件
+     */
+    public List<Component<?>> getComponents() {
+        return Collections.unmodifiableList(components);
+    }
+    
     // Getters and Setters
     
     public boolean isActive() {
@@ -0,0 +1,169 @@
+package com.gameengine.core;
+
+import com.gameengine.profiler.Profiler;
+import com.gameengine.scene.CommandBuffer;
+import com.gameengine.scene.Scene;
+
+/**
+ * 系统基类。系统在构造时声明读取和写入的组件类型，
+ * 调度器据此判断哪些系统可以同时执行。
+ * 非独占系统可能与其他系统在不同线程上同时执行，不能直接增删对象或组件，
+ * 这些修改记录到update传入的CommandBuffer中，在本组系统全部结束后按注册顺序执行；
+ * 需要直接修改场景结构或访问非线程安全的共享状态时，声明为独占系统
+ */
+public abstract class GameSystem {
+    private final String name;
+    private final ComponentMask reads;
+    private final ComponentMask writes;
+    private boolean exclusive;
+    private boolean enabled;
+    private final CommandBuffer commands;
+    // 性能分析的作用域，同名系统共用
+    private final int profilerScope;
+
+    // 耗时统计，单位纳秒
+    private long lastUpdateNanos;
+    private long totalUpdateNanos;
+    private long maxUpdateNanos;
+    private long updateCount;
+
+    protected GameSystem(String name) {
+        this.name = name;
+        this.reads = new ComponentMask();
+        this.writes = new ComponentMask();
+        this.exclusive = false;
+        this.enabled = true;
+        this.commands = new CommandBuffer();
+        this.profilerScope = Profiler.scope(name);
+    }
+
+    /**
+     * 声明读取的组件类型
+     */
+    protected final void reads(Class<?>... componentTypes) {
+        for (Class<?> type : componentTypes) {
+            reads.set(ComponentType.idOf(type));
+        }
+    }
+
+    /**
+     * 声明写入的组件类型，写入同时视为读取
+     */
+    protected final void writes(Class<?>... componentTypes) {
+        for (Class<?> type : componentTypes) {
+            int id = ComponentType.idOf(type);
+            reads.set(id);
+            writes.set(id);
+        }
+    }
+
+    /**
+     * 声明为独占系统，在调用线程上单独执行，可以直接修改场景结构
+     */
+    protected final void exclusive() {
+        this.exclusive = true;
+    }
+
+    /**
+     * 系统加入调度器时调用
+     */
+    public void initialize(Scene scene) {
+    }
+
+    /**
+     * 执行一次系统更新
+     */
+    public abstract void update(Scene scene, float deltaTime, CommandBuffer commands);
+
+    /**
+     * 检查两个系统是否不能同时执行：任一方是独占系统，或一方写入另一方读写的组件
+     */
+    public boolean conflictsWith(GameSystem other) {
+        if (exclusive || other.exclusive) {
+            return true;
+        }
+        return writes.intersects(other.reads) || other.writes.intersects(reads);
+    }
+
+    /**
+     * 执行并记录耗时，由调度器调用
+     */
+    void run(Scene scene, float deltaTime) {
+        long start = System.nanoTime();
+        Profiler.begin(profilerScope);
+        try {
+            update(scene, deltaTime, commands);
+        } finally {
+            Profiler.end();
+        }
+        long elapsed = System.nanoTime() - start;
+        lastUpdateNanos = elapsed;
+        totalUpdateNanos += elapsed;
+        maxUpdateNanos = Math.max(maxUpdateNanos, elapsed);
+        updateCount++;
+    }
+
+    CommandBuffer getCommands() {
+        return commands;
+    }
+
+    /**
+     * 清空耗时统计
+     */
+    public void resetTimings() {
+        lastUpdateNanos = 0;
+        totalUpdateNanos = 0;
+        maxUpdateNanos = 0;
+        updateCount = 0;
+    }
+
+    /**
+     * 设置是否启用，禁用的系统不执行但保留在依赖图中
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // Getters
+    public String getName() {
+        return name;
+    }
+
+    public boolean isExclusive() {
+        return exclusive;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 读取的组件类型，包含写入的类型，不要修改
+     */
+    public ComponentMask getReads() {
+        return reads;
+    }
+
+    /**
+     * 写入的组件类型，不要修改
+     */
+    public ComponentMask getWrites() {
+        return writes;
+    }
+
+    public long getLastUpdateNanos() {
+        return lastUpdateNanos;
+    }
+
+    public long getMaxUpdateNanos() {
+        return maxUpdateNanos;
+    }
+
+    public long getAverageUpdateNanos() {
+        return updateCount == 0 ? 0 : totalUpdateNanos / updateCount;
+    }
+
+    public long getUpdateCount() {
+        return updateCount;
+    }
+}
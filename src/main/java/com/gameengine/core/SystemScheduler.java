@@ -0,0 +1,333 @@
+package com.gameengine.core;
+
+import com.gameengine.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 系统调度器。按注册顺序把系统分成若干阶段，独占系统单独成为一个阶段，
+ * 相邻的非独占系统组成一组。组内冲突的系统之间按注册顺序建立依赖边，
+ * 每次更新时没有未完成前驱的系统立即在线程池上执行，互不冲突的系统同时运行。
+ * 依赖图只在系统增删后重建
+ */
+public class SystemScheduler {
+    private static final boolean SINGLE_CORE = Runtime.getRuntime().availableProcessors() < 2;
+
+    private final Scene scene;
+    private final List<GameSystem> systems;
+    private final List<GameSystem> systemView;
+    private ForkJoinPool pool;
+    private boolean parallel;
+    private Stage[] stages;
+    private boolean dirty;
+    private long lastUpdateNanos;
+
+    public SystemScheduler(Scene scene) {
+        this.scene = scene;
+        this.systems = new ArrayList<>();
+        this.systemView = Collections.unmodifiableList(systems);
+        this.pool = ForkJoinPool.commonPool();
+        this.parallel = true;
+        this.stages = new Stage[0];
+        this.dirty = true;
+    }
+
+    /**
+     * 添加系统并初始化，冲突的系统按添加顺序执行
+     */
+    public void addSystem(GameSystem system) {
+        Objects.requireNonNull(system);
+        if (systems.contains(system)) {
+            throw new IllegalArgumentException("系统已经添加: " + system.getName());
+        }
+        systems.add(system);
+        dirty = true;
+        system.initialize(scene);
+    }
+
+    /**
+     * 移除系统
+     */
+    public void removeSystem(GameSystem system) {
+        if (systems.remove(system)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * 执行一次所有系统
+     */
+    public void update(float deltaTime) {
+        long start = System.nanoTime();
+        if (dirty) {
+            rebuild();
+        }
+        for (Stage stage : stages) {
+            if (stage.exclusive != null) {
+                runExclusive(stage.exclusive, deltaTime);
+            } else {
+                runGroup(stage, deltaTime);
+            }
+        }
+        lastUpdateNanos = System.nanoTime() - start;
+    }
+
+    private void runExclusive(GameSystem system, float deltaTime) {
+        if (!system.isEnabled()) {
+            return;
+        }
+        try {
+            system.run(scene, deltaTime);
+        } catch (RuntimeException | Error e) {
+            system.getCommands().clear();
+            throw e;
+        }
+        system.getCommands().apply(scene);
+    }
+
+    private void runGroup(Stage stage, float deltaTime) {
+        Node[] nodes = stage.nodes;
+        scene.beginParallelPhase();
+        try {
+            if (!parallel || nodes.length == 1 || (SINGLE_CORE && pool == ForkJoinPool.commonPool())) {
+                // 注册顺序本身就是一个合法的拓扑序
+                for (Node node : nodes) {
+                    if (node.system.isEnabled()) {
+                        node.system.run(scene, deltaTime);
+                    }
+                }
+            } else {
+                runGraph(stage, deltaTime);
+            }
+        } catch (RuntimeException | Error e) {
+            for (Node node : nodes) {
+                node.system.getCommands().clear();
+            }
+            throw e;
+        } finally {
+            scene.endParallelPhase();
+        }
+        // 本组全部结束后按注册顺序执行延迟的修改
+        for (Node node : nodes) {
+            node.system.getCommands().apply(scene);
+        }
+    }
+
+    private void runGraph(Stage stage, float deltaTime) {
+        Node[] nodes = stage.nodes;
+        GroupTask group = new GroupTask(stage, scene, deltaTime);
+        for (Node node : nodes) {
+            node.remaining.set(node.predecessorCount);
+        }
+        pool.invoke(group);
+        Throwable failure = group.failure;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    /**
+     * 按注册顺序划分阶段，并为每组建立依赖图
+     */
+    private void rebuild() {
+        List<Stage> result = new ArrayList<>();
+        List<GameSystem> group = new ArrayList<>();
+        for (GameSystem system : systems) {
+            if (system.isExclusive()) {
+                if (!group.isEmpty()) {
+                    result.add(buildGroup(group));
+                    group.clear();
+                }
+                result.add(new Stage(system));
+            } else {
+                group.add(system);
+            }
+        }
+        if (!group.isEmpty()) {
+            result.add(buildGroup(group));
+        }
+        stages = result.toArray(new Stage[0]);
+        dirty = false;
+    }
+
+    private static Stage buildGroup(List<GameSystem> group) {
+        int count = group.size();
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = new Node(group.get(i));
+        }
+        // 冲突的系统之间从先注册的指向后注册的，保证无环
+        for (int j = 0; j < count; j++) {
+            List<Node> successors = new ArrayList<>();
+            for (int k = j + 1; k < count; k++) {
+                if (nodes[j].system.conflictsWith(nodes[k].system)) {
+                    successors.add(nodes[k]);
+                    nodes[k].predecessorCount++;
+                }
+            }
+            nodes[j].successors = successors.toArray(new Node[0]);
+        }
+        return new Stage(nodes);
+    }
+
+    /**
+     * 设置执行系统的线程池，默认使用公共池
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * 设置是否并行执行，关闭后按注册顺序在调用线程上执行
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * 获取所有系统，按注册顺序
+     */
+    public List<GameSystem> getSystems() {
+        return systemView;
+    }
+
+    /**
+     * 上一次更新所有系统的总耗时，单位纳秒
+     */
+    public long getLastUpdateNanos() {
+        return lastUpdateNanos;
+    }
+
+    /**
+     * 生成各系统耗时的文本报告，单位微秒
+     */
+    public String getTimingReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-24s %10s %10s %10s%n", "system", "last", "avg", "max"));
+        for (GameSystem system : systems) {
+            sb.append(String.format("%-24s %10.1f %10.1f %10.1f%n", system.getName(),
+                    system.getLastUpdateNanos() / 1000.0,
+                    system.getAverageUpdateNanos() / 1000.0,
+                    system.getMaxUpdateNanos() / 1000.0));
+        }
+        sb.append(String.format("%-24s %10.1f%n", "total", lastUpdateNanos / 1000.0));
+        return sb.toString();
+    }
+
+    /**
+     * 阶段：一个独占系统，或一组按依赖图执行的非独占系统
+     */
+    private static final class Stage {
+        final GameSystem exclusive;
+        final Node[] nodes;
+
+        Stage(GameSystem exclusive) {
+            this.exclusive = exclusive;
+            this.nodes = null;
+        }
+
+        Stage(Node[] nodes) {
+            this.exclusive = null;
+            this.nodes = nodes;
+        }
+    }
+
+    /**
+     * 依赖图节点
+     */
+    private static final class Node {
+        final GameSystem system;
+        final AtomicInteger remaining;
+        int predecessorCount;
+        Node[] successors;
+
+        Node(GameSystem system) {
+            this.system = system;
+            this.remaining = new AtomicInteger();
+        }
+    }
+
+    /**
+     * 一组系统的一次执行，所有系统任务结束后完成
+     */
+    private static final class GroupTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        final Stage stage;
+        final Scene scene;
+        final float deltaTime;
+        volatile Throwable failure;
+
+        GroupTask(Stage stage, Scene scene, float deltaTime) {
+            this.stage = stage;
+            this.scene = scene;
+            this.deltaTime = deltaTime;
+        }
+
+        @Override
+        public void compute() {
+            Node[] nodes = stage.nodes;
+            setPendingCount(nodes.length);
+            for (Node node : nodes) {
+                if (node.predecessorCount == 0) {
+                    new SystemTask(this, node).fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+
+    /**
+     * 单个系统的执行，结束后释放后继系统
+     */
+    private static final class SystemTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        final GroupTask group;
+        final Node node;
+
+        SystemTask(GroupTask group, Node node) {
+            super(group);
+            this.group = group;
+            this.node = node;
+        }
+
+        @Override
+        public void compute() {
+            // 前面的系统失败后，后续系统不再执行，只推进依赖计数
+            if (group.failure == null && node.system.isEnabled()) {
+                try {
+                    node.system.run(group.scene, group.deltaTime);
+                } catch (Throwable t) {
+                    synchronized (group) {
+                        if (group.failure == null) {
+                            group.failure = t;
+                        }
+                    }
+                }
+            }
+            for (Node successor : node.successors) {
+                if (successor.remaining.decrementAndGet() == 0) {
+                    new SystemTask(group, successor).fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+}
@@ -1,18 +1,33 @@
 package com.gameengine.example;
 
+import com.gameengine.components.CameraComponent;
 import com.gameengine.components.TransformComponent;
 import com.gameengine.components.RenderComponent;
 import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.ColliderComponent;
+import com.gameengine.collision.CollisionListener;
+import com.gameengine.collision.CollisionSystem;
 import com.gameengine.core.GameObject;
+import com.gameengine.core.GameSystem;
 import com.gameengine.core.GameEngine;
+import com.gameengine.graphics.ActiveRenderer;
+import com.gameengine.graphics.RenderLayer;
 import com.gameengine.graphics.Renderer;
 import com.gameengine.math.Vector2;
+import com.gameengine.profiler.FrameTelemetry;
+import com.gameengine.profiler.FrameTimeHistogram;
+import com.gameengine.profiler.Profiler;
+import com.gameengine.scene.CommandBuffer;
+import com.gameengine.scene.Prefab;
 import com.gameengine.scene.Scene;
 import com.gameengine.input.InputManager;
+import com.gameengine.input.InputReplay;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Random;
 
 public class GameExample {
@@ -23,11 +38,106 @@ public class GameExample {
     private static final float CENTIPEDE_SPEED = 100.0f;
     private static final float FIRE_RATE = 0.3f;
     private static final float SPAWN_RATE = 1.2f;
+    private static final int LAYER_PLAYER = 1;
+    private static final int LAYER_FIREBALL = 1 << 1;
+    private static final int LAYER_CENTIPEDE = 1 << 2;
+
+    /**
+     * 火球，沿发射方向匀速飞行
+     */
+    private static class Fireball extends GameObject {
+        private final Vector2 direction = new Vector2();
+
+        @Override
+        public void update(float deltaTime) {
+            super.update(deltaTime);
+            updateComponents(deltaTime);
+            TransformComponent trans = getComponent(TransformComponent.class);
+            if (trans != null) {
+                trans.translate(direction.x * FIREBALL_SPEED * deltaTime,
+                                direction.y * FIREBALL_SPEED * deltaTime);
+            }
+        }
+
+        @Override
+        public void render() {
+            super.render();
+            renderComponents();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            direction.set(0, 0);
+        }
+    }
+
+    /**
+     * 对象句柄列表，移除时用最后一个句柄填补空位
+     */
+    private static final class HandleList {
+        private long[] handles = new long[16];
+        private int size;
+
+        void add(long handle) {
+            if (size == handles.length) {
+                handles = Arrays.copyOf(handles, size * 2);
+            }
+            handles[size++] = handle;
+        }
+
+        long get(int index) {
+            return handles[index];
+        }
+
+        void removeAt(int index) {
+            handles[index] = handles[--size];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 取出命令行中name之后的文件路径，没有时返回null
+     */
+    private static Path optionPath(String[] args, String name) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(name)) {
+                return Paths.get(args[i + 1]);
+            }
+        }
+        return null;
+    }
+
+    private static void exportProfile(Path file) {
+        try {
+            Profiler.exportChromeTrace(file);
+            FrameTimeHistogram frames = Profiler.getFrameTimes();
+            System.out.printf("性能分析已导出到%s，帧耗时p50 %.2f毫秒，p99 %.2f毫秒，最大%.2f毫秒%n", file,
+                    frames.getP50Nanos() / 1_000_000.0, frames.getP99Nanos() / 1_000_000.0,
+                    frames.getMaxNanos() / 1_000_000.0);
+        } catch (IOException e) {
+            System.err.println("导出性能分析失败: " + e.getMessage());
+        }
+    }
 
     public static void main(String[] args) {
         System.out.println("启动游戏引擎...");
         try {
-            GameEngine engine = new GameEngine(WINDOW_WIDTH, WINDOW_HEIGHT, "葫芦娃大战蜈蚣精");
+            // --active使用主动渲染，在主线程上运行游戏循环
+            boolean active = Arrays.asList(args).contains("--active") && !GraphicsEnvironment.isHeadless();
+            GameEngine engine = active
+                    ? new GameEngine(new ActiveRenderer(WINDOW_WIDTH, WINDOW_HEIGHT, "葫芦娃大战蜈蚣精"))
+                    : new GameEngine(WINDOW_WIDTH, WINDOW_HEIGHT, "葫芦娃大战蜈蚣精");
+            // --record <文件>录制每一步的输入，--replay <文件>按录制的输入尽快回放一遍
+            Path recordFile = optionPath(args, "--record");
+            Path replayFile = optionPath(args, "--replay");
+            // --profile <文件>开启性能分析，退出时把时间线导出为Chrome trace
+            Path profileFile = optionPath(args, "--profile");
+            // --overlay一开始就显示调试层，运行时按F3切换
+            engine.setDebugOverlayVisible(Arrays.asList(args).contains("--overlay"));
 
             Scene gameScene = new Scene("GameScene") {
                 private Renderer renderer;
@@ -35,65 +145,190 @@ public class GameExample {
                 private float fireTimer;
                 private float spawnTimer;
                 private final InputManager inputManager = InputManager.getInstance();
-                private final List<GameObject> fireballs = new ArrayList<>();
-                private final List<GameObject> centipedes = new ArrayList<>();
+                // 保存句柄而不是对象，对象销毁或被对象池复用后旧句柄自然失效
+                private final HandleList fireballs = new HandleList();
+                private final HandleList centipedes = new HandleList();
                 private GameObject player;
+                private CollisionSystem collisionSystem;
                 private int score = 0;
                 private boolean isPlayerDead = false;
                 private Vector2 mousePos = new Vector2(400, 300);
+                // 背景不变，缓存后每帧只合成；界面文字绘制在场景之上
+                private final RenderLayer backgroundLayer = new RenderLayer("background", -100, true);
+                private final RenderLayer hudLayer = new RenderLayer("hud", 100, false);
+                // 逐帧复用的临时向量，可能同时执行的系统各用各的
+                private final Vector2 moveDir = new Vector2();
+                private final Vector2 tmpPos = new Vector2();
+                private final Vector2 fireballPos = new Vector2();
+                private final Vector2 enemyPos = new Vector2();
+                private final Vector2 playerPos = new Vector2();
+                private final Vector2 steerDir = new Vector2();
+                private final Vector2 spawnPos = new Vector2();
+                // 火球和蜈蚣精频繁生成和销毁，通过场景的对象池复用
+                private Prefab<Fireball> fireballPrefab;
+                private Prefab<GameObject> centipedePrefab;
 
                 @Override
                 public void initialize() {
                     super.initialize();
                     this.renderer = engine.getRenderer();
-                    this.random = new Random();
+                    this.random = new Random(engine.getSeed());
                     this.fireTimer = 0;
                     this.spawnTimer = 0;
                     this.score = 0;
                     this.isPlayerDead = false;
+                    this.collisionSystem = new CollisionSystem(this);
+                    collisionSystem.addListener(new CollisionListener() {
+                        @Override
+                        public void onCollisionEnter(ColliderComponent a, ColliderComponent b) {
+                            handleContact(a, b);
+                        }
+                    });
+                    createPrefabs();
+                    createCamera();
                     createPlayer();
                     for (int i = 0; i < 3; i++) {
                         createCentipede();
                     }
+                    registerSystems();
                 }
 
-                @Override
-                public void update(float deltaTime) {
-                    super.update(deltaTime);
-                    if (isPlayerDead) return;
+                /**
+                 * 注册游戏逻辑系统，场景更新时按依赖关系执行，
+                 * 火球清理和蜈蚣精追踪互不冲突，可以同时执行
+                 */
+                private void registerSystems() {
+                    addSystem(new GameSystem("PlayerMovement") {
+                        {
+                            writes(TransformComponent.class, PhysicsComponent.class);
+                        }
 
-                    fireTimer += deltaTime;
-                    spawnTimer += deltaTime;
-                    this.mousePos = inputManager.getMousePosition();
+                        @Override
+                        public void update(Scene scene, float deltaTime, CommandBuffer commands) {
+                            if (isPlayerDead) return;
+                            handlePlayerMovement(deltaTime);
+                        }
+                    });
+                    addSystem(new GameSystem("Spawner") {
+                        {
+                            exclusive();
+                        }
 
-                    handlePlayerMovement(deltaTime);
-                    if (fireTimer > FIRE_RATE) {
-                        createFireball();
-                        fireTimer = 0;
-                    }
-                    if (spawnTimer > SPAWN_RATE) {
-                        createCentipede();
-                        spawnTimer = 0;
-                    }
-                    updateFireballs(deltaTime);
-                    updateCentipedes(deltaTime);
-                    checkCollisions();
+                        @Override
+                        public void update(Scene scene, float deltaTime, CommandBuffer commands) {
+                            if (isPlayerDead) return;
+                            fireTimer += deltaTime;
+                            spawnTimer += deltaTime;
+                            inputManager.getMousePosition(mousePos);
+                            if (fireTimer > FIRE_RATE) {
+                                createFireball();
+                                fireTimer = 0;
+                            }
+                            if (spawnTimer > SPAWN_RATE) {
+                                createCentipede();
+                                spawnTimer = 0;
+                            }
+                        }
+                    });
+                    addSystem(new GameSystem("FireballCleanup") {
+                        {
+                            reads(TransformComponent.class);
+                        }
+
+                        @Override
+                        public void update(Scene scene, float deltaTime, CommandBuffer commands) {
+                            if (isPlayerDead) return;
+                            updateFireballs(commands);
+                        }
+                    });
+                    addSystem(new GameSystem("CentipedeSteering") {
+                        {
+                            reads(TransformComponent.class);
+                            writes(PhysicsComponent.class);
+                        }
+
+                        @Override
+                        public void update(Scene scene, float deltaTime, CommandBuffer commands) {
+                            if (isPlayerDead) return;
+                            updateCentipedes(deltaTime);
+                        }
+                    });
+                    addSystem(collisionSystem);
                 }
 
                 @Override
                 public void render() {
-                    renderer.drawRect(0, 0, WINDOW_WIDTH, WINDOW_HEIGHT, 0.1f, 0.1f, 0.2f, 1.0f);
+                    if (renderer.beginLayer(backgroundLayer)) {
+                        renderer.drawRect(0, 0, WINDOW_WIDTH, WINDOW_HEIGHT, 0.1f, 0.1f, 0.2f, 1.0f);
+                    }
+                    renderer.beginLayer(RenderLayer.DEFAULT);
                     super.render();
-                    renderer.drawText("当前得分: " + score, 10, 20, 1.0f, 1.0f, 1.0f, 1.0f);
+                    renderer.beginLayer(hudLayer);
+                    renderer.drawText("当前得分: ", score, 10, 20, 1.0f, 1.0f, 1.0f, 1.0f);
 
                     if (isPlayerDead) {
                         renderer.drawText("葫芦娃阵亡！游戏结束！", 280, 280, 1.0f, 0.0f, 0.0f, 1.0f);
-                        renderer.drawText("最终得分: " + score, 350, 320, 1.0f, 0.8f, 0.0f, 1.0f);
+                        renderer.drawText("最终得分: ", score, 350, 320, 1.0f, 0.8f, 0.0f, 1.0f);
                     }
                 }
 
+                private void createPrefabs() {
+                    fireballPrefab = new Prefab<>("火球", Fireball::new)
+                            .with(TransformComponent::new)
+                            .with(() -> new RenderComponent(
+                                    RenderComponent.RenderType.RECTANGLE,
+                                    new Vector2(8, 12),
+                                    new RenderComponent.Color(1.0f, 0.0f, 0.0f, 1.0f)
+                            ), fireRender -> fireRender.setRenderer(renderer))
+                            .with(() -> new PhysicsComponent(0.1f))
+                            .with(() -> new ColliderComponent(12.5f), fireCollider -> {
+                                fireCollider.setLayer(LAYER_FIREBALL);
+                                fireCollider.setMask(LAYER_CENTIPEDE);
+                            });
+                    centipedePrefab = new Prefab<GameObject>("蜈蚣精", () -> new GameObject() {
+                        @Override
+                        public void update(float deltaTime) {
+                            super.update(deltaTime);
+                            updateComponents(deltaTime);
+                        }
+
+                        @Override
+                        public void render() {
+                            super.render();
+                            renderComponents();
+                        }
+                    })
+                            .with(TransformComponent::new)
+                            .with(() -> new RenderComponent(
+                                    RenderComponent.RenderType.RECTANGLE,
+                                    new Vector2(22, 22),
+                                    new RenderComponent.Color(0.6f, 0.3f, 0.0f, 1.0f)
+                            ), centiRender -> centiRender.setRenderer(renderer))
+                            .with(() -> new PhysicsComponent(0.5f), centiPhys -> centiPhys.setFriction(0.98f))
+                            .with(() -> new ColliderComponent(12.5f), centiCollider -> {
+                                centiCollider.setLayer(LAYER_CENTIPEDE);
+                                centiCollider.setMask(LAYER_PLAYER | LAYER_FIREBALL);
+                            });
+                    // 同屏的火球数量有上限，预先创建避免开局时分配
+                    getPool(fireballPrefab).prewarm(16);
+                }
+
+                /**
+                 * 固定相机，视野与窗口重合，窗口外刚生成的蜈蚣精不会被绘制
+                 */
+                private void createCamera() {
+                    GameObject cameraObject = new GameObject("Camera");
+                    CameraComponent camera = cameraObject.addComponent(
+                            new CameraComponent(WINDOW_WIDTH, WINDOW_HEIGHT));
+                    camera.setRenderer(renderer);
+                    addGameObject(cameraObject);
+                    setCamera(camera);
+                }
+
                 private void createPlayer() {
                     player = new GameObject("葫芦娃") {
+                        private final Vector2 renderPos = new Vector2();
+
                         @Override
                         public void update(float deltaTime) {
                             super.update(deltaTime);
@@ -106,7 +341,7 @@ public class GameExample {
                             renderComponents();
                             TransformComponent transform = getComponent(TransformComponent.class);
                             if (transform == null) return;
-                            Vector2 pos = transform.getPosition();
+                            Vector2 pos = transform.getInterpolatedPosition(renderer.getInterpolationAlpha(), renderPos);
                             
                             renderer.drawRect(pos.x - 10, pos.y - 15, 20, 30, 0.0f, 0.8f, 0.0f, 1.0f);
                             renderer.drawRect(pos.x - 8, pos.y - 30, 16, 16, 0.0f, 1.0f, 0.0f, 1.0f);
@@ -118,6 +353,9 @@ public class GameExample {
                     player.addComponent(new TransformComponent(new Vector2(400, 300)));
                     PhysicsComponent playerPhys = player.addComponent(new PhysicsComponent(1.0f));
                     playerPhys.setFriction(0.95f);
+                    ColliderComponent playerCollider = player.addComponent(new ColliderComponent(17.5f));
+                    playerCollider.setLayer(LAYER_PLAYER);
+                    playerCollider.setMask(LAYER_CENTIPEDE);
                     addGameObject(player);
                 }
 
@@ -127,16 +365,16 @@ public class GameExample {
                     PhysicsComponent phys = player.getComponent(PhysicsComponent.class);
                     if (trans == null || phys == null) return;
 
-                    Vector2 moveDir = new Vector2(0, 0);
+                    moveDir.set(0, 0);
                     if (inputManager.isKeyPressed(87)) moveDir.y -= 1;
                     if (inputManager.isKeyPressed(83)) moveDir.y += 1;
                     if (inputManager.isKeyPressed(65)) moveDir.x -= 1;
                     if (inputManager.isKeyPressed(68)) moveDir.x += 1;
 
-                    moveDir = moveDir.normalize();
-                    phys.setVelocity(moveDir.multiply(PLAYER_SPEED));
+                    moveDir.normalizeLocal().scaleLocal(PLAYER_SPEED);
+                    phys.setVelocity(moveDir);
 
-                    Vector2 pos = trans.getPosition();
+                    Vector2 pos = trans.getPosition(tmpPos);
                     pos.x = Math.max(20, Math.min(pos.x, WINDOW_WIDTH - 20));
                     pos.y = Math.max(30, Math.min(pos.y, WINDOW_HEIGHT - 30));
                     trans.setPosition(pos);
@@ -145,96 +383,46 @@ public class GameExample {
                 private void createFireball() {
                     if (player == null) return;
                     TransformComponent playerTrans = player.getComponent(TransformComponent.class);
-                    Vector2 playerPos = playerTrans.getPosition();
-
-                    Vector2 fireDir = new Vector2(
-                        mousePos.x - playerPos.x,
-                        mousePos.y - playerPos.y
-                    ).normalize();
-
-                    GameObject fireball = new GameObject("火球") {
-                        private final Vector2 direction = fireDir;
-
-                        @Override
-                        public void update(float deltaTime) {
-                            super.update(deltaTime);
-                            updateComponents(deltaTime);
-                            TransformComponent trans = getComponent(TransformComponent.class);
-                            if (trans != null) {
-                                Vector2 pos = trans.getPosition();
-                                pos.x += direction.x * FIREBALL_SPEED * deltaTime;
-                                pos.y += direction.y * FIREBALL_SPEED * deltaTime;
-                                trans.setPosition(pos);
-                            }
-                        }
-
-                        @Override
-                        public void render() {
-                            super.render();
-                            renderComponents();
-                        }
-                    };
-
-                    Vector2 firePos = new Vector2(playerPos.x, playerPos.y);
-                    fireball.addComponent(new TransformComponent(firePos));
-                    RenderComponent fireRender = fireball.addComponent(new RenderComponent(
-                            RenderComponent.RenderType.RECTANGLE,
-                            new Vector2(8, 12),
-                            new RenderComponent.Color(1.0f, 0.0f, 0.0f, 1.0f)
-                    ));
-                    fireRender.setRenderer(renderer);
-                    fireball.addComponent(new PhysicsComponent(0.1f));
-
-                    fireballs.add(fireball);
-                    addGameObject(fireball);
+                    Vector2 playerPos = playerTrans.getPosition(spawnPos);
+
+                    Fireball fireball = spawn(fireballPrefab);
+                    fireball.direction.set(mousePos.x - playerPos.x, mousePos.y - playerPos.y).normalizeLocal();
+                    TransformComponent trans = fireball.getComponent(TransformComponent.class);
+                    trans.setPosition(playerPos);
+                    trans.storePreviousPosition();
+                    fireballs.add(fireball.getHandle());
                 }
 
                 private void createCentipede() {
-                    GameObject centipede = new GameObject("蜈蚣精") {
-                        @Override
-                        public void update(float deltaTime) {
-                            super.update(deltaTime);
-                            updateComponents(deltaTime);
-                        }
-
-                        @Override
-                        public void render() {
-                            super.render();
-                            renderComponents();
-                        }
-                    };
-
-                    Vector2 spawnPos = getRandomEdgePos();
-                    centipede.addComponent(new TransformComponent(spawnPos));
-                    RenderComponent centiRender = centipede.addComponent(new RenderComponent(
-                            RenderComponent.RenderType.RECTANGLE,
-                            new Vector2(22, 22),
-                            new RenderComponent.Color(0.6f, 0.3f, 0.0f, 1.0f)
-                    ));
-                    centiRender.setRenderer(renderer);
-                    PhysicsComponent centiPhys = centipede.addComponent(new PhysicsComponent(0.5f));
-                    centiPhys.setFriction(0.98f);
-
-                    centipedes.add(centipede);
-                    addGameObject(centipede);
+                    GameObject centipede = spawn(centipedePrefab);
+                    TransformComponent trans = centipede.getComponent(TransformComponent.class);
+                    getRandomEdgePos(spawnPos);
+                    trans.setPosition(spawnPos);
+                    trans.storePreviousPosition();
+                    centipedes.add(centipede.getHandle());
                 }
 
-                private void updateFireballs(float deltaTime) {
-                    Iterator<GameObject> fireIter = fireballs.iterator();
-                    while (fireIter.hasNext()) {
-                        GameObject fb = fireIter.next();
+                private void updateFireballs(CommandBuffer commands) {
+                    for (int i = fireballs.size() - 1; i >= 0; i--) {
+                        long handle = fireballs.get(i);
+                        if (!isAlive(handle)) {
+                            // 击中蜈蚣精的火球
+                            fireballs.removeAt(i);
+                            continue;
+                        }
+                        GameObject fb = getGameObject(handle);
                         TransformComponent trans = fb.getComponent(TransformComponent.class);
                         
                         if (trans == null) {
-                            fireIter.remove();    
-                            fb.destroy();         
+                            fireballs.removeAt(i);
+                            commands.destroy(fb);
                             continue;
                         }
 
-                        Vector2 pos = trans.getPosition();
+                        Vector2 pos = trans.getPosition(fireballPos);
                         if (pos.y <= 0 || pos.x < 0 || pos.x > WINDOW_WIDTH || pos.y > WINDOW_HEIGHT) {
-                            fireIter.remove();    
-                            fb.destroy();         
+                            fireballs.removeAt(i);
+                            commands.destroy(fb);
                         }
                     }
                 }
@@ -242,96 +430,94 @@ public class GameExample {
                 private void updateCentipedes(float deltaTime) {
                     if (player == null) return;
                     TransformComponent playerTrans = player.getComponent(TransformComponent.class);
-                    Vector2 playerPos = playerTrans.getPosition();
+                    playerTrans.getPosition(playerPos);
 
-                    for (GameObject cp : centipedes) {
+                    for (int i = centipedes.size() - 1; i >= 0; i--) {
+                        long handle = centipedes.get(i);
+                        if (!isAlive(handle)) {
+                            // 被火球击中的蜈蚣精
+                            centipedes.removeAt(i);
+                            continue;
+                        }
+                        GameObject cp = getGameObject(handle);
                         TransformComponent trans = cp.getComponent(TransformComponent.class);
                         PhysicsComponent phys = cp.getComponent(PhysicsComponent.class);
                         if (trans == null || phys == null) continue;
 
-                        Vector2 enemyPos = trans.getPosition();
-                        Vector2 dir = new Vector2(playerPos.x - enemyPos.x, playerPos.y - enemyPos.y).normalize();
-                        phys.setVelocity(dir.multiply(CENTIPEDE_SPEED));
+                        Vector2 pos = trans.getPosition(enemyPos);
+                        steerDir.set(playerPos.x - pos.x, playerPos.y - pos.y).normalizeLocal();
+                        phys.setVelocity(steerDir.scaleLocal(CENTIPEDE_SPEED));
                     }
                 }
 
-                private void checkCollisions() {
-                    if (player == null || isPlayerDead) return;
-                    TransformComponent playerTrans = player.getComponent(TransformComponent.class);
-                    Vector2 playerPos = playerTrans.getPosition();
-
-                    for (GameObject cp : centipedes) {
-                        TransformComponent cpTrans = cp.getComponent(TransformComponent.class);
-                        if (cpTrans == null) continue;
-                        Vector2 cpPos = cpTrans.getPosition();
-                        float playerDistance = playerPos.distance(cpPos);
-                        if (playerDistance < 30) {
-                            isPlayerDead = true;
-                            return;
-                        }
-                    }
-
-                    Iterator<GameObject> fireIter = fireballs.iterator();
-                    while (fireIter.hasNext()) {
-                        GameObject fb = fireIter.next();
-                        TransformComponent fbTrans = fb.getComponent(TransformComponent.class);
-                        if (fbTrans == null) {
-                            fireIter.remove();
-                            fb.destroy();
-                            continue;
-                        }
-                        Vector2 fbPos = fbTrans.getPosition();
-
-                        Iterator<GameObject> centiIter = centipedes.iterator();
-                        while (centiIter.hasNext()) {
-                            GameObject cp = centiIter.next();
-                            TransformComponent cpTrans = cp.getComponent(TransformComponent.class);
-                            if (cpTrans == null) {
-                                centiIter.remove();
-                                cp.destroy();
-                                continue;
-                            }
-                            Vector2 cpPos = cpTrans.getPosition();
-                            float hitDistance = fbPos.distance(cpPos);
-
-                            if (hitDistance < 25) {
-                                fireIter.remove();
-                                fb.destroy();
-                                centiIter.remove();
-                                cp.destroy();
-                                score += 10;
-                                break;
-                            }
-                        }
+                private void handleContact(ColliderComponent a, ColliderComponent b) {
+                    if (isPlayerDead) return;
+                    ColliderComponent enemy = a.getLayer() == LAYER_CENTIPEDE ? a : b;
+                    ColliderComponent other = enemy == a ? b : a;
+                    GameObject enemyObj = enemy.getOwner();
+                    GameObject otherObj = other.getOwner();
+                    if (enemyObj == null || otherObj == null || !enemyObj.isActive() || !otherObj.isActive()) return;
+
+                    if (other.getLayer() == LAYER_PLAYER) {
+                        isPlayerDead = true;
+                        collisionSystem.setEnabled(false);
+                    } else if (other.getLayer() == LAYER_FIREBALL) {
+                        otherObj.destroy();
+                        enemyObj.destroy();
+                        score += 10;
                     }
                 }
 
-                private Vector2 getRandomEdgePos() {
+                private Vector2 getRandomEdgePos(Vector2 out) {
                     int side = random.nextInt(4);
                     float x = random.nextFloat() * WINDOW_WIDTH;
                     float y = random.nextFloat() * WINDOW_HEIGHT;
-                    Vector2 pos = new Vector2(x, y);
+                    out.set(x, y);
                     
                     switch (side) {
                         case 0:
-                            pos = new Vector2(x, -30);
+                            out.set(x, -30);
                             break;
                         case 1:
-                            pos = new Vector2(x, WINDOW_HEIGHT + 30);
+                            out.set(x, WINDOW_HEIGHT + 30);
                             break;
                         case 2:
-                            pos = new Vector2(-30, y);
+                            out.set(-30, y);
                             break;
                         case 3:
-                            pos = new Vector2(WINDOW_WIDTH + 30, y);
+                            out.set(WINDOW_WIDTH + 30, y);
                             break;
                     }
-                    return pos;
+                    return out;
                 }
             };
 
             engine.setScene(gameScene);
-            engine.run();
+            if (profileFile != null) {
+                Profiler.setEnabled(true);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> exportProfile(profileFile)));
+            }
+            if (replayFile != null) {
+                InputReplay replay = InputReplay.load(replayFile);
+                long start = System.nanoTime();
+                long ticks = engine.runReplay(replay);
+                System.out.printf("回放%d步，用时%.1f毫秒%n", ticks, (System.nanoTime() - start) / 1_000_000.0);
+                FrameTelemetry telemetry = engine.getTelemetry();
+                System.out.printf("最近%d帧平均分配%.1fKB/帧，最多%.1fKB/帧，GC停顿%d次共%d毫秒%n",
+                        Math.min(telemetry.getFrameCount(), telemetry.getWindow()),
+                        telemetry.getMeanAllocatedBytes() / 1024.0, telemetry.getMaxAllocatedBytes() / 1024.0,
+                        telemetry.getTotalGcPauseCount(), telemetry.getTotalGcPauseNanos() / 1_000_000);
+                engine.getRenderer().cleanup();
+            } else {
+                if (recordFile != null) {
+                    engine.startRecording(recordFile);
+                }
+                if (active) {
+                    engine.runBlocking(true);
+                } else {
+                    engine.run();
+                }
+            }
 
         } catch (Exception e) {
             System.err.println("游戏运行出错: " + e.getMessage());
@@ -0,0 +1,320 @@
+package com.gameengine.graphics;
+
+import com.gameengine.input.InputManager;
+
+import javax.swing.JFrame;
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.ImageCapabilities;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.VolatileImage;
+
+/**
+ * 主动渲染器。绘制命令按渲染层记录，endFrame时在调用线程上
+ * 立即光栅化并通过BufferStrategy翻页显示，不经过Swing的重绘管理器，
+ * 每帧的显示耗时稳定可测。适合与GameEngine.runBlocking配合使用。
+ * 优先使用页面翻转，不支持时使用加速的VolatileImage后台缓冲块传输；
+ * 加速表面连续丢失时改为自行管理VolatileImage，再绘制到画布上
+ */
+public class ActiveRenderer extends JFrame implements Renderer {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 显示方式
+     */
+    public enum PresentMode {
+        PAGE_FLIP,
+        BLIT,
+        VOLATILE_IMAGE
+    }
+
+    // 一帧内重绘丢失内容的最多次数，超过后放弃这一帧
+    private static final int MAX_PRESENT_ATTEMPTS = 4;
+    // 连续放弃多少帧后退回到自行管理的VolatileImage
+    private static final int MAX_LOST_FRAMES = 3;
+
+    private final int width;
+    private final int height;
+    private final String title;
+    private final Canvas canvas;
+    private final RenderFrame frame;
+    private final LayerCache layerCache;
+    private final ColorCache colorCache;
+    private final TextCache textCache;
+    private BufferStrategy strategy;
+    private VolatileImage backBuffer;
+    private PresentMode presentMode;
+    private boolean strategyDisabled;
+    private int consecutiveLostFrames;
+    private long lostFrameCount;
+    private long lastPresentNanos;
+    private float interpolationAlpha = 1.0f;
+
+    public ActiveRenderer(int width, int height, String title) {
+        this.width = width;
+        this.height = height;
+        this.title = title;
+        this.frame = new RenderFrame();
+        this.layerCache = new LayerCache(width, height);
+        this.colorCache = new ColorCache();
+        this.textCache = new TextCache();
+
+        setTitle(title);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setResizable(false);
+        setIgnoreRepaint(true);
+
+        canvas = new Canvas();
+        canvas.setPreferredSize(new Dimension(width, height));
+        canvas.setBackground(Color.BLACK);
+        // 画布只由endFrame绘制，忽略系统发出的重绘请求
+        canvas.setIgnoreRepaint(true);
+        add(canvas);
+        pack();
+        setLocationRelativeTo(null);
+        setVisible(true);
+
+        AwtInputBridge.install(canvas, InputManager.getInstance());
+        createStrategy();
+    }
+
+    /**
+     * 创建双缓冲策略，先请求页面翻转，失败后使用默认的块传输策略
+     */
+    private void createStrategy() {
+        if (!canvas.isDisplayable()) {
+            return;
+        }
+        BufferCapabilities flip = new BufferCapabilities(new ImageCapabilities(true),
+                new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED);
+        try {
+            canvas.createBufferStrategy(2, flip);
+            presentMode = PresentMode.PAGE_FLIP;
+        } catch (AWTException e) {
+            canvas.createBufferStrategy(2);
+            presentMode = PresentMode.BLIT;
+        }
+        strategy = canvas.getBufferStrategy();
+    }
+
+    @Override
+    public void beginFrame() {
+        frame.clear();
+    }
+
+    @Override
+    public boolean beginLayer(RenderLayer layer) {
+        return frame.select(layer);
+    }
+
+    @Override
+    public void endFrame() {
+        long start = System.nanoTime();
+        frame.publish();
+        boolean presented;
+        if (strategyDisabled) {
+            presented = presentVolatile();
+        } else {
+            if (strategy == null) {
+                createStrategy();
+            }
+            presented = strategy != null && presentStrategy();
+        }
+        if (presented) {
+            consecutiveLostFrames = 0;
+        } else {
+            lostFrameCount++;
+            if (++consecutiveLostFrames >= MAX_LOST_FRAMES && !strategyDisabled && strategy != null) {
+                strategy.dispose();
+                strategy = null;
+                strategyDisabled = true;
+                presentMode = PresentMode.VOLATILE_IMAGE;
+            }
+        }
+        textCache.endFrame();
+        // 把排队的绘制操作立即提交给窗口系统，避免在部分平台上积压
+        Toolkit.getDefaultToolkit().sync();
+        lastPresentNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * 通过BufferStrategy绘制并显示，返回这一帧是否完整显示
+     */
+    private boolean presentStrategy() {
+        for (int attempt = 0; attempt < MAX_PRESENT_ATTEMPTS; attempt++) {
+            Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+            try {
+                draw(g);
+            } finally {
+                g.dispose();
+            }
+            // 绘制期间后台缓冲被恢复时内容不完整，需要重画
+            if (strategy.contentsRestored()) {
+                continue;
+            }
+            strategy.show();
+            if (!strategy.contentsLost()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 绘制到自行管理的VolatileImage，再块传输到画布，返回这一帧是否完整显示
+     */
+    private boolean presentVolatile() {
+        GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+        if (gc == null) {
+            return false;
+        }
+        for (int attempt = 0; attempt < MAX_PRESENT_ATTEMPTS; attempt++) {
+            if (backBuffer == null || backBuffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (backBuffer != null) {
+                    backBuffer.flush();
+                }
+                backBuffer = gc.createCompatibleVolatileImage(width, height);
+            }
+            Graphics2D g = backBuffer.createGraphics();
+            try {
+                draw(g);
+            } finally {
+                g.dispose();
+            }
+            if (backBuffer.contentsLost()) {
+                continue;
+            }
+            Graphics target = canvas.getGraphics();
+            if (target == null) {
+                return false;
+            }
+            try {
+                target.drawImage(backBuffer, 0, 0, null);
+            } finally {
+                target.dispose();
+            }
+            if (!backBuffer.contentsLost()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void draw(Graphics2D g) {
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        frame.composite(g, layerCache, colorCache, textCache, null);
+    }
+
+    @Override
+    public void drawRect(float x, float y, float width, float height, float r, float g, float b, float a) {
+        frame.current().addRect(x, y, width, height, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a) {
+        frame.current().addCircle(x, y, radius, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+        frame.current().addLine(x1, y1, x2, y2, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, float r, float g, float b, float a) {
+        frame.current().addText(text, x, y, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawText(String label, long value, float x, float y, float r, float g, float b, float a) {
+        frame.current().addNumber(label, value, x, y, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void setViewTransform(float scale, float translateX, float translateY) {
+        frame.setTransform(scale, translateX, translateY);
+    }
+
+    @Override
+    public void setInterpolationAlpha(float alpha) {
+        this.interpolationAlpha = alpha;
+    }
+
+    @Override
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
+    @Override
+    public boolean shouldClose() {
+        return !isVisible();
+    }
+
+    @Override
+    public void pollEvents() {
+    }
+
+    @Override
+    public void cleanup() {
+        if (strategy != null) {
+            strategy.dispose();
+            strategy = null;
+        }
+        if (backBuffer != null) {
+            backBuffer.flush();
+            backBuffer = null;
+        }
+        dispose();
+    }
+
+    /**
+     * 当前的显示方式，窗口尚未显示时为null
+     */
+    public PresentMode getPresentMode() {
+        return presentMode;
+    }
+
+    /**
+     * 上一帧光栅化并显示的耗时，单位纳秒
+     */
+    public long getLastPresentNanos() {
+        return lastPresentNanos;
+    }
+
+    /**
+     * 因表面丢失而放弃的帧数
+     */
+    public long getLostFrameCount() {
+        return lostFrameCount;
+    }
+
+    @Override
+    public int getCommandCount() {
+        return frame.commandCount();
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+}
@@ -0,0 +1,54 @@
+package com.gameengine.graphics;
+
+import com.gameengine.input.InputManager;
+
+import java.awt.Component;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * 把AWT组件上的键盘和鼠标事件转发给InputManager。
+ * 监听器在事件分发线程上执行，只把事件写入InputManager的事件缓冲，不直接修改按键状态
+ */
+final class AwtInputBridge {
+    private AwtInputBridge() {
+    }
+
+    static void install(Component component, InputManager inputManager) {
+        component.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                inputManager.onKeyPressed(e.getKeyCode());
+            }
+
+            @Override
+            public void keyReleased(KeyEvent e) {
+                inputManager.onKeyReleased(e.getKeyCode());
+            }
+        });
+
+        component.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                inputManager.onMousePressed(e.getButton());
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                inputManager.onMouseReleased(e.getButton());
+            }
+        });
+
+        component.addMouseMotionListener(new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                inputManager.onMouseMoved(e.getX(), e.getY());
+            }
+        });
+
+        component.setFocusable(true);
+        component.requestFocus();
+    }
+}
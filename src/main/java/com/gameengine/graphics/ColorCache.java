@@ -0,0 +1,39 @@
+package com.gameengine.graphics;
+
+import java.awt.Color;
+
+/**
+ * ARGB到Color对象的直接映射缓存，每个绘制线程使用自己的缓存。
+ * 颜色种类不超过槽位数量时，稳定状态下不再创建Color对象
+ */
+public final class ColorCache {
+    private final int[] keys;
+    private final Color[] values;
+    private final int mask;
+
+    public ColorCache() {
+        this(1024);
+    }
+
+    public ColorCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.keys = new int[size];
+        this.values = new Color[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 获取ARGB对应的Color对象
+     */
+    public Color get(int argb) {
+        int h = argb * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & mask;
+        Color color = values[slot];
+        if (color == null || keys[slot] != argb) {
+            color = new Color(argb, true);
+            keys[slot] = argb;
+            values[slot] = color;
+        }
+        return color;
+    }
+}
@@ -0,0 +1,106 @@
+package com.gameengine.graphics;
+
+import com.gameengine.profiler.FrameTelemetry;
+import com.gameengine.profiler.FrameTimeHistogram;
+
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+
+/**
+ * 调试信息层，在所有层之上按屏幕坐标绘制帧率、帧耗时、每帧分配量和最近的垃圾回收停顿。
+ * 只通过Renderer的绘制方法提交命令，文字和数字分开提交，支持缓存文字的后端不会因此分配内存
+ */
+public final class DebugOverlay {
+    private static final float PADDING = 6.0f;
+    private static final int LINES = 10;
+    // 行高和基线按绘制文字用的默认字体计算，字体缺失退回逻辑字体时也不会重叠
+    private static final LineMetrics METRICS =
+            Fonts.DEFAULT.getLineMetrics("0", new FontRenderContext(null, true, true));
+    private static final float LINE_HEIGHT = Math.max(20.0f, (float) Math.ceil(METRICS.getHeight()));
+    private static final float BASELINE = (float) Math.ceil(METRICS.getAscent());
+    // 每个停顿留出三位数字和一个空格的宽度，最近的停顿排成一行
+    private static final float PAUSE_SPACING = (float) Math.ceil(
+            Fonts.DEFAULT.getStringBounds("000 ", new FontRenderContext(null, true, true)).getWidth());
+    private static final float WIDTH = Math.max(300.0f, PAUSE_SPACING * FrameTelemetry.RECENT_GC_PAUSES + PADDING * 2);
+
+    private final RenderLayer layer;
+    private final long[] recentPauses;
+    private float x;
+    private float y;
+
+    public DebugOverlay() {
+        this.layer = new RenderLayer("debug-overlay", Integer.MAX_VALUE, false);
+        this.recentPauses = new long[FrameTelemetry.RECENT_GC_PAUSES];
+        this.x = 10.0f;
+        this.y = 30.0f;
+    }
+
+    /**
+     * 设置左上角的屏幕坐标
+     */
+    public void setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * 提交本帧的调试信息，应在场景渲染之后、endFrame之前调用。
+     * 之后提交的命令仍属于调试层，视图变换为恒等变换
+     */
+    public void render(Renderer renderer, FrameTelemetry telemetry) {
+        renderer.beginLayer(layer);
+        renderer.resetViewTransform();
+        renderer.drawRect(x, y, WIDTH, LINES * LINE_HEIGHT + PADDING * 2, 0.0f, 0.0f, 0.0f, 0.6f);
+
+        FrameTimeHistogram frames = telemetry.getFrameTimes();
+        float tx = x + PADDING;
+        float ty = y + PADDING + BASELINE;
+        renderer.drawText("FPS: ", Math.round(telemetry.getFps()), tx, ty, 1.0f, 1.0f, 1.0f, 1.0f);
+        ty += LINE_HEIGHT;
+        renderer.drawText("帧耗时p50(微秒): ", frames.getP50Nanos() / 1000, tx, ty, 1.0f, 1.0f, 1.0f, 1.0f);
+        ty += LINE_HEIGHT;
+        renderer.drawText("帧耗时p99(微秒): ", frames.getP99Nanos() / 1000, tx, ty, 1.0f, 1.0f, 1.0f, 1.0f);
+        ty += LINE_HEIGHT;
+        renderer.drawText("最大帧耗时(微秒): ", frames.getMaxNanos() / 1000, tx, ty, 1.0f, 1.0f, 1.0f, 1.0f);
+        ty += LINE_HEIGHT;
+
+        if (telemetry.isAllocationTrackingSupported()) {
+            long last = telemetry.getLastAllocatedBytes();
+            long mean = telemetry.getMeanAllocatedBytes();
+            // 明显高于平均值的帧标红，通常就是卡顿的来源
+            boolean spike = last > 2 * mean && last > 64 * 1024;
+            renderer.drawText("本帧分配(KB): ", last / 1024, tx, ty,
+                    1.0f, spike ? 0.3f : 1.0f, spike ? 0.3f : 1.0f, 1.0f);
+            ty += LINE_HEIGHT;
+            renderer.drawText("平均分配(KB/帧): ", mean / 1024, tx, ty, 1.0f, 1.0f, 1.0f, 1.0f);
+            ty += LINE_HEIGHT;
+            renderer.drawText("最大分配(KB/帧): ", telemetry.getMaxAllocatedBytes() / 1024, tx, ty,
+                    1.0f, 1.0f, 1.0f, 1.0f);
+        } else {
+            renderer.drawText("不支持统计分配量", tx, ty, 0.7f, 0.7f, 0.7f, 1.0f);
+            ty += LINE_HEIGHT * 2;
+        }
+        ty += LINE_HEIGHT;
+
+        boolean paused = telemetry.getLastGcPauseCount() > 0;
+        renderer.drawText("GC停顿次数: ", telemetry.getTotalGcPauseCount(), tx, ty,
+                1.0f, paused ? 0.8f : 1.0f, paused ? 0.0f : 1.0f, 1.0f);
+        ty += LINE_HEIGHT;
+        renderer.drawText("最近停顿(毫秒):", tx, ty, 1.0f, 1.0f, 1.0f, 1.0f);
+        ty += LINE_HEIGHT;
+        int pauses = telemetry.getRecentGcPauses(recentPauses);
+        for (int i = 0; i < pauses; i++) {
+            // JVM报告的停顿精度为毫秒，不足1毫秒的停顿报告为0，显示为<1而不是0
+            long millis = recentPauses[i] / 1_000_000;
+            if (millis == 0) {
+                renderer.drawText("<1", tx + i * PAUSE_SPACING, ty, 1.0f, 0.8f, 0.0f, 1.0f);
+            } else {
+                renderer.drawNumber(millis, tx + i * PAUSE_SPACING, ty, 1.0f, 0.8f, 0.0f, 1.0f);
+            }
+        }
+    }
+
+    public RenderLayer getLayer() {
+        return layer;
+    }
+}
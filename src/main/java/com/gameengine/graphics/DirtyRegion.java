@@ -0,0 +1,185 @@
+package com.gameengine.graphics;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * 屏幕上需要重新合成的区域，按固定大小的图块记录为位图。
+ * 标记一个矩形是常数时间，合并两个区域是按位或。不是线程安全的
+ */
+public final class DirtyRegion {
+    /**
+     * 图块边长，单位像素
+     */
+    public static final int TILE_SIZE = 32;
+
+    private final int width;
+    private final int height;
+    private final int columns;
+    private final int rows;
+    private final long[] bits;
+    private boolean empty;
+
+    public DirtyRegion(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        this.rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        this.bits = new long[(columns * rows + 63) >>> 6];
+        this.empty = true;
+    }
+
+    /**
+     * 标记与矩形相交的图块，屏幕外的部分被忽略
+     */
+    public void add(float minX, float minY, float maxX, float maxY) {
+        if (maxX < 0 || maxY < 0 || minX >= width || minY >= height || !(minX <= maxX && minY <= maxY)) {
+            return;
+        }
+        int c0 = Math.max(0, (int) minX / TILE_SIZE);
+        int r0 = Math.max(0, (int) minY / TILE_SIZE);
+        int c1 = Math.min(columns - 1, (int) maxX / TILE_SIZE);
+        int r1 = Math.min(rows - 1, (int) maxY / TILE_SIZE);
+        for (int r = r0; r <= r1; r++) {
+            int base = r * columns;
+            for (int c = c0; c <= c1; c++) {
+                int tile = base + c;
+                bits[tile >>> 6] |= 1L << tile;
+            }
+        }
+        empty = false;
+    }
+
+    /**
+     * 标记整个屏幕
+     */
+    public void addAll() {
+        add(0, 0, width - 1, height - 1);
+    }
+
+    /**
+     * 合并另一个同样大小的区域
+     */
+    public void add(DirtyRegion other) {
+        if (other.empty) {
+            return;
+        }
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other.bits[i];
+        }
+        empty = false;
+    }
+
+    /**
+     * 复制另一个同样大小的区域
+     */
+    public void set(DirtyRegion other) {
+        System.arraycopy(other.bits, 0, bits, 0, bits.length);
+        empty = other.empty;
+    }
+
+    public void clear() {
+        if (!empty) {
+            Arrays.fill(bits, 0L);
+            empty = true;
+        }
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    private boolean isDirty(int column, int row) {
+        int tile = row * columns + column;
+        return (bits[tile >>> 6] & (1L << tile)) != 0;
+    }
+
+    /**
+     * 所有标记图块的外接矩形写入out并返回，区域为空时返回null
+     */
+    public Rectangle getBounds(Rectangle out) {
+        if (empty) {
+            return null;
+        }
+        int minC = columns;
+        int minR = rows;
+        int maxC = -1;
+        int maxR = -1;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (isDirty(c, r)) {
+                    minC = Math.min(minC, c);
+                    minR = Math.min(minR, r);
+                    maxC = Math.max(maxC, c);
+                    maxR = Math.max(maxR, r);
+                }
+            }
+        }
+        return clampTiles(minC, minR, maxC + 1, maxR + 1, out);
+    }
+
+    /**
+     * 把区域拆成不重叠的矩形：每行连续的图块合成一段，与上一行结束的相同段合并。
+     * 矩形按x, y, 宽, 高依次写入out，返回矩形数量；超过maxRects时返回-1
+     */
+    public int toRectangles(int[] out, int maxRects) {
+        if (empty) {
+            return 0;
+        }
+        int count = 0;
+        for (int r = 0; r < rows; r++) {
+            int top = r * TILE_SIZE;
+            int bottom = Math.min(top + TILE_SIZE, height);
+            int c = 0;
+            while (c < columns) {
+                if (!isDirty(c, r)) {
+                    c++;
+                    continue;
+                }
+                int start = c;
+                while (c < columns && isDirty(c, r)) {
+                    c++;
+                }
+                int x = start * TILE_SIZE;
+                int w = Math.min(c * TILE_SIZE, width) - x;
+                boolean merged = false;
+                for (int k = 0; k < count; k++) {
+                    int o = k * 4;
+                    if (out[o] == x && out[o + 2] == w && out[o + 1] + out[o + 3] == top) {
+                        out[o + 3] = bottom - out[o + 1];
+                        merged = true;
+                        break;
+                    }
+                }
+                if (merged) {
+                    continue;
+                }
+                if (count >= maxRects) {
+                    return -1;
+                }
+                int o = count * 4;
+                out[o] = x;
+                out[o + 1] = top;
+                out[o + 2] = w;
+                out[o + 3] = bottom - top;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Rectangle clampTiles(int c0, int r0, int c1, int r1, Rectangle out) {
+        int x = c0 * TILE_SIZE;
+        int y = r0 * TILE_SIZE;
+        out.setBounds(x, y, Math.min(c1 * TILE_SIZE, width) - x, Math.min(r1 * TILE_SIZE, height) - y);
+        return out;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
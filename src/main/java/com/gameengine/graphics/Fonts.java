@@ -0,0 +1,27 @@
+package com.gameengine.graphics;
+
+import java.awt.Font;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 字体缓存，相同名称、样式和字号的字体只创建一次
+ */
+public final class Fonts {
+    private static final Map<String, Font> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 引擎默认的文字字体
+     */
+    public static final Font DEFAULT = get("黑体", Font.BOLD, 18);
+
+    private Fonts() {
+    }
+
+    /**
+     * 获取字体，应在初始化时获取并保存，不要每帧调用
+     */
+    public static Font get(String name, int style, int size) {
+        return CACHE.computeIfAbsent(name + '|' + style + '|' + size, key -> new Font(name, style, size));
+    }
+}
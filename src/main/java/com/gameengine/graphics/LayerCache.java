@@ -0,0 +1,75 @@
+package com.gameengine.graphics;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * 缓存层光栅化后的图像，每个绘制线程使用自己的实例。
+ * 缓存层发布新的快照后才重新光栅化，否则只把图像合成到目标上
+ */
+final class LayerCache {
+    private final int width;
+    private final int height;
+    private RenderLayer[] layers;
+    private BufferedImage[] images;
+    private int[] versions;
+    private int count;
+
+    LayerCache(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.layers = new RenderLayer[4];
+        this.images = new BufferedImage[4];
+        this.versions = new int[4];
+    }
+
+    void draw(Graphics2D g, RenderLayer layer, ColorCache colorCache, TextCache textCache) {
+        RenderLayer.Snapshot snapshot = layer.getSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        int slot = indexOf(layer);
+        if (versions[slot] != snapshot.version) {
+            rasterize(images[slot], snapshot.commands, colorCache, textCache);
+            versions[slot] = snapshot.version;
+        }
+        g.drawImage(images[slot], 0, 0, null);
+    }
+
+    private int indexOf(RenderLayer layer) {
+        for (int i = 0; i < count; i++) {
+            if (layers[i] == layer) {
+                return i;
+            }
+        }
+        if (count == layers.length) {
+            layers = Arrays.copyOf(layers, count * 2);
+            images = Arrays.copyOf(images, count * 2);
+            versions = Arrays.copyOf(versions, count * 2);
+        }
+        layers[count] = layer;
+        // 预乘格式的图像合成时不需要逐像素转换
+        images[count] = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        versions[count] = 0;
+        return count++;
+    }
+
+    private static void rasterize(BufferedImage image, RenderCommandBuffer commands,
+                                  ColorCache colorCache, TextCache textCache) {
+        Graphics2D g = image.createGraphics();
+        try {
+            Composite composite = g.getComposite();
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setComposite(composite);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            commands.replay(g, colorCache, textCache);
+        } finally {
+            g.dispose();
+        }
+    }
+}
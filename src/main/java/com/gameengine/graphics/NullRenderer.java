@@ -0,0 +1,95 @@
+package com.gameengine.graphics;
+
+/**
+ * 空渲染器，丢弃所有绘制命令，用于无显示环境下的纯模拟
+ */
+public class NullRenderer implements Renderer {
+    private final int width;
+    private final int height;
+    private final String title;
+    private float interpolationAlpha;
+    private boolean closed;
+
+    public NullRenderer(int width, int height) {
+        this(width, height, "NullRenderer");
+    }
+
+    public NullRenderer(int width, int height, String title) {
+        this.width = width;
+        this.height = height;
+        this.title = title;
+        this.interpolationAlpha = 1.0f;
+        this.closed = false;
+    }
+
+    @Override
+    public void beginFrame() {
+    }
+
+    @Override
+    public void endFrame() {
+    }
+
+    @Override
+    public void drawRect(float x, float y, float width, float height, float r, float g, float b, float a) {
+    }
+
+    @Override
+    public void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a) {
+    }
+
+    @Override
+    public void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, float r, float g, float b, float a) {
+    }
+
+    @Override
+    public void drawText(String label, long value, float x, float y, float r, float g, float b, float a) {
+    }
+
+    @Override
+    public void setViewTransform(float scale, float translateX, float translateY) {
+    }
+
+    @Override
+    public void setInterpolationAlpha(float alpha) {
+        this.interpolationAlpha = alpha;
+    }
+
+    @Override
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
+    @Override
+    public boolean shouldClose() {
+        return closed;
+    }
+
+    @Override
+    public void pollEvents() {
+    }
+
+    @Override
+    public void cleanup() {
+        closed = true;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+}
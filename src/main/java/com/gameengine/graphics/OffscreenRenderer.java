@@ -0,0 +1,191 @@
+package com.gameengine.graphics;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * 离屏渲染器，每帧的绘制命令在endFrame时光栅化到BufferedImage中，不需要显示设备。
+ * 图像在帧之间保留，缓存层不变时只重绘本帧和上一帧普通层命令覆盖的图块
+ */
+public class OffscreenRenderer implements Renderer {
+    // 每帧最多分别重绘的矩形数，超过时重绘外接矩形
+    private static final int MAX_DIRTY_RECTS = 16;
+
+    private final int width;
+    private final int height;
+    private final String title;
+    private final BufferedImage image;
+    private final TextCache textCache;
+    private final ColorCache colorCache;
+    private final RenderFrame frame;
+    private final LayerCache layerCache;
+    private final DirtyRegion frameCoverage;
+    private final DirtyRegion previousCoverage;
+    private final DirtyRegion dirty;
+    private final int[] dirtyRects;
+    private final Rectangle clip;
+    private float interpolationAlpha;
+    private long frameCount;
+    private boolean closed;
+
+    public OffscreenRenderer(int width, int height) {
+        this(width, height, "OffscreenRenderer");
+    }
+
+    public OffscreenRenderer(int width, int height, String title) {
+        this.width = width;
+        this.height = height;
+        this.title = title;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        this.textCache = new TextCache();
+        this.colorCache = new ColorCache();
+        this.frame = new RenderFrame();
+        this.layerCache = new LayerCache(width, height);
+        this.frameCoverage = new DirtyRegion(width, height);
+        this.previousCoverage = new DirtyRegion(width, height);
+        this.dirty = new DirtyRegion(width, height);
+        this.dirtyRects = new int[MAX_DIRTY_RECTS * 4];
+        this.clip = new Rectangle();
+        this.interpolationAlpha = 1.0f;
+        this.frameCount = 0;
+        this.closed = false;
+    }
+
+    @Override
+    public void beginFrame() {
+        frame.clear();
+    }
+
+    @Override
+    public boolean beginLayer(RenderLayer layer) {
+        return frame.select(layer);
+    }
+
+    @Override
+    public void endFrame() {
+        frame.publish();
+        frameCoverage.clear();
+        frame.addBounds(frameCoverage);
+        dirty.set(frameCoverage);
+        // 上一帧绘制过的区域也要重绘，才能擦掉移走的图形
+        dirty.add(previousCoverage);
+        previousCoverage.set(frameCoverage);
+        if (frameCount == 0 || frame.hasCachedLayerChanges()) {
+            dirty.addAll();
+        }
+        int count = dirty.toRectangles(dirtyRects, MAX_DIRTY_RECTS);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            if (count < 0) {
+                // 矩形太多时重绘外接矩形
+                redraw(graphics, dirty.getBounds(clip));
+            } else {
+                for (int i = 0; i < count; i++) {
+                    int o = i * 4;
+                    clip.setBounds(dirtyRects[o], dirtyRects[o + 1], dirtyRects[o + 2], dirtyRects[o + 3]);
+                    redraw(graphics, clip);
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        textCache.endFrame();
+        frameCount++;
+    }
+
+    private void redraw(Graphics2D graphics, Rectangle area) {
+        graphics.setClip(area);
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(area.x, area.y, area.width, area.height);
+        frame.composite(graphics, layerCache, colorCache, textCache, area);
+    }
+
+    @Override
+    public void drawRect(float x, float y, float width, float height, float r, float g, float b, float a) {
+        frame.current().addRect(x, y, width, height, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a) {
+        frame.current().addCircle(x, y, radius, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+        frame.current().addLine(x1, y1, x2, y2, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, float r, float g, float b, float a) {
+        frame.current().addText(text, x, y, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawText(String label, long value, float x, float y, float r, float g, float b, float a) {
+        frame.current().addNumber(label, value, x, y, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void setViewTransform(float scale, float translateX, float translateY) {
+        frame.setTransform(scale, translateX, translateY);
+    }
+
+    @Override
+    public void setInterpolationAlpha(float alpha) {
+        this.interpolationAlpha = alpha;
+    }
+
+    @Override
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
+    @Override
+    public boolean shouldClose() {
+        return closed;
+    }
+
+    @Override
+    public void pollEvents() {
+    }
+
+    @Override
+    public void cleanup() {
+        closed = true;
+    }
+
+    /**
+     * 获取最近一帧的图像
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * 获取已完成的帧数
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public int getCommandCount() {
+        return frame.commandCount();
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+}
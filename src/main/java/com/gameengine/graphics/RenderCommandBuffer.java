@@ -0,0 +1,323 @@
+package com.gameengine.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * 绘制命令缓冲。命令按提交顺序保存在基本类型数组中，颜色打包为ARGB整数，
+ * 文本只保存字符串引用，整数按原值保存，回放时才转换为字形。
+ * 记录时按当前视图变换把坐标转换为屏幕坐标。缓冲在多帧之间复用，达到峰值容量后记录不再分配。
+ * 单个缓冲不是线程安全的，跨线程传递时由调用者保证交接的可见性
+ */
+public final class RenderCommandBuffer {
+    static final int RECT = 0;
+    static final int CIRCLE = 1;
+    static final int LINE = 2;
+    static final int TEXT = 3;
+    static final int NUMBER = 4;
+
+    // 包围盒估计，单位像素
+    private static final float BOUNDS_PADDING = 2.0f;
+    private static final float TEXT_ADVANCE_ESTIMATE = 24.0f;
+    private static final float TEXT_ASCENT_ESTIMATE = 24.0f;
+    private static final float TEXT_DESCENT_ESTIMATE = 8.0f;
+
+    private int[] opcodes;
+    private int[] colors;
+    private int commandCount;
+    private float[] data;
+    private int dataCount;
+    private String[] texts;
+    private int textCount;
+    private long[] numbers;
+    private int numberCount;
+    // 视图变换，记录时应用
+    private float scale = 1.0f;
+    private float translateX;
+    private float translateY;
+    // computeBounds的结果
+    private float boundsMinX;
+    private float boundsMinY;
+    private float boundsMaxX;
+    private float boundsMaxY;
+
+    public RenderCommandBuffer() {
+        this(1024);
+    }
+
+    public RenderCommandBuffer(int initialCommands) {
+        int capacity = Math.max(16, initialCommands);
+        this.opcodes = new int[capacity];
+        this.colors = new int[capacity];
+        this.data = new float[capacity * 4];
+        this.texts = new String[16];
+        this.numbers = new long[16];
+    }
+
+    /**
+     * 把0到1之间的浮点颜色分量打包为ARGB，超出范围的分量被截断
+     */
+    public static int packColor(float r, float g, float b, float a) {
+        return (toByte(a) << 24) | (toByte(r) << 16) | (toByte(g) << 8) | toByte(b);
+    }
+
+    private static int toByte(float value) {
+        int v = (int) (value * 255 + 0.5f);
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+
+    /**
+     * 清空所有命令，保留容量
+     */
+    public void clear() {
+        Arrays.fill(texts, 0, textCount, null);
+        commandCount = 0;
+        dataCount = 0;
+        textCount = 0;
+        numberCount = 0;
+        resetTransform();
+    }
+
+    /**
+     * 设置之后记录的命令的视图变换：屏幕坐标 = 坐标 * scale + translate
+     */
+    public void setTransform(float scale, float translateX, float translateY) {
+        this.scale = scale;
+        this.translateX = translateX;
+        this.translateY = translateY;
+    }
+
+    public void resetTransform() {
+        setTransform(1.0f, 0.0f, 0.0f);
+    }
+
+    public void addRect(float x, float y, float width, float height, int argb) {
+        addCommand(RECT, argb, 4);
+        data[dataCount++] = x * scale + translateX;
+        data[dataCount++] = y * scale + translateY;
+        data[dataCount++] = width * scale;
+        data[dataCount++] = height * scale;
+    }
+
+    public void addCircle(float x, float y, float radius, int argb) {
+        addCommand(CIRCLE, argb, 3);
+        data[dataCount++] = x * scale + translateX;
+        data[dataCount++] = y * scale + translateY;
+        data[dataCount++] = radius * scale;
+    }
+
+    public void addLine(float x1, float y1, float x2, float y2, int argb) {
+        addCommand(LINE, argb, 4);
+        data[dataCount++] = x1 * scale + translateX;
+        data[dataCount++] = y1 * scale + translateY;
+        data[dataCount++] = x2 * scale + translateX;
+        data[dataCount++] = y2 * scale + translateY;
+    }
+
+    public void addText(String text, float x, float y, int argb) {
+        addCommand(TEXT, argb, 2);
+        addString(text);
+        data[dataCount++] = x * scale + translateX;
+        data[dataCount++] = y * scale + translateY;
+    }
+
+    /**
+     * 记录一个整数，label不为null时先绘制label，整数紧随其后
+     */
+    public void addNumber(String label, long value, float x, float y, int argb) {
+        addCommand(NUMBER, argb, 2);
+        addString(label);
+        if (numberCount == numbers.length) {
+            numbers = Arrays.copyOf(numbers, numberCount * 2);
+        }
+        numbers[numberCount++] = value;
+        data[dataCount++] = x * scale + translateX;
+        data[dataCount++] = y * scale + translateY;
+    }
+
+    private void addString(String text) {
+        if (textCount == texts.length) {
+            texts = Arrays.copyOf(texts, textCount * 2);
+        }
+        texts[textCount++] = text;
+    }
+
+    private void addCommand(int opcode, int argb, int floats) {
+        if (commandCount == opcodes.length) {
+            opcodes = Arrays.copyOf(opcodes, commandCount * 2);
+            colors = Arrays.copyOf(colors, commandCount * 2);
+        }
+        if (dataCount + floats > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataCount + floats));
+        }
+        opcodes[commandCount] = opcode;
+        colors[commandCount] = argb;
+        commandCount++;
+    }
+
+    /**
+     * 按提交顺序把所有命令绘制到g上，文字和数字通过textCache绘制
+     */
+    public void replay(Graphics2D g, ColorCache colorCache, TextCache textCache) {
+        replay(g, colorCache, textCache, null);
+    }
+
+    /**
+     * 按提交顺序绘制所有命令，clip不为null时跳过包围盒与clip不相交的命令
+     */
+    public void replay(Graphics2D g, ColorCache colorCache, TextCache textCache, Rectangle clip) {
+        int d = 0;
+        int t = 0;
+        int n = 0;
+        int lastColor = 0;
+        boolean colorSet = false;
+        for (int i = 0; i < commandCount; i++) {
+            int opcode = opcodes[i];
+            if (clip != null) {
+                computeBounds(opcode, d, t, n);
+                if (boundsMaxX < clip.x || boundsMaxY < clip.y
+                        || boundsMinX >= clip.x + clip.width || boundsMinY >= clip.y + clip.height) {
+                    d += dataLength(opcode);
+                    t += opcode >= TEXT ? 1 : 0;
+                    n += opcode == NUMBER ? 1 : 0;
+                    continue;
+                }
+            }
+            int argb = colors[i];
+            if (!colorSet || argb != lastColor) {
+                g.setColor(colorCache.get(argb));
+                lastColor = argb;
+                colorSet = true;
+            }
+            switch (opcode) {
+                case RECT:
+                    g.fillRect((int) data[d], (int) data[d + 1], (int) data[d + 2], (int) data[d + 3]);
+                    break;
+                case CIRCLE: {
+                    float radius = data[d + 2];
+                    g.fillOval((int) (data[d] - radius), (int) (data[d + 1] - radius),
+                            (int) (radius * 2), (int) (radius * 2));
+                    break;
+                }
+                case LINE:
+                    g.drawLine((int) data[d], (int) data[d + 1], (int) data[d + 2], (int) data[d + 3]);
+                    break;
+                case TEXT:
+                    textCache.drawText(g, texts[t++], (int) data[d], (int) data[d + 1]);
+                    break;
+                default: {
+                    String label = texts[t++];
+                    int x = (int) data[d];
+                    int y = (int) data[d + 1];
+                    if (label != null) {
+                        x += textCache.drawText(g, label, x, y);
+                    }
+                    textCache.drawNumber(g, numbers[n++], x, y);
+                    break;
+                }
+            }
+            d += dataLength(opcode);
+        }
+    }
+
+    /**
+     * 把所有命令的包围盒标记到region中
+     */
+    public void addBounds(DirtyRegion region) {
+        int d = 0;
+        int t = 0;
+        int n = 0;
+        for (int i = 0; i < commandCount; i++) {
+            int opcode = opcodes[i];
+            computeBounds(opcode, d, t, n);
+            region.add(boundsMinX, boundsMinY, boundsMaxX, boundsMaxY);
+            d += dataLength(opcode);
+            t += opcode >= TEXT ? 1 : 0;
+            n += opcode == NUMBER ? 1 : 0;
+        }
+    }
+
+    /**
+     * 整数的十进制字符数，包括负号
+     */
+    private static int charCount(long value) {
+        int count = value < 0 ? 2 : 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int dataLength(int opcode) {
+        switch (opcode) {
+            case RECT:
+            case LINE:
+                return 4;
+            case CIRCLE:
+                return 3;
+            default:
+                return 2;
+        }
+    }
+
+    /**
+     * 计算一条命令在屏幕上的包围盒，向外扩展抗锯齿的边缘。
+     * 文字的宽度在记录时未知，按默认字体的字宽上限估计
+     */
+    private void computeBounds(int opcode, int d, int t, int n) {
+        float minX;
+        float minY;
+        float maxX;
+        float maxY;
+        switch (opcode) {
+            case RECT:
+                minX = Math.min(data[d], data[d] + data[d + 2]);
+                minY = Math.min(data[d + 1], data[d + 1] + data[d + 3]);
+                maxX = Math.max(data[d], data[d] + data[d + 2]);
+                maxY = Math.max(data[d + 1], data[d + 1] + data[d + 3]);
+                break;
+            case CIRCLE: {
+                float radius = Math.abs(data[d + 2]);
+                minX = data[d] - radius;
+                minY = data[d + 1] - radius;
+                maxX = data[d] + radius;
+                maxY = data[d + 1] + radius;
+                break;
+            }
+            case LINE:
+                minX = Math.min(data[d], data[d + 2]);
+                minY = Math.min(data[d + 1], data[d + 3]);
+                maxX = Math.max(data[d], data[d + 2]);
+                maxY = Math.max(data[d + 1], data[d + 3]);
+                break;
+            default: {
+                String text = texts[t];
+                int length = text == null ? 0 : text.length();
+                if (opcode == NUMBER) {
+                    length += charCount(numbers[n]);
+                }
+                minX = data[d];
+                minY = data[d + 1] - TEXT_ASCENT_ESTIMATE;
+                maxX = data[d] + length * TEXT_ADVANCE_ESTIMATE;
+                maxY = data[d + 1] + TEXT_DESCENT_ESTIMATE;
+                break;
+            }
+        }
+        boundsMinX = minX - BOUNDS_PADDING;
+        boundsMinY = minY - BOUNDS_PADDING;
+        boundsMaxX = maxX + BOUNDS_PADDING;
+        boundsMaxY = maxY + BOUNDS_PADDING;
+    }
+
+    /**
+     * 命令数量
+     */
+    public int size() {
+        return commandCount;
+    }
+
+    public boolean isEmpty() {
+        return commandCount == 0;
+    }
+}
@@ -0,0 +1,196 @@
+package com.gameengine.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * 一帧的绘制命令，每个渲染层一个命令缓冲。渲染器在游戏线程上记录，
+ * publish后交给绘制线程按层的顺序合成。普通层的缓冲在帧之间复用
+ */
+final class RenderFrame {
+    private RenderLayer[] layers;
+    // 本帧各层的命令目标，缓存层在缓存有效时为null
+    private RenderCommandBuffer[] targets;
+    // 普通层复用的缓冲，与槽位对应
+    private RenderCommandBuffer[] pool;
+    private int layerCount;
+    // 本帧重新记录的缓存层
+    private RenderLayer[] recordingLayers;
+    private RenderCommandBuffer[] recordingBuffers;
+    private int recordingCount;
+    // publish时统计的本帧命令数
+    private int commandCount;
+    // 缓存有效时调用者仍然提交的命令被丢弃到这里
+    private final RenderCommandBuffer discard;
+    private RenderCommandBuffer current;
+    private float scale;
+    private float translateX;
+    private float translateY;
+
+    RenderFrame() {
+        this.layers = new RenderLayer[4];
+        this.targets = new RenderCommandBuffer[4];
+        this.pool = new RenderCommandBuffer[4];
+        this.recordingLayers = new RenderLayer[2];
+        this.recordingBuffers = new RenderCommandBuffer[2];
+        this.discard = new RenderCommandBuffer(16);
+        clear();
+    }
+
+    /**
+     * 开始新的一帧，之后的命令属于默认层，视图变换恢复为恒等变换
+     */
+    void clear() {
+        for (int i = 0; i < layerCount; i++) {
+            layers[i] = null;
+            targets[i] = null;
+        }
+        layerCount = 0;
+        Arrays.fill(recordingLayers, 0, recordingCount, null);
+        Arrays.fill(recordingBuffers, 0, recordingCount, null);
+        recordingCount = 0;
+        discard.clear();
+        scale = 1.0f;
+        translateX = 0.0f;
+        translateY = 0.0f;
+        select(RenderLayer.DEFAULT);
+    }
+
+    /**
+     * 切换之后命令所属的层，返回是否需要提交命令
+     */
+    boolean select(RenderLayer layer) {
+        int slot = -1;
+        for (int i = 0; i < layerCount; i++) {
+            if (layers[i] == layer) {
+                slot = i;
+                break;
+            }
+        }
+        if (slot < 0) {
+            slot = addLayer(layer);
+        }
+        RenderCommandBuffer target = targets[slot];
+        current = target != null ? target : discard;
+        current.setTransform(scale, translateX, translateY);
+        return target != null;
+    }
+
+    private int addLayer(RenderLayer layer) {
+        if (layerCount == layers.length) {
+            int capacity = layerCount * 2;
+            layers = Arrays.copyOf(layers, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            pool = Arrays.copyOf(pool, capacity);
+        }
+        int slot = layerCount++;
+        layers[slot] = layer;
+        if (!layer.isCached()) {
+            if (pool[slot] == null) {
+                pool[slot] = new RenderCommandBuffer();
+            }
+            pool[slot].clear();
+            targets[slot] = pool[slot];
+        } else if (layer.needsRecording()) {
+            RenderCommandBuffer buffer = layer.beginRecording();
+            if (recordingCount == recordingLayers.length) {
+                recordingLayers = Arrays.copyOf(recordingLayers, recordingCount * 2);
+                recordingBuffers = Arrays.copyOf(recordingBuffers, recordingCount * 2);
+            }
+            recordingLayers[recordingCount] = layer;
+            recordingBuffers[recordingCount] = buffer;
+            recordingCount++;
+            targets[slot] = buffer;
+        }
+        return slot;
+    }
+
+    RenderCommandBuffer current() {
+        return current;
+    }
+
+    void setTransform(float scale, float translateX, float translateY) {
+        this.scale = scale;
+        this.translateX = translateX;
+        this.translateY = translateY;
+        current.setTransform(scale, translateX, translateY);
+    }
+
+    /**
+     * 记录结束：发布重新记录的缓存层，并把各层按合成顺序排列
+     */
+    void publish() {
+        int commands = 0;
+        for (int i = 0; i < layerCount; i++) {
+            if (targets[i] != null) {
+                commands += targets[i].size();
+            }
+        }
+        commandCount = commands;
+        for (int i = 0; i < recordingCount; i++) {
+            recordingLayers[i].publish(recordingBuffers[i]);
+        }
+        for (int i = 0; i < layerCount; i++) {
+            if (layers[i].isCached()) {
+                // 缓存层从快照合成，帧中不再引用其命令
+                targets[i] = null;
+            }
+        }
+        // 层数很少，插入排序即可，复用缓冲随槽位一起移动
+        for (int i = 1; i < layerCount; i++) {
+            RenderLayer layer = layers[i];
+            RenderCommandBuffer target = targets[i];
+            RenderCommandBuffer pooled = pool[i];
+            int j = i - 1;
+            while (j >= 0 && layer.isBefore(layers[j])) {
+                layers[j + 1] = layers[j];
+                targets[j + 1] = targets[j];
+                pool[j + 1] = pool[j];
+                j--;
+            }
+            layers[j + 1] = layer;
+            targets[j + 1] = target;
+            pool[j + 1] = pooled;
+        }
+    }
+
+    /**
+     * 上一次publish时本帧记录的命令数，包括重新记录的缓存层，不包括缓存有效时被丢弃的命令
+     */
+    int commandCount() {
+        return commandCount;
+    }
+
+    /**
+     * 本帧是否有缓存层重新记录
+     */
+    boolean hasCachedLayerChanges() {
+        return recordingCount > 0;
+    }
+
+    /**
+     * 把普通层命令覆盖的区域标记到region中
+     */
+    void addBounds(DirtyRegion region) {
+        for (int i = 0; i < layerCount; i++) {
+            if (targets[i] != null) {
+                targets[i].addBounds(region);
+            }
+        }
+    }
+
+    /**
+     * 按层的顺序合成到g上，clip不为null时只绘制与clip相交的命令
+     */
+    void composite(Graphics2D g, LayerCache layerCache, ColorCache colorCache, TextCache textCache,
+                   Rectangle clip) {
+        for (int i = 0; i < layerCount; i++) {
+            if (layers[i].isCached()) {
+                layerCache.draw(g, layers[i], colorCache, textCache);
+            } else {
+                targets[i].replay(g, colorCache, textCache, clip);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.gameengine.graphics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 渲染层。各层按order从小到大合成，order相同时按创建顺序。
+ * 普通层每帧重新提交命令；缓存层只在失效后提交一次，命令在帧结束时发布为不可变的快照，
+ * 绘制线程把快照光栅化成图像缓存起来，之后每帧只合成这张图像。
+ * 缓存层的命令按提交时的视图变换记录，相机移动后需要调用invalidate。
+ * 一个层对象只应用于一个渲染器
+ */
+public final class RenderLayer {
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    /**
+     * 默认层，beginFrame后提交的命令属于这一层
+     */
+    public static final RenderLayer DEFAULT = new RenderLayer("default", 0, false);
+
+    private final String name;
+    private final int order;
+    private final boolean cached;
+    private final int id;
+    private volatile boolean invalid;
+    // 最近一次发布的命令，只在游戏线程替换，绘制线程只读
+    private volatile Snapshot snapshot;
+
+    public RenderLayer(String name, int order, boolean cached) {
+        this.name = name;
+        this.order = order;
+        this.cached = cached;
+        this.id = NEXT_ID.getAndIncrement();
+        this.invalid = true;
+    }
+
+    /**
+     * 标记缓存层的内容过期，下一帧需要重新提交命令
+     */
+    public void invalidate() {
+        invalid = true;
+    }
+
+    /**
+     * 缓存层是否需要在本帧重新提交命令，普通层总是需要
+     */
+    public boolean needsRecording() {
+        return !cached || invalid || snapshot == null;
+    }
+
+    /**
+     * 开始重新记录缓存层，返回新的命令缓冲
+     */
+    RenderCommandBuffer beginRecording() {
+        invalid = false;
+        return new RenderCommandBuffer(64);
+    }
+
+    /**
+     * 发布记录完的命令，之后不再修改commands
+     */
+    void publish(RenderCommandBuffer commands) {
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(commands, previous == null ? 1 : previous.version + 1);
+    }
+
+    Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 按order比较，order相同时按创建顺序
+     */
+    boolean isBefore(RenderLayer other) {
+        return order != other.order ? order < other.order : id < other.id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + order + (cached ? ", cached)" : ")");
+    }
+
+    /**
+     * 缓存层已发布的命令和版本号
+     */
+    static final class Snapshot {
+        final RenderCommandBuffer commands;
+        final int version;
+
+        Snapshot(RenderCommandBuffer commands, int version) {
+            this.commands = commands;
+            this.version = version;
+        }
+    }
+}
@@ -1,235 +1,112 @@
 package com.gameengine.graphics;
 
-import com.gameengine.input.InputManager;
-import com.gameengine.math.Vector2;
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.KeyAdapter;
-import java.awt.event.KeyEvent;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
-import java.util.ArrayList;
-import java.util.List;
-
-public class Renderer extends JFrame {
-    private int width;
-    private int height;
-    private String title;
-    private GamePanel gamePanel;
-    private InputManager inputManager;
-    
-    public Renderer(int width, int height, String title) {
-        this.width = width;
-        this.height = height;
-        this.title = title;
-        this.inputManager = InputManager.getInstance();
-        
-        initialize();
-    }
-    
-    private void initialize() {
-        setTitle(title);
-        setSize(width, height);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(false);
-        
-        gamePanel = new GamePanel();
-        add(gamePanel);
-        
-        setupInput();
-        
-        setVisible(true);
-    }
-    
-    private void setupInput() {
-        addKeyListener(new KeyAdapter() {
-            @Override
-            public void keyPressed(KeyEvent e) {
-                inputManager.onKeyPressed(e.getKeyCode());
-            }
-            
-            @Override
-            public void keyReleased(KeyEvent e) {
-                inputManager.onKeyReleased(e.getKeyCode());
-            }
-        });
-        
-        addMouseListener(new MouseAdapter() {
-            @Override
-            public void mousePressed(MouseEvent e) {
-                inputManager.onMousePressed(e.getButton());
-            }
-            
-            @Override
-            public void mouseReleased(MouseEvent e) {
-                inputManager.onMouseReleased(e.getButton());
-            }
-        });
-        
-        addMouseMotionListener(new MouseAdapter() {
-            @Override
-            public void mouseMoved(MouseEvent e) {
-                inputManager.onMouseMoved(e.getX(), e.getY());
-            }
-        });
-        
-        setFocusable(true);
-        requestFocus();
-    }
-    
-    public void beginFrame() {
-        gamePanel.clear();
-    }
-    
-    public void endFrame() {
-        gamePanel.repaint();
-    }
-    
-    public void drawRect(float x, float y, float width, float height, float r, float g, float b, float a) {
-        gamePanel.addDrawable(new RectDrawable(x, y, width, height, r, g, b, a));
-    }
-    
-    public void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a) {
-        gamePanel.addDrawable(new CircleDrawable(x, y, radius, r, g, b, a));
-    }
-    
-    public void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
-        gamePanel.addDrawable(new LineDrawable(x1, y1, x2, y2, r, g, b, a));
-    }
+/**
+ * 渲染器接口，游戏逻辑只通过这些方法提交绘制命令，
+ * 具体后端可以是Swing窗口、离屏图像或空实现
+ */
+public interface Renderer {
+    /**
+     * 开始一帧，清空上一帧的绘制命令
+     */
+    void beginFrame();
 
-    public void drawText(String text, float x, float y, float r, float g, float b, float a) {
-        gamePanel.addDrawable(new TextDrawable(text, x, y, r, g, b, a));
-    }
-    
-    public boolean shouldClose() {
-        return !isVisible();
-    }
-    
-    public void pollEvents() {
-    }
-    
-    public void cleanup() {
-        dispose();
-    }
-    
-    public int getWidth() {
-        return width;
-    }
-    
-    public int getHeight() {
-        return height;
-    }
-    
-    public String getTitle() {
-        return title;
-    }
-    
-    private class GamePanel extends JPanel {
-        private List<Drawable> drawables = new ArrayList<>();
-        
-        public GamePanel() {
-            setPreferredSize(new Dimension(width, height));
-            setBackground(Color.BLACK);
-        }
-        
-        public void clear() {
-            drawables.clear();
-        }
-        
-        public void addDrawable(Drawable drawable) {
-            drawables.add(drawable);
-        }
-        
-        @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            
-            for (Drawable drawable : drawables) {
-                drawable.draw(g2d);
-            }
-        }
-    }
-    
-    private interface Drawable {
-        void draw(Graphics2D g);
+    /**
+     * 结束一帧并提交绘制结果
+     */
+    void endFrame();
+
+    /**
+     * 绘制矩形
+     */
+    void drawRect(float x, float y, float width, float height, float r, float g, float b, float a);
+
+    /**
+     * 绘制圆形
+     */
+    void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a);
+
+    /**
+     * 绘制线段
+     */
+    void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a);
+
+    /**
+     * 绘制文字
+     */
+    void drawText(String text, float x, float y, float r, float g, float b, float a);
+
+    /**
+     * 绘制文字，整数紧随其后，如"当前得分: 120"。label可以为null。
+     * 支持缓存文字的后端不会为此创建字符串
+     */
+    default void drawText(String label, long value, float x, float y, float r, float g, float b, float a) {
+        drawText(label == null ? Long.toString(value) : label + value, x, y, r, g, b, a);
     }
-    
-    private static class RectDrawable implements Drawable {
-        private float x, y, width, height;
-        private Color color;
-        
-        public RectDrawable(float x, float y, float width, float height, float r, float g, float b, float a) {
-            this.x = x;
-            this.y = y;
-            this.width = width;
-            this.height = height;
-            this.color = new Color(r, g, b, a);
-        }
-        
-        @Override
-        public void draw(Graphics2D g) {
-            g.setColor(color);
-            g.fillRect((int) x, (int) y, (int) width, (int) height);
-        }
+
+    /**
+     * 绘制整数
+     */
+    default void drawNumber(long value, float x, float y, float r, float g, float b, float a) {
+        drawText(null, value, x, y, r, g, b, a);
     }
-    
-    private static class CircleDrawable implements Drawable {
-        private float x, y, radius;
-        private Color color;
-        
-        public CircleDrawable(float x, float y, float radius, float r, float g, float b, float a) {
-            this.x = x;
-            this.y = y;
-            this.radius = radius;
-            this.color = new Color(r, g, b, a);
-        }
-        
-        @Override
-        public void draw(Graphics2D g) {
-            g.setColor(color);
-            g.fillOval((int) (x - radius), (int) (y - radius), (int) (radius * 2), (int) (radius * 2));
-        }
+
+    /**
+     * 设置之后提交的命令从世界坐标到屏幕坐标的变换：屏幕坐标 = 世界坐标 * scale + translate。
+     * 位置和图形大小随之缩放，文字大小不变。beginFrame后恢复为恒等变换
+     */
+    void setViewTransform(float scale, float translateX, float translateY);
+
+    /**
+     * 恢复为恒等变换，之后提交的命令直接使用屏幕坐标
+     */
+    default void resetViewTransform() {
+        setViewTransform(1.0f, 0.0f, 0.0f);
     }
-    
-    private static class LineDrawable implements Drawable {
-        private float x1, y1, x2, y2;
-        private Color color;
-        
-        public LineDrawable(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
-            this.x1 = x1;
-            this.y1 = y1;
-            this.x2 = x2;
-            this.y2 = y2;
-            this.color = new Color(r, g, b, a);
-        }
-        
-        @Override
-        public void draw(Graphics2D g) {
-            g.setColor(color);
-            g.drawLine((int) x1, (int) y1, (int) x2, (int) y2);
-        }
+
+    /**
+     * 之后提交的命令属于layer，直到下一次调用beginLayer或beginFrame，beginFrame后为RenderLayer.DEFAULT。
+     * 返回false表示layer是缓存层且缓存仍然有效，本帧不需要提交它的命令，提交了也会被丢弃。
+     * 不支持分层的后端按提交顺序绘制，总是返回true
+     */
+    default boolean beginLayer(RenderLayer layer) {
+        return true;
     }
 
-    private static class TextDrawable implements Drawable {
-        private String text;
-        private float x, y;
-        private Color color;
-
-        public TextDrawable(String text, float x, float y, float r, float g, float b, float a) {
-            this.text = text;
-            this.x = x;
-            this.y = y;
-            this.color = new Color(r, g, b, a);
-        }
-
-        @Override
-        public void draw(Graphics2D g) {
-            g.setColor(color);
-            g.setFont(new Font("黑体", Font.BOLD, 18));
-            g.drawString(text, (int)x, (int)y);
-        }
+    /**
+     * 上一次endFrame提交的绘制命令数，不记录命令的后端返回0
+     */
+    default int getCommandCount() {
+        return 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * 设置渲染插值系数，固定步长模式下为上一步到当前步之间的比例
+     */
+    void setInterpolationAlpha(float alpha);
+
+    /**
+     * 获取渲染插值系数
+     */
+    float getInterpolationAlpha();
+
+    /**
+     * 检查是否应该关闭
+     */
+    boolean shouldClose();
+
+    /**
+     * 处理窗口事件
+     */
+    void pollEvents();
+
+    /**
+     * 释放资源
+     */
+    void cleanup();
+
+    int getWidth();
+
+    int getHeight();
+
+    String getTitle();
+}
@@ -0,0 +1,231 @@
+package com.gameengine.graphics;
+
+import com.gameengine.input.InputManager;
+import com.gameengine.math.Vector2;
+import com.gameengine.profiler.PaintEvent;
+import com.gameengine.profiler.Profiler;
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * 基于Swing窗口的渲染器。只请求重绘本帧和上一帧普通层命令覆盖的区域，
+ * 缓存层变化时才重绘整个窗口
+ */
+public class SwingRenderer extends JFrame implements Renderer {
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAINT_SCOPE = Profiler.scope("SwingRenderer.paint");
+    
+    private int width;
+    private int height;
+    private String title;
+    private GamePanel gamePanel;
+    // 只由游戏线程访问，交换在GamePanel的锁内进行
+    private RenderFrame recording = new RenderFrame();
+    // 以下只由游戏线程访问
+    private DirtyRegion frameCoverage;
+    private DirtyRegion previousCoverage;
+    private DirtyRegion dirty;
+    private final Rectangle dirtyBounds = new Rectangle();
+    private boolean firstFrame = true;
+    private int commandCount;
+    private InputManager inputManager;
+    private float interpolationAlpha = 1.0f;
+    
+    public SwingRenderer(int width, int height, String title) {
+        this.width = width;
+        this.height = height;
+        this.title = title;
+        this.inputManager = InputManager.getInstance();
+        this.frameCoverage = new DirtyRegion(width, height);
+        this.previousCoverage = new DirtyRegion(width, height);
+        this.dirty = new DirtyRegion(width, height);
+        
+        initialize();
+    }
+    
+    private void initialize() {
+        setTitle(title);
+        setSize(width, height);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        setResizable(false);
+        
+        gamePanel = new GamePanel();
+        add(gamePanel);
+        
+        AwtInputBridge.install(this, inputManager);
+        
+        setVisible(true);
+    }
+    
+    @Override
+    public void beginFrame() {
+        recording.clear();
+    }
+    
+    @Override
+    public boolean beginLayer(RenderLayer layer) {
+        return recording.select(layer);
+    }
+    
+    @Override
+    public void endFrame() {
+        recording.publish();
+        commandCount = recording.commandCount();
+        // 上一帧绘制过的区域也要重绘，才能擦掉移走的图形
+        frameCoverage.clear();
+        recording.addBounds(frameCoverage);
+        dirty.set(frameCoverage);
+        dirty.add(previousCoverage);
+        previousCoverage.set(frameCoverage);
+        boolean full = firstFrame || recording.hasCachedLayerChanges();
+        firstFrame = false;
+        gamePanel.publish();
+        // 事件分发线程来不及绘制时，重绘管理器会合并多次请求的区域
+        if (full) {
+            gamePanel.repaint();
+        } else if (dirty.getBounds(dirtyBounds) != null) {
+            gamePanel.repaint(dirtyBounds);
+        }
+    }
+    
+    @Override
+    public void drawRect(float x, float y, float width, float height, float r, float g, float b, float a) {
+        recording.current().addRect(x, y, width, height, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+    
+    @Override
+    public void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a) {
+        recording.current().addCircle(x, y, radius, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+    
+    @Override
+    public void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+        recording.current().addLine(x1, y1, x2, y2, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, float r, float g, float b, float a) {
+        recording.current().addText(text, x, y, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+
+    @Override
+    public void drawText(String label, long value, float x, float y, float r, float g, float b, float a) {
+        recording.current().addNumber(label, value, x, y, RenderCommandBuffer.packColor(r, g, b, a));
+    }
+    
+    @Override
+    public void setViewTransform(float scale, float translateX, float translateY) {
+        recording.setTransform(scale, translateX, translateY);
+    }
+    
+    @Override
+    public void setInterpolationAlpha(float alpha) {
+        this.interpolationAlpha = alpha;
+    }
+    
+    @Override
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+    
+    @Override
+    public boolean shouldClose() {
+        return !isVisible();
+    }
+    
+    @Override
+    public void pollEvents() {
+    }
+    
+    @Override
+    public void cleanup() {
+        dispose();
+    }
+    
+    @Override
+    public int getWidth() {
+        return width;
+    }
+    
+    @Override
+    public int getHeight() {
+        return height;
+    }
+    
+    @Override
+    public int getCommandCount() {
+        return commandCount;
+    }
+    
+    @Override
+    public String getTitle() {
+        return title;
+    }
+    
+    /**
+     * 游戏面板。游戏线程记录到recording，endFrame时与ready交换；
+     * 事件分发线程绘制前若有新帧，把ready与painting交换后在裁剪区域内合成painting。
+     * 三帧只在锁内交换引用，两个线程从不同时访问同一帧
+     */
+    private class GamePanel extends JPanel {
+        private static final long serialVersionUID = 1L;
+
+        private final Object lock = new Object();
+        private final ColorCache colorCache = new ColorCache();
+        private final TextCache textCache = new TextCache();
+        private final LayerCache layerCache = new LayerCache(width, height);
+        // 复用的JFR事件，只在事件分发线程使用
+        private final PaintEvent paintEvent = new PaintEvent();
+        private RenderFrame ready = new RenderFrame();
+        private RenderFrame painting = new RenderFrame();
+        private boolean fresh;
+        
+        public GamePanel() {
+            setPreferredSize(new Dimension(width, height));
+            setBackground(Color.BLACK);
+        }
+        
+        /**
+         * 发布刚记录完的一帧，事件分发线程还没取走的旧帧直接被覆盖
+         */
+        public void publish() {
+            synchronized (lock) {
+                RenderFrame frame = recording;
+                recording = ready;
+                ready = frame;
+                fresh = true;
+            }
+        }
+        
+        @Override
+        protected void paintComponent(Graphics g) {
+            Profiler.begin(PAINT_SCOPE);
+            PaintEvent event = paintEvent;
+            event.begin();
+            super.paintComponent(g);
+            synchronized (lock) {
+                if (fresh) {
+                    RenderFrame frame = ready;
+                    ready = painting;
+                    painting = frame;
+                    fresh = false;
+                }
+            }
+            Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            Rectangle clip = g2d.getClipBounds();
+            painting.composite(g2d, layerCache, colorCache, textCache, clip);
+            textCache.endFrame();
+            event.end();
+            if (event.shouldCommit()) {
+                event.drawCommands = painting.commandCount();
+                event.clipWidth = clip != null ? clip.width : width;
+                event.clipHeight = clip != null ? clip.height : height;
+                event.commit();
+            }
+            Profiler.end();
+        }
+    }
+}
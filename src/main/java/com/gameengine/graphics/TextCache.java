@@ -0,0 +1,131 @@
+package com.gameengine.graphics;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 文字绘制缓存，每个绘制线程使用自己的实例。
+ * 字形光栅化结果由Java2D按字体缓存在字形图集中，这里保证始终使用同一个Font对象以复用它；
+ * 连续两帧以上出现的字符串缓存排版好的GlyphVector，之后不再做字符到字形的映射；
+ * 整数写入复用的字符数组后直接绘制，不创建字符串。
+ * 每帧绘制结束后调用endFrame，长时间未使用的排版会被释放
+ */
+public final class TextCache {
+    // 排版多少帧未使用后释放
+    private static final int EVICT_AFTER_FRAMES = 120;
+
+    private final Font font;
+    private final FontMetrics metrics;
+    private final Map<String, Layout> layouts;
+    private final char[] digits;
+    private long frame;
+
+    public TextCache() {
+        this(Fonts.DEFAULT);
+    }
+
+    public TextCache(Font font) {
+        this.font = font;
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = probe.createGraphics();
+        this.metrics = g.getFontMetrics(font);
+        g.dispose();
+        this.layouts = new HashMap<>();
+        this.digits = new char[20];
+    }
+
+    /**
+     * 用g当前的颜色在基线位置(x, y)绘制文字，返回文字宽度
+     */
+    public int drawText(Graphics2D g, String text, int x, int y) {
+        g.setFont(font);
+        Layout layout = layouts.get(text);
+        if (layout == null) {
+            // 第一次出现的字符串可能只存在一帧，先不排版
+            layout = new Layout(frame, metrics.stringWidth(text));
+            layouts.put(text, layout);
+            g.drawString(text, x, y);
+            return layout.width;
+        }
+        layout.lastFrame = frame;
+        if (layout.firstFrame == frame) {
+            g.drawString(text, x, y);
+            return layout.width;
+        }
+        FontRenderContext context = g.getFontRenderContext();
+        if (layout.glyphs == null || !context.equals(layout.context)) {
+            layout.glyphs = font.createGlyphVector(context, text);
+            layout.context = context;
+        }
+        g.drawGlyphVector(layout.glyphs, x, y);
+        return layout.width;
+    }
+
+    /**
+     * 用g当前的颜色在基线位置(x, y)绘制十进制整数，不创建字符串，返回宽度
+     */
+    public int drawNumber(Graphics2D g, long value, int x, int y) {
+        // 在负数范围内从低位向高位填充，避免Long.MIN_VALUE取反溢出
+        long v = value < 0 ? value : -value;
+        int start = digits.length;
+        do {
+            digits[--start] = (char) ('0' - (v % 10));
+            v /= 10;
+        } while (v != 0);
+        if (value < 0) {
+            digits[--start] = '-';
+        }
+        int length = digits.length - start;
+        g.setFont(font);
+        g.drawChars(digits, start, length, x, y);
+        return metrics.charsWidth(digits, start, length);
+    }
+
+    /**
+     * 一帧绘制结束，定期释放长时间未使用的排版
+     */
+    public void endFrame() {
+        frame++;
+        if (frame % EVICT_AFTER_FRAMES != 0) {
+            return;
+        }
+        Iterator<Layout> it = layouts.values().iterator();
+        while (it.hasNext()) {
+            if (frame - it.next().lastFrame > EVICT_AFTER_FRAMES) {
+                it.remove();
+            }
+        }
+    }
+
+    public Font getFont() {
+        return font;
+    }
+
+    /**
+     * 缓存的字符串数量
+     */
+    public int getCachedLayoutCount() {
+        return layouts.size();
+    }
+
+    private static final class Layout {
+        final long firstFrame;
+        final int width;
+        long lastFrame;
+        GlyphVector glyphs;
+        FontRenderContext context;
+
+        Layout(long frame, int width) {
+            this.firstFrame = frame;
+            this.lastFrame = frame;
+            this.width = width;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.gameengine.input;
+
+/**
+ * 处理从InputEventQueue取出的事件，事件的内容用InputEventQueue的静态方法解码
+ */
+@FunctionalInterface
+public interface InputEventHandler {
+    void onEvent(long event);
+}
@@ -0,0 +1,195 @@
+package com.gameengine.input;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 单生产者单消费者的无锁输入事件环形缓冲。
+ * 每个事件压缩成一个long，数组预先分配，入队和出队都不产生分配。
+ * 生产者（事件分发线程）只写tail，消费者（游戏线程）只写head，
+ * 两者通过release写和acquire读建立先行发生关系，不需要加锁，也不需要完整的内存屏障。
+ * 缓冲已满时新事件被丢弃并计数，不阻塞生产者。
+ * <p>
+ * 缓冲最后八分之一留给释放事件：其他事件在缓冲用到这里时就被丢弃，
+ * 按键和鼠标按钮的释放仍然可以写入，游戏不会因为丢失释放事件而认为按键一直按着。
+ * 生产者记录写入过的按下和释放，进入保留区后只写入对应按下已经写入的释放，
+ * 所以只要同时按住的键不超过保留区大小，释放事件就不会被丢弃
+ */
+public final class InputEventQueue {
+    /**
+     * 默认容量，按每帧最多几百个事件估计
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    public static final int KEY_PRESSED = 1;
+    public static final int KEY_RELEASED = 2;
+    public static final int MOUSE_PRESSED = 3;
+    public static final int MOUSE_RELEASED = 4;
+    public static final int MOUSE_MOVED = 5;
+
+    // 类型在最高8位；按键事件低32位是键码，鼠标移动事件低56位是两个28位有符号坐标
+    private static final int TYPE_SHIFT = 56;
+    private static final int COORDINATE_BITS = 28;
+    private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+    // 跟踪按下状态的键码范围，超出范围的键码总是写入释放事件
+    private static final int TRACKED_KEY_CODES = 1 << 16;
+    private static final int TRACKED_BUTTONS = 64;
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(InputEventQueue.class, "head", long.class);
+            TAIL = lookup.findVarHandle(InputEventQueue.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long[] events;
+    private final int mask;
+    // 按下和鼠标移动事件可以使用的容量，其余留给释放事件
+    private final int pressLimit;
+    // 下一个要读取的位置，只由消费者写入
+    private long head;
+    // 下一个要写入的位置，只由生产者写入
+    private long tail;
+    // 生产者上次读到的head，缓冲未满时不必每次读取消费者的字段
+    private long cachedHead;
+    // 已写入的事件中处于按下状态的键和鼠标按钮，只由生产者读写
+    private final long[] downKeys = new long[TRACKED_KEY_CODES / 64];
+    private long downButtons;
+    private volatile long droppedCount;
+
+    public InputEventQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * capacity向上取整为2的幂
+     */
+    public InputEventQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.events = new long[size];
+        this.mask = size - 1;
+        this.pressLimit = size - size / 8;
+    }
+
+    /**
+     * 生产者写入一个事件，缓冲已满时返回false。
+     * 释放事件可以使用保留区，其他事件只能使用缓冲的前八分之七
+     */
+    public boolean offer(long event) {
+        int type = typeOf(event);
+        boolean release = type == KEY_RELEASED || type == MOUSE_RELEASED;
+        long t = tail;
+        long used = t - cachedHead;
+        if (used >= pressLimit) {
+            cachedHead = (long) HEAD.getAcquire(this);
+            used = t - cachedHead;
+        }
+        if (used >= events.length || (used >= pressLimit && !(release && isDown(type, codeOf(event))))) {
+            droppedCount++;
+            return false;
+        }
+        if (type == KEY_PRESSED || type == MOUSE_PRESSED) {
+            setDown(type, codeOf(event), true);
+        } else if (release) {
+            setDown(type, codeOf(event), false);
+        }
+        events[(int) t & mask] = event;
+        // release写，保证消费者看到新的tail时也能看到事件内容
+        TAIL.setRelease(this, t + 1);
+        return true;
+    }
+
+    /**
+     * 已写入的事件中键或鼠标按钮是否处于按下状态，不跟踪的键码视为按下
+     */
+    private boolean isDown(int type, int code) {
+        if (type == MOUSE_PRESSED || type == MOUSE_RELEASED) {
+            return code < 0 || code >= TRACKED_BUTTONS || (downButtons & (1L << code)) != 0;
+        }
+        return code < 0 || code >= TRACKED_KEY_CODES || (downKeys[code >>> 6] & (1L << code)) != 0;
+    }
+
+    private void setDown(int type, int code, boolean down) {
+        if (type == MOUSE_PRESSED || type == MOUSE_RELEASED) {
+            if (code >= 0 && code < TRACKED_BUTTONS) {
+                downButtons = down ? downButtons | (1L << code) : downButtons & ~(1L << code);
+            }
+        } else if (code >= 0 && code < TRACKED_KEY_CODES) {
+            int word = code >>> 6;
+            downKeys[word] = down ? downKeys[word] | (1L << code) : downKeys[word] & ~(1L << code);
+        }
+    }
+
+    /**
+     * 消费者取出所有已写入的事件，依次交给handler，返回取出的数量
+     */
+    public int drain(InputEventHandler handler) {
+        long h = head;
+        long t = (long) TAIL.getAcquire(this);
+        for (long i = h; i < t; i++) {
+            handler.onEvent(events[(int) i & mask]);
+        }
+        // 读完后才释放槽位给生产者
+        HEAD.setRelease(this, t);
+        return (int) (t - h);
+    }
+
+    public static long keyEvent(int type, int keyCode) {
+        return ((long) type << TYPE_SHIFT) | (keyCode & 0xFFFFFFFFL);
+    }
+
+    public static long mouseMoveEvent(int x, int y) {
+        return ((long) MOUSE_MOVED << TYPE_SHIFT)
+                | ((y & COORDINATE_MASK) << COORDINATE_BITS)
+                | (x & COORDINATE_MASK);
+    }
+
+    public static int typeOf(long event) {
+        return (int) (event >>> TYPE_SHIFT);
+    }
+
+    /**
+     * 按键或鼠标按钮事件的键码
+     */
+    public static int codeOf(long event) {
+        return (int) event;
+    }
+
+    public static int mouseXOf(long event) {
+        return (int) (event << (64 - COORDINATE_BITS) >> (64 - COORDINATE_BITS));
+    }
+
+    public static int mouseYOf(long event) {
+        return (int) (event << (64 - 2 * COORDINATE_BITS) >> (64 - COORDINATE_BITS));
+    }
+
+    public int capacity() {
+        return events.length;
+    }
+
+    /**
+     * 尚未取出的事件数量，近似值
+     */
+    public int size() {
+        return (int) ((long) TAIL.getAcquire(this) - (long) HEAD.getAcquire(this));
+    }
+
+    /**
+     * 因缓冲已满而丢弃的事件数量，包括进入保留区后丢弃的按下、鼠标移动和多余的释放事件
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+}
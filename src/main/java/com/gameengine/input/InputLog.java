@@ -0,0 +1,34 @@
+package com.gameengine.input;
+
+/**
+ * 输入日志的二进制格式，由InputRecorder写入、InputReplay读取。
+ * 文件头依次是魔数、版本、随机种子、是否固定步长和模拟频率，之后是操作流：
+ * 事件操作属于当前步；DELTA_TIME设置当前步及之后各步的时长；
+ * TICKS n结束当前步，并表示其后还有n-1个没有事件的步；END表示日志结束。
+ * 键码用变长整数，鼠标坐标记录与上一个坐标的差，多字节数值按大端序
+ */
+final class InputLog {
+    static final int MAGIC = 0x47454952;
+    static final int VERSION = 1;
+    // 文件头长度：魔数4、版本1、种子8、固定步长标志1、模拟频率4
+    static final int HEADER_SIZE = 18;
+
+    // 事件操作码与InputEventQueue的事件类型相同
+    static final int OP_DELTA_TIME = 0x10;
+    static final int OP_TICKS = 0x11;
+    static final int OP_END = 0x12;
+
+    // 一个操作编码后的最大长度：操作码加两个变长整数
+    static final int MAX_OP_SIZE = 11;
+
+    private InputLog() {
+    }
+
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
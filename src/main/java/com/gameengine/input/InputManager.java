@@ -1,129 +1,250 @@
 package com.gameengine.input;
 
 import com.gameengine.math.Vector2;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
- * 输入管理器，处理键盘和鼠标输入
+ * 输入管理器，处理键盘和鼠标输入。
+ * on*方法由事件分发线程调用，只把事件写入无锁环形缓冲；
+ * 游戏线程在每个模拟步开始时调用update一次性取出所有事件，更新按键位图。
+ * 查询方法只在游戏线程调用，读取的是上一次update之后的状态，一步之内保持不变。
+ * 同一步内按下又松开的键也会被isKeyJustPressed看到。
+ * 设置录制器后，每步取出的事件同时交给录制器；回放时事件取自日志，事件分发线程写入的事件被丢弃
  */
 public class InputManager {
-    private static InputManager instance;
-    private Set<Integer> pressedKeys;
-    private Set<Integer> justPressedKeys;
-    private Map<Integer, Boolean> keyStates;
-    private Vector2 mousePosition;
-    private boolean[] mouseButtons;
-    private boolean[] mouseButtonsJustPressed;
+    private static final InputManager INSTANCE = new InputManager();
+    /**
+     * 可记录的键码范围，覆盖所有KeyEvent.VK_常量
+     */
+    public static final int MAX_KEY_CODE = 1 << 16;
+    private static final int KEY_WORDS = MAX_KEY_CODE >>> 6;
+    private static final int MAX_MOUSE_BUTTON = 32;
+    private static final InputEventHandler DISCARD = event -> { };
+
+    private final InputEventQueue queue;
+    private final InputEventHandler handler;
+    private final InputEventHandler recordingHandler;
+    private InputRecorder recorder;
+    // 按键位图：当前按下、上一步结束时按下、本步内按下过、本步内松开过
+    private final long[] keys;
+    private final long[] previousKeys;
+    private final long[] pressedKeys;
+    private final long[] releasedKeys;
+    // 上一次update以来事件改动过的位图字下标，update只处理这些字
+    private final int[] dirtyWords;
+    private final long[] dirtyWordMask;
+    private int dirtyWordCount;
+    // 鼠标按钮位图，按钮编号小于32
+    private int mouseButtons;
+    private int mouseButtonsJustPressed;
+    private final Vector2 mousePosition;
     
     private InputManager() {
-        pressedKeys = new HashSet<>();
-        justPressedKeys = new HashSet<>();
-        keyStates = new HashMap<>();
+        queue = new InputEventQueue();
+        handler = this::apply;
+        recordingHandler = event -> {
+            apply(event);
+            recorder.onEvent(event);
+        };
+        keys = new long[KEY_WORDS];
+        previousKeys = new long[KEY_WORDS];
+        pressedKeys = new long[KEY_WORDS];
+        releasedKeys = new long[KEY_WORDS];
+        dirtyWords = new int[KEY_WORDS];
+        dirtyWordMask = new long[(KEY_WORDS + 63) >>> 6];
         mousePosition = new Vector2();
-        mouseButtons = new boolean[3]; // 左键、右键、中键
-        mouseButtonsJustPressed = new boolean[3];
     }
     
     public static InputManager getInstance() {
-        if (instance == null) {
-            instance = new InputManager();
-        }
-        return instance;
+        return INSTANCE;
     }
     
     /**
-     * 更新输入状态
+     * 开始新的一步：取出缓冲中的全部事件并更新状态，只在游戏线程调用
      */
     public void update() {
-        justPressedKeys.clear();
-        for (int i = 0; i < mouseButtonsJustPressed.length; i++) {
-            mouseButtonsJustPressed[i] = false;
+        beginStep();
+        queue.drain(recorder != null ? recordingHandler : handler);
+    }
+    
+    /**
+     * 开始新的一步，事件取自回放日志，返回这一步录制时的时长，只在游戏线程调用
+     */
+    public float update(InputReplay replay) {
+        beginStep();
+        queue.drain(DISCARD);
+        return replay.nextTick(handler);
+    }
+    
+    /**
+     * 丢弃缓冲中的事件并清空所有按键和鼠标状态，录制和回放开始前调用，保证两者从相同的状态开始
+     */
+    public void reset() {
+        queue.drain(DISCARD);
+        Arrays.fill(keys, 0L);
+        Arrays.fill(previousKeys, 0L);
+        Arrays.fill(pressedKeys, 0L);
+        Arrays.fill(releasedKeys, 0L);
+        Arrays.fill(dirtyWordMask, 0L);
+        dirtyWordCount = 0;
+        mouseButtons = 0;
+        mouseButtonsJustPressed = 0;
+        mousePosition.set(0, 0);
+    }
+    
+    private void beginStep() {
+        // 没有改动过的字中previousKeys与keys相同，边沿位图为0，不必处理
+        for (int i = 0; i < dirtyWordCount; i++) {
+            int word = dirtyWords[i];
+            previousKeys[word] = keys[word];
+            pressedKeys[word] = 0L;
+            releasedKeys[word] = 0L;
         }
+        dirtyWordCount = 0;
+        Arrays.fill(dirtyWordMask, 0L);
+        mouseButtonsJustPressed = 0;
+    }
+    
+    private void markDirty(int word) {
+        long bit = 1L << word;
+        if ((dirtyWordMask[word >>> 6] & bit) == 0) {
+            dirtyWordMask[word >>> 6] |= bit;
+            dirtyWords[dirtyWordCount++] = word;
+        }
+    }
+    
+    private void apply(long event) {
+        int code = InputEventQueue.codeOf(event);
+        switch (InputEventQueue.typeOf(event)) {
+            case InputEventQueue.KEY_PRESSED:
+                if (isValidKey(code)) {
+                    long bit = 1L << code;
+                    if ((keys[code >>> 6] & bit) == 0) {
+                        pressedKeys[code >>> 6] |= bit;
+                    }
+                    keys[code >>> 6] |= bit;
+                    markDirty(code >>> 6);
+                }
+                break;
+            case InputEventQueue.KEY_RELEASED:
+                if (isValidKey(code)) {
+                    long bit = 1L << code;
+                    if ((keys[code >>> 6] & bit) != 0) {
+                        releasedKeys[code >>> 6] |= bit;
+                    }
+                    keys[code >>> 6] &= ~bit;
+                    markDirty(code >>> 6);
+                }
+                break;
+            case InputEventQueue.MOUSE_PRESSED:
+                if (isValidButton(code)) {
+                    if ((mouseButtons & (1 << code)) == 0) {
+                        mouseButtonsJustPressed |= 1 << code;
+                    }
+                    mouseButtons |= 1 << code;
+                }
+                break;
+            case InputEventQueue.MOUSE_RELEASED:
+                if (isValidButton(code)) {
+                    mouseButtons &= ~(1 << code);
+                }
+                break;
+            case InputEventQueue.MOUSE_MOVED:
+                mousePosition.x = InputEventQueue.mouseXOf(event);
+                mousePosition.y = InputEventQueue.mouseYOf(event);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private static boolean isValidKey(int keyCode) {
+        return keyCode >= 0 && keyCode < MAX_KEY_CODE;
+    }
+    
+    private static boolean isValidButton(int button) {
+        return button >= 0 && button < MAX_MOUSE_BUTTON;
+    }
+    
+    private static boolean test(long[] bits, int keyCode) {
+        return isValidKey(keyCode) && (bits[keyCode >>> 6] & (1L << keyCode)) != 0;
     }
     
     /**
      * 处理键盘按下事件
      */
     public void onKeyPressed(int keyCode) {
-        if (!pressedKeys.contains(keyCode)) {
-            justPressedKeys.add(keyCode);
-        }
-        pressedKeys.add(keyCode);
-        keyStates.put(keyCode, true);
+        queue.offer(InputEventQueue.keyEvent(InputEventQueue.KEY_PRESSED, keyCode));
     }
     
     /**
      * 处理键盘释放事件
      */
     public void onKeyReleased(int keyCode) {
-        pressedKeys.remove(keyCode);
-        keyStates.put(keyCode, false);
+        queue.offer(InputEventQueue.keyEvent(InputEventQueue.KEY_RELEASED, keyCode));
     }
     
     /**
-     * 处理鼠标移动事件
+     * 处理鼠标移动事件，坐标取整到像素
      */
     public void onMouseMoved(float x, float y) {
-        mousePosition.x = x;
-        mousePosition.y = y;
+        queue.offer(InputEventQueue.mouseMoveEvent(Math.round(x), Math.round(y)));
     }
     
     /**
      * 处理鼠标按下事件
      */
     public void onMousePressed(int button) {
-        if (button >= 0 && button < mouseButtons.length) {
-            if (!mouseButtons[button]) {
-                mouseButtonsJustPressed[button] = true;
-            }
-            mouseButtons[button] = true;
-        }
+        queue.offer(InputEventQueue.keyEvent(InputEventQueue.MOUSE_PRESSED, button));
     }
     
     /**
      * 处理鼠标释放事件
      */
     public void onMouseReleased(int button) {
-        if (button >= 0 && button < mouseButtons.length) {
-            mouseButtons[button] = false;
-        }
+        queue.offer(InputEventQueue.keyEvent(InputEventQueue.MOUSE_RELEASED, button));
     }
     
     /**
      * 检查按键是否被按下
      */
     public boolean isKeyPressed(int keyCode) {
-        return pressedKeys.contains(keyCode);
+        return test(keys, keyCode);
     }
     
     /**
-     * 检查按键是否刚刚被按下（只在这一帧为true）
+     * 检查按键是否刚刚被按下（只在这一步为true），同一步内按下又松开也算
      */
     public boolean isKeyJustPressed(int keyCode) {
-        return justPressedKeys.contains(keyCode);
+        return test(pressedKeys, keyCode);
+    }
+    
+    /**
+     * 检查按键是否刚刚被松开（只在这一步为true）
+     */
+    public boolean isKeyJustReleased(int keyCode) {
+        return test(releasedKeys, keyCode);
+    }
+    
+    /**
+     * 检查按键在上一步结束时是否被按下
+     */
+    public boolean wasKeyPressed(int keyCode) {
+        return test(previousKeys, keyCode);
     }
     
     /**
      * 检查鼠标按键是否被按下
      */
     public boolean isMouseButtonPressed(int button) {
-        if (button >= 0 && button < mouseButtons.length) {
-            return mouseButtons[button];
-        }
-        return false;
+        return isValidButton(button) && (mouseButtons & (1 << button)) != 0;
     }
     
     /**
      * 检查鼠标按键是否刚刚被按下
      */
     public boolean isMouseButtonJustPressed(int button) {
-        if (button >= 0 && button < mouseButtons.length) {
-            return mouseButtonsJustPressed[button];
-        }
-        return false;
+        return isValidButton(button) && (mouseButtonsJustPressed & (1 << button)) != 0;
     }
     
     /**
@@ -133,6 +254,13 @@ public class InputManager {
         return new Vector2(mousePosition);
     }
     
+    /**
+     * 把鼠标位置写入out并返回，不产生分配
+     */
+    public Vector2 getMousePosition(Vector2 out) {
+        return out.set(mousePosition);
+    }
+    
     /**
      * 获取鼠标X坐标
      */
@@ -146,4 +274,22 @@ public class InputManager {
     public float getMouseY() {
         return mousePosition.y;
     }
+    
+    /**
+     * 设置录制器，之后每步取出的事件同时交给它，传入null停止录制。只在游戏线程调用
+     */
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+    
+    public InputRecorder getRecorder() {
+        return recorder;
+    }
+    
+    /**
+     * 因缓冲已满而丢弃的事件数量，正常情况下为0
+     */
+    public long getDroppedEventCount() {
+        return queue.getDroppedCount();
+    }
 }
@@ -0,0 +1,299 @@
+package com.gameengine.input;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 把每个模拟步的输入录制成紧凑的二进制日志，格式见InputLog。
+ * 游戏线程只把事件编码进预先分配的内存块，块写满或每隔一段时间交给后台写入线程，
+ * 游戏线程不做文件IO，正常情况下也不分配内存。
+ * 没有事件且时长不变的连续步只记录一个计数，鼠标坐标只记录变化量。
+ * 进程退出时已交出的块仍会写完，未正常关闭的日志也可以回放到最后一个完整的步。
+ * 除close外的方法只在游戏线程调用
+ */
+public final class InputRecorder implements InputEventHandler, Closeable {
+    /**
+     * 内存块大小，单位字节
+     */
+    public static final int BLOCK_SIZE = 16 * 1024;
+    // 每隔多少步把当前块交给写入线程，进程异常退出时最多丢失这么多步
+    private static final int SUBMIT_INTERVAL_TICKS = 60;
+    // 写入线程积压的块数上限，超过后游戏线程等待
+    private static final int MAX_PENDING_BLOCKS = 64;
+    // 预先分配的块数
+    private static final int POOLED_BLOCKS = 4;
+    private static final Block END_OF_STREAM = new Block(0);
+
+    private final OutputStream out;
+    private final BlockingQueue<Block> filled;
+    private final BlockingQueue<Block> free;
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private final long seed;
+    private Block block;
+    // 已结束但还没有写入的步数
+    private int pendingTicks;
+    private int ticksSinceSubmit;
+    private boolean hasDeltaTime;
+    private int deltaTimeBits;
+    private int mouseX;
+    private int mouseY;
+    private long tickCount;
+    private long bytesRecorded;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * 创建或覆盖file并开始录制
+     */
+    public InputRecorder(Path file, long seed, boolean fixedTimestep, float tickRate) throws IOException {
+        this(Files.newOutputStream(file), seed, fixedTimestep, tickRate);
+    }
+
+    /**
+     * 录制到out，关闭录制时一并关闭out
+     */
+    public InputRecorder(OutputStream out, long seed, boolean fixedTimestep, float tickRate) {
+        this.out = out;
+        this.seed = seed;
+        this.filled = new ArrayBlockingQueue<>(MAX_PENDING_BLOCKS);
+        this.free = new ArrayBlockingQueue<>(MAX_PENDING_BLOCKS);
+        for (int i = 0; i < POOLED_BLOCKS; i++) {
+            free.add(new Block(BLOCK_SIZE));
+        }
+        this.block = free.poll();
+
+        putInt(InputLog.MAGIC);
+        putByte(InputLog.VERSION);
+        putInt((int) (seed >>> 32));
+        putInt((int) seed);
+        putByte(fixedTimestep ? 1 : 0);
+        putInt(Float.floatToIntBits(tickRate));
+
+        this.writer = new Thread(this::writeBlocks, "InputRecorder-writer");
+        writer.setDaemon(true);
+        writer.start();
+        this.shutdownHook = new Thread(this::finishOnExit, "InputRecorder-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * 记录当前步的一个事件，由InputManager在取出事件时调用
+     */
+    @Override
+    public void onEvent(long event) {
+        writeTicks();
+        ensureSpace();
+        int type = InputEventQueue.typeOf(event);
+        putByte(type);
+        if (type == InputEventQueue.MOUSE_MOVED) {
+            int x = InputEventQueue.mouseXOf(event);
+            int y = InputEventQueue.mouseYOf(event);
+            putVarInt(InputLog.zigZag(x - mouseX));
+            putVarInt(InputLog.zigZag(y - mouseY));
+            mouseX = x;
+            mouseY = y;
+        } else {
+            putVarInt(InputEventQueue.codeOf(event));
+        }
+    }
+
+    /**
+     * 结束当前步，deltaTime是这一步的模拟时长
+     */
+    public void endTick(float deltaTime) {
+        int bits = Float.floatToIntBits(deltaTime);
+        if (!hasDeltaTime || bits != deltaTimeBits) {
+            writeTicks();
+            ensureSpace();
+            putByte(InputLog.OP_DELTA_TIME);
+            putInt(bits);
+            hasDeltaTime = true;
+            deltaTimeBits = bits;
+        }
+        pendingTicks++;
+        tickCount++;
+        if (++ticksSinceSubmit >= SUBMIT_INTERVAL_TICKS) {
+            writeTicks();
+            submit();
+        }
+    }
+
+    private void writeTicks() {
+        if (pendingTicks > 0) {
+            ensureSpace();
+            putByte(InputLog.OP_TICKS);
+            putVarInt(pendingTicks);
+            pendingTicks = 0;
+        }
+    }
+
+    private void ensureSpace() {
+        if (block.length + InputLog.MAX_OP_SIZE > BLOCK_SIZE) {
+            submit();
+        }
+    }
+
+    /**
+     * 把当前块交给写入线程，换一个空块，写入线程跟得上时不分配
+     */
+    private void submit() {
+        ticksSinceSubmit = 0;
+        if (block.length == 0) {
+            return;
+        }
+        bytesRecorded += block.length;
+        enqueue(block);
+        Block next = free.poll();
+        block = next != null ? next : new Block(BLOCK_SIZE);
+    }
+
+    private void enqueue(Block b) {
+        try {
+            filled.put(b);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBlocks() {
+        try {
+            while (true) {
+                Block b = filled.take();
+                if (b == END_OF_STREAM) {
+                    break;
+                }
+                if (failure == null) {
+                    try {
+                        out.write(b.data, 0, b.length);
+                        out.flush();
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                b.length = 0;
+                free.offer(b);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 写入结束标记，等待写入线程写完所有块并关闭输出，写入出错时抛出第一个错误。
+     * 关闭后不能再记录事件
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writeTicks();
+        ensureSpace();
+        putByte(InputLog.OP_END);
+        bytesRecorded += block.length;
+        enqueue(block);
+        block = null;
+        enqueue(END_OF_STREAM);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待输入日志写入时被中断");
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // 进程正在退出
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 进程退出时写完已交出的块，当前块中尚未交出的最后几步会丢失
+     */
+    private void finishOnExit() {
+        if (closed) {
+            return;
+        }
+        filled.offer(END_OF_STREAM);
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void putByte(int value) {
+        block.data[block.length++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        byte[] data = block.data;
+        int p = block.length;
+        data[p] = (byte) (value >>> 24);
+        data[p + 1] = (byte) (value >>> 16);
+        data[p + 2] = (byte) (value >>> 8);
+        data[p + 3] = (byte) value;
+        block.length = p + 4;
+    }
+
+    /**
+     * 无符号变长整数，每字节7位，最高位表示后面还有字节
+     */
+    private void putVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            putByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        putByte(value);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 已录制的步数
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * 已交给写入线程的字节数
+     */
+    public long getBytesRecorded() {
+        return bytesRecorded;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private static final class Block {
+        final byte[] data;
+        int length;
+
+        Block(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.gameengine.input;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 回放InputRecorder录制的输入日志，每次nextTick取出一个模拟步的事件和时长。
+ * 加载时整体校验一遍，录制被中断而不完整的日志只回放到最后一个完整的步。
+ * 回放过程不分配内存，rewind后可以重复回放
+ */
+public final class InputReplay {
+    private final byte[] data;
+    private final long seed;
+    private final boolean fixedTimestep;
+    private final float tickRate;
+    private final long tickCount;
+    // 最后一个完整步之后的位置
+    private final int end;
+    private int position;
+    private long tick;
+    private int remainingEmptyTicks;
+    private float deltaTime;
+    private int mouseX;
+    private int mouseY;
+
+    /**
+     * 读取整个日志文件
+     */
+    public static InputReplay load(Path file) throws IOException {
+        return new InputReplay(Files.readAllBytes(file));
+    }
+
+    /**
+     * data不是输入日志或已损坏时抛出IllegalArgumentException
+     */
+    public InputReplay(byte[] data) {
+        this.data = data;
+        if (data.length < InputLog.HEADER_SIZE || readInt(0) != InputLog.MAGIC) {
+            throw new IllegalArgumentException("不是输入日志");
+        }
+        if (data[4] != InputLog.VERSION) {
+            throw new IllegalArgumentException("不支持的输入日志版本: " + data[4]);
+        }
+        this.seed = ((long) readInt(5) << 32) | (readInt(9) & 0xFFFFFFFFL);
+        this.fixedTimestep = data[13] != 0;
+        this.tickRate = Float.intBitsToFloat(readInt(14));
+
+        // 找出完整的步数和它们结束的位置
+        long ticks = 0;
+        int validEnd = InputLog.HEADER_SIZE;
+        int p = InputLog.HEADER_SIZE;
+        scan:
+        while (p < data.length) {
+            int op = data[p++] & 0xFF;
+            switch (op) {
+                case InputEventQueue.KEY_PRESSED:
+                case InputEventQueue.KEY_RELEASED:
+                case InputEventQueue.MOUSE_PRESSED:
+                case InputEventQueue.MOUSE_RELEASED:
+                    p = skipVarInt(p);
+                    break;
+                case InputEventQueue.MOUSE_MOVED:
+                    p = skipVarInt(p);
+                    if (p >= 0) {
+                        p = skipVarInt(p);
+                    }
+                    break;
+                case InputLog.OP_DELTA_TIME:
+                    p = p + 4 <= data.length ? p + 4 : -1;
+                    break;
+                case InputLog.OP_TICKS:
+                    int start = p;
+                    p = skipVarInt(p);
+                    if (p >= 0) {
+                        position = start;
+                        int n = readVarInt();
+                        if (n <= 0) {
+                            throw new IllegalArgumentException("输入日志已损坏，位置" + (start - 1));
+                        }
+                        ticks += n;
+                        validEnd = p;
+                    }
+                    break;
+                case InputLog.OP_END:
+                    break scan;
+                default:
+                    throw new IllegalArgumentException("输入日志已损坏，位置" + (p - 1) + "的操作码" + op);
+            }
+            if (p < 0) {
+                break;
+            }
+        }
+        this.tickCount = ticks;
+        this.end = validEnd;
+        rewind();
+    }
+
+    /**
+     * 回到第一步
+     */
+    public void rewind() {
+        position = InputLog.HEADER_SIZE;
+        tick = 0;
+        remainingEmptyTicks = 0;
+        deltaTime = 0.0f;
+        mouseX = 0;
+        mouseY = 0;
+    }
+
+    public boolean hasNextTick() {
+        return tick < tickCount;
+    }
+
+    /**
+     * 把下一步的事件按录制顺序交给handler，返回这一步的时长
+     */
+    public float nextTick(InputEventHandler handler) {
+        if (tick >= tickCount) {
+            throw new IllegalStateException("输入日志已回放完");
+        }
+        tick++;
+        if (remainingEmptyTicks > 0) {
+            remainingEmptyTicks--;
+            return deltaTime;
+        }
+        while (position < end) {
+            int op = data[position++] & 0xFF;
+            switch (op) {
+                case InputLog.OP_TICKS:
+                    remainingEmptyTicks = readVarInt() - 1;
+                    return deltaTime;
+                case InputLog.OP_DELTA_TIME:
+                    deltaTime = Float.intBitsToFloat(readInt(position));
+                    position += 4;
+                    break;
+                case InputEventQueue.MOUSE_MOVED:
+                    mouseX += InputLog.unZigZag(readVarInt());
+                    mouseY += InputLog.unZigZag(readVarInt());
+                    handler.onEvent(InputEventQueue.mouseMoveEvent(mouseX, mouseY));
+                    break;
+                default:
+                    handler.onEvent(InputEventQueue.keyEvent(op, readVarInt()));
+                    break;
+            }
+        }
+        // 加载时已经校验过，每一步都以OP_TICKS结束
+        throw new IllegalStateException("输入日志已损坏");
+    }
+
+    private int readInt(int p) {
+        return ((data[p] & 0xFF) << 24) | ((data[p + 1] & 0xFF) << 16)
+                | ((data[p + 2] & 0xFF) << 8) | (data[p + 3] & 0xFF);
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * 跳过p处的变长整数，返回之后的位置，数据不完整时返回-1
+     */
+    private int skipVarInt(int p) {
+        while (p < data.length) {
+            if (data[p++] >= 0) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 录制时使用的随机种子
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 录制时是否使用固定步长
+     */
+    public boolean isFixedTimestep() {
+        return fixedTimestep;
+    }
+
+    /**
+     * 录制时的固定步长模拟频率
+     */
+    public float getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * 日志中完整的步数
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * 已回放的步数
+     */
+    public long getTick() {
+        return tick;
+    }
+}
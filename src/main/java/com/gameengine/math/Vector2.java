@@ -21,6 +21,24 @@ public class Vector2 {
         this.y = other.y;
     }
     
+    /**
+     * 设置分量
+     */
+    public Vector2 set(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+    
+    /**
+     * 复制另一个向量的分量
+     */
+    public Vector2 set(Vector2 other) {
+        this.x = other.x;
+        this.y = other.y;
+        return this;
+    }
+    
     /**
      * 向量加法
      */
@@ -42,6 +60,51 @@ public class Vector2 {
         return new Vector2(this.x * scalar, this.y * scalar);
     }
     
+    /**
+     * 原地向量加法
+     */
+    public Vector2 addLocal(Vector2 other) {
+        this.x += other.x;
+        this.y += other.y;
+        return this;
+    }
+    
+    /**
+     * 原地向量加法
+     */
+    public Vector2 addLocal(float x, float y) {
+        this.x += x;
+        this.y += y;
+        return this;
+    }
+    
+    /**
+     * 原地加上另一个向量的倍数
+     */
+    public Vector2 addScaledLocal(Vector2 other, float scalar) {
+        this.x += other.x * scalar;
+        this.y += other.y * scalar;
+        return this;
+    }
+    
+    /**
+     * 原地向量减法
+     */
+    public Vector2 subtractLocal(Vector2 other) {
+        this.x -= other.x;
+        this.y -= other.y;
+        return this;
+    }
+    
+    /**
+     * 原地标量乘法
+     */
+    public Vector2 scaleLocal(float scalar) {
+        this.x *= scalar;
+        this.y *= scalar;
+        return this;
+    }
+    
     /**
      * 计算向量长度
      */
@@ -49,6 +112,13 @@ public class Vector2 {
         return (float) Math.sqrt(x * x + y * y);
     }
     
+    /**
+     * 计算向量长度的平方
+     */
+    public float magnitudeSquared() {
+        return x * x + y * y;
+    }
+    
     /**
      * 标准化向量
      */
@@ -58,6 +128,15 @@ public class Vector2 {
         return new Vector2(x / mag, y / mag);
     }
     
+    /**
+     * 原地标准化向量
+     */
+    public Vector2 normalizeLocal() {
+        float mag = magnitude();
+        if (mag == 0) return set(0, 0);
+        return set(x / mag, y / mag);
+    }
+    
     /**
      * 计算点积
      */
@@ -69,7 +148,16 @@ public class Vector2 {
      * 计算距离
      */
     public float distance(Vector2 other) {
-        return this.subtract(other).magnitude();
+        return (float) Math.sqrt(distanceSquared(other));
+    }
+    
+    /**
+     * 计算距离的平方
+     */
+    public float distanceSquared(Vector2 other) {
+        float dx = this.x - other.x;
+        float dy = this.y - other.y;
+        return dx * dx + dy * dy;
     }
     
     @Override
@@ -84,5 +172,10 @@ public class Vector2 {
         Vector2 vector2 = (Vector2) obj;
         return Float.compare(vector2.x, x) == 0 && Float.compare(vector2.y, y) == 0;
     }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Float.floatToIntBits(x) + Float.floatToIntBits(y);
+    }
 }
 
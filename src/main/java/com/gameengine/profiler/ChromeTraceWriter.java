@@ -0,0 +1,108 @@
+package com.gameengine.profiler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 写出Chrome trace事件格式的JSON。作用域是完整事件("X")，组件耗时是计数器事件("C")，
+ * 另有线程名称的元数据事件("M")。时间单位是微秒，从分析器加载时开始计
+ */
+final class ChromeTraceWriter {
+    private static final int PID = 1;
+
+    private ChromeTraceWriter() {
+    }
+
+    static void write(Path file, List<ThreadBuffer> buffers, String[] names, long epochNanos) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            boolean first = true;
+            for (ThreadBuffer buffer : buffers) {
+                long written = buffer.written();
+                if (written == 0) {
+                    continue;
+                }
+                first = separate(out, first);
+                out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + PID + ",\"tid\":" + buffer.threadId
+                        + ",\"args\":{\"name\":");
+                writeString(out, buffer.threadName);
+                out.write("}}");
+
+                long start = Math.max(0, written - ThreadBuffer.CAPACITY);
+                for (long n = start; n < written; n++) {
+                    int i = ThreadBuffer.indexOf(n);
+                    int name = buffer.names[i];
+                    first = separate(out, first);
+                    out.write("{\"name\":");
+                    writeString(out, name < names.length ? names[name] : "#" + name);
+                    out.write(",\"pid\":" + PID + ",\"tid\":" + buffer.threadId + ",\"ts\":");
+                    out.write(micros(buffer.times[i] - epochNanos));
+                    if (buffer.kinds[i] == ThreadBuffer.COUNTER) {
+                        out.write(",\"ph\":\"C\",\"args\":{\"ms\":");
+                        out.write(Double.toString(buffer.values[i] / 1_000_000.0));
+                        out.write("}}");
+                    } else {
+                        out.write(",\"ph\":\"X\",\"dur\":");
+                        out.write(micros(buffer.values[i]));
+                        out.write('}');
+                    }
+                }
+            }
+            out.write("]}\n");
+        }
+    }
+
+    private static boolean separate(Writer out, boolean first) throws IOException {
+        if (!first) {
+            out.write(",\n");
+        }
+        return false;
+    }
+
+    /**
+     * 纳秒转换为保留三位小数的微秒
+     */
+    private static String micros(long nanos) {
+        long whole = nanos / 1000;
+        long fraction = Math.abs(nanos % 1000);
+        String digits = Long.toString(fraction);
+        String sign = nanos < 0 && whole == 0 ? "-" : "";
+        return sign + whole + "." + "000".substring(digits.length()) + digits;
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
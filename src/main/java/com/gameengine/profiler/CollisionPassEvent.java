@@ -0,0 +1,30 @@
+package com.gameengine.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次碰撞检测的JFR事件，包括宽阶段、窄阶段和事件派发
+ */
+@Name("com.gameengine.CollisionPass")
+@Label("Collision Pass")
+@Category({"Game Engine", "Collision"})
+@Description("一次碰撞检测和事件派发")
+@StackTrace(false)
+public final class CollisionPassEvent extends Event {
+    @Label("Colliders")
+    @Description("参与检测的碰撞体数")
+    public int colliders;
+
+    @Label("Grid Cells")
+    @Description("宽阶段占用的网格数")
+    public int cells;
+
+    @Label("Contacts")
+    @Description("本次接触的碰撞对数")
+    public int contacts;
+}
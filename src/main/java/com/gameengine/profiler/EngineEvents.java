@@ -0,0 +1,32 @@
+package com.gameengine.profiler;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * 引擎的JFR事件类型。注册后即使在记录开始前，事件也出现在JFR的设置和元数据中；
+ * 没有记录时提交事件只检查一个标志。
+ * 引擎中每个发出事件的对象复用自己的事件实例，每次都调用begin和end，不分配内存
+ */
+public final class EngineEvents {
+    private static boolean registered;
+
+    private EngineEvents() {
+    }
+
+    /**
+     * 注册所有事件类型，重复调用不做任何事
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        FlightRecorder.register(FrameEvent.class);
+        FlightRecorder.register(SceneUpdateEvent.class);
+        FlightRecorder.register(EntityBurstEvent.class);
+        FlightRecorder.register(CollisionPassEvent.class);
+        FlightRecorder.register(RenderEvent.class);
+        FlightRecorder.register(PresentEvent.class);
+        FlightRecorder.register(PaintEvent.class);
+        registered = true;
+    }
+}
@@ -0,0 +1,27 @@
+package com.gameengine.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 场景在更新开始时批量加入和移除对象的JFR事件，没有待处理的对象时不记录
+ */
+@Name("com.gameengine.EntityBurst")
+@Label("Entity Spawn/Destroy Burst")
+@Category({"Game Engine", "Scene"})
+@Description("一次更新开始时批量加入和移除的对象")
+@StackTrace(false)
+public final class EntityBurstEvent extends Event {
+    @Label("Scene")
+    public String scene;
+
+    @Label("Spawned")
+    public int spawned;
+
+    @Label("Destroyed")
+    public int destroyed;
+}
@@ -0,0 +1,36 @@
+package com.gameengine.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一帧的JFR事件，从帧开始到渲染结果提交，与GC停顿和安全点对照可以找出受影响的帧
+ */
+@Name("com.gameengine.Frame")
+@Label("Frame")
+@Category({"Game Engine", "Frame"})
+@Description("一帧的更新和渲染")
+@StackTrace(false)
+public final class FrameEvent extends Event {
+    @Label("Frame")
+    @Description("引擎启动后的帧序号")
+    public long frame;
+
+    @Label("Simulation Steps")
+    @Description("本帧执行的模拟步数")
+    public int simulationSteps;
+
+    @Label("Entity Count")
+    public int entityCount;
+
+    @Label("Draw Commands")
+    public int drawCommands;
+
+    @Label("Delta Time")
+    @Description("帧时长，单位秒")
+    public float deltaTime;
+}
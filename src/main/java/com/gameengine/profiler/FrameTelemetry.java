@@ -0,0 +1,242 @@
+package com.gameengine.profiler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 每帧的运行时统计：帧率、帧耗时、游戏线程每帧分配的字节数和垃圾回收停顿，
+ * 保留最近若干帧用于滚动统计。beginFrame和endFrame必须在同一线程上调用，
+ * 分配量只统计这个线程，绘制线程和后台线程的分配不计入。
+ * 停顿按通知送达的帧计入，可能比实际停顿晚一帧。采样不分配内存
+ */
+public final class FrameTelemetry {
+    /**
+     * 默认保留的帧数
+     */
+    public static final int DEFAULT_WINDOW = 120;
+    /**
+     * 保留的最近垃圾回收停顿次数
+     */
+    public static final int RECENT_GC_PAUSES = GcPauseMonitor.RECENT_PAUSES;
+
+    // 不支持按线程统计分配时为null
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final boolean gcSupported;
+    private final FrameTimeHistogram frameTimes;
+    // 每帧分配的字节数和帧开始时刻的间隔，与帧耗时一同滚动
+    private final long[] allocatedBytes;
+    private final long[] intervals;
+    private int next;
+    private int count;
+    private long intervalSum;
+
+    private long frameStart;
+    private long previousFrameStart;
+    private long allocatedAtStart;
+    private long pausesAtStart;
+    private long pauseNanosAtStart;
+    private long lastAllocatedBytes;
+    private long lastGcPauseNanos;
+    private int lastGcPauseCount;
+    private long frameCount;
+
+    public FrameTelemetry() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public FrameTelemetry(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("帧数必须为正数: " + window);
+        }
+        this.frameTimes = new FrameTimeHistogram(window);
+        this.allocatedBytes = new long[window];
+        this.intervals = new long[window];
+        this.threadBean = allocationBean();
+        this.gcSupported = GcPauseMonitor.install();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return sunBean;
+    }
+
+    /**
+     * 开始一帧
+     */
+    public void beginFrame() {
+        frameStart = System.nanoTime();
+        allocatedAtStart = allocatedBytes();
+        pausesAtStart = GcPauseMonitor.getPauseCount();
+        pauseNanosAtStart = GcPauseMonitor.getPauseNanos();
+    }
+
+    /**
+     * 结束一帧并更新滚动统计
+     */
+    public void endFrame() {
+        long now = System.nanoTime();
+        lastAllocatedBytes = Math.max(0, allocatedBytes() - allocatedAtStart);
+        lastGcPauseCount = (int) (GcPauseMonitor.getPauseCount() - pausesAtStart);
+        lastGcPauseNanos = GcPauseMonitor.getPauseNanos() - pauseNanosAtStart;
+        frameTimes.add(now - frameStart);
+
+        // 第一帧没有上一帧的开始时刻，间隔按帧耗时计
+        long interval = previousFrameStart != 0 ? frameStart - previousFrameStart : now - frameStart;
+        previousFrameStart = frameStart;
+        if (count == intervals.length) {
+            intervalSum -= intervals[next];
+        } else {
+            count++;
+        }
+        intervals[next] = interval;
+        intervalSum += interval;
+        allocatedBytes[next] = lastAllocatedBytes;
+        next = next + 1 == intervals.length ? 0 : next + 1;
+        frameCount++;
+    }
+
+    private long allocatedBytes() {
+        return threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * 丢弃所有统计，垃圾回收的累计值不受影响
+     */
+    public void reset() {
+        frameTimes.clear();
+        next = 0;
+        count = 0;
+        intervalSum = 0;
+        previousFrameStart = 0;
+        lastAllocatedBytes = 0;
+        lastGcPauseCount = 0;
+        lastGcPauseNanos = 0;
+        frameCount = 0;
+    }
+
+    /**
+     * 是否能统计分配的字节数，不支持时分配量总是0
+     */
+    public boolean isAllocationTrackingSupported() {
+        return threadBean != null;
+    }
+
+    /**
+     * 是否能收到垃圾回收停顿的通知
+     */
+    public boolean isGcTrackingSupported() {
+        return gcSupported;
+    }
+
+    /**
+     * 窗口内的平均帧率，按相邻两帧开始的间隔计算，包括帧之间的等待
+     */
+    public float getFps() {
+        return intervalSum == 0 ? 0.0f : count * 1_000_000_000.0f / intervalSum;
+    }
+
+    /**
+     * 窗口内各帧的耗时，从帧开始到帧结束，不包括帧之间的等待
+     */
+    public FrameTimeHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    /**
+     * 最近一帧在游戏线程上分配的字节数
+     */
+    public long getLastAllocatedBytes() {
+        return lastAllocatedBytes;
+    }
+
+    /**
+     * 窗口内平均每帧分配的字节数
+     */
+    public long getMeanAllocatedBytes() {
+        if (count == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += allocatedBytes[i];
+        }
+        return sum / count;
+    }
+
+    /**
+     * 窗口内单帧分配的最大字节数
+     */
+    public long getMaxAllocatedBytes() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, allocatedBytes[i]);
+        }
+        return max;
+    }
+
+    /**
+     * 最近一帧收到通知的垃圾回收停顿次数
+     */
+    public int getLastGcPauseCount() {
+        return lastGcPauseCount;
+    }
+
+    /**
+     * 最近一帧收到通知的垃圾回收停顿总时长，单位纳秒
+     */
+    public long getLastGcPauseNanos() {
+        return lastGcPauseNanos;
+    }
+
+    /**
+     * 进程启动以来的垃圾回收停顿次数
+     */
+    public long getTotalGcPauseCount() {
+        return GcPauseMonitor.getPauseCount();
+    }
+
+    /**
+     * 进程启动以来的垃圾回收停顿总时长，单位纳秒
+     */
+    public long getTotalGcPauseNanos() {
+        return GcPauseMonitor.getPauseNanos();
+    }
+
+    /**
+     * 把最近的垃圾回收停顿时长从新到旧复制到out，单位纳秒，最多RECENT_GC_PAUSES次，返回复制的个数
+     */
+    public int getRecentGcPauses(long[] out) {
+        return GcPauseMonitor.copyRecentPauses(out);
+    }
+
+    /**
+     * 最近一次停顿的回收器名称，还没有停顿时为null
+     */
+    public String getLastGcCollector() {
+        return GcPauseMonitor.getLastCollector();
+    }
+
+    /**
+     * 已统计的帧数
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 保留的帧数
+     */
+    public int getWindow() {
+        return intervals.length;
+    }
+}
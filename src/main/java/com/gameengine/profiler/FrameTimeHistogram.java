@@ -0,0 +1,154 @@
+package com.gameengine.profiler;
+
+import java.util.Arrays;
+
+/**
+ * 最近若干帧耗时的滚动直方图。桶宽随耗时增加：10毫秒以内10微秒，100毫秒以内100微秒，
+ * 1秒以内1毫秒，更长的归入最后一个桶。新的一帧加入时最早的一帧移出，
+ * 加入是常数时间且不分配内存，分位数按桶的上界给出，最大值是精确值
+ */
+public final class FrameTimeHistogram {
+    private static final int FINE_BUCKETS = 1000;
+    private static final int MEDIUM_BUCKETS = 900;
+    private static final int COARSE_BUCKETS = 900;
+    private static final int BUCKET_COUNT = FINE_BUCKETS + MEDIUM_BUCKETS + COARSE_BUCKETS + 1;
+
+    private final long[] samples;
+    private final int[] buckets;
+    private int next;
+    private int count;
+    private long sum;
+    private long last;
+
+    /**
+     * window是保留的帧数
+     */
+    public FrameTimeHistogram(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("帧数必须为正数: " + window);
+        }
+        this.samples = new long[window];
+        this.buckets = new int[BUCKET_COUNT];
+    }
+
+    /**
+     * 加入一帧的耗时，单位纳秒
+     */
+    public void add(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        if (count == samples.length) {
+            long old = samples[next];
+            buckets[bucketOf(old)]--;
+            sum -= old;
+        } else {
+            count++;
+        }
+        samples[next] = nanos;
+        buckets[bucketOf(nanos)]++;
+        sum += nanos;
+        last = nanos;
+        next = next + 1 == samples.length ? 0 : next + 1;
+    }
+
+    /**
+     * 清空所有帧
+     */
+    public void clear() {
+        Arrays.fill(buckets, 0);
+        next = 0;
+        count = 0;
+        sum = 0;
+        last = 0;
+    }
+
+    private static int bucketOf(long nanos) {
+        long micros = nanos / 1000;
+        if (micros < 10_000) {
+            return (int) (micros / 10);
+        }
+        if (micros < 100_000) {
+            return FINE_BUCKETS + (int) ((micros - 10_000) / 100);
+        }
+        if (micros < 1_000_000) {
+            return FINE_BUCKETS + MEDIUM_BUCKETS + (int) ((micros - 100_000) / 1000);
+        }
+        return BUCKET_COUNT - 1;
+    }
+
+    /**
+     * 桶的上界，单位纳秒，最后一个桶没有上界
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < FINE_BUCKETS) {
+            return (bucket + 1) * 10_000L;
+        }
+        if (bucket < FINE_BUCKETS + MEDIUM_BUCKETS) {
+            return 10_000_000L + (bucket - FINE_BUCKETS + 1) * 100_000L;
+        }
+        if (bucket < BUCKET_COUNT - 1) {
+            return 100_000_000L + (bucket - FINE_BUCKETS - MEDIUM_BUCKETS + 1) * 1_000_000L;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * 至少fraction比例的帧不超过的耗时，单位纳秒，不超过最大值；没有帧时为0
+     */
+    public long getPercentileNanos(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public long getP50Nanos() {
+        return getPercentileNanos(0.50);
+    }
+
+    public long getP99Nanos() {
+        return getPercentileNanos(0.99);
+    }
+
+    /**
+     * 窗口内的最大耗时，单位纳秒
+     */
+    public long getMaxNanos() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * 最近一帧的耗时，单位纳秒
+     */
+    public long getLastNanos() {
+        return last;
+    }
+
+    /**
+     * 窗口内的帧数
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getWindow() {
+        return samples.length;
+    }
+}
@@ -0,0 +1,97 @@
+package com.gameengine.profiler;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 监听垃圾回收通知，统计停顿次数和时长，并保留最近的若干次停顿。
+ * 整个进程只安装一次监听器，通知在JVM的服务线程上异步送达，通常晚于停顿本身几毫秒。
+ * 并发回收器的周期（名称含Concurrent或Cycles的回收器）不是停顿，不计入。
+ * JVM报告的时长精度为毫秒
+ */
+final class GcPauseMonitor {
+    static final int RECENT_PAUSES = 8;
+
+    private static boolean installed;
+    private static boolean supported;
+    private static long pauseCount;
+    private static long pauseNanos;
+    // 最近的停顿，环形保存
+    private static final long[] recentNanos = new long[RECENT_PAUSES];
+    private static final String[] recentNames = new String[RECENT_PAUSES];
+    private static int recentNext;
+
+    private GcPauseMonitor() {
+    }
+
+    /**
+     * 安装监听器，重复调用不做任何事。返回是否能收到垃圾回收通知
+     */
+    static synchronized boolean install() {
+        if (installed) {
+            return supported;
+        }
+        installed = true;
+        NotificationListener listener = GcPauseMonitor::onNotification;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter && !isConcurrent(bean.getName())) {
+                ((NotificationEmitter) bean).addNotificationListener(listener, null, null);
+                supported = true;
+            }
+        }
+        return supported;
+    }
+
+    private static boolean isConcurrent(String collector) {
+        return collector.contains("Concurrent") || collector.contains("Cycles");
+    }
+
+    private static void onNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        record(info.getGcName(), info.getGcInfo().getDuration() * 1_000_000L);
+    }
+
+    private static synchronized void record(String collector, long nanos) {
+        pauseCount++;
+        pauseNanos += nanos;
+        recentNanos[recentNext] = nanos;
+        recentNames[recentNext] = collector;
+        recentNext = (recentNext + 1) % RECENT_PAUSES;
+    }
+
+    static synchronized long getPauseCount() {
+        return pauseCount;
+    }
+
+    static synchronized long getPauseNanos() {
+        return pauseNanos;
+    }
+
+    /**
+     * 把最近的停顿时长从新到旧复制到out，返回复制的个数
+     */
+    static synchronized int copyRecentPauses(long[] out) {
+        int n = (int) Math.min(Math.min(pauseCount, RECENT_PAUSES), out.length);
+        for (int i = 0; i < n; i++) {
+            out[i] = recentNanos[(recentNext - 1 - i + RECENT_PAUSES) % RECENT_PAUSES];
+        }
+        return n;
+    }
+
+    /**
+     * 最近一次停顿的回收器名称，还没有停顿时为null
+     */
+    static synchronized String getLastCollector() {
+        return pauseCount == 0 ? null : recentNames[(recentNext - 1 + RECENT_PAUSES) % RECENT_PAUSES];
+    }
+}
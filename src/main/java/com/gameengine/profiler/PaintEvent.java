@@ -0,0 +1,27 @@
+package com.gameengine.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Swing窗口在事件分发线程上绘制一帧的JFR事件
+ */
+@Name("com.gameengine.Paint")
+@Label("Paint")
+@Category({"Game Engine", "Render"})
+@Description("事件分发线程重放绘制命令")
+@StackTrace(false)
+public final class PaintEvent extends Event {
+    @Label("Draw Commands")
+    public int drawCommands;
+
+    @Label("Clip Width")
+    public int clipWidth;
+
+    @Label("Clip Height")
+    public int clipHeight;
+}
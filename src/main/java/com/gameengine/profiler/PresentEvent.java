@@ -0,0 +1,24 @@
+package com.gameengine.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Renderer.endFrame提交一帧的JFR事件。Swing窗口在这里只发布命令，实际绘制见PaintEvent
+ */
+@Name("com.gameengine.Present")
+@Label("Present")
+@Category({"Game Engine", "Render"})
+@Description("渲染器提交一帧")
+@StackTrace(false)
+public final class PresentEvent extends Event {
+    @Label("Renderer")
+    public String renderer;
+
+    @Label("Draw Commands")
+    public int drawCommands;
+}
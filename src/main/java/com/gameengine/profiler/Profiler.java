@@ -0,0 +1,216 @@
+package com.gameengine.profiler;
+
+import com.gameengine.core.ComponentType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 帧性能分析器。代码用scope注册的编号标记嵌套的作用域，begin和end之间的耗时
+ * 记录到当前线程预先分配的环形缓冲区中，可以导出为Chrome trace事件文件，
+ * 在chrome://tracing或Perfetto中按线程查看时间线。
+ * 引擎的各个阶段、场景更新的各个步骤、每个系统和每种组件的更新耗时都自动记录，
+ * 组件耗时抽样估计，按类型每帧汇总成计数器。帧耗时总是记入滚动直方图。
+ * 关闭时begin和end只检查一个标志；开关应在帧之间切换
+ */
+public final class Profiler {
+    /**
+     * 帧耗时直方图保留的帧数
+     */
+    public static final int FRAME_WINDOW = 600;
+    /**
+     * 组件更新每隔多少个对象计时一次。计时本身的开销与简单组件的更新相当，
+     * 抽样后按比例放大，各类型的总耗时仍是无偏的估计
+     */
+    public static final int COMPONENT_SAMPLE_INTERVAL = 16;
+
+    private static final long EPOCH_NANOS = System.nanoTime();
+    private static volatile boolean enabled;
+    private static volatile int generation;
+    private static final Map<String, Integer> scopeIds = new HashMap<>();
+    private static final List<String> scopeNames = new ArrayList<>();
+    private static final List<ThreadBuffer> buffers = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<ThreadBuffer> BUFFER = ThreadLocal.withInitial(() -> {
+        ThreadBuffer buffer = new ThreadBuffer(Thread.currentThread(), generation);
+        buffers.add(buffer);
+        return buffer;
+    });
+    private static final FrameTimeHistogram frameTimes = new FrameTimeHistogram(FRAME_WINDOW);
+    private static final int FRAME = scope("Frame");
+
+    private static long frameStart;
+    // 抽样计数，只由更新组件的线程使用，并发时计数不准也不影响正确性
+    private static int componentSampleCounter;
+    // 按组件类型ID保存的计数器名称编号和上一帧的耗时
+    private static int[] componentScopes = new int[0];
+    private static long[] lastComponentNanos = new long[0];
+
+    private Profiler() {
+    }
+
+    /**
+     * 注册作用域名称并返回编号，同名的作用域得到同一个编号。
+     * 通常在类初始化时注册，保存在静态常量中
+     */
+    public static synchronized int scope(String name) {
+        Integer id = scopeIds.get(name);
+        if (id == null) {
+            id = scopeNames.size();
+            scopeIds.put(name, id);
+            scopeNames.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * 作用域编号对应的名称
+     */
+    public static synchronized String scopeName(int scope) {
+        return scopeNames.get(scope);
+    }
+
+    /**
+     * 开始一个作用域，必须在同一线程上用end结束，中间可以嵌套其他作用域
+     */
+    public static void begin(int scope) {
+        if (enabled) {
+            BUFFER.get().begin(scope, generation);
+        }
+    }
+
+    /**
+     * 结束当前线程最近开始的作用域
+     */
+    public static void end() {
+        if (enabled) {
+            BUFFER.get().end();
+        }
+    }
+
+    /**
+     * 开始一帧，由GameEngine在每帧开始时调用
+     */
+    public static void beginFrame() {
+        frameStart = System.nanoTime();
+        if (enabled) {
+            ThreadBuffer buffer = BUFFER.get();
+            // 上一帧中途关闭时可能残留未结束的作用域
+            buffer.resetStack();
+            buffer.begin(FRAME, generation);
+        }
+    }
+
+    /**
+     * 结束一帧，把帧耗时记入直方图，并把各线程本帧的组件更新耗时汇总成计数器事件
+     */
+    public static void endFrame() {
+        long now = System.nanoTime();
+        frameTimes.add(now - frameStart);
+        if (!enabled) {
+            return;
+        }
+        ThreadBuffer buffer = BUFFER.get();
+        buffer.end();
+        int types = ComponentType.count();
+        if (lastComponentNanos.length < types) {
+            lastComponentNanos = new long[types];
+        }
+        for (int id = 0; id < types; id++) {
+            long total = 0;
+            for (int i = 0; i < buffers.size(); i++) {
+                long[] nanos = buffers.get(i).componentNanos;
+                if (id < nanos.length) {
+                    total += nanos[id];
+                    nanos[id] = 0;
+                }
+            }
+            lastComponentNanos[id] = total;
+            if (total > 0) {
+                buffer.record(ThreadBuffer.COUNTER, componentScope(id), now, total);
+            }
+        }
+    }
+
+    private static int componentScope(int typeId) {
+        if (typeId >= componentScopes.length) {
+            int old = componentScopes.length;
+            componentScopes = Arrays.copyOf(componentScopes, ComponentType.count());
+            Arrays.fill(componentScopes, old, componentScopes.length, -1);
+        }
+        if (componentScopes[typeId] < 0) {
+            componentScopes[typeId] = scope(ComponentType.byId(typeId).getType().getSimpleName());
+        }
+        return componentScopes[typeId];
+    }
+
+    /**
+     * 这一个对象的组件更新是否需要计时，由GameObject在开启时调用
+     */
+    public static boolean sampleComponentUpdate() {
+        return ++componentSampleCounter % COMPONENT_SAMPLE_INTERVAL == 0;
+    }
+
+    /**
+     * 累加当前线程本帧某种组件的更新耗时，nanos是抽样到的一次耗时
+     */
+    public static void addComponentTime(int componentTypeId, long nanos) {
+        BUFFER.get().addComponentTime(componentTypeId, nanos * COMPONENT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * 开启或关闭。重新开启时各线程残留的作用域栈被丢弃，已记录的事件保留
+     */
+    public static void setEnabled(boolean on) {
+        if (on && !enabled) {
+            generation++;
+        }
+        enabled = on;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 丢弃所有线程已记录的事件和帧耗时，应在帧之间且没有其他线程记录时调用
+     */
+    public static void reset() {
+        for (int i = 0; i < buffers.size(); i++) {
+            buffers.get(i).clear();
+        }
+        frameTimes.clear();
+    }
+
+    /**
+     * 把各线程缓冲区中的事件导出为Chrome trace事件格式的JSON文件，
+     * 每个线程只保留最近65536个事件。应在帧之间调用
+     */
+    public static void exportChromeTrace(Path file) throws IOException {
+        String[] names;
+        synchronized (Profiler.class) {
+            names = scopeNames.toArray(new String[0]);
+        }
+        ChromeTraceWriter.write(file, buffers, names, EPOCH_NANOS);
+    }
+
+    /**
+     * 最近FRAME_WINDOW帧的耗时，只在游戏线程读取
+     */
+    public static FrameTimeHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    /**
+     * 开启时上一帧中某种组件的更新耗时，单位纳秒
+     */
+    public static long getComponentUpdateNanos(Class<?> componentType) {
+        int id = ComponentType.idOf(componentType);
+        return id < lastComponentNanos.length ? lastComponentNanos[id] : 0;
+    }
+}
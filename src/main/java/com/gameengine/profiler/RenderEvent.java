@@ -0,0 +1,28 @@
+package com.gameengine.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 场景记录绘制命令的JFR事件，不包括提交
+ */
+@Name("com.gameengine.Render")
+@Label("Render Recording")
+@Category({"Game Engine", "Render"})
+@Description("场景向渲染器记录一帧的绘制命令")
+@StackTrace(false)
+public final class RenderEvent extends Event {
+    @Label("Entity Count")
+    public int entityCount;
+
+    @Label("Culled")
+    @Description("被相机剔除的对象数")
+    public int culled;
+
+    @Label("Draw Commands")
+    public int drawCommands;
+}
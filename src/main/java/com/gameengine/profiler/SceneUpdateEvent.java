@@ -0,0 +1,37 @@
+package com.gameengine.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次Scene.update的JFR事件
+ */
+@Name("com.gameengine.SceneUpdate")
+@Label("Scene Update")
+@Category({"Game Engine", "Scene"})
+@Description("一个模拟步的场景更新")
+@StackTrace(false)
+public final class SceneUpdateEvent extends Event {
+    @Label("Scene")
+    public String scene;
+
+    @Label("Entity Count")
+    @Description("更新结束时场景中的对象数")
+    public int entityCount;
+
+    @Label("Spawned")
+    @Description("本次加入场景的对象数")
+    public int spawned;
+
+    @Label("Destroyed")
+    @Description("本次移出场景的对象数，包括变为不活跃的对象")
+    public int destroyed;
+
+    @Label("Delta Time")
+    @Description("步长，单位秒")
+    public float deltaTime;
+}
@@ -0,0 +1,129 @@
+package com.gameengine.profiler;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * 一个线程的事件环形缓冲区和作用域栈，只由所属线程写入。
+ * 作用域结束时记录一个完整事件：开始时间、时长和名称；计数器事件记录时间、数值和名称。
+ * 写满后覆盖最早的事件。写入计数以release语义发布，导出线程读取已发布的部分，
+ * 在帧之间导出时得到的是一致的数据
+ */
+final class ThreadBuffer {
+    static final int CAPACITY = 1 << 16;
+    private static final int MASK = CAPACITY - 1;
+    static final int MAX_DEPTH = 64;
+
+    static final byte SCOPE = 0;
+    static final byte COUNTER = 1;
+
+    private static final VarHandle WRITTEN;
+
+    static {
+        try {
+            WRITTEN = MethodHandles.lookup().findVarHandle(ThreadBuffer.class, "written", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final long threadId;
+    final String threadName;
+    final long[] times;
+    // 作用域事件的时长，或计数器的数值
+    final long[] values;
+    final int[] names;
+    final byte[] kinds;
+    @SuppressWarnings("unused")
+    private long written;
+
+    private final int[] stackNames;
+    private final long[] stackStarts;
+    private int depth;
+    // 开启性能分析的次数，与Profiler不同时说明中间关闭过，栈中可能残留未结束的作用域
+    private int generation;
+
+    // 本帧按组件类型ID累计的更新耗时
+    long[] componentNanos;
+
+    ThreadBuffer(Thread thread, int generation) {
+        this.threadId = thread.getId();
+        this.threadName = thread.getName();
+        this.times = new long[CAPACITY];
+        this.values = new long[CAPACITY];
+        this.names = new int[CAPACITY];
+        this.kinds = new byte[CAPACITY];
+        this.stackNames = new int[MAX_DEPTH];
+        this.stackStarts = new long[MAX_DEPTH];
+        this.generation = generation;
+        this.componentNanos = new long[16];
+    }
+
+    void begin(int name, int currentGeneration) {
+        if (generation != currentGeneration) {
+            generation = currentGeneration;
+            depth = 0;
+        }
+        // 超过最大深度的作用域只计数，保持begin和end配对
+        if (depth < MAX_DEPTH) {
+            stackNames[depth] = name;
+            stackStarts[depth] = System.nanoTime();
+        }
+        depth++;
+    }
+
+    void end() {
+        if (depth == 0) {
+            return;
+        }
+        depth--;
+        if (depth < MAX_DEPTH) {
+            long start = stackStarts[depth];
+            record(SCOPE, stackNames[depth], start, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 丢弃未结束的作用域
+     */
+    void resetStack() {
+        depth = 0;
+    }
+
+    void record(byte kind, int name, long time, long value) {
+        long n = (long) WRITTEN.get(this);
+        int i = (int) (n & MASK);
+        times[i] = time;
+        values[i] = value;
+        names[i] = name;
+        kinds[i] = kind;
+        WRITTEN.setRelease(this, n + 1);
+    }
+
+    /**
+     * 已发布的事件总数，包括已被覆盖的
+     */
+    long written() {
+        return (long) WRITTEN.getAcquire(this);
+    }
+
+    static int indexOf(long event) {
+        return (int) (event & MASK);
+    }
+
+    void addComponentTime(int typeId, long nanos) {
+        if (typeId >= componentNanos.length) {
+            componentNanos = Arrays.copyOf(componentNanos, Math.max(typeId + 1, componentNanos.length * 2));
+        }
+        componentNanos[typeId] += nanos;
+    }
+
+    /**
+     * 丢弃所有事件，只能在所属线程不写入时调用
+     */
+    void clear() {
+        WRITTEN.setRelease(this, 0L);
+        Arrays.fill(componentNanos, 0);
+    }
+}
@@ -0,0 +1,313 @@
+package com.gameengine.scene;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.ComponentMask;
+import com.gameengine.core.ComponentType;
+import com.gameengine.core.GameObject;
+import com.gameengine.math.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * 原型块，组件集合相同的游戏对象连续存放，
+ * 位置、速度、加速度、质量、摩擦力按列保存在基本类型数组中
+ */
+public final class Archetype {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ArchetypeStorage storage;
+    private final ComponentMask signature;
+    private final boolean hasTransform;
+    private final boolean hasPhysics;
+    private GameObject[] entities;
+    private int size;
+
+    // 变换列
+    private float[] positionX;
+    private float[] positionY;
+    private float[] previousPositionX;
+    private float[] previousPositionY;
+
+    // 物理列，重力列保存生效的重力（未启用重力时为0）
+    private float[] velocityX;
+    private float[] velocityY;
+    private float[] accelerationX;
+    private float[] accelerationY;
+    private float[] mass;
+    private float[] friction;
+    private float[] gravityX;
+    private float[] gravityY;
+    private boolean[] physicsEnabled;
+    // 加入对象时读取组件数据的临时向量，原型块只在游戏线程上增删
+    private final Vector2 scratch = new Vector2();
+
+    Archetype(ArchetypeStorage storage, ComponentMask signature) {
+        this.storage = storage;
+        this.signature = new ComponentMask(signature);
+        this.hasTransform = signature.get(ComponentType.idOf(TransformComponent.class));
+        this.hasPhysics = signature.get(ComponentType.idOf(PhysicsComponent.class));
+        this.entities = new GameObject[INITIAL_CAPACITY];
+        this.size = 0;
+
+        if (hasTransform) {
+            positionX = new float[INITIAL_CAPACITY];
+            positionY = new float[INITIAL_CAPACITY];
+            previousPositionX = new float[INITIAL_CAPACITY];
+            previousPositionY = new float[INITIAL_CAPACITY];
+        }
+        if (hasPhysics) {
+            velocityX = new float[INITIAL_CAPACITY];
+            velocityY = new float[INITIAL_CAPACITY];
+            accelerationX = new float[INITIAL_CAPACITY];
+            accelerationY = new float[INITIAL_CAPACITY];
+            mass = new float[INITIAL_CAPACITY];
+            friction = new float[INITIAL_CAPACITY];
+            gravityX = new float[INITIAL_CAPACITY];
+            gravityY = new float[INITIAL_CAPACITY];
+            physicsEnabled = new boolean[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * 将游戏对象加入原型块，组件当前数据被复制到列中
+     */
+    int add(GameObject obj) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        entities[row] = obj;
+
+        if (hasTransform) {
+            TransformComponent transform = obj.getComponent(TransformComponent.class);
+            Vector2 position = transform.getPosition(scratch);
+            positionX[row] = position.x;
+            positionY[row] = position.y;
+            Vector2 previous = transform.getPreviousPosition(scratch);
+            previousPositionX[row] = previous.x;
+            previousPositionY[row] = previous.y;
+        }
+        if (hasPhysics) {
+            PhysicsComponent physics = obj.getComponent(PhysicsComponent.class);
+            Vector2 velocity = physics.getVelocity(scratch);
+            velocityX[row] = velocity.x;
+            velocityY[row] = velocity.y;
+            Vector2 acceleration = physics.getAcceleration(scratch);
+            accelerationX[row] = acceleration.x;
+            accelerationY[row] = acceleration.y;
+            mass[row] = physics.getMass();
+            friction[row] = physics.getFriction();
+            Vector2 gravity = physics.getGravity(scratch);
+            gravityX[row] = physics.isUseGravity() ? gravity.x : 0;
+            gravityY[row] = physics.isUseGravity() ? gravity.y : 0;
+            physicsEnabled[row] = physics.isEnabled();
+        }
+
+        obj.setArchetype(this, row);
+        return row;
+    }
+
+    /**
+     * 将游戏对象移出原型块，列数据写回组件，末尾一行交换到空出的位置
+     */
+    void remove(GameObject obj) {
+        int row = obj.getArchetypeRow();
+        obj.setArchetype(null, -1);
+
+        if (hasTransform) {
+            TransformComponent transform = obj.getComponent(TransformComponent.class);
+            if (transform != null) {
+                transform.setPosition(positionX[row], positionY[row]);
+                transform.storePreviousPosition();
+            }
+        }
+        if (hasPhysics) {
+            PhysicsComponent physics = obj.getComponent(PhysicsComponent.class);
+            if (physics != null) {
+                physics.setVelocity(velocityX[row], velocityY[row]);
+                physics.setAcceleration(accelerationX[row], accelerationY[row]);
+            }
+        }
+
+        int last = --size;
+        if (row != last) {
+            moveRow(last, row);
+            entities[row] = entities[last];
+            entities[row].setArchetype(this, row);
+        }
+        entities[last] = null;
+    }
+
+    private void moveRow(int from, int to) {
+        if (hasTransform) {
+            positionX[to] = positionX[from];
+            positionY[to] = positionY[from];
+            previousPositionX[to] = previousPositionX[from];
+            previousPositionY[to] = previousPositionY[from];
+        }
+        if (hasPhysics) {
+            velocityX[to] = velocityX[from];
+            velocityY[to] = velocityY[from];
+            accelerationX[to] = accelerationX[from];
+            accelerationY[to] = accelerationY[from];
+            mass[to] = mass[from];
+            friction[to] = friction[from];
+            gravityX[to] = gravityX[from];
+            gravityY[to] = gravityY[from];
+            physicsEnabled[to] = physicsEnabled[from];
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= entities.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, entities.length * 2);
+        entities = Arrays.copyOf(entities, newCapacity);
+        if (hasTransform) {
+            positionX = Arrays.copyOf(positionX, newCapacity);
+            positionY = Arrays.copyOf(positionY, newCapacity);
+            previousPositionX = Arrays.copyOf(previousPositionX, newCapacity);
+            previousPositionY = Arrays.copyOf(previousPositionY, newCapacity);
+        }
+        if (hasPhysics) {
+            velocityX = Arrays.copyOf(velocityX, newCapacity);
+            velocityY = Arrays.copyOf(velocityY, newCapacity);
+            accelerationX = Arrays.copyOf(accelerationX, newCapacity);
+            accelerationY = Arrays.copyOf(accelerationY, newCapacity);
+            mass = Arrays.copyOf(mass, newCapacity);
+            friction = Arrays.copyOf(friction, newCapacity);
+            gravityX = Arrays.copyOf(gravityX, newCapacity);
+            gravityY = Arrays.copyOf(gravityY, newCapacity);
+            physicsEnabled = Arrays.copyOf(physicsEnabled, newCapacity);
+        }
+    }
+
+    /**
+     * 移出所有游戏对象
+     */
+    void clear() {
+        while (size > 0) {
+            remove(entities[size - 1]);
+        }
+    }
+
+    /**
+     * 记录当前位置作为上一状态，用于渲染插值
+     */
+    public void storePreviousPositions() {
+        if (!hasTransform) {
+            return;
+        }
+        System.arraycopy(positionX, 0, previousPositionX, 0, size);
+        System.arraycopy(positionY, 0, previousPositionY, 0, size);
+    }
+
+    /**
+     * 按列积分物理运动，与PhysicsComponent.update的计算一致
+     */
+    public void integratePhysics(float deltaTime) {
+        integratePhysics(deltaTime, 0, size);
+    }
+
+    /**
+     * 积分[start, end)区间的行，不同区间可以在不同线程上同时执行
+     */
+    public void integratePhysics(float deltaTime, int start, int end) {
+        if (!hasTransform || !hasPhysics) {
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            if (!physicsEnabled[i]) {
+                continue;
+            }
+            float vx = (velocityX[i] + (accelerationX[i] + gravityX[i]) * deltaTime) * friction[i];
+            float vy = (velocityY[i] + (accelerationY[i] + gravityY[i]) * deltaTime) * friction[i];
+            velocityX[i] = vx;
+            velocityY[i] = vy;
+            positionX[i] += vx * deltaTime;
+            positionY[i] += vy * deltaTime;
+            accelerationX[i] = 0;
+            accelerationY[i] = 0;
+        }
+    }
+
+    // Getters，列数组在扩容时会被替换，不要跨帧缓存
+    public ArchetypeStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * 原型块的组件签名，不要修改
+     */
+    public ComponentMask getSignature() {
+        return signature;
+    }
+
+    public boolean hasTransform() {
+        return hasTransform;
+    }
+
+    public boolean hasPhysics() {
+        return hasPhysics;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public GameObject getEntity(int row) {
+        return entities[row];
+    }
+
+    public float[] getPositionX() {
+        return positionX;
+    }
+
+    public float[] getPositionY() {
+        return positionY;
+    }
+
+    public float[] getPreviousPositionX() {
+        return previousPositionX;
+    }
+
+    public float[] getPreviousPositionY() {
+        return previousPositionY;
+    }
+
+    public float[] getVelocityX() {
+        return velocityX;
+    }
+
+    public float[] getVelocityY() {
+        return velocityY;
+    }
+
+    public float[] getAccelerationX() {
+        return accelerationX;
+    }
+
+    public float[] getAccelerationY() {
+        return accelerationY;
+    }
+
+    public float[] getMass() {
+        return mass;
+    }
+
+    public float[] getFriction() {
+        return friction;
+    }
+
+    public float[] getGravityX() {
+        return gravityX;
+    }
+
+    public float[] getGravityY() {
+        return gravityY;
+    }
+
+    public boolean[] getPhysicsEnabled() {
+        return physicsEnabled;
+    }
+}
@@ -0,0 +1,163 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.ComponentMask;
+import com.gameengine.core.GameObject;
+
+import java.util.*;
+
+/**
+ * 原型存储，按组件集合把游戏对象分配到不同的原型块
+ */
+public class ArchetypeStorage {
+    private final Map<ComponentMask, Archetype> archetypes;
+    private final List<Archetype> archetypeList;
+    // 分块积分的执行体，每次更新复用，不为捕获参数分配新的lambda
+    private final PhysicsChunks physicsChunks;
+
+    public ArchetypeStorage() {
+        this.archetypes = new HashMap<>();
+        this.archetypeList = new ArrayList<>();
+        this.physicsChunks = new PhysicsChunks();
+    }
+
+    /**
+     * 添加游戏对象
+     */
+    public void add(GameObject obj) {
+        if (obj.getArchetype() != null) {
+            return;
+        }
+        ComponentMask signature = obj.getSignature();
+        Archetype archetype = archetypes.get(signature);
+        if (archetype == null) {
+            archetype = new Archetype(this, signature);
+            archetypes.put(archetype.getSignature(), archetype);
+            archetypeList.add(archetype);
+        }
+        archetype.add(obj);
+    }
+
+    /**
+     * 移除游戏对象
+     */
+    public void remove(GameObject obj) {
+        Archetype archetype = obj.getArchetype();
+        if (archetype == null || archetype.getStorage() != this) {
+            return;
+        }
+        archetype.remove(obj);
+    }
+
+    /**
+     * 组件集合变化后把游戏对象迁移到对应的原型块
+     */
+    public void migrate(GameObject obj) {
+        Archetype archetype = obj.getArchetype();
+        if (archetype == null || archetype.getStorage() != this) {
+            return;
+        }
+        if (archetype.getSignature().equals(obj.getSignature())) {
+            return;
+        }
+        archetype.remove(obj);
+        add(obj);
+    }
+
+    /**
+     * 对所有原型块执行物理积分
+     */
+    public void integratePhysics(float deltaTime) {
+        for (int i = 0; i < archetypeList.size(); i++) {
+            archetypeList.get(i).integratePhysics(deltaTime);
+        }
+    }
+
+    /**
+     * 积分物理，超过一个块大小的原型块拆分到多个线程上执行
+     */
+    void integratePhysics(float deltaTime, ChunkRunner runner, int chunkSize) {
+        for (int i = 0; i < archetypeList.size(); i++) {
+            Archetype archetype = archetypeList.get(i);
+            if (!archetype.hasTransform() || !archetype.hasPhysics()) {
+                continue;
+            }
+            if (archetype.size() <= chunkSize) {
+                archetype.integratePhysics(deltaTime);
+            } else {
+                physicsChunks.archetype = archetype;
+                physicsChunks.deltaTime = deltaTime;
+                try {
+                    runner.run(archetype.size(), chunkSize, physicsChunks);
+                } finally {
+                    physicsChunks.archetype = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 把有变换和物理列的原型块中的对象标记为已移动
+     */
+    void markPhysicsMoved(SpatialIndex index) {
+        for (int i = 0; i < archetypeList.size(); i++) {
+            Archetype archetype = archetypeList.get(i);
+            if (!archetype.hasTransform() || !archetype.hasPhysics()) {
+                continue;
+            }
+            float[] positionX = archetype.getPositionX();
+            float[] positionY = archetype.getPositionY();
+            for (int row = 0; row < archetype.size(); row++) {
+                index.markMoved(archetype.getEntity(row), positionX[row], positionY[row]);
+            }
+        }
+    }
+
+    /**
+     * 对一个原型块分块积分，参数在run之前设置，run返回前所有块都已结束
+     */
+    private static final class PhysicsChunks implements ChunkRunner.Body {
+        private Archetype archetype;
+        private float deltaTime;
+
+        @Override
+        public void run(int chunk, int start, int end) {
+            archetype.integratePhysics(deltaTime, start, end);
+        }
+    }
+
+    /**
+     * 记录所有原型块的当前位置作为上一状态
+     */
+    public void storePreviousPositions() {
+        for (int i = 0; i < archetypeList.size(); i++) {
+            archetypeList.get(i).storePreviousPositions();
+        }
+    }
+
+    /**
+     * 移出所有游戏对象
+     */
+    public void clear() {
+        for (Archetype archetype : archetypeList) {
+            archetype.clear();
+        }
+    }
+
+    /**
+     * 获取所有原型块
+     */
+    public List<Archetype> getArchetypes() {
+        return Collections.unmodifiableList(archetypeList);
+    }
+
+    /**
+     * 获取存储中的对象总数
+     */
+    public int getEntityCount() {
+        int count = 0;
+        for (Archetype archetype : archetypeList) {
+            count += archetype.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,13 @@
+package com.gameengine.scene;
+
+/**
+ * 并行遍历的块处理器，每次处理查询结果中[start, end)区间的对象。
+ * 同一次遍历中不同的块可能在不同线程上同时执行
+ */
+@FunctionalInterface
+public interface ChunkConsumer {
+    /**
+     * 处理一个块，结构性修改通过commands延迟到遍历结束后执行
+     */
+    void accept(Query query, int start, int end, CommandBuffer commands);
+}
@@ -0,0 +1,185 @@
+package com.gameengine.scene;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 把下标区间切分成固定大小的块，在ForkJoinPool上并行执行。
+ * 只有一个块时直接在调用线程上执行，帮手任务在多次调用之间复用
+ */
+final class ChunkRunner {
+    private static final boolean SINGLE_CORE = Runtime.getRuntime().availableProcessors() < 2;
+    // 游标关闭时的块下标，大于任何块数，准备下一轮时不能领取
+    private static final int CLOSED = Integer.MAX_VALUE;
+
+    /**
+     * 块的执行体
+     */
+    @FunctionalInterface
+    interface Body {
+        void run(int chunk, int start, int end);
+    }
+
+    private ForkJoinPool pool;
+    // 帮手任务，个数不超过池的并行度，还在队列中的帮手开始后为当时的一轮领取块
+    private ChunkTask[] helpers;
+    // 高32位为轮次，低32位为下一个待领取的块，轮次不同的游标值不会相等
+    private final AtomicLong cursor;
+    // 本次执行尚未结束的块数
+    private final AtomicInteger remaining;
+    private final AtomicReference<Throwable> failure;
+    private int generation;
+    private volatile Body body;
+    private volatile int size;
+    private volatile int chunkSize;
+    private volatile int chunks;
+    private volatile Thread waiter;
+
+    ChunkRunner(ForkJoinPool pool) {
+        this.pool = pool;
+        this.helpers = new ChunkTask[0];
+        this.cursor = new AtomicLong();
+        this.remaining = new AtomicInteger();
+        this.failure = new AtomicReference<>();
+    }
+
+    /**
+     * 块的数量
+     */
+    static int chunkCount(int size, int chunkSize) {
+        return size / chunkSize + (size % chunkSize == 0 ? 0 : 1);
+    }
+
+    /**
+     * 并行执行所有块并等待完成，任何块抛出的异常在所有块结束后重新抛出。
+     * 调用线程和池中的帮手任务从同一个游标领取块，调用线程领完后挂起，等待其他线程上的块结束。
+     * 不使用join，JDK的join在等待被窃取的任务时会分配等待节点
+     */
+    void run(int size, int chunkSize, Body body) {
+        int chunks = chunkCount(size, chunkSize);
+        if (chunks == 0) {
+            return;
+        }
+        // 单核机器上公共池只会增加调度开销，按块顺序在调用线程上执行
+        if (chunks == 1 || (SINGLE_CORE && pool == ForkJoinPool.commonPool())) {
+            for (int i = 0; i < chunks; i++) {
+                int start = i * chunkSize;
+                body.run(i, start, Math.min(size, start + chunkSize));
+            }
+            return;
+        }
+        // 先关闭游标再改写本轮的参数，读到旧参数的帮手无法领取
+        long current = (long) ++generation << 32;
+        cursor.set(current | CLOSED);
+        this.body = body;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.chunks = chunks;
+        this.waiter = Thread.currentThread();
+        remaining.set(chunks);
+        cursor.set(current);
+        submitHelpers(Math.min(chunks - 1, pool.getParallelism()));
+
+        runChunks();
+        while (remaining.get() > 0) {
+            LockSupport.park(this);
+        }
+        this.waiter = null;
+        this.body = null;
+        Throwable thrown = failure.getAndSet(null);
+        if (thrown instanceof RuntimeException) {
+            throw (RuntimeException) thrown;
+        }
+        if (thrown instanceof Error) {
+            throw (Error) thrown;
+        }
+        if (thrown != null) {
+            throw new RuntimeException(thrown);
+        }
+    }
+
+    /**
+     * 提交帮手任务。上一轮还没开始的帮手仍在队列中，不重复提交，开始后同样为本轮领取块
+     */
+    private void submitHelpers(int count) {
+        if (helpers.length < count) {
+            int oldLength = helpers.length;
+            helpers = Arrays.copyOf(helpers, count);
+            for (int i = oldLength; i < count; i++) {
+                helpers[i] = new ChunkTask(this);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            ChunkTask helper = helpers[i];
+            if (!helper.submitted) {
+                helper.submitted = true;
+                pool.execute(helper);
+            } else if (helper.isDone()) {
+                helper.reinitialize();
+                pool.execute(helper);
+            }
+        }
+    }
+
+    /**
+     * 领取并执行块，直到游标关闭或块领完
+     */
+    private void runChunks() {
+        while (true) {
+            long claim = cursor.get();
+            int chunk = (int) claim;
+            if (chunk >= chunks) {
+                return;
+            }
+            if (!cursor.compareAndSet(claim, claim + 1)) {
+                continue;
+            }
+            int start = chunk * chunkSize;
+            try {
+                body.run(chunk, start, Math.min(size, start + chunkSize));
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                if (remaining.decrementAndGet() == 0) {
+                    Thread thread = waiter;
+                    if (thread != Thread.currentThread()) {
+                        LockSupport.unpark(thread);
+                    }
+                }
+            }
+        }
+    }
+
+    void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * 池中的帮手，只负责从游标领取块
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkRunner runner;
+        // 只由调用线程读写
+        private boolean submitted;
+
+        ChunkTask(ChunkRunner runner) {
+            this.runner = runner;
+        }
+
+        @Override
+        protected void compute() {
+            runner.runChunks();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.GameObject;
+
+import java.util.Arrays;
+
+/**
+ * 延迟执行的结构性修改。并行遍历时每个块持有自己的缓冲，
+ * 遍历结束后在调用线程上按块的顺序依次执行，执行顺序与线程调度无关。
+ * 单个缓冲不是线程安全的，每个线程或任务使用自己的缓冲
+ */
+public final class CommandBuffer {
+    private static final int ADD = 0;
+    private static final int DESTROY = 1;
+    private static final int RUN = 2;
+
+    private int[] operations;
+    private Object[] targets;
+    private int size;
+
+    public CommandBuffer() {
+        this.operations = new int[16];
+        this.targets = new Object[16];
+    }
+
+    /**
+     * 遍历结束后把对象加入场景
+     */
+    public void addGameObject(GameObject gameObject) {
+        push(ADD, gameObject);
+    }
+
+    /**
+     * 遍历结束后销毁对象
+     */
+    public void destroy(GameObject gameObject) {
+        push(DESTROY, gameObject);
+    }
+
+    /**
+     * 遍历结束后执行任意操作，例如增删组件
+     */
+    public void defer(Runnable command) {
+        push(RUN, command);
+    }
+
+    private void push(int operation, Object target) {
+        if (size == operations.length) {
+            operations = Arrays.copyOf(operations, size * 2);
+            targets = Arrays.copyOf(targets, size * 2);
+        }
+        operations[size] = operation;
+        targets[size] = target;
+        size++;
+    }
+
+    /**
+     * 按记录顺序执行所有修改并清空
+     */
+    public void apply(Scene scene) {
+        try {
+            for (int i = 0; i < size; i++) {
+                Object target = targets[i];
+                switch (operations[i]) {
+                    case ADD:
+                        scene.addGameObject((GameObject) target);
+                        break;
+                    case DESTROY:
+                        ((GameObject) target).destroy();
+                        break;
+                    default:
+                        ((Runnable) target).run();
+                        break;
+                }
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * 把所有修改按顺序追加到另一个缓冲并清空
+     */
+    public void drainTo(CommandBuffer target) {
+        for (int i = 0; i < size; i++) {
+            target.push(operations[i], targets[i]);
+        }
+        clear();
+    }
+
+    /**
+     * 丢弃所有未执行的修改
+     */
+    public void clear() {
+        Arrays.fill(targets, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * 已记录的修改数量
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,199 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.GameObject;
+
+import java.util.Arrays;
+
+/**
+ * 场景的实体表。对象加入场景时分配一个句柄，低32位是槽位编号，高32位是槽位的代数；
+ * 对象离开场景后槽位放回空闲列表，代数加一，之前发出的句柄随之失效，不会解析到复用槽位的新对象。
+ * 已正式加入场景的对象另外紧密存放在一个数组中用于遍历，移除时用最后一个对象填补空位，
+ * 增删都是常数时间。只在游戏线程使用
+ */
+public final class EntityRegistry {
+    /**
+     * 不指向任何对象的句柄，代数从1开始，有效句柄不会等于它
+     */
+    public static final long NULL_HANDLE = 0L;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // 按槽位编号索引
+    private GameObject[] slots;
+    private int[] generations;
+    private int[] denseIndices;
+    private int slotCount;
+    private int[] freeSlots;
+    private int freeCount;
+    // 正式加入场景的对象
+    private GameObject[] dense;
+    private int size;
+
+    public EntityRegistry() {
+        this.slots = new GameObject[INITIAL_CAPACITY];
+        this.generations = new int[INITIAL_CAPACITY];
+        this.denseIndices = new int[INITIAL_CAPACITY];
+        this.freeSlots = new int[INITIAL_CAPACITY];
+        this.dense = new GameObject[INITIAL_CAPACITY];
+    }
+
+    /**
+     * 槽位编号
+     */
+    public static int indexOf(long handle) {
+        return (int) handle;
+    }
+
+    /**
+     * 槽位代数
+     */
+    public static int generationOf(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    private static long handle(int index, int generation) {
+        return ((long) generation << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 为对象分配句柄并写入对象，对象已有句柄时直接返回
+     */
+    long register(GameObject obj) {
+        if (obj.getHandle() != NULL_HANDLE) {
+            return obj.getHandle();
+        }
+        int index;
+        if (freeCount > 0) {
+            index = freeSlots[--freeCount];
+        } else {
+            index = slotCount++;
+            if (index == slots.length) {
+                int capacity = index * 2;
+                slots = Arrays.copyOf(slots, capacity);
+                generations = Arrays.copyOf(generations, capacity);
+                denseIndices = Arrays.copyOf(denseIndices, capacity);
+            }
+            generations[index] = 1;
+        }
+        slots[index] = obj;
+        denseIndices[index] = -1;
+        long handle = handle(index, generations[index]);
+        obj.setHandle(handle);
+        return handle;
+    }
+
+    /**
+     * 已分配句柄的对象放入紧密数组末尾
+     */
+    void add(GameObject obj) {
+        int index = slotOf(obj);
+        if (index < 0 || denseIndices[index] >= 0) {
+            return;
+        }
+        if (size == dense.length) {
+            dense = Arrays.copyOf(dense, size * 2);
+        }
+        dense[size] = obj;
+        denseIndices[index] = size;
+        size++;
+    }
+
+    /**
+     * 从紧密数组中移除对象并释放句柄，最后一个对象移到空出的位置
+     */
+    void unregister(GameObject obj) {
+        int index = slotOf(obj);
+        if (index < 0) {
+            return;
+        }
+        int position = denseIndices[index];
+        if (position >= 0) {
+            int last = --size;
+            if (position != last) {
+                GameObject moved = dense[last];
+                dense[position] = moved;
+                denseIndices[indexOf(moved.getHandle())] = position;
+            }
+            dense[last] = null;
+        }
+        slots[index] = null;
+        denseIndices[index] = -1;
+        // 代数回绕时跳过0，保证有效句柄不等于NULL_HANDLE
+        if (++generations[index] == 0) {
+            generations[index] = 1;
+        }
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = index;
+        obj.setHandle(NULL_HANDLE);
+    }
+
+    /**
+     * 对象在本表中的槽位编号，不属于本表时返回-1
+     */
+    private int slotOf(GameObject obj) {
+        long handle = obj.getHandle();
+        int index = indexOf(handle);
+        if (handle == NULL_HANDLE || index < 0 || index >= slotCount || slots[index] != obj) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * 解析句柄，对象已离开场景或句柄不属于本表时返回null
+     */
+    public GameObject get(long handle) {
+        int index = indexOf(handle);
+        if (index < 0 || index >= slotCount || generations[index] != generationOf(handle)) {
+            return null;
+        }
+        return slots[index];
+    }
+
+    /**
+     * 句柄是否仍然指向场景中的对象
+     */
+    public boolean isAlive(long handle) {
+        return get(handle) != null;
+    }
+
+    /**
+     * 检查对象是否登记在本表中
+     */
+    public boolean contains(GameObject obj) {
+        return slotOf(obj) >= 0;
+    }
+
+    /**
+     * 按下标获取紧密数组中的对象，移除会改变其他对象的下标
+     */
+    public GameObject get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+        }
+        return dense[position];
+    }
+
+    /**
+     * 紧密数组中的对象数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 已分配的槽位数量，槽位编号都小于它
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * 已分配句柄的对象数量，包含尚未正式加入场景的对象
+     */
+    public int getRegisteredCount() {
+        return slotCount - freeCount;
+    }
+}
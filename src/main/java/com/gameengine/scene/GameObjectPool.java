@@ -0,0 +1,161 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.GameObject;
+
+import java.util.Arrays;
+
+/**
+ * 同一预制体实例的对象池，由Scene为每个预制体创建。
+ * 池中对象销毁时保留组件，离开场景后重置组件并放回池中，下次生成时直接复用；
+ * 池满时多出的对象按普通对象销毁。只在游戏线程使用
+ * @param <T> 游戏对象类型
+ */
+public final class GameObjectPool<T extends GameObject> {
+    /**
+     * 默认最多保留的空闲对象数
+     */
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final Prefab<T> prefab;
+    private GameObject[] free;
+    private int freeCount;
+    private int maxSize;
+    private long hitCount;
+    private long missCount;
+    private long releaseCount;
+    private long discardCount;
+
+    public GameObjectPool(Prefab<T> prefab) {
+        this(prefab, DEFAULT_MAX_SIZE);
+    }
+
+    public GameObjectPool(Prefab<T> prefab, int maxSize) {
+        this.prefab = prefab;
+        this.free = new GameObject[16];
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * 取出一个实例，池为空时创建新的实例。取出的对象是活跃的，尚未加入场景
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (freeCount == 0) {
+            missCount++;
+            T gameObject = prefab.instantiate();
+            gameObject.setPool(this);
+            return gameObject;
+        }
+        hitCount++;
+        T gameObject = (T) free[--freeCount];
+        free[freeCount] = null;
+        gameObject.setActive(true);
+        prefab.configure(gameObject);
+        return gameObject;
+    }
+
+    /**
+     * 回收已销毁并离开场景的对象，由Scene调用
+     */
+    void release(GameObject gameObject) {
+        if (gameObject.getPool() != this) {
+            throw new IllegalArgumentException("对象不属于这个对象池: " + gameObject.getName());
+        }
+        if (freeCount >= maxSize) {
+            // 不再属于对象池，按普通对象销毁组件
+            discardCount++;
+            gameObject.setPool(null);
+            gameObject.destroy();
+            return;
+        }
+        releaseCount++;
+        gameObject.reset();
+        push(gameObject);
+    }
+
+    /**
+     * 预先创建实例直到池中有count个空闲对象，不超过最大容量
+     */
+    public void prewarm(int count) {
+        int target = Math.min(count, maxSize);
+        while (freeCount < target) {
+            T gameObject = prefab.instantiate();
+            gameObject.setPool(this);
+            gameObject.setActive(false);
+            push(gameObject);
+        }
+    }
+
+    private void push(GameObject gameObject) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = gameObject;
+    }
+
+    /**
+     * 设置最多保留的空闲对象数，超出的空闲对象立即丢弃
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("对象池容量不能为负数: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        while (freeCount > maxSize) {
+            GameObject gameObject = free[--freeCount];
+            free[freeCount] = null;
+            gameObject.setPool(null);
+            gameObject.destroy();
+            discardCount++;
+        }
+    }
+
+    public Prefab<T> getPrefab() {
+        return prefab;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 当前空闲的对象数
+     */
+    public int getAvailableCount() {
+        return freeCount;
+    }
+
+    /**
+     * 从池中复用对象的次数
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 池为空而新建对象的次数
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 对象放回池中的次数
+     */
+    public long getReleaseCount() {
+        return releaseCount;
+    }
+
+    /**
+     * 池满而丢弃对象的次数
+     */
+    public long getDiscardCount() {
+        return discardCount;
+    }
+
+    @Override
+    public String toString() {
+        return "GameObjectPool(" + prefab.getName() + ", available=" + freeCount + "/" + maxSize
+                + ", hits=" + hitCount + ", misses=" + missCount + ", discards=" + discardCount + ")";
+    }
+}
@@ -0,0 +1,116 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.Component;
+import com.gameengine.core.GameObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 预制体，游戏对象的模板：对象本身的工厂和按顺序添加的组件。
+ * 组件的配置函数在创建实例时和每次从对象池取出时执行，
+ * 用来设置被Component.reset清除、或者需要引用外部对象（如渲染器）的状态。
+ * 通常通过Scene.spawn使用，由场景的对象池复用实例
+ * @param <T> 游戏对象类型
+ */
+public final class Prefab<T extends GameObject> {
+    private final String name;
+    private final Supplier<T> objectFactory;
+    private final List<Entry<?>> entries;
+
+    public Prefab(String name, Supplier<T> objectFactory) {
+        this.name = name;
+        this.objectFactory = Objects.requireNonNull(objectFactory);
+        this.entries = new ArrayList<>();
+    }
+
+    /**
+     * 添加组件
+     */
+    public <C extends Component<C>> Prefab<T> with(Supplier<C> componentFactory) {
+        return with(componentFactory, null);
+    }
+
+    /**
+     * 添加组件，configure在每次生成实例时执行
+     */
+    public <C extends Component<C>> Prefab<T> with(Supplier<C> componentFactory, Consumer<? super C> configure) {
+        entries.add(new Entry<>(Objects.requireNonNull(componentFactory), configure));
+        return this;
+    }
+
+    /**
+     * 创建新的实例，不经过对象池
+     */
+    public T instantiate() {
+        T gameObject = objectFactory.get();
+        gameObject.setName(name);
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).create(gameObject);
+        }
+        return gameObject;
+    }
+
+    /**
+     * 对从对象池取出的实例重新执行组件的配置函数
+     */
+    void configure(T gameObject) {
+        List<Component<?>> components = gameObject.getComponents();
+        if (components.size() < entries.size()) {
+            throw new IllegalStateException("预制体" + name + "的实例缺少组件");
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).configure(components.get(i));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 模板中的组件数量
+     */
+    public int getComponentCount() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Prefab(" + name + ")";
+    }
+
+    private static final class Entry<C extends Component<C>> {
+        final Supplier<C> factory;
+        final Consumer<? super C> configure;
+        // 第一次创建时记录，用于检查复用的实例没有被换掉组件
+        Class<?> type;
+
+        Entry(Supplier<C> factory, Consumer<? super C> configure) {
+            this.factory = factory;
+            this.configure = configure;
+        }
+
+        void create(GameObject gameObject) {
+            C component = factory.get();
+            type = component.getClass();
+            if (configure != null) {
+                configure.accept(component);
+            }
+            gameObject.addComponent(component);
+        }
+
+        @SuppressWarnings("unchecked")
+        void configure(Component<?> component) {
+            if (component.getClass() != type) {
+                throw new IllegalStateException("复用的实例组件已被修改: " + component.getName());
+            }
+            if (configure != null) {
+                configure.accept((C) component);
+            }
+        }
+    }
+}
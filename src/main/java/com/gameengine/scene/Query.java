@@ -0,0 +1,211 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.Component;
+import com.gameengine.core.ComponentMask;
+import com.gameengine.core.ComponentType;
+import com.gameengine.core.GameObject;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 实时查询，保存同时具有指定组件类型的游戏对象。
+ * 结果由场景在组件增删时增量维护，逐帧读取不产生分配。
+ * 结果紧密存放，按对象的槽位编号记录下标，增删都是常数时间且不装箱。
+ * 排除查询反过来保存不具有这些组件类型的对象，供场景内部使用
+ */
+public final class Query {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Class<?>[] componentTypes;
+    private final ComponentMask mask;
+    private final int primaryTypeId;
+    private final boolean excluding;
+    // 按槽位编号索引，值为结果下标加一，0表示不在结果中
+    private int[] positions;
+    private GameObject[] results;
+    private int size;
+    private final List<GameObject> resultView;
+    private final List<Component<?>> componentView;
+
+    Query(Class<?>[] componentTypes) {
+        this(componentTypes, false);
+    }
+
+    /**
+     * excluding为true时保存不同时具有这些组件类型的对象，此时getComponent返回null
+     */
+    Query(Class<?>[] componentTypes, boolean excluding) {
+        this.excluding = excluding;
+        this.componentTypes = componentTypes.clone();
+        this.mask = ComponentType.maskOf(componentTypes);
+        this.primaryTypeId = ComponentType.idOf(componentTypes[0]);
+        this.positions = new int[INITIAL_CAPACITY];
+        this.results = new GameObject[INITIAL_CAPACITY];
+        this.size = 0;
+        this.resultView = new AbstractList<GameObject>() {
+            @Override
+            public GameObject get(int index) {
+                return Query.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+        this.componentView = new AbstractList<Component<?>>() {
+            @Override
+            public Component<?> get(int index) {
+                return getComponent(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * 检查游戏对象是否满足查询条件
+     */
+    public boolean matches(GameObject obj) {
+        return obj.hasComponents(mask) != excluding;
+    }
+
+    /**
+     * 游戏对象的组件变化后重新判断是否属于结果
+     */
+    void refresh(GameObject obj) {
+        boolean contained = contains(obj);
+        boolean matched = obj.isActive() && matches(obj);
+        if (matched && !contained) {
+            add(obj);
+        } else if (!matched && contained) {
+            remove(obj);
+        }
+    }
+
+    /**
+     * 加入结果，对象必须已经在场景的实体表中登记
+     */
+    void add(GameObject obj) {
+        if (contains(obj)) {
+            return;
+        }
+        int slot = EntityRegistry.indexOf(obj.getHandle());
+        if (slot >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(slot + 1, positions.length * 2));
+        }
+        if (size == results.length) {
+            results = Arrays.copyOf(results, size * 2);
+        }
+        results[size] = obj;
+        positions[slot] = size + 1;
+        size++;
+    }
+
+    void remove(GameObject obj) {
+        if (!contains(obj)) {
+            return;
+        }
+        int slot = EntityRegistry.indexOf(obj.getHandle());
+        int index = positions[slot] - 1;
+        positions[slot] = 0;
+        int last = --size;
+        if (index != last) {
+            results[index] = results[last];
+            positions[EntityRegistry.indexOf(results[index].getHandle())] = index + 1;
+        }
+        results[last] = null;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[EntityRegistry.indexOf(results[i].getHandle())] = 0;
+            results[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * 结果数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 结果是否为空
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 按下标获取游戏对象
+     */
+    public GameObject get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return results[index];
+    }
+
+    /**
+     * 按下标获取第一个查询类型对应的组件。每次从对象的组件槽读取，
+     * 同类型组件移除后由另一个顶替时返回的是顶替的组件
+     */
+    public Component<?> getComponent(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return excluding ? null : results[index].getComponent(primaryTypeId);
+    }
+
+    /**
+     * 检查游戏对象是否在结果中
+     */
+    public boolean contains(GameObject obj) {
+        long handle = obj.getHandle();
+        if (handle == EntityRegistry.NULL_HANDLE) {
+            return false;
+        }
+        int slot = EntityRegistry.indexOf(handle);
+        if (slot >= positions.length) {
+            return false;
+        }
+        int position = positions[slot] - 1;
+        return position >= 0 && results[position] == obj;
+    }
+
+    /**
+     * 获取结果的只读实时视图
+     */
+    public List<GameObject> getGameObjects() {
+        return resultView;
+    }
+
+    /**
+     * 获取第一个查询类型对应组件的只读实时视图
+     */
+    public List<Component<?>> getComponents() {
+        return componentView;
+    }
+
+    /**
+     * 获取查询的组件掩码，不要修改
+     */
+    public ComponentMask getMask() {
+        return mask;
+    }
+
+    /**
+     * 获取查询的组件类型
+     */
+    public Class<?>[] getComponentTypes() {
+        return componentTypes.clone();
+    }
+}
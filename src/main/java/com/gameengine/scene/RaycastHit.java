@@ -0,0 +1,76 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.GameObject;
+import com.gameengine.math.Vector2;
+
+/**
+ * 射线检测结果，可以在多次检测之间重复使用
+ */
+public final class RaycastHit {
+    private GameObject gameObject;
+    private float distance;
+    private float pointX;
+    private float pointY;
+    private float normalX;
+    private float normalY;
+
+    void set(GameObject gameObject, float distance, float pointX, float pointY, float normalX, float normalY) {
+        this.gameObject = gameObject;
+        this.distance = distance;
+        this.pointX = pointX;
+        this.pointY = pointY;
+        this.normalX = normalX;
+        this.normalY = normalY;
+    }
+
+    /**
+     * 清空结果
+     */
+    public void reset() {
+        set(null, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * 命中的游戏对象，未命中时为null
+     */
+    public GameObject getGameObject() {
+        return gameObject;
+    }
+
+    /**
+     * 起点到命中点的距离
+     */
+    public float getDistance() {
+        return distance;
+    }
+
+    /**
+     * 把命中点写入out并返回out
+     */
+    public Vector2 getPoint(Vector2 out) {
+        return out.set(pointX, pointY);
+    }
+
+    public float getPointX() {
+        return pointX;
+    }
+
+    public float getPointY() {
+        return pointY;
+    }
+
+    /**
+     * 命中面的法线，起点在包围盒内部时为零向量
+     */
+    public Vector2 getNormal(Vector2 out) {
+        return out.set(normalX, normalY);
+    }
+
+    public float getNormalX() {
+        return normalX;
+    }
+
+    public float getNormalY() {
+        return normalY;
+    }
+}
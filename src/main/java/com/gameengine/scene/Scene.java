@@ -1,37 +1,116 @@
 package com.gameengine.scene;
 
+import com.gameengine.components.CameraComponent;
+import com.gameengine.components.TransformComponent;
 import com.gameengine.core.GameObject;
+import com.gameengine.core.GameSystem;
 import com.gameengine.core.Component;
+import com.gameengine.core.SystemScheduler;
+import com.gameengine.profiler.EntityBurstEvent;
+import com.gameengine.profiler.Profiler;
+import com.gameengine.profiler.SceneUpdateEvent;
 // 移除具体游戏逻辑的import
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 场景类，管理游戏对象和组件
  */
 public class Scene {
+    /**
+     * 存储模式：OBJECT为每个对象独立持有组件数据，
+     * ARCHETYPE为同组件集合的对象按列连续存放
+     */
+    public enum StorageMode {
+        OBJECT,
+        ARCHETYPE
+    }
+    
+    /**
+     * 并行遍历默认的块大小
+     */
+    public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 1024;
+    
+    private static final int ATTACH_SCOPE = Profiler.scope("Scene.attach");
+    private static final int PHYSICS_SCOPE = Profiler.scope("Scene.physics");
+    private static final int OBJECTS_SCOPE = Profiler.scope("Scene.objects");
+    private static final int SYSTEMS_SCOPE = Profiler.scope("Scene.systems");
+    
     private String name;
-    private List<GameObject> gameObjects;
+    // 场景中的对象和句柄
+    private final EntityRegistry entities;
     private List<GameObject> objectsToAdd;
     private List<GameObject> objectsToRemove;
     private boolean initialized;
-    // 移除未使用的组件索引
+    private final StorageMode storageMode;
+    private final ArchetypeStorage archetypeStorage;
+    // 组件类型索引和实时查询，在组件增删时增量维护
+    private final Map<Class<?>, Query> componentIndex;
+    private final Map<List<Class<?>>, Query> queries;
+    private final List<Query> allQueries;
+    // 空间索引，首次使用时创建
+    private SpatialIndex spatialIndex;
+    // 并行遍历
+    private final ChunkRunner chunkRunner;
+    private int parallelChunkSize;
+    private CommandBuffer[] commandBuffers;
+    private final AtomicBoolean chunkRunnerBusy;
+    // 进行中的并行阶段数量，大于0时禁止结构性修改
+    private final AtomicInteger parallelPhases;
+    // 系统调度器，首次添加系统时创建
+    private SystemScheduler systemScheduler;
+    // 渲染使用的相机，为null时不做视图变换和剔除
+    private CameraComponent camera;
+    private int culledCount;
+    // 没有变换组件的对象不在空间索引中，渲染时总是绘制，首次按相机渲染时建立
+    private Query untransformed;
+    // 视野内的对象先收集再绘制，绘制时组件可以继续使用空间索引
+    private GameObject[] visibleBuffer = new GameObject[64];
+    private int visibleCount;
+    private final SpatialVisitor visibleCollector = obj -> {
+        if (visibleCount == visibleBuffer.length) {
+            visibleBuffer = Arrays.copyOf(visibleBuffer, visibleCount * 2);
+        }
+        visibleBuffer[visibleCount++] = obj;
+        return true;
+    };
+    // 复用的JFR事件，只在更新线程使用
+    private final SceneUpdateEvent updateEvent = new SceneUpdateEvent();
+    private final EntityBurstEvent burstEvent = new EntityBurstEvent();
+    // 每个预制体一个对象池
+    private final Map<Prefab<?>, GameObjectPool<?>> pools;
     
     public Scene(String name) {
+        this(name, StorageMode.OBJECT);
+    }
+    
+    public Scene(String name, StorageMode storageMode) {
         this.name = name;
-        this.gameObjects = new ArrayList<>();
+        this.storageMode = storageMode;
+        this.archetypeStorage = storageMode == StorageMode.ARCHETYPE ? new ArchetypeStorage() : null;
+        this.entities = new EntityRegistry();
         this.objectsToAdd = new ArrayList<>();
         this.objectsToRemove = new ArrayList<>();
         this.initialized = false;
-        // 移除组件索引初始化
+        this.componentIndex = new HashMap<>();
+        this.queries = new HashMap<>();
+        this.allQueries = new ArrayList<>();
+        this.chunkRunner = new ChunkRunner(ForkJoinPool.commonPool());
+        this.parallelChunkSize = DEFAULT_PARALLEL_CHUNK_SIZE;
+        this.commandBuffers = new CommandBuffer[0];
+        this.chunkRunnerBusy = new AtomicBoolean();
+        this.parallelPhases = new AtomicInteger();
+        this.pools = new HashMap<>();
     }
     
     /**
      * 初始化场景
      */
     public void initialize() {
-        for (GameObject obj : gameObjects) {
-            obj.initialize();
+        for (int i = 0; i < entities.size(); i++) {
+            entities.get(i).initialize();
         }
         initialized = true;
     }
@@ -40,9 +119,18 @@ public class Scene {
      * 更新场景
      */
     public void update(float deltaTime) {
+        checkStructuralChange();
+        SceneUpdateEvent event = updateEvent;
+        event.begin();
+        int spawned = objectsToAdd.size();
+        int destroyed = objectsToRemove.size();
+        Profiler.begin(ATTACH_SCOPE);
+        EntityBurstEvent burst = burstEvent;
+        burst.begin();
         // 添加新对象
-        for (GameObject obj : objectsToAdd) {
-            gameObjects.add(obj);
+        for (int i = 0; i < objectsToAdd.size(); i++) {
+            GameObject obj = objectsToAdd.get(i);
+            attach(obj);
             if (initialized) {
                 obj.initialize();
             }
@@ -50,67 +138,557 @@ public class Scene {
         objectsToAdd.clear();
         
         // 移除标记的对象
-        for (GameObject obj : objectsToRemove) {
-            gameObjects.remove(obj);
+        for (int i = 0; i < objectsToRemove.size(); i++) {
+            detach(objectsToRemove.get(i));
         }
         objectsToRemove.clear();
+        burst.end();
+        if ((spawned > 0 || destroyed > 0) && burst.shouldCommit()) {
+            burst.scene = name;
+            burst.spawned = spawned;
+            burst.destroyed = destroyed;
+            burst.commit();
+        }
+        Profiler.end();
         
-        // 更新所有活跃的游戏对象
-        Iterator<GameObject> iterator = gameObjects.iterator();
-        while (iterator.hasNext()) {
-            GameObject obj = iterator.next();
+        // 原型存储模式下按列积分物理，大的原型块分块并行
+        if (archetypeStorage != null) {
+            Profiler.begin(PHYSICS_SCOPE);
+            archetypeStorage.integratePhysics(deltaTime, chunkRunner, parallelChunkSize);
+            // 列积分不经过变换组件，有物理组件的对象都可能移动
+            if (spatialIndex != null) {
+                archetypeStorage.markPhysicsMoved(spatialIndex);
+            }
+            Profiler.end();
+        }
+        
+        // 更新所有活跃的游戏对象，不活跃的对象移出场景，
+        // 空位由最后一个对象填补后继续检查同一位置，批量移除也是线性时间
+        Profiler.begin(OBJECTS_SCOPE);
+        int i = 0;
+        while (i < entities.size()) {
+            GameObject obj = entities.get(i);
             if (obj.isActive()) {
                 obj.update(deltaTime);
+                i++;
             } else {
-                iterator.remove();
+                detach(obj);
+                destroyed++;
             }
         }
+        Profiler.end();
+        
+        // 按依赖关系执行系统
+        if (systemScheduler != null) {
+            Profiler.begin(SYSTEMS_SCOPE);
+            systemScheduler.update(deltaTime);
+            Profiler.end();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.scene = name;
+            event.entityCount = entities.size();
+            event.spawned = spawned;
+            event.destroyed = destroyed;
+            event.deltaTime = deltaTime;
+            event.commit();
+        }
     }
     
     /**
-     * 渲染场景
+     * 记录所有变换组件的当前位置作为上一状态，固定步长模式下每步更新前调用
+     */
+    public void storePreviousTransforms() {
+        if (archetypeStorage != null) {
+            archetypeStorage.storePreviousPositions();
+            return;
+        }
+        Query transforms = query(TransformComponent.class);
+        for (int i = 0; i < transforms.size(); i++) {
+            ((TransformComponent) transforms.getComponent(i)).storePreviousPosition();
+        }
+    }
+    
+    /**
+     * 渲染场景。设置了相机时按相机的视图变换绘制，视野内的对象由空间索引按视野范围加剔除余量查出，
+     * 开销与视野内的对象数成正比；包围盒完全在视野外的对象不提交任何绘制命令，也不被遍历。
+     * 没有变换组件的对象总是绘制。按相机绘制时对象的顺序由空间索引决定
      */
     public void render() {
-        for (GameObject obj : gameObjects) {
-            if (obj.isActive()) {
-                obj.render();
+        if (camera == null) {
+            for (int i = 0; i < entities.size(); i++) {
+                GameObject obj = entities.get(i);
+                if (obj.isActive()) {
+                    obj.render();
+                }
             }
+            return;
+        }
+        if (untransformed == null) {
+            untransformed = createQuery(new Class<?>[] { TransformComponent.class }, true);
         }
+        SpatialIndex index = getSpatialIndex();
+        camera.beginView();
+        visibleCount = 0;
+        try {
+            index.queryRect(camera.getViewMinX(), camera.getViewMinY(),
+                    camera.getViewMaxX(), camera.getViewMaxY(), visibleCollector);
+            for (int i = 0; i < visibleCount; i++) {
+                GameObject obj = visibleBuffer[i];
+                visibleBuffer[i] = null;
+                if (obj.isActive()) {
+                    obj.render();
+                }
+            }
+            for (int i = 0; i < untransformed.size(); i++) {
+                GameObject obj = untransformed.get(i);
+                if (obj.isActive()) {
+                    obj.render();
+                }
+            }
+        } finally {
+            camera.endView();
+        }
+        culledCount = index.size() - visibleCount;
+    }
+    
+    /**
+     * 设置渲染使用的相机，为null时直接按世界坐标绘制所有对象
+     */
+    public void setCamera(CameraComponent camera) {
+        this.camera = camera;
+        this.culledCount = 0;
+    }
+    
+    public CameraComponent getCamera() {
+        return camera;
+    }
+    
+    /**
+     * 上一次渲染时被剔除的对象数量
+     */
+    public int getCulledCount() {
+        return culledCount;
     }
     
     /**
      * 添加游戏对象到场景
      */
     public void addGameObject(GameObject gameObject) {
+        checkStructuralChange();
+        if (gameObject.getHandle() != EntityRegistry.NULL_HANDLE && !entities.contains(gameObject)) {
+            throw new IllegalStateException("对象已在其他场景中: " + gameObject.getName());
+        }
+        // 句柄立即分配，对象在下一次更新时正式加入
+        entities.register(gameObject);
         objectsToAdd.add(gameObject);
     }
     
     /**
-     * 根据组件类型查找游戏对象
+     * 解析句柄，对象已离开场景时返回null。
+     * 需要长期引用其他对象时保存句柄而不是对象本身，对象被销毁或复用后旧句柄不会解析到新对象
+     */
+    public GameObject getGameObject(long handle) {
+        return entities.get(handle);
+    }
+    
+    /**
+     * 句柄是否仍然指向场景中的对象，已销毁但尚未移出场景的对象返回false
+     */
+    public boolean isAlive(long handle) {
+        GameObject obj = entities.get(handle);
+        return obj != null && obj.isActive();
+    }
+    
+    /**
+     * 场景中的对象数量，包含已销毁但尚未移出的对象
+     */
+    public int getGameObjectCount() {
+        return entities.size();
+    }
+    
+    /**
+     * 获取实体表
+     */
+    public EntityRegistry getEntityRegistry() {
+        return entities;
+    }
+    
+    /**
+     * 从预制体的对象池取出一个实例并加入场景。实例在下一次更新时正式加入，
+     * 在此之前可以设置位置等初始状态；销毁后自动放回对象池
+     */
+    public <T extends GameObject> T spawn(Prefab<T> prefab) {
+        T gameObject = getPool(prefab).acquire();
+        addGameObject(gameObject);
+        return gameObject;
+    }
+    
+    /**
+     * 获取预制体的对象池，首次调用时创建，可用于预热、设置容量和查看命中统计
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends GameObject> GameObjectPool<T> getPool(Prefab<T> prefab) {
+        GameObjectPool<T> pool = (GameObjectPool<T>) pools.get(prefab);
+        if (pool == null) {
+            pool = new GameObjectPool<>(prefab);
+            pools.put(prefab, pool);
+        }
+        return pool;
+    }
+    
+    /**
+     * 对象正式加入场景，登记到原型存储和索引
+     */
+    private void attach(GameObject obj) {
+        entities.register(obj);
+        entities.add(obj);
+        obj.setScene(this);
+        if (!obj.isActive()) {
+            return;
+        }
+        if (archetypeStorage != null) {
+            archetypeStorage.add(obj);
+        }
+        for (int i = 0; i < allQueries.size(); i++) {
+            allQueries.get(i).refresh(obj);
+        }
+        if (spatialIndex != null) {
+            spatialIndex.refresh(obj);
+        }
+    }
+    
+    /**
+     * 对象离开场景，从原型存储和索引中移除
+     */
+    private void detach(GameObject obj) {
+        onGameObjectDestroyed(obj);
+        if (obj.getScene() == this) {
+            obj.setScene(null);
+        }
+        entities.unregister(obj);
+        // 已销毁的池对象此时已不在场景中，可以安全复用
+        GameObjectPool<?> pool = obj.getPool();
+        if (pool != null && !obj.isActive()) {
+            pool.release(obj);
+        }
+    }
+    
+    /**
+     * 游戏对象的组件集合变化后调用
+     */
+    public void onComponentsChanged(GameObject obj) {
+        checkStructuralChange();
+        if (!obj.isActive()) {
+            return;
+        }
+        if (archetypeStorage != null) {
+            if (obj.getArchetype() == null) {
+                archetypeStorage.add(obj);
+            } else {
+                archetypeStorage.migrate(obj);
+            }
+        }
+        for (int i = 0; i < allQueries.size(); i++) {
+            allQueries.get(i).refresh(obj);
+        }
+        if (spatialIndex != null) {
+            spatialIndex.refresh(obj);
+        }
+    }
+    
+    /**
+     * 游戏对象移动到(x, y)后调用，包围盒大小不变。新位置直接写入空间索引，
+     * 下一次查询前重新放置该对象。并行阶段中可以从多个线程调用
+     */
+    public void onGameObjectMoved(GameObject obj, float x, float y) {
+        SpatialIndex index = spatialIndex;
+        if (index != null) {
+            index.markMoved(obj, x, y);
+        }
+    }
+    
+    /**
+     * 游戏对象的包围盒变化后调用，空间索引在下一次查询前从组件重新读取。
+     * 并行阶段中可以从多个线程调用
+     */
+    public void onGameObjectMoved(GameObject obj) {
+        SpatialIndex index = spatialIndex;
+        if (index != null) {
+            index.markMoved(obj);
+        }
+    }
+    
+    /**
+     * 游戏对象即将移除组件时调用，列存储中的数据先写回组件
+     */
+    public void onComponentRemoving(GameObject obj) {
+        checkStructuralChange();
+        if (archetypeStorage != null) {
+            archetypeStorage.remove(obj);
+        }
+    }
+    
+    /**
+     * 游戏对象被销毁时调用，立即从原型存储和索引中移除
+     */
+    public void onGameObjectDestroyed(GameObject obj) {
+        checkStructuralChange();
+        if (archetypeStorage != null) {
+            archetypeStorage.remove(obj);
+        }
+        for (int i = 0; i < allQueries.size(); i++) {
+            allQueries.get(i).remove(obj);
+        }
+        if (spatialIndex != null) {
+            spatialIndex.remove(obj);
+        }
+    }
+    
+    /**
+     * 获取单个组件类型的索引，首次调用时建立，之后增量维护
+     */
+    public Query query(Class<?> componentType) {
+        Query query = componentIndex.get(componentType);
+        if (query == null) {
+            query = createQuery(new Class<?>[] { componentType });
+            componentIndex.put(componentType, query);
+        }
+        return query;
+    }
+    
+    /**
+     * 获取同时具有多个组件类型的实时查询，返回的对象应当保存下来重复使用
+     */
+    public Query query(Class<?>... componentTypes) {
+        if (componentTypes.length == 1) {
+            return query(componentTypes[0]);
+        }
+        if (componentTypes.length == 0) {
+            throw new IllegalArgumentException("查询至少需要一个组件类型");
+        }
+        List<Class<?>> key = Arrays.asList(componentTypes.clone());
+        Query query = queries.get(key);
+        if (query == null) {
+            query = createQuery(componentTypes);
+            queries.put(key, query);
+        }
+        return query;
+    }
+    
+    private Query createQuery(Class<?>[] componentTypes) {
+        return createQuery(componentTypes, false);
+    }
+    
+    private Query createQuery(Class<?>[] componentTypes, boolean excluding) {
+        Query query = new Query(componentTypes, excluding);
+        for (int i = 0; i < entities.size(); i++) {
+            GameObject obj = entities.get(i);
+            if (obj.isActive() && query.matches(obj)) {
+                query.add(obj);
+            }
+        }
+        allQueries.add(query);
+        return query;
+    }
+    
+    /**
+     * 并行遍历查询结果。结果按parallelChunkSize切分成连续的块，在ForkJoinPool上执行，
+     * 全部块结束后才返回。块处理器需要遵守以下规则：
+     * 只写入本块内对象自身的组件，可以读取其他对象但不要依赖它们在本次遍历中的新值；
+     * 不能直接增删对象或组件，这些修改通过CommandBuffer记录，遍历结束后在调用线程上按块的顺序执行；
+     * 不能调用空间索引等非线程安全的查询。
+     * 块处理器抛出的异常会在所有块结束后重新抛出，此时记录的修改全部丢弃
+     */
+    public void forEachParallel(Query query, ChunkConsumer consumer) {
+        forEachParallel(query, consumer, null);
+    }
+    
+    /**
+     * 并行遍历查询结果，各块记录的修改按块的顺序追加到commands中，由调用者决定何时执行。
+     * 在GameSystem中应使用这个版本并传入系统自己的CommandBuffer；commands为null时立即执行
+     */
+    public void forEachParallel(Query query, ChunkConsumer consumer, CommandBuffer commands) {
+        int size = query.size();
+        if (size == 0) {
+            return;
+        }
+        int chunkSize = parallelChunkSize;
+        int chunks = ChunkRunner.chunkCount(size, chunkSize);
+        // 共享的执行器正被其他系统或外层遍历使用时，本次遍历使用临时的执行器
+        boolean shared = chunkRunnerBusy.compareAndSet(false, true);
+        ChunkRunner runner = shared ? chunkRunner : new ChunkRunner(chunkRunner.getPool());
+        CommandBuffer[] buffers = shared ? sharedCommandBuffers(chunks) : newCommandBuffers(chunks, 0);
+        int applied = 0;
+        try {
+            beginParallelPhase();
+            try {
+                runner.run(size, chunkSize,
+                        (chunk, start, end) -> consumer.accept(query, start, end, buffers[chunk]));
+            } finally {
+                endParallelPhase();
+            }
+            for (; applied < chunks; applied++) {
+                if (commands != null) {
+                    buffers[applied].drainTo(commands);
+                } else {
+                    buffers[applied].apply(this);
+                }
+            }
+        } finally {
+            // 遍历失败或执行修改时出错，丢弃剩余的修改
+            for (int i = applied; i < chunks; i++) {
+                buffers[i].clear();
+            }
+            if (shared) {
+                chunkRunnerBusy.set(false);
+            }
+        }
+    }
+    
+    private CommandBuffer[] sharedCommandBuffers(int chunks) {
+        if (chunks > commandBuffers.length) {
+            CommandBuffer[] grown = newCommandBuffers(chunks, commandBuffers.length);
+            System.arraycopy(commandBuffers, 0, grown, 0, commandBuffers.length);
+            commandBuffers = grown;
+        }
+        return commandBuffers;
+    }
+    
+    private static CommandBuffer[] newCommandBuffers(int count, int from) {
+        CommandBuffer[] buffers = new CommandBuffer[count];
+        for (int i = from; i < count; i++) {
+            buffers[i] = new CommandBuffer();
+        }
+        return buffers;
+    }
+    
+    /**
+     * 开始一个并行阶段，期间任何线程的结构性修改都会抛出异常。
+     * 必须与endParallelPhase成对调用，可以嵌套
+     */
+    public void beginParallelPhase() {
+        parallelPhases.incrementAndGet();
+    }
+    
+    /**
+     * 结束一个并行阶段
+     */
+    public void endParallelPhase() {
+        parallelPhases.decrementAndGet();
+    }
+    
+    /**
+     * 并行遍历期间禁止结构性修改
+     */
+    private void checkStructuralChange() {
+        if (parallelPhases.get() > 0) {
+            throw new IllegalStateException("并行遍历期间不能修改场景结构，请使用CommandBuffer");
+        }
+    }
+    
+    /**
+     * 设置并行遍历和物理积分的块大小，块越大调度开销越小，块越小负载越均衡
+     */
+    public void setParallelChunkSize(int parallelChunkSize) {
+        if (parallelChunkSize <= 0) {
+            throw new IllegalArgumentException("块大小必须大于0: " + parallelChunkSize);
+        }
+        this.parallelChunkSize = parallelChunkSize;
+    }
+    
+    public int getParallelChunkSize() {
+        return parallelChunkSize;
+    }
+    
+    /**
+     * 设置执行并行任务的线程池，默认使用公共池
+     */
+    public void setParallelPool(ForkJoinPool pool) {
+        chunkRunner.setPool(Objects.requireNonNull(pool));
+    }
+    
+    public ForkJoinPool getParallelPool() {
+        return chunkRunner.getPool();
+    }
+    
+    /**
+     * 添加系统，每次场景更新时在对象更新之后执行
+     */
+    public void addSystem(GameSystem system) {
+        getSystemScheduler().addSystem(system);
+    }
+    
+    /**
+     * 移除系统
+     */
+    public void removeSystem(GameSystem system) {
+        if (systemScheduler != null) {
+            systemScheduler.removeSystem(system);
+        }
+    }
+    
+    /**
+     * 获取系统调度器
+     */
+    public SystemScheduler getSystemScheduler() {
+        if (systemScheduler == null) {
+            systemScheduler = new SystemScheduler(this);
+        }
+        return systemScheduler;
+    }
+    
+    /**
+     * 获取场景的空间索引，用于范围、最近邻和射线查询
+     */
+    public SpatialIndex getSpatialIndex() {
+        if (spatialIndex == null) {
+            spatialIndex = new SpatialIndex(query(TransformComponent.class));
+        }
+        return spatialIndex;
+    }
+    
+    /**
+     * 根据组件类型查找游戏对象，返回索引的只读实时视图
      */
     public <T extends Component<T>> List<GameObject> findGameObjectsByComponent(Class<T> componentType) {
-        return gameObjects.stream()
-            .filter(obj -> obj.hasComponent(componentType))
-            .collect(Collectors.toList());
+        return query(componentType).getGameObjects();
     }
     
     /**
-     * 获取所有具有指定组件的游戏对象
+     * 获取所有具有指定组件的游戏对象，返回索引的只读实时视图
      */
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public <T extends Component<T>> List<T> getComponents(Class<T> componentType) {
-        return findGameObjectsByComponent(componentType).stream()
-            .map(obj -> obj.getComponent(componentType))
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+        return (List) query(componentType).getComponents();
     }
     
     /**
      * 清空场景
      */
     public void clear() {
-        gameObjects.clear();
+        if (archetypeStorage != null) {
+            archetypeStorage.clear();
+        }
+        for (Query query : allQueries) {
+            query.clear();
+        }
+        // 从末尾移除，不需要移动其他对象
+        for (int i = entities.size() - 1; i >= 0; i--) {
+            GameObject obj = entities.get(i);
+            if (obj.getScene() == this) {
+                obj.setScene(null);
+            }
+            entities.unregister(obj);
+        }
+        for (int i = 0; i < objectsToAdd.size(); i++) {
+            entities.unregister(objectsToAdd.get(i));
+        }
         objectsToAdd.clear();
         objectsToRemove.clear();
+        if (spatialIndex != null) {
+            spatialIndex.clear();
+        }
     }
     
     /**
@@ -120,11 +698,29 @@ public class Scene {
         return name;
     }
     
+    /**
+     * 获取存储模式
+     */
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+    
+    /**
+     * 获取原型存储，OBJECT模式下为null
+     */
+    public ArchetypeStorage getArchetypeStorage() {
+        return archetypeStorage;
+    }
+    
     /**
      * 获取所有游戏对象
      */
     public List<GameObject> getGameObjects() {
-        return new ArrayList<>(gameObjects);
+        List<GameObject> result = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            result.add(entities.get(i));
+        }
+        return result;
     }
     
     // 移除具体游戏逻辑，让子类实现
@@ -0,0 +1,522 @@
+package com.gameengine.scene;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.RenderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.ComponentType;
+import com.gameengine.core.GameObject;
+import com.gameengine.graphics.Renderer;
+import com.gameengine.math.Vector2;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 场景快照，保存一组对象的名称和变换、物理、渲染组件的状态。
+ * 数据按列存放：文件头之后是去重的名称表、每个对象的名称下标和组件标志，
+ * 然后每种组件一节，节内同一个字段的值连续存放，加载时整列批量读入数组。
+ * 多字节数值均为小端序。写入文件通过FileChannel分块写入，读取文件通过内存映射。
+ * 其他组件和GameObject子类的状态不保存，实例化出的对象都是GameObject。
+ * capture需要在游戏线程调用；得到的快照不再引用原对象，
+ * 编码、解码和instantiate可以在其他线程进行
+ */
+public final class SceneSnapshot {
+    static final int MAGIC = 0x47455353;
+    static final int VERSION = 1;
+
+    private static final int HAS_TRANSFORM = 1;
+    private static final int HAS_PHYSICS = 1 << 1;
+    private static final int HAS_RENDER = 1 << 2;
+    // 组件标志：第0位是否启用，物理组件第1位是否使用重力，渲染组件第1位是否可见
+    private static final int ENABLED = 1;
+    private static final int USE_GRAVITY = 1 << 1;
+    private static final int VISIBLE = 1 << 1;
+
+    // 文件头：魔数、版本、对象数、名称数
+    private static final int HEADER_SIZE = 16;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int TRANSFORM_ID = ComponentType.idOf(TransformComponent.class);
+    private static final int PHYSICS_ID = ComponentType.idOf(PhysicsComponent.class);
+    private static final int RENDER_ID = ComponentType.idOf(RenderComponent.class);
+    private static final RenderComponent.RenderType[] RENDER_TYPES = RenderComponent.RenderType.values();
+
+    private final int count;
+    private final byte[][] names;
+    private final int[] nameIndex;
+    private final byte[] components;
+    private final Columns transform;
+    private final Columns physics;
+    private final Columns render;
+
+    private SceneSnapshot(int count, byte[][] names, int[] nameIndex, byte[] components,
+                          Columns transform, Columns physics, Columns render) {
+        this.count = count;
+        this.names = names;
+        this.nameIndex = nameIndex;
+        this.components = components;
+        this.transform = transform;
+        this.physics = physics;
+        this.render = render;
+    }
+
+    /**
+     * 把场景中已加入且活跃的对象保存到file，返回保存的对象数量
+     */
+    public static int save(Scene scene, Path file) throws IOException {
+        SceneSnapshot snapshot = capture(scene);
+        snapshot.write(file);
+        return snapshot.size();
+    }
+
+    /**
+     * 把file中的对象加入scene，渲染组件使用renderer，返回加载的对象数量。
+     * 对象和addGameObject加入的一样，在场景下一次更新时正式加入。
+     * 文件不是场景快照或不完整时抛出IOException
+     */
+    public static int load(Path file, Scene scene, Renderer renderer) throws IOException {
+        GameObject[] objects = read(file).instantiate(renderer);
+        for (GameObject obj : objects) {
+            scene.addGameObject(obj);
+        }
+        return objects.length;
+    }
+
+    /**
+     * 记录场景中已加入且活跃的对象
+     */
+    public static SceneSnapshot capture(Scene scene) {
+        EntityRegistry entities = scene.getEntityRegistry();
+        List<GameObject> objects = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            GameObject obj = entities.get(i);
+            if (obj.isActive()) {
+                objects.add(obj);
+            }
+        }
+        return capture(objects);
+    }
+
+    /**
+     * 记录objects的状态，对象是否活跃、是否在场景中都不影响
+     */
+    public static SceneSnapshot capture(List<? extends GameObject> objects) {
+        int count = objects.size();
+        int transforms = 0;
+        int physicsCount = 0;
+        int renders = 0;
+        for (int i = 0; i < count; i++) {
+            GameObject obj = objects.get(i);
+            if (obj.getComponent(TRANSFORM_ID) != null) transforms++;
+            if (obj.getComponent(PHYSICS_ID) != null) physicsCount++;
+            if (obj.getComponent(RENDER_ID) != null) renders++;
+        }
+
+        Map<String, Integer> nameIds = new HashMap<>();
+        int[] nameIndex = new int[count];
+        byte[] components = new byte[count];
+        Columns transform = new Columns(5, transforms, false);
+        Columns physics = new Columns(8, physicsCount, false);
+        Columns render = new Columns(6, renders, true);
+        Vector2 v = new Vector2();
+
+        for (int n = 0; n < count; n++) {
+            GameObject obj = objects.get(n);
+            Integer id = nameIds.get(obj.getName());
+            if (id == null) {
+                id = nameIds.size();
+                nameIds.put(obj.getName(), id);
+            }
+            nameIndex[n] = id;
+            int flags = 0;
+
+            TransformComponent t = (TransformComponent) obj.getComponent(TRANSFORM_ID);
+            if (t != null) {
+                flags |= HAS_TRANSFORM;
+                int row = transform.size++;
+                t.getPosition(v);
+                transform.values[0][row] = v.x;
+                transform.values[1][row] = v.y;
+                t.getScale(v);
+                transform.values[2][row] = v.x;
+                transform.values[3][row] = v.y;
+                transform.values[4][row] = t.getRotation();
+                transform.flags[row] = (byte) (t.isEnabled() ? ENABLED : 0);
+            }
+            PhysicsComponent p = (PhysicsComponent) obj.getComponent(PHYSICS_ID);
+            if (p != null) {
+                flags |= HAS_PHYSICS;
+                int row = physics.size++;
+                p.getVelocity(v);
+                physics.values[0][row] = v.x;
+                physics.values[1][row] = v.y;
+                p.getAcceleration(v);
+                physics.values[2][row] = v.x;
+                physics.values[3][row] = v.y;
+                physics.values[4][row] = p.getMass();
+                physics.values[5][row] = p.getFriction();
+                p.getGravity(v);
+                physics.values[6][row] = v.x;
+                physics.values[7][row] = v.y;
+                physics.flags[row] = (byte) ((p.isEnabled() ? ENABLED : 0) | (p.isUseGravity() ? USE_GRAVITY : 0));
+            }
+            RenderComponent r = (RenderComponent) obj.getComponent(RENDER_ID);
+            if (r != null) {
+                flags |= HAS_RENDER;
+                int row = render.size++;
+                r.getSize(v);
+                render.values[0][row] = v.x;
+                render.values[1][row] = v.y;
+                RenderComponent.Color color = r.getColor();
+                render.values[2][row] = color.r;
+                render.values[3][row] = color.g;
+                render.values[4][row] = color.b;
+                render.values[5][row] = color.a;
+                render.types[row] = (byte) r.getRenderType().ordinal();
+                render.flags[row] = (byte) ((r.isEnabled() ? ENABLED : 0) | (r.isVisible() ? VISIBLE : 0));
+            }
+            components[n] = (byte) flags;
+        }
+
+        byte[][] names = new byte[nameIds.size()][];
+        for (Map.Entry<String, Integer> entry : nameIds.entrySet()) {
+            names[entry.getValue()] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        }
+        return new SceneSnapshot(count, names, nameIndex, components, transform, physics, render);
+    }
+
+    /**
+     * 创建或覆盖file并写入快照
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE), channel);
+            write(out);
+            out.flush();
+        }
+    }
+
+    /**
+     * 编码成与文件内容相同的字节数组
+     */
+    public byte[] toByteArray() {
+        byte[] data = new byte[encodedSize()];
+        try {
+            write(new Output(ByteBuffer.wrap(data), null));
+        } catch (IOException e) {
+            // 没有通道，不会发生
+            throw new IllegalStateException(e);
+        }
+        return data;
+    }
+
+    private int encodedSize() {
+        int size = HEADER_SIZE + count * 5;
+        for (byte[] name : names) {
+            size += 4 + name.length;
+        }
+        return size + transform.encodedSize() + physics.encodedSize() + render.encodedSize();
+    }
+
+    private void write(Output out) throws IOException {
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(count);
+        out.putInt(names.length);
+        for (byte[] name : names) {
+            out.putInt(name.length);
+            out.putBytes(name, name.length);
+        }
+        out.putInts(nameIndex, count);
+        out.putBytes(components, count);
+        transform.write(out);
+        physics.write(out);
+        render.write(out);
+    }
+
+    /**
+     * 通过内存映射读取file。文件不是场景快照或不完整时抛出IOException
+     */
+    public static SceneSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + ": " + file, e);
+        }
+    }
+
+    /**
+     * 读取toByteArray得到的数据。数据不是场景快照或不完整时抛出IOException
+     */
+    public static SceneSnapshot read(byte[] data) throws IOException {
+        return read(ByteBuffer.wrap(data));
+    }
+
+    private static SceneSnapshot read(ByteBuffer in) throws IOException {
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+                throw new IOException("不是场景快照");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的场景快照版本: " + version);
+            }
+            int count = readCount(in);
+            byte[][] names = new byte[readCount(in)][];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = new byte[readCount(in)];
+                in.get(names[i]);
+            }
+            int[] nameIndex = new int[count];
+            in.asIntBuffer().get(nameIndex);
+            in.position(in.position() + count * 4);
+            byte[] components = new byte[count];
+            in.get(components);
+            for (int i = 0; i < count; i++) {
+                if (nameIndex[i] < 0 || nameIndex[i] >= names.length) {
+                    throw new IOException("场景快照已损坏");
+                }
+            }
+            Columns transform = Columns.read(in, 5, false);
+            Columns physics = Columns.read(in, 8, false);
+            Columns render = Columns.read(in, 6, true);
+            return new SceneSnapshot(count, names, nameIndex, components, transform, physics, render);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("场景快照不完整", e);
+        }
+    }
+
+    /**
+     * 按快照创建对象，渲染组件使用renderer。对象尚未加入任何场景，
+     * 可以在后台线程创建后交给游戏线程加入。
+     * 快照中的组件行数与标志不符时抛出IOException
+     */
+    public GameObject[] instantiate(Renderer renderer) throws IOException {
+        if (transform.size != countFlags(HAS_TRANSFORM) || physics.size != countFlags(HAS_PHYSICS)
+                || render.size != countFlags(HAS_RENDER)) {
+            throw new IOException("场景快照已损坏");
+        }
+        String[] nameStrings = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            nameStrings[i] = new String(names[i], StandardCharsets.UTF_8);
+        }
+        GameObject[] objects = new GameObject[count];
+        for (int i = 0; i < count; i++) {
+            objects[i] = new GameObject(nameStrings[nameIndex[i]]);
+        }
+        Vector2 a = new Vector2();
+        Vector2 b = new Vector2();
+
+        int row = 0;
+        for (int i = 0; i < count; i++) {
+            if ((components[i] & HAS_TRANSFORM) == 0) {
+                continue;
+            }
+            float[][] c = transform.values;
+            a.set(c[0][row], c[1][row]);
+            b.set(c[2][row], c[3][row]);
+            TransformComponent t = new TransformComponent(a, b, c[4][row]);
+            t.setEnabled((transform.flags[row] & ENABLED) != 0);
+            objects[i].addComponent(t);
+            row++;
+        }
+
+        row = 0;
+        for (int i = 0; i < count; i++) {
+            if ((components[i] & HAS_PHYSICS) == 0) {
+                continue;
+            }
+            float[][] c = physics.values;
+            PhysicsComponent p = new PhysicsComponent(c[4][row]);
+            p.setVelocity(c[0][row], c[1][row]);
+            p.setAcceleration(c[2][row], c[3][row]);
+            p.setFriction(c[5][row]);
+            p.setGravity(a.set(c[6][row], c[7][row]));
+            int flags = physics.flags[row];
+            p.setUseGravity((flags & USE_GRAVITY) != 0);
+            p.setEnabled((flags & ENABLED) != 0);
+            objects[i].addComponent(p);
+            row++;
+        }
+
+        row = 0;
+        for (int i = 0; i < count; i++) {
+            if ((components[i] & HAS_RENDER) == 0) {
+                continue;
+            }
+            float[][] c = render.values;
+            int type = render.types[row];
+            if (type < 0 || type >= RENDER_TYPES.length) {
+                throw new IOException("场景快照中有未知的渲染类型: " + type);
+            }
+            RenderComponent r = new RenderComponent(RENDER_TYPES[type], a.set(c[0][row], c[1][row]),
+                    new RenderComponent.Color(c[2][row], c[3][row], c[4][row], c[5][row]));
+            int flags = render.flags[row];
+            r.setVisible((flags & VISIBLE) != 0);
+            r.setEnabled((flags & ENABLED) != 0);
+            r.setRenderer(renderer);
+            objects[i].addComponent(r);
+            row++;
+        }
+        return objects;
+    }
+
+    private int countFlags(int flag) {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if ((components[i] & flag) != 0) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 快照中的对象数量
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 读取一个数量，超出剩余数据时说明文件已损坏
+     */
+    private static int readCount(ByteBuffer in) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("场景快照已损坏");
+        }
+        return count;
+    }
+
+    /**
+     * 一种组件的列：若干个float列、可选的类型列和标志列
+     */
+    private static final class Columns {
+        final float[][] values;
+        final byte[] types;
+        final byte[] flags;
+        int size;
+
+        Columns(int fields, int capacity, boolean hasTypes) {
+            this.values = new float[fields][capacity];
+            this.types = hasTypes ? new byte[capacity] : null;
+            this.flags = new byte[capacity];
+        }
+
+        int encodedSize() {
+            return 4 + size * (values.length * 4 + (types != null ? 2 : 1));
+        }
+
+        /**
+         * 依次写入行数、类型列、各个float列和标志列
+         */
+        void write(Output out) throws IOException {
+            out.putInt(size);
+            if (types != null) {
+                out.putBytes(types, size);
+            }
+            for (float[] column : values) {
+                out.putFloats(column, size);
+            }
+            out.putBytes(flags, size);
+        }
+
+        static Columns read(ByteBuffer in, int fields, boolean hasTypes) throws IOException {
+            int size = readCount(in);
+            Columns columns = new Columns(fields, size, hasTypes);
+            columns.size = size;
+            if (hasTypes) {
+                in.get(columns.types);
+            }
+            for (float[] column : columns.values) {
+                in.asFloatBuffer().get(column);
+                in.position(in.position() + size * 4);
+            }
+            in.get(columns.flags);
+            return columns;
+        }
+    }
+
+    /**
+     * 写入缓冲区，有通道时缓冲区写满就分块写入通道，
+     * 没有通道时缓冲区需要足够容纳全部数据
+     */
+    private static final class Output {
+        private final ByteBuffer buffer;
+        private final FileChannel channel;
+
+        Output(ByteBuffer buffer, FileChannel channel) {
+            this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            int i = 0;
+            while (i < count) {
+                ensure(4);
+                int n = Math.min(count - i, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * 4);
+                i += n;
+            }
+        }
+
+        void putFloats(float[] values, int count) throws IOException {
+            int i = 0;
+            while (i < count) {
+                ensure(4);
+                int n = Math.min(count - i, buffer.remaining() / 4);
+                buffer.asFloatBuffer().put(values, i, n);
+                buffer.position(buffer.position() + n * 4);
+                i += n;
+            }
+        }
+
+        void putBytes(byte[] values, int count) throws IOException {
+            int i = 0;
+            while (i < count) {
+                ensure(1);
+                int n = Math.min(count - i, buffer.remaining());
+                buffer.put(values, i, n);
+                i += n;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                if (channel == null) {
+                    throw new BufferOverflowException();
+                }
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,961 @@
+package com.gameengine.scene;
+
+import com.gameengine.components.RenderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.ComponentType;
+import com.gameengine.core.GameObject;
+import com.gameengine.math.Vector2;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Predicate;
+
+/**
+ * 场景的空间索引，松散四叉树。
+ * 对象的包围盒取TransformComponent的位置和RenderComponent的大小，没有渲染组件时视为点。
+ * 每个对象按中心放入能容纳其大小的最深一层节点，节点的松散边界向外扩展半个节点大小，
+ * 插入和移出都是常数时间。节点按层连续存放在数组中，每个节点记录子树中的对象数，查询跳过空子树。
+ * <p>
+ * 索引增量维护：位置或大小变化时组件通过场景标记对象，下一次查询前只重新放置被标记的对象，
+ * 开销与移动的对象数成正比，与对象总数无关。变换组件移动时新位置随标记直接写入条目，
+ * 只有大小变化的对象在维护时重新读取组件。
+ * 根节点的范围在完整重建时按对象分布向外留出余量后固定，中心移出根范围的对象放在根节点，
+ * 这样的对象超过八分之一时下一次查询完整重建一次。
+ * 直接写原型列等不经过组件的移动不会被标记，之后调用invalidate，下一次查询检查所有对象。
+ * <p>
+ * 标记可以在并行阶段从多个线程调用；查询不可重入，也不是线程安全的，查询和维护都不产生分配
+ */
+public final class SpatialIndex {
+    public static final int DEFAULT_MAX_DEPTH = 8;
+    private static final int TRANSFORM_ID = ComponentType.idOf(TransformComponent.class);
+    private static final int RENDER_ID = ComponentType.idOf(RenderComponent.class);
+    private static final int INITIAL_CAPACITY = 64;
+    // 完整重建时根范围在对象中心的分布之外留出的最小余量
+    private static final float MIN_ROOT_MARGIN = 32.0f;
+    // 条目的标记：位置已写入条目，只需重新放置；包围盒需要从组件重新读取
+    private static final int MARK_MOVED = 1;
+    private static final int MARK_BOUNDS = 2;
+
+    private final Query transforms;
+    private final int maxDepth;
+    private final int[] levelOffsets;
+
+    // 节点数据，链表头为-1表示节点本身没有对象，计数为子树中的对象数
+    private final int[] nodeHeads;
+    private final int[] nodeCounts;
+    private boolean rebuildNeeded;
+
+    // 根节点覆盖的正方形区域，完整重建时确定
+    private float rootX;
+    private float rootY;
+    private float rootSize;
+    // 中心在根范围外、放在根节点的对象数
+    private int outsideCount;
+
+    // 按槽位编号索引，值为条目下标加一，0表示不在索引中
+    private int[] slotEntries;
+
+    // 条目数据，同一节点中的条目组成双向链表，移出时由最后一个条目填补空位。
+    // 宽高单独保存，只有位置变化时不需要读取渲染组件
+    private GameObject[] entryObjects;
+    private float[] entryMinX;
+    private float[] entryMinY;
+    private float[] entryMaxX;
+    private float[] entryMaxY;
+    private float[] entryWidth;
+    private float[] entryHeight;
+    private int[] entryNext;
+    private int[] entryPrev;
+    private int[] entryNode;
+    private boolean[] entryOutside;
+    private int entryCount;
+
+    // 待重新放置的条目。标记保证每个条目只登记一次，并记录条目在列表中的位置，
+    // 移出条目时据此更正列表；列表满时改为检查所有对象
+    private AtomicIntegerArray entryMarks;
+    private int[] entryMovedAt;
+    private int[] movedEntries;
+    private final AtomicInteger movedCount;
+    private volatile boolean scanAll;
+
+    private final Vector2 sizeBuffer = new Vector2();
+
+    // 列表形式查询的收集目标
+    private List<GameObject> collectTarget;
+    private final SpatialVisitor collector = gameObject -> {
+        collectTarget.add(gameObject);
+        return true;
+    };
+
+    // 最近邻查询的最大堆
+    private float[] heapDistances;
+    private GameObject[] heapObjects;
+    private int heapSize;
+
+    // 射线检测状态
+    private float rayOriginX;
+    private float rayOriginY;
+    private float rayDirX;
+    private float rayDirY;
+    private float bestDistance;
+    private int bestEntry;
+    private float bestNormalX;
+    private float bestNormalY;
+    private float enterNormalX;
+    private float enterNormalY;
+
+    SpatialIndex(Query transforms) {
+        this(transforms, DEFAULT_MAX_DEPTH);
+    }
+
+    SpatialIndex(Query transforms, int maxDepth) {
+        if (maxDepth < 1 || maxDepth > 12) {
+            throw new IllegalArgumentException("四叉树深度必须在1到12之间: " + maxDepth);
+        }
+        this.transforms = transforms;
+        this.maxDepth = maxDepth;
+        this.levelOffsets = new int[maxDepth + 1];
+        for (int level = 1; level <= maxDepth; level++) {
+            levelOffsets[level] = levelOffsets[level - 1] + (1 << (2 * (level - 1)));
+        }
+        int nodeCount = levelOffsets[maxDepth];
+        this.nodeHeads = new int[nodeCount];
+        this.nodeCounts = new int[nodeCount];
+        Arrays.fill(nodeHeads, -1);
+        this.rebuildNeeded = true;
+        this.rootSize = 1;
+        this.slotEntries = new int[INITIAL_CAPACITY];
+        this.entryObjects = new GameObject[INITIAL_CAPACITY];
+        this.entryMinX = new float[INITIAL_CAPACITY];
+        this.entryMinY = new float[INITIAL_CAPACITY];
+        this.entryMaxX = new float[INITIAL_CAPACITY];
+        this.entryMaxY = new float[INITIAL_CAPACITY];
+        this.entryWidth = new float[INITIAL_CAPACITY];
+        this.entryHeight = new float[INITIAL_CAPACITY];
+        this.entryNext = new int[INITIAL_CAPACITY];
+        this.entryPrev = new int[INITIAL_CAPACITY];
+        this.entryNode = new int[INITIAL_CAPACITY];
+        this.entryOutside = new boolean[INITIAL_CAPACITY];
+        this.entryMarks = new AtomicIntegerArray(INITIAL_CAPACITY);
+        this.entryMovedAt = new int[INITIAL_CAPACITY];
+        this.movedEntries = new int[INITIAL_CAPACITY];
+        this.movedCount = new AtomicInteger();
+        this.heapDistances = new float[16];
+        this.heapObjects = new GameObject[16];
+    }
+
+    /**
+     * 下一次查询时检查所有对象的位置，用于没有经过组件的移动
+     */
+    public void invalidate() {
+        scanAll = true;
+    }
+
+    /**
+     * 立即按当前位置完整重建索引，并按对象分布重新确定根节点的范围
+     */
+    public void rebuild() {
+        for (int e = 0; e < entryCount; e++) {
+            slotEntries[slotOf(entryObjects[e])] = 0;
+            entryObjects[e] = null;
+            entryMarks.set(e, 0);
+        }
+        movedCount.set(0);
+        Arrays.fill(nodeHeads, -1);
+        Arrays.fill(nodeCounts, 0);
+        entryCount = 0;
+        outsideCount = 0;
+
+        int count = transforms.size();
+        ensureEntryCapacity(count);
+        float minCenterX = Float.POSITIVE_INFINITY;
+        float minCenterY = Float.POSITIVE_INFINITY;
+        float maxCenterX = Float.NEGATIVE_INFINITY;
+        float maxCenterY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            GameObject obj = transforms.get(i);
+            if (!obj.isActive()) {
+                continue;
+            }
+            int e = newEntry(obj);
+            readBounds(e);
+            float centerX = (entryMinX[e] + entryMaxX[e]) * 0.5f;
+            float centerY = (entryMinY[e] + entryMaxY[e]) * 0.5f;
+            minCenterX = Math.min(minCenterX, centerX);
+            minCenterY = Math.min(minCenterY, centerY);
+            maxCenterX = Math.max(maxCenterX, centerX);
+            maxCenterY = Math.max(maxCenterY, centerY);
+        }
+        if (entryCount == 0) {
+            rootX = 0;
+            rootY = 0;
+            rootSize = 1;
+        } else {
+            float extent = Math.max(maxCenterX - minCenterX, maxCenterY - minCenterY);
+            // 留出余量，对象在分布边缘附近移动时不必离开根范围
+            float margin = Math.max(extent * 0.25f, MIN_ROOT_MARGIN);
+            rootX = minCenterX - margin;
+            rootY = minCenterY - margin;
+            rootSize = extent + margin * 2;
+        }
+        for (int e = 0; e < entryCount; e++) {
+            link(e, place(e));
+        }
+        rebuildNeeded = false;
+        scanAll = false;
+    }
+
+    /**
+     * 查询前重新放置被标记的条目
+     */
+    private void ensureUpdated() {
+        if (rebuildNeeded) {
+            rebuild();
+            return;
+        }
+        if (scanAll) {
+            scanAll = false;
+            movedCount.set(0);
+            for (int e = 0; e < entryCount; e++) {
+                entryMarks.set(e, 0);
+                readBounds(e);
+                relocate(e);
+            }
+        } else {
+            int count = Math.min(movedCount.get(), movedEntries.length);
+            for (int i = 0; i < count; i++) {
+                int e = movedEntries[i];
+                if (e < 0) {
+                    continue;
+                }
+                if (entryMarks.getAndSet(e, 0) == MARK_BOUNDS) {
+                    readBounds(e);
+                }
+                relocate(e);
+            }
+            movedCount.set(0);
+        }
+        if (outsideCount > (entryCount >> 3) + 16) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 对象移动到(x, y)，大小不变。位置立即写入条目，下一次查询前重新放置。
+     * 不在索引中的对象忽略，可以在并行阶段从多个线程调用，但同一个对象只能由一个线程移动
+     */
+    void markMoved(GameObject obj, float x, float y) {
+        int e = entryOf(obj);
+        if (e < 0) {
+            return;
+        }
+        setBounds(e, x, y, entryWidth[e], entryHeight[e]);
+        mark(e, MARK_MOVED);
+    }
+
+    /**
+     * 对象的包围盒变化，下一次查询前从组件重新读取。不在索引中的对象忽略，可以在并行阶段调用
+     */
+    void markMoved(GameObject obj) {
+        int e = entryOf(obj);
+        if (e >= 0) {
+            mark(e, MARK_BOUNDS);
+        }
+    }
+
+    private void mark(int e, int state) {
+        while (true) {
+            int current = entryMarks.get(e);
+            if (current >= state) {
+                return;
+            }
+            if (entryMarks.compareAndSet(e, current, state)) {
+                if (current == 0) {
+                    int at = movedCount.getAndIncrement();
+                    if (at < movedEntries.length) {
+                        movedEntries[at] = e;
+                        entryMovedAt[e] = at;
+                    } else {
+                        entryMovedAt[e] = -1;
+                        scanAll = true;
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 组件或生命周期变化后调用，按对象是否在变换组件查询的结果中加入、移出或重新读取包围盒
+     */
+    void refresh(GameObject obj) {
+        if (rebuildNeeded) {
+            return;
+        }
+        int e = entryOf(obj);
+        boolean member = transforms.contains(obj) && obj.isActive();
+        if (member && e < 0) {
+            ensureEntryCapacity(entryCount + 1);
+            e = newEntry(obj);
+            readBounds(e);
+            link(e, place(e));
+        } else if (!member && e >= 0) {
+            removeEntry(e);
+        } else if (member) {
+            mark(e, MARK_BOUNDS);
+        }
+    }
+
+    /**
+     * 移出对象，不在索引中时忽略
+     */
+    void remove(GameObject obj) {
+        if (rebuildNeeded) {
+            return;
+        }
+        int e = entryOf(obj);
+        if (e >= 0) {
+            removeEntry(e);
+        }
+    }
+
+    /**
+     * 丢弃所有条目，下一次查询时完整重建
+     */
+    void clear() {
+        for (int e = 0; e < entryCount; e++) {
+            entryObjects[e] = null;
+            entryMarks.set(e, 0);
+        }
+        Arrays.fill(slotEntries, 0);
+        movedCount.set(0);
+        entryCount = 0;
+        rebuildNeeded = true;
+    }
+
+    private static int slotOf(GameObject obj) {
+        return EntityRegistry.indexOf(obj.getHandle());
+    }
+
+    private int entryOf(GameObject obj) {
+        long handle = obj.getHandle();
+        if (handle == EntityRegistry.NULL_HANDLE) {
+            return -1;
+        }
+        int slot = EntityRegistry.indexOf(handle);
+        if (slot >= slotEntries.length) {
+            return -1;
+        }
+        int e = slotEntries[slot] - 1;
+        return e >= 0 && entryObjects[e] == obj ? e : -1;
+    }
+
+    private int newEntry(GameObject obj) {
+        int slot = slotOf(obj);
+        if (slot >= slotEntries.length) {
+            slotEntries = Arrays.copyOf(slotEntries, Math.max(slot + 1, slotEntries.length * 2));
+        }
+        int e = entryCount++;
+        entryObjects[e] = obj;
+        entryOutside[e] = false;
+        slotEntries[slot] = e + 1;
+        return e;
+    }
+
+    /**
+     * 移出条目，最后一个条目移到空位，待放置列表中的下标随之更正
+     */
+    private void removeEntry(int e) {
+        unlink(e);
+        if (entryOutside[e]) {
+            outsideCount--;
+        }
+        if (entryMarks.get(e) != 0 && entryMovedAt[e] >= 0) {
+            movedEntries[entryMovedAt[e]] = -1;
+        }
+        slotEntries[slotOf(entryObjects[e])] = 0;
+        int last = --entryCount;
+        if (e != last) {
+            entryObjects[e] = entryObjects[last];
+            entryMinX[e] = entryMinX[last];
+            entryMinY[e] = entryMinY[last];
+            entryMaxX[e] = entryMaxX[last];
+            entryMaxY[e] = entryMaxY[last];
+            entryWidth[e] = entryWidth[last];
+            entryHeight[e] = entryHeight[last];
+            entryNext[e] = entryNext[last];
+            entryPrev[e] = entryPrev[last];
+            entryNode[e] = entryNode[last];
+            entryOutside[e] = entryOutside[last];
+            entryMarks.set(e, entryMarks.get(last));
+            entryMovedAt[e] = entryMovedAt[last];
+            if (entryMarks.get(e) != 0 && entryMovedAt[e] >= 0) {
+                movedEntries[entryMovedAt[e]] = e;
+            }
+            if (entryPrev[e] >= 0) {
+                entryNext[entryPrev[e]] = e;
+            } else {
+                nodeHeads[entryNode[e]] = e;
+            }
+            if (entryNext[e] >= 0) {
+                entryPrev[entryNext[e]] = e;
+            }
+            slotEntries[slotOf(entryObjects[e])] = e + 1;
+        }
+        entryObjects[last] = null;
+        entryMarks.set(last, 0);
+    }
+
+    /**
+     * 按条目的包围盒重新放置，节点不变时不做任何事
+     */
+    private void relocate(int e) {
+        int node = place(e);
+        if (node != entryNode[e]) {
+            unlink(e);
+            link(e, node);
+        }
+    }
+
+    /**
+     * 从组件读取包围盒
+     */
+    private void readBounds(int e) {
+        GameObject obj = entryObjects[e];
+        TransformComponent transform = (TransformComponent) obj.getComponent(TRANSFORM_ID);
+        float x = transform.getX();
+        float y = transform.getY();
+        float width = 0;
+        float height = 0;
+        RenderComponent render = (RenderComponent) obj.getComponent(RENDER_ID);
+        if (render != null) {
+            render.getSize(sizeBuffer);
+            width = sizeBuffer.x;
+            height = sizeBuffer.y;
+        }
+        setBounds(e, x, y, width, height);
+    }
+
+    /**
+     * 包围盒取位置到位置加大小的范围，大小为负时向负方向延伸
+     */
+    private void setBounds(int e, float x, float y, float width, float height) {
+        entryMinX[e] = Math.min(x, x + width);
+        entryMinY[e] = Math.min(y, y + height);
+        entryMaxX[e] = Math.max(x, x + width);
+        entryMaxY[e] = Math.max(y, y + height);
+        entryWidth[e] = width;
+        entryHeight[e] = height;
+    }
+
+    /**
+     * 按包围盒确定条目所在的节点，中心在根范围外时放在根节点
+     */
+    private int place(int e) {
+        float width = entryMaxX[e] - entryMinX[e];
+        float height = entryMaxY[e] - entryMinY[e];
+        float offsetX = entryMinX[e] + width * 0.5f - rootX;
+        float offsetY = entryMinY[e] + height * 0.5f - rootY;
+        // 取反的写法把NaN也当作在根范围外
+        boolean outside = !(offsetX >= 0 && offsetY >= 0 && offsetX < rootSize && offsetY < rootSize);
+        if (outside != entryOutside[e]) {
+            entryOutside[e] = outside;
+            outsideCount += outside ? 1 : -1;
+        }
+        if (outside) {
+            return 0;
+        }
+        float extent = Math.max(width, height);
+        int level = 0;
+        float nodeSize = rootSize;
+        while (level < maxDepth - 1 && extent <= nodeSize * 0.5f) {
+            nodeSize *= 0.5f;
+            level++;
+        }
+        int cells = 1 << level;
+        return nodeIndex(level, cellOf(offsetX, nodeSize, cells), cellOf(offsetY, nodeSize, cells));
+    }
+
+    private static int cellOf(float offset, float nodeSize, int cells) {
+        int cell = (int) (offset / nodeSize);
+        return cell < 0 ? 0 : (cell >= cells ? cells - 1 : cell);
+    }
+
+    private int nodeIndex(int level, int cellX, int cellY) {
+        return levelOffsets[level] + (cellY << level) + cellX;
+    }
+
+    /**
+     * 把条目加入节点的链表，节点和所有祖先的计数加一
+     */
+    private void link(int e, int node) {
+        int head = nodeHeads[node];
+        entryNode[e] = node;
+        entryPrev[e] = -1;
+        entryNext[e] = head;
+        if (head >= 0) {
+            entryPrev[head] = e;
+        }
+        nodeHeads[node] = e;
+        countPath(node, 1);
+    }
+
+    private void unlink(int e) {
+        int node = entryNode[e];
+        int prev = entryPrev[e];
+        int next = entryNext[e];
+        if (prev >= 0) {
+            entryNext[prev] = next;
+        } else {
+            nodeHeads[node] = next;
+        }
+        if (next >= 0) {
+            entryPrev[next] = prev;
+        }
+        countPath(node, -1);
+    }
+
+    private void countPath(int node, int delta) {
+        int level = maxDepth - 1;
+        while (node < levelOffsets[level]) {
+            level--;
+        }
+        int cell = node - levelOffsets[level];
+        int cellX = cell & ((1 << level) - 1);
+        int cellY = cell >> level;
+        for (int l = level; l >= 0; l--) {
+            int shift = level - l;
+            nodeCounts[nodeIndex(l, cellX >> shift, cellY >> shift)] += delta;
+        }
+    }
+
+    private boolean isEmpty(int node) {
+        return nodeCounts[node] == 0;
+    }
+
+    private float nodeSize(int level) {
+        return rootSize / (1 << level);
+    }
+
+    /**
+     * 访问包围盒与矩形相交的对象，访问者返回false时提前结束
+     */
+    public void queryRect(float minX, float minY, float maxX, float maxY, SpatialVisitor visitor) {
+        ensureUpdated();
+        visitRect(0, 0, 0, minX, minY, maxX, maxY, visitor);
+    }
+
+    /**
+     * 把包围盒与矩形相交的对象追加到results，返回追加的数量
+     */
+    public int queryRect(float minX, float minY, float maxX, float maxY, List<GameObject> results) {
+        int before = results.size();
+        collectTarget = results;
+        try {
+            queryRect(minX, minY, maxX, maxY, collector);
+        } finally {
+            collectTarget = null;
+        }
+        return results.size() - before;
+    }
+
+    private boolean visitRect(int level, int cellX, int cellY,
+                              float minX, float minY, float maxX, float maxY, SpatialVisitor visitor) {
+        int node = nodeIndex(level, cellX, cellY);
+        if (isEmpty(node)) {
+            return true;
+        }
+        // 根节点接收所有放不进子节点的对象，不做边界裁剪
+        if (level > 0) {
+            float size = nodeSize(level);
+            float half = size * 0.5f;
+            float nodeMinX = rootX + cellX * size - half;
+            float nodeMinY = rootY + cellY * size - half;
+            if (nodeMinX > maxX || nodeMinY > maxY
+                    || nodeMinX + size * 2 < minX || nodeMinY + size * 2 < minY) {
+                return true;
+            }
+        }
+        for (int e = nodeHeads[node]; e >= 0; e = entryNext[e]) {
+            if (entryMinX[e] > maxX || entryMinY[e] > maxY || entryMaxX[e] < minX || entryMaxY[e] < minY) {
+                continue;
+            }
+            GameObject obj = entryObjects[e];
+            if (obj.isActive() && !visitor.visit(obj)) {
+                return false;
+            }
+        }
+        if (level + 1 < maxDepth) {
+            int childX = cellX << 1;
+            int childY = cellY << 1;
+            for (int child = 0; child < 4; child++) {
+                if (!visitRect(level + 1, childX + (child & 1), childY + (child >> 1),
+                        minX, minY, maxX, maxY, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 访问包围盒与圆相交的对象，访问者返回false时提前结束
+     */
+    public void queryRadius(float x, float y, float radius, SpatialVisitor visitor) {
+        ensureUpdated();
+        visitRadius(0, 0, 0, x, y, radius * radius, visitor);
+    }
+
+    /**
+     * 把包围盒与圆相交的对象追加到results，返回追加的数量
+     */
+    public int queryRadius(float x, float y, float radius, List<GameObject> results) {
+        int before = results.size();
+        collectTarget = results;
+        try {
+            queryRadius(x, y, radius, collector);
+        } finally {
+            collectTarget = null;
+        }
+        return results.size() - before;
+    }
+
+    private boolean visitRadius(int level, int cellX, int cellY,
+                                float x, float y, float radiusSquared, SpatialVisitor visitor) {
+        int node = nodeIndex(level, cellX, cellY);
+        if (isEmpty(node)) {
+            return true;
+        }
+        if (level > 0 && nodeDistanceSquared(level, cellX, cellY, x, y) > radiusSquared) {
+            return true;
+        }
+        for (int e = nodeHeads[node]; e >= 0; e = entryNext[e]) {
+            if (entryDistanceSquared(e, x, y) > radiusSquared) {
+                continue;
+            }
+            GameObject obj = entryObjects[e];
+            if (obj.isActive() && !visitor.visit(obj)) {
+                return false;
+            }
+        }
+        if (level + 1 < maxDepth) {
+            int childX = cellX << 1;
+            int childY = cellY << 1;
+            for (int child = 0; child < 4; child++) {
+                if (!visitRadius(level + 1, childX + (child & 1), childY + (child >> 1),
+                        x, y, radiusSquared, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找离点最近的对象，没有对象时返回null
+     */
+    public GameObject nearest(float x, float y, Predicate<GameObject> filter) {
+        ensureUpdated();
+        heapSize = 0;
+        visitNearest(0, 0, 0, x, y, 1, filter);
+        GameObject result = heapSize > 0 ? heapObjects[0] : null;
+        heapObjects[0] = null;
+        heapSize = 0;
+        return result;
+    }
+
+    /**
+     * 查找离点最近的k个对象，按距离从近到远写入out，返回写入的数量
+     */
+    public int nearest(float x, float y, int k, GameObject[] out) {
+        return nearest(x, y, k, out, null);
+    }
+
+    /**
+     * 查找离点最近且通过过滤的k个对象，按距离从近到远写入out，返回写入的数量。
+     * 距离按点到包围盒计算，点在包围盒内时为0
+     */
+    public int nearest(float x, float y, int k, GameObject[] out, Predicate<GameObject> filter) {
+        k = Math.min(k, out.length);
+        if (k <= 0) {
+            return 0;
+        }
+        ensureUpdated();
+        ensureHeapCapacity(k);
+        heapSize = 0;
+        visitNearest(0, 0, 0, x, y, k, filter);
+        int count = heapSize;
+        // 依次弹出堆顶，从后向前写出
+        for (int i = count - 1; i >= 0; i--) {
+            out[i] = heapObjects[0];
+            heapSize--;
+            heapDistances[0] = heapDistances[heapSize];
+            heapObjects[0] = heapObjects[heapSize];
+            heapObjects[heapSize] = null;
+            siftDown(0);
+        }
+        return count;
+    }
+
+    private void visitNearest(int level, int cellX, int cellY, float x, float y, int k,
+                              Predicate<GameObject> filter) {
+        int node = nodeIndex(level, cellX, cellY);
+        if (isEmpty(node)) {
+            return;
+        }
+        if (level > 0 && heapSize == k && nodeDistanceSquared(level, cellX, cellY, x, y) >= heapDistances[0]) {
+            return;
+        }
+        for (int e = nodeHeads[node]; e >= 0; e = entryNext[e]) {
+            float distance = entryDistanceSquared(e, x, y);
+            if (heapSize == k && distance >= heapDistances[0]) {
+                continue;
+            }
+            GameObject obj = entryObjects[e];
+            if (!obj.isActive() || (filter != null && !filter.test(obj))) {
+                continue;
+            }
+            if (heapSize < k) {
+                heapDistances[heapSize] = distance;
+                heapObjects[heapSize] = obj;
+                siftUp(heapSize++);
+            } else {
+                heapDistances[0] = distance;
+                heapObjects[0] = obj;
+                siftDown(0);
+            }
+        }
+        if (level + 1 < maxDepth) {
+            // 先访问包含查询点的子节点，尽早收紧裁剪距离
+            float size = nodeSize(level);
+            int nearX = x >= rootX + (cellX + 0.5f) * size ? 1 : 0;
+            int nearY = y >= rootY + (cellY + 0.5f) * size ? 1 : 0;
+            int childX = cellX << 1;
+            int childY = cellY << 1;
+            for (int child = 0; child < 4; child++) {
+                visitNearest(level + 1, childX + ((child & 1) ^ nearX), childY + ((child >> 1) ^ nearY),
+                        x, y, k, filter);
+            }
+        }
+    }
+
+    private void siftUp(int index) {
+        float distance = heapDistances[index];
+        GameObject obj = heapObjects[index];
+        while (index > 0) {
+            int parent = (index - 1) >> 1;
+            if (heapDistances[parent] >= distance) {
+                break;
+            }
+            heapDistances[index] = heapDistances[parent];
+            heapObjects[index] = heapObjects[parent];
+            index = parent;
+        }
+        heapDistances[index] = distance;
+        heapObjects[index] = obj;
+    }
+
+    private void siftDown(int index) {
+        float distance = heapDistances[index];
+        GameObject obj = heapObjects[index];
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapDistances[child + 1] > heapDistances[child]) {
+                child++;
+            }
+            if (heapDistances[child] <= distance) {
+                break;
+            }
+            heapDistances[index] = heapDistances[child];
+            heapObjects[index] = heapObjects[child];
+            index = child;
+        }
+        heapDistances[index] = distance;
+        heapObjects[index] = obj;
+    }
+
+    /**
+     * 沿射线查找第一个包围盒，方向不需要归一化，命中时写入hit并返回true
+     */
+    public boolean raycast(float originX, float originY, float dirX, float dirY, float maxDistance,
+                           RaycastHit hit) {
+        return raycast(originX, originY, dirX, dirY, maxDistance, hit, null);
+    }
+
+    /**
+     * 沿射线查找第一个通过过滤的包围盒，方向不需要归一化，命中时写入hit并返回true
+     */
+    public boolean raycast(float originX, float originY, float dirX, float dirY, float maxDistance,
+                           RaycastHit hit, Predicate<GameObject> filter) {
+        hit.reset();
+        float length = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+        if (length == 0 || maxDistance < 0) {
+            return false;
+        }
+        ensureUpdated();
+        rayOriginX = originX;
+        rayOriginY = originY;
+        rayDirX = dirX / length;
+        rayDirY = dirY / length;
+        bestDistance = maxDistance;
+        bestEntry = -1;
+        visitRay(0, 0, 0, filter);
+        if (bestEntry < 0) {
+            return false;
+        }
+        hit.set(entryObjects[bestEntry], bestDistance,
+                originX + rayDirX * bestDistance, originY + rayDirY * bestDistance,
+                bestNormalX, bestNormalY);
+        return true;
+    }
+
+    private void visitRay(int level, int cellX, int cellY, Predicate<GameObject> filter) {
+        int node = nodeIndex(level, cellX, cellY);
+        if (isEmpty(node)) {
+            return;
+        }
+        if (level > 0) {
+            float size = nodeSize(level);
+            float half = size * 0.5f;
+            float nodeMinX = rootX + cellX * size - half;
+            float nodeMinY = rootY + cellY * size - half;
+            if (rayEnter(nodeMinX, nodeMinY, nodeMinX + size * 2, nodeMinY + size * 2) > bestDistance) {
+                return;
+            }
+        }
+        for (int e = nodeHeads[node]; e >= 0; e = entryNext[e]) {
+            float distance = rayEnter(entryMinX[e], entryMinY[e], entryMaxX[e], entryMaxY[e]);
+            if (distance > bestDistance || (distance == bestDistance && bestEntry >= 0)) {
+                continue;
+            }
+            GameObject obj = entryObjects[e];
+            if (!obj.isActive() || (filter != null && !filter.test(obj))) {
+                continue;
+            }
+            bestDistance = distance;
+            bestEntry = e;
+            bestNormalX = enterNormalX;
+            bestNormalY = enterNormalY;
+        }
+        if (level + 1 < maxDepth) {
+            // 按射线方向由近及远访问子节点
+            int flipX = rayDirX < 0 ? 1 : 0;
+            int flipY = rayDirY < 0 ? 1 : 0;
+            int childX = cellX << 1;
+            int childY = cellY << 1;
+            for (int child = 0; child < 4; child++) {
+                visitRay(level + 1, childX + ((child & 1) ^ flipX), childY + ((child >> 1) ^ flipY), filter);
+            }
+        }
+    }
+
+    /**
+     * 射线进入包围盒的距离，未命中时返回正无穷，同时记录进入面的法线
+     */
+    private float rayEnter(float minX, float minY, float maxX, float maxY) {
+        float enter = 0;
+        float exit = Float.POSITIVE_INFINITY;
+        enterNormalX = 0;
+        enterNormalY = 0;
+        if (rayDirX == 0) {
+            if (rayOriginX < minX || rayOriginX > maxX) {
+                return Float.POSITIVE_INFINITY;
+            }
+        } else {
+            float inverse = 1.0f / rayDirX;
+            float near = ((rayDirX > 0 ? minX : maxX) - rayOriginX) * inverse;
+            float far = ((rayDirX > 0 ? maxX : minX) - rayOriginX) * inverse;
+            if (near > enter) {
+                enter = near;
+                enterNormalX = rayDirX > 0 ? -1 : 1;
+            }
+            exit = Math.min(exit, far);
+        }
+        if (rayDirY == 0) {
+            if (rayOriginY < minY || rayOriginY > maxY) {
+                return Float.POSITIVE_INFINITY;
+            }
+        } else {
+            float inverse = 1.0f / rayDirY;
+            float near = ((rayDirY > 0 ? minY : maxY) - rayOriginY) * inverse;
+            float far = ((rayDirY > 0 ? maxY : minY) - rayOriginY) * inverse;
+            if (near > enter) {
+                enter = near;
+                enterNormalX = 0;
+                enterNormalY = rayDirY > 0 ? -1 : 1;
+            }
+            exit = Math.min(exit, far);
+        }
+        return enter <= exit ? enter : Float.POSITIVE_INFINITY;
+    }
+
+    private float nodeDistanceSquared(int level, int cellX, int cellY, float x, float y) {
+        float size = nodeSize(level);
+        float half = size * 0.5f;
+        float minX = rootX + cellX * size - half;
+        float minY = rootY + cellY * size - half;
+        return pointDistanceSquared(x, y, minX, minY, minX + size * 2, minY + size * 2);
+    }
+
+    private float entryDistanceSquared(int e, float x, float y) {
+        return pointDistanceSquared(x, y, entryMinX[e], entryMinY[e], entryMaxX[e], entryMaxY[e]);
+    }
+
+    private static float pointDistanceSquared(float x, float y, float minX, float minY, float maxX, float maxY) {
+        float dx = x < minX ? minX - x : (x > maxX ? x - maxX : 0);
+        float dy = y < minY ? minY - y : (y > maxY ? y - maxY : 0);
+        return dx * dx + dy * dy;
+    }
+
+    private void ensureEntryCapacity(int count) {
+        if (count <= entryObjects.length) {
+            return;
+        }
+        int capacity = Math.max(count, entryObjects.length * 2);
+        entryObjects = Arrays.copyOf(entryObjects, capacity);
+        entryMinX = Arrays.copyOf(entryMinX, capacity);
+        entryMinY = Arrays.copyOf(entryMinY, capacity);
+        entryMaxX = Arrays.copyOf(entryMaxX, capacity);
+        entryMaxY = Arrays.copyOf(entryMaxY, capacity);
+        entryWidth = Arrays.copyOf(entryWidth, capacity);
+        entryHeight = Arrays.copyOf(entryHeight, capacity);
+        entryNext = Arrays.copyOf(entryNext, capacity);
+        entryPrev = Arrays.copyOf(entryPrev, capacity);
+        entryNode = Arrays.copyOf(entryNode, capacity);
+        entryOutside = Arrays.copyOf(entryOutside, capacity);
+        AtomicIntegerArray marks = new AtomicIntegerArray(capacity);
+        for (int e = 0; e < entryCount; e++) {
+            marks.set(e, entryMarks.get(e));
+        }
+        entryMarks = marks;
+        entryMovedAt = Arrays.copyOf(entryMovedAt, capacity);
+        movedEntries = Arrays.copyOf(movedEntries, capacity);
+    }
+
+    private void ensureHeapCapacity(int k) {
+        if (k > heapDistances.length) {
+            heapDistances = new float[k];
+            heapObjects = new GameObject[k];
+        }
+    }
+
+    /**
+     * 当前索引中的对象数量
+     */
+    public int size() {
+        ensureUpdated();
+        return entryCount;
+    }
+
+    /**
+     * 四叉树层数
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+}
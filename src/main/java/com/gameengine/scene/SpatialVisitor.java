@@ -0,0 +1,14 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.GameObject;
+
+/**
+ * 空间查询回调，对每个命中的游戏对象调用一次
+ */
+@FunctionalInterface
+public interface SpatialVisitor {
+    /**
+     * 访问命中的游戏对象，返回false时停止查询
+     */
+    boolean visit(GameObject gameObject);
+}
@@ -0,0 +1,619 @@
+package com.gameengine.scene;
+
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.ComponentType;
+import com.gameengine.core.GameObject;
+import com.gameengine.core.GameSystem;
+import com.gameengine.graphics.Renderer;
+import com.gameengine.math.Vector2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分块的世界流式加载。世界按chunkSize划分成正方形区块，焦点周围loadRadius圈区块中的对象保留在场景中，
+ * 超出unloadRadius圈的对象记录成SceneSnapshot后销毁，由后台线程编码保存在内存中或写入存储目录。
+ * 焦点靠近时后台线程解码区块并创建对象，游戏线程每次更新最多加入activationBudget个，
+ * 一个区块的加载开销分摊到多次更新；超出范围的对象也是每次更新检查一部分，卸载同样分摊。
+ * 两个半径之间的间隔避免焦点在区块边界来回移动时反复加载卸载。
+ * 只管理通过addToWorld加入或由本系统加载的对象，对象按当前位置归属区块。
+ * 场景中的对象数量和每次更新的工作量取决于活动范围，与世界总大小无关。
+ * 加载出的对象和SceneSnapshot一样只保留变换、物理和渲染组件
+ */
+public class WorldStreamer extends GameSystem {
+    public static final int DEFAULT_ACTIVATION_BUDGET = 256;
+    // 每次更新至少检查的对象数，其余按SCAN_INTERVAL_TICKS次更新检查一遍全部对象来分摊
+    private static final int MIN_SCAN_PER_TICK = 64;
+    private static final int SCAN_INTERVAL_TICKS = 30;
+    private static final int TRANSFORM_ID = ComponentType.idOf(TransformComponent.class);
+
+    // 区块状态：STORED不在场景中，其余都视为在场景中
+    private static final int STORED = 0;
+    private static final int LOADING = 1;
+    private static final int ACTIVATING = 2;
+    private static final int ACTIVE = 3;
+
+    private final Scene scene;
+    private final Renderer renderer;
+    private final float chunkSize;
+    private final int loadRadius;
+    private final int unloadRadius;
+    private final Map<Long, Chunk> chunks;
+    private final List<Chunk> resident;
+    private final ArrayDeque<Chunk> activating;
+    // 不在场景中、等待记录成快照的对象，按区块分组，每次更新时每个区块生成一段
+    private final Map<Long, List<GameObject>> inbox;
+    // 扫描发现离开活动范围的对象，仍在场景中，一轮扫描结束后一起卸载，每个区块生成一段
+    private final Map<Long, List<GameObject>> unloading;
+    private final Queue<LoadResult> loaded;
+    private final ExecutorService loader;
+    private final Vector2 position;
+    private final AtomicLong storedBytes;
+    private Path storageDirectory;
+    private int activationBudget;
+    private GameObject focusTarget;
+    private float focusX;
+    private float focusY;
+    private boolean hasFocusChunk;
+    private int focusChunkX;
+    private int focusChunkY;
+
+    // 本系统管理的、在场景中的对象句柄
+    private long[] streamed;
+    private int streamedCount;
+    private int scanCursor;
+    private long segmentSequence;
+
+    private long chunksLoaded;
+    private long objectsActivated;
+    private long objectsUnloaded;
+
+    /**
+     * 焦点所在区块周围loadRadius圈内的区块被加载，超出unloadRadius圈的区块被卸载，
+     * 加载出的渲染组件使用renderer
+     */
+    public WorldStreamer(Scene scene, Renderer renderer, float chunkSize, int loadRadius, int unloadRadius) {
+        super("WorldStreamer");
+        if (!(chunkSize > 0.0f)) {
+            throw new IllegalArgumentException("区块大小必须为正数: " + chunkSize);
+        }
+        if (loadRadius < 0 || unloadRadius < loadRadius) {
+            throw new IllegalArgumentException("卸载半径不能小于加载半径: " + loadRadius + ", " + unloadRadius);
+        }
+        reads(TransformComponent.class);
+        exclusive();
+        this.scene = scene;
+        this.renderer = renderer;
+        this.chunkSize = chunkSize;
+        this.loadRadius = loadRadius;
+        this.unloadRadius = unloadRadius;
+        this.chunks = new HashMap<>();
+        this.resident = new ArrayList<>();
+        this.activating = new ArrayDeque<>();
+        this.inbox = new HashMap<>();
+        this.unloading = new HashMap<>();
+        this.loaded = new ConcurrentLinkedQueue<>();
+        this.loader = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "WorldStreamer-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.position = new Vector2();
+        this.storedBytes = new AtomicLong();
+        this.activationBudget = DEFAULT_ACTIVATION_BUDGET;
+        this.streamed = new long[256];
+    }
+
+    /**
+     * 把对象加入世界，对象必须有变换组件且不在任何场景中。
+     * 所在区块在场景中时对象立即加入场景，否则在本次或下一次更新时记录成快照并销毁，
+     * 之后由本系统按快照重新创建
+     */
+    public void addToWorld(GameObject obj) {
+        if (obj.getComponent(TRANSFORM_ID) == null) {
+            throw new IllegalArgumentException("流式加载的对象需要变换组件: " + obj.getName());
+        }
+        if (obj.getScene() != null || obj.getHandle() != EntityRegistry.NULL_HANDLE) {
+            throw new IllegalStateException("对象已在场景中: " + obj.getName());
+        }
+        long key = chunkKeyOf(obj);
+        Chunk chunk = chunks.get(key);
+        if (chunk != null && chunk.state != STORED) {
+            scene.addGameObject(obj);
+            track(obj.getHandle());
+        } else {
+            inbox.computeIfAbsent(key, k -> new ArrayList<>()).add(obj);
+        }
+    }
+
+    @Override
+    public void update(Scene scene, float deltaTime, CommandBuffer commands) {
+        storeInbox();
+        acceptLoaded();
+        updateFocus();
+        storeInbox();
+        if (scan()) {
+            storeUnloading();
+        }
+        activate();
+    }
+
+    /**
+     * 处理后台线程加载完的区块，加载失败或焦点已经远离的区块退回存储状态
+     */
+    private void acceptLoaded() {
+        LoadResult result;
+        while ((result = loaded.poll()) != null) {
+            Chunk chunk = result.chunk;
+            if (result.error != null) {
+                // 数据保留，焦点下一次进入新区块时重试
+                System.err.println("区块(" + chunk.x + ", " + chunk.y + ")加载失败，数据保留在存储中: " + result.error);
+            }
+            if (result.error != null || !hasFocusChunk || distance(chunk) > unloadRadius) {
+                result.segments.addAll(chunk.segments);
+                chunk.state = STORED;
+                chunk.segments = result.segments;
+                resident.remove(chunk);
+                continue;
+            }
+            chunk.state = ACTIVATING;
+            chunk.pending = result.objects;
+            chunk.pendingIndex = 0;
+            activating.add(chunk);
+            chunksLoaded++;
+            releaseSegments(result.segments);
+        }
+    }
+
+    /**
+     * 焦点进入新区块时卸载远处的区块并开始加载附近的区块
+     */
+    private void updateFocus() {
+        if (focusTarget != null && focusTarget.isActive()) {
+            TransformComponent transform = (TransformComponent) focusTarget.getComponent(TRANSFORM_ID);
+            if (transform != null) {
+                transform.getPosition(position);
+                focusX = position.x;
+                focusY = position.y;
+            }
+        }
+        int cx = chunkCoordinate(focusX);
+        int cy = chunkCoordinate(focusY);
+        if (hasFocusChunk && cx == focusChunkX && cy == focusChunkY) {
+            return;
+        }
+        hasFocusChunk = true;
+        focusChunkX = cx;
+        focusChunkY = cy;
+
+        // 场景中的对象由scan逐步卸载，还没有加入场景的对象直接放回存储
+        for (int i = resident.size() - 1; i >= 0; i--) {
+            Chunk chunk = resident.get(i);
+            if (chunk.state == LOADING || distance(chunk) <= unloadRadius) {
+                continue;
+            }
+            if (chunk.state == ACTIVATING) {
+                List<GameObject> objects = inbox.computeIfAbsent(chunk.key, k -> new ArrayList<>());
+                for (int j = chunk.pendingIndex; j < chunk.pending.length; j++) {
+                    objects.add(chunk.pending[j]);
+                }
+                chunk.pending = null;
+                activating.remove(chunk);
+            }
+            chunk.state = STORED;
+            resident.remove(i);
+        }
+
+        for (int y = cy - loadRadius; y <= cy + loadRadius; y++) {
+            for (int x = cx - loadRadius; x <= cx + loadRadius; x++) {
+                long key = chunkKey(x, y);
+                Chunk chunk = chunks.get(key);
+                if (chunk == null) {
+                    chunk = new Chunk(key, x, y);
+                    chunks.put(key, chunk);
+                } else if (chunk.state != STORED) {
+                    continue;
+                }
+                resident.add(chunk);
+                if (chunk.segments.isEmpty()) {
+                    chunk.state = ACTIVE;
+                } else {
+                    Chunk target = chunk;
+                    List<Segment> segments = chunk.segments;
+                    target.state = LOADING;
+                    target.segments = new ArrayList<>();
+                    loader.execute(() -> load(target, segments));
+                }
+            }
+        }
+    }
+
+    /**
+     * 检查一部分场景中的对象，移除已销毁的，所在区块不在场景中的放入卸载列表，
+     * 返回这次是否检查完了一轮
+     */
+    private boolean scan() {
+        int budget = Math.max(MIN_SCAN_PER_TICK, streamedCount / SCAN_INTERVAL_TICKS + 1);
+        boolean wrapped = false;
+        while (budget-- > 0) {
+            if (scanCursor >= streamedCount) {
+                scanCursor = 0;
+                wrapped = true;
+                if (streamedCount == 0) {
+                    break;
+                }
+            }
+            GameObject obj = scene.getGameObject(streamed[scanCursor]);
+            if (obj == null || !obj.isActive()) {
+                untrack(scanCursor);
+                continue;
+            }
+            if (obj.getComponent(TRANSFORM_ID) == null) {
+                scanCursor++;
+                continue;
+            }
+            long key = chunkKeyOf(obj);
+            Chunk chunk = chunks.get(key);
+            if (chunk != null && chunk.state != STORED) {
+                scanCursor++;
+                continue;
+            }
+            unloading.computeIfAbsent(key, k -> new ArrayList<>()).add(obj);
+            untrack(scanCursor);
+        }
+        return wrapped;
+    }
+
+    /**
+     * 卸载一轮扫描中发现的对象。扫描之后区块又回到场景中的，对象继续留在场景中
+     */
+    private void storeUnloading() {
+        if (unloading.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, List<GameObject>> entry : unloading.entrySet()) {
+            List<GameObject> objects = entry.getValue();
+            // 扫描之后被销毁的对象不再保存
+            objects.removeIf(obj -> !obj.isActive());
+            Chunk chunk = chunks.get(entry.getKey());
+            if (chunk != null && chunk.state != STORED) {
+                for (int i = 0; i < objects.size(); i++) {
+                    track(objects.get(i).getHandle());
+                }
+            } else if (!objects.isEmpty()) {
+                store(entry.getKey(), objects);
+            }
+        }
+        unloading.clear();
+    }
+
+    /**
+     * 把还没有加入场景的对象按区块记录成快照
+     */
+    private void storeInbox() {
+        if (inbox.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, List<GameObject>> entry : inbox.entrySet()) {
+            store(entry.getKey(), entry.getValue());
+        }
+        inbox.clear();
+    }
+
+    /**
+     * 把objects记录成快照作为区块的一段并销毁对象，编码和写入在后台线程进行
+     */
+    private void store(long key, List<GameObject> objects) {
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk(key, (int) (key >> 32), (int) key);
+            chunks.put(key, chunk);
+        }
+        SceneSnapshot snapshot = SceneSnapshot.capture(objects);
+        for (int i = 0; i < objects.size(); i++) {
+            objects.get(i).destroy();
+        }
+        objectsUnloaded += objects.size();
+        Segment segment = new Segment();
+        chunk.segments.add(segment);
+        Path file = storageDirectory != null
+                ? storageDirectory.resolve("chunk_" + chunk.x + "_" + chunk.y + "_" + (segmentSequence++) + ".bin")
+                : null;
+        loader.execute(() -> encode(segment, snapshot, file));
+    }
+
+    /**
+     * 把正在激活的区块中的对象加入场景，每次更新最多activationBudget个
+     */
+    private void activate() {
+        int budget = activationBudget;
+        while (budget > 0 && !activating.isEmpty()) {
+            Chunk chunk = activating.peek();
+            GameObject[] pending = chunk.pending;
+            int end = Math.min(pending.length, chunk.pendingIndex + budget);
+            for (int i = chunk.pendingIndex; i < end; i++) {
+                scene.addGameObject(pending[i]);
+                track(pending[i].getHandle());
+            }
+            budget -= end - chunk.pendingIndex;
+            objectsActivated += end - chunk.pendingIndex;
+            chunk.pendingIndex = end;
+            if (end == pending.length) {
+                chunk.pending = null;
+                chunk.state = ACTIVE;
+                activating.poll();
+            }
+        }
+    }
+
+    /**
+     * 后台线程：编码快照，有存储目录时写入文件
+     */
+    private void encode(Segment segment, SceneSnapshot snapshot, Path file) {
+        byte[] data = snapshot.toByteArray();
+        if (file != null) {
+            try {
+                Files.write(file, data);
+                segment.file = file;
+                return;
+            } catch (IOException e) {
+                System.err.println("区块写入失败，保留在内存中: " + e.getMessage());
+            }
+        }
+        segment.data = data;
+        storedBytes.addAndGet(data.length);
+    }
+
+    /**
+     * 后台线程：解码区块的所有段并创建对象。同一个线程先执行了这些段的编码任务。
+     * 无论成功与否都放入一个结果，区块不会停留在加载状态
+     */
+    private void load(Chunk chunk, List<Segment> segments) {
+        LoadResult result = new LoadResult(chunk, segments);
+        try {
+            GameObject[][] parts = new GameObject[segments.size()][];
+            int total = 0;
+            for (int i = 0; i < parts.length; i++) {
+                Segment segment = segments.get(i);
+                SceneSnapshot snapshot = segment.data != null
+                        ? SceneSnapshot.read(segment.data) : SceneSnapshot.read(segment.file);
+                parts[i] = snapshot.instantiate(renderer);
+                total += parts[i].length;
+            }
+            GameObject[] objects = parts.length == 1 ? parts[0] : new GameObject[total];
+            if (parts.length != 1) {
+                int n = 0;
+                for (GameObject[] part : parts) {
+                    System.arraycopy(part, 0, objects, n, part.length);
+                    n += part.length;
+                }
+            }
+            result.objects = objects;
+        } catch (IOException | RuntimeException e) {
+            result.error = e;
+        }
+        loaded.add(result);
+    }
+
+    /**
+     * 区块的对象已经交给场景，释放存储的数据
+     */
+    private void releaseSegments(List<Segment> segments) {
+        loader.execute(() -> {
+            for (Segment segment : segments) {
+                if (segment.data != null) {
+                    storedBytes.addAndGet(-segment.data.length);
+                    segment.data = null;
+                }
+                if (segment.file != null) {
+                    try {
+                        Files.deleteIfExists(segment.file);
+                    } catch (IOException e) {
+                        System.err.println("删除区块文件失败: " + e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private void track(long handle) {
+        if (streamedCount == streamed.length) {
+            streamed = Arrays.copyOf(streamed, streamedCount * 2);
+        }
+        streamed[streamedCount++] = handle;
+    }
+
+    /**
+     * 用最后一个句柄填补空位，扫描位置不变，下一次检查的就是填进来的句柄
+     */
+    private void untrack(int index) {
+        streamed[index] = streamed[--streamedCount];
+    }
+
+    private int distance(Chunk chunk) {
+        return Math.max(Math.abs(chunk.x - focusChunkX), Math.abs(chunk.y - focusChunkY));
+    }
+
+    private long chunkKeyOf(GameObject obj) {
+        ((TransformComponent) obj.getComponent(TRANSFORM_ID)).getPosition(position);
+        return chunkKey(chunkCoordinate(position.x), chunkCoordinate(position.y));
+    }
+
+    private int chunkCoordinate(float value) {
+        return (int) Math.floor(value / chunkSize);
+    }
+
+    private static long chunkKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 停止后台线程，已提交的编码和加载任务仍会执行完
+     */
+    public void shutdown() {
+        loader.shutdown();
+    }
+
+    /**
+     * 焦点跟随target的变换组件
+     */
+    public void setFocus(GameObject target) {
+        this.focusTarget = target;
+    }
+
+    /**
+     * 设置固定的焦点位置，同时停止跟随对象
+     */
+    public void setFocus(float x, float y) {
+        this.focusTarget = null;
+        this.focusX = x;
+        this.focusY = y;
+    }
+
+    /**
+     * 每次更新最多加入场景的对象数
+     */
+    public void setActivationBudget(int activationBudget) {
+        if (activationBudget <= 0) {
+            throw new IllegalArgumentException("每次加入的对象数必须为正数: " + activationBudget);
+        }
+        this.activationBudget = activationBudget;
+    }
+
+    /**
+     * 设置卸载区块的存储目录，之后卸载的区块写成文件，加载后删除；为null时保存在内存中
+     */
+    public void setStorageDirectory(Path storageDirectory) {
+        this.storageDirectory = storageDirectory;
+    }
+
+    // Getters
+    public float getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getActivationBudget() {
+        return activationBudget;
+    }
+
+    public Path getStorageDirectory() {
+        return storageDirectory;
+    }
+
+    /**
+     * 在场景中、正在加载或正在激活的区块数
+     */
+    public int getResidentChunkCount() {
+        return resident.size();
+    }
+
+    /**
+     * 记录过的区块数，包括在场景中的
+     */
+    public int getKnownChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * 本系统管理的、在场景中的对象数
+     */
+    public int getStreamedObjectCount() {
+        return streamedCount;
+    }
+
+    /**
+     * 后台线程正在加载的区块数，与getPendingActivationCount都为0时焦点附近已全部加载
+     */
+    public int getLoadingChunkCount() {
+        int count = 0;
+        for (int i = 0; i < resident.size(); i++) {
+            if (resident.get(i).state == LOADING) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 已加载但还没有加入场景的对象数
+     */
+    public int getPendingActivationCount() {
+        int count = 0;
+        for (Chunk chunk : activating) {
+            count += chunk.pending.length - chunk.pendingIndex;
+        }
+        return count;
+    }
+
+    /**
+     * 保存在内存中的区块数据字节数，由后台线程更新
+     */
+    public long getStoredBytes() {
+        return storedBytes.get();
+    }
+
+    public long getChunksLoaded() {
+        return chunksLoaded;
+    }
+
+    public long getObjectsActivated() {
+        return objectsActivated;
+    }
+
+    public long getObjectsUnloaded() {
+        return objectsUnloaded;
+    }
+
+    /**
+     * 区块只由游戏线程访问，段列表交给加载任务后由后台线程使用
+     */
+    private static final class Chunk {
+        final long key;
+        final int x;
+        final int y;
+        int state;
+        List<Segment> segments;
+        GameObject[] pending;
+        int pendingIndex;
+
+        Chunk(long key, int x, int y) {
+            this.key = key;
+            this.x = x;
+            this.y = y;
+            this.state = STORED;
+            this.segments = new ArrayList<>();
+        }
+    }
+
+    /**
+     * 一次卸载产生的数据，在内存中或文件中，只由后台线程读写
+     */
+    private static final class Segment {
+        byte[] data;
+        Path file;
+    }
+
+    private static final class LoadResult {
+        final Chunk chunk;
+        final List<Segment> segments;
+        GameObject[] objects;
+        Exception error;
+
+        LoadResult(Chunk chunk, List<Segment> segments) {
+            this.chunk = chunk;
+            this.segments = segments;
+        }
+    }
+}
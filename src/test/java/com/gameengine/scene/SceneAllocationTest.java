@@ -0,0 +1,123 @@
+package com.gameengine.scene;
+
+import com.gameengine.components.PhysicsComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.math.Vector2;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 稳定状态下的Scene.update不分配内存。两种存储模式都检查，
+ * 对象数超过一个并行块时原型存储走分块积分的路径。
+ * 场景使用专用的两线程池，单核机器上也会派发到工作线程，
+ * 分配量统计调用线程和池中所有工作线程
+ */
+class SceneAllocationTest {
+    private static final int WARMUP_TICKS = 2000;
+    private static final int MEASURED_TICKS = 500;
+    private static final float DELTA_TIME = 1.0f / 60.0f;
+
+    static Stream<Arguments> scenes() {
+        int large = Scene.DEFAULT_PARALLEL_CHUNK_SIZE * 4 + 100;
+        return Stream.of(
+                Arguments.of(Scene.StorageMode.OBJECT, 1000),
+                Arguments.of(Scene.StorageMode.OBJECT, large),
+                Arguments.of(Scene.StorageMode.ARCHETYPE, 1000),
+                Arguments.of(Scene.StorageMode.ARCHETYPE, large));
+    }
+
+    @ParameterizedTest
+    @MethodSource("scenes")
+    void steadyStateUpdateAllocatesNothing(Scene.StorageMode mode, int entityCount) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "JVM不支持按线程统计分配量");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        RecordingThreadFactory factory = new RecordingThreadFactory();
+        ForkJoinPool pool = new ForkJoinPool(2, factory, null, false);
+        try {
+            Scene scene = createScene(mode, entityCount);
+            scene.setParallelPool(pool);
+            for (int i = 0; i < WARMUP_TICKS; i++) {
+                scene.update(DELTA_TIME);
+            }
+            if (mode == Scene.StorageMode.ARCHETYPE && entityCount > Scene.DEFAULT_PARALLEL_CHUNK_SIZE) {
+                assertFalse(factory.workers.isEmpty(), "分块积分没有派发到工作线程");
+            }
+
+            long[] workerIds = factory.workerIds();
+            long[] workersBefore = new long[workerIds.length];
+            // 读取其他线程的统计会在调用线程上分配，先读工作线程，再读调用线程
+            for (int i = 0; i < workerIds.length; i++) {
+                workersBefore[i] = threads.getThreadAllocatedBytes(workerIds[i]);
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MEASURED_TICKS; i++) {
+                scene.update(DELTA_TIME);
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            for (int i = 0; i < workerIds.length; i++) {
+                allocated += threads.getThreadAllocatedBytes(workerIds[i]) - workersBefore[i];
+            }
+
+            assertEquals(workerIds.length, factory.workers.size(), "测量期间创建了新的工作线程");
+            assertEquals(0, allocated, mode + "模式" + entityCount + "个对象更新" + MEASURED_TICKS
+                    + "次在调用线程和" + workerIds.length + "个工作线程上分配的字节数");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Scene createScene(Scene.StorageMode mode, int entityCount) {
+        Random random = new Random(42L);
+        Scene scene = new Scene("Allocation", mode);
+        for (int i = 0; i < entityCount; i++) {
+            GameObject obj = new GameObject("Entity");
+            obj.addComponent(new TransformComponent(new Vector2(random.nextFloat() * 800, random.nextFloat() * 600)));
+            PhysicsComponent physics = obj.addComponent(new PhysicsComponent(1.0f));
+            physics.setVelocity(random.nextFloat() * 200 - 100, random.nextFloat() * 200 - 100);
+            physics.setFriction(1.0f);
+            scene.addGameObject(obj);
+        }
+        scene.initialize();
+        scene.update(0);
+        return scene;
+    }
+
+    /**
+     * 记录池创建的工作线程
+     */
+    private static final class RecordingThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        final List<ForkJoinWorkerThread> workers = new CopyOnWriteArrayList<>();
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            workers.add(worker);
+            return worker;
+        }
+
+        long[] workerIds() {
+            long[] ids = new long[workers.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = workers.get(i).getId();
+            }
+            return ids;
+        }
+    }
+}